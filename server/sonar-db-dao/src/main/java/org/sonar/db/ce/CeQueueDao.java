@@ -108,13 +108,45 @@ public class CeQueueDao implements Dao {
     return mapper(dbSession).countByStatusAndComponentUuid(status, componentUuid);
   }
 
+  /**
+   * Pending tasks which can be peeked, in ascending order of submission: the oldest pending task of each component
+   * which has no task in progress, and the oldest of the pending tasks which are not related to any component.
+   *
+   * @param limit maximum number of returned tasks, which are the oldest ones
+   */
+  public List<CeQueueDto> selectEligibleForPeek(DbSession session, int limit) {
+    return mapper(session).selectEligibleForPeek(new RowBounds(0, limit));
+  }
+
+  /**
+   * Statistics of the pending tasks, grouped by component.
+   *
+   * @param componentUuid if not {@code null}, only the pending tasks of this component are considered
+   */
+  public List<CeQueuePendingStatsDto> selectPendingStats(DbSession session, @Nullable String componentUuid) {
+    return mapper(session).selectPendingStats(componentUuid);
+  }
+
+  /**
+   * Peeks the oldest of the tasks which can be peeked.
+   *
+   * @see #selectEligibleForPeek(DbSession, int)
+   */
   public Optional<CeQueueDto> peek(DbSession session) {
-    List<String> taskUuids = mapper(session).selectEligibleForPeek(ONE_ROW_LIMIT);
-    if (taskUuids.isEmpty()) {
+    List<CeQueueDto> eligibleTasks = mapper(session).selectEligibleForPeek(ONE_ROW_LIMIT);
+    if (eligibleTasks.isEmpty()) {
       return Optional.absent();
     }
 
-    String taskUuid = taskUuids.get(0);
+    return tryToPeek(session, eligibleTasks.get(0).getUuid());
+  }
+
+  /**
+   * Peeks the specified task, which should have been returned by {@link #selectEligibleForPeek(DbSession, int)}.
+   *
+   * @return the task, or absent if it is not pending anymore (peeked by another worker or canceled)
+   */
+  public Optional<CeQueueDto> peek(DbSession session, String taskUuid) {
     return tryToPeek(session, taskUuid);
   }
 
@@ -35,7 +35,9 @@ public interface CeQueueMapper {
 
   int countByQuery(@Param("query") CeTaskQuery query);
 
-  List<String> selectEligibleForPeek(RowBounds rowBounds);
+  List<CeQueueDto> selectEligibleForPeek(RowBounds rowBounds);
+
+  List<CeQueuePendingStatsDto> selectPendingStats(@Nullable @Param("componentUuid") String componentUuid);
 
   @CheckForNull
   CeQueueDto selectByUuid(@Param("uuid") String uuid);
@@ -111,13 +111,12 @@ public class MeasureDao implements Dao {
     return mapper(dbSession).selectTreeByQuery(query, baseComponent.uuid(), query.getUuidPath(baseComponent));
   }
 
-  public List<PastMeasureDto> selectPastMeasures(DbSession dbSession, String componentUuid, String analysisUuid, Collection<Integer> metricIds) {
-    if (metricIds.isEmpty()) {
-      return emptyList();
-    }
-    return executeLargeInputs(
-      metricIds,
-      ids -> mapper(dbSession).selectPastMeasuresOnSingleAnalysis(componentUuid, analysisUuid, ids));
+  /**
+   * Streams the measures of all the components of an analysis, as {@link PastMeasureDto}, in a single query.
+   * Measures on developers are excluded.
+   */
+  public void selectPastMeasures(DbSession dbSession, String analysisUuid, ResultHandler resultHandler) {
+    mapper(dbSession).selectPastMeasuresOnAnalysis(analysisUuid, resultHandler);
   }
 
   /**
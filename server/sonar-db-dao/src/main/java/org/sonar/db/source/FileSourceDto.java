@@ -52,6 +52,7 @@ public class FileSourceDto {
   private String dataType;
   private String dataHash;
   private String revision;
+  private String inputsHash;
 
   public Long getId() {
     return id;
@@ -254,6 +255,20 @@ public class FileSourceDto {
     return this;
   }
 
+  @CheckForNull
+  public String getInputsHash() {
+    return inputsHash;
+  }
+
+  /**
+   * Hash of all the data of the analysis report from which {@link #getBinaryData()} is computed. Value is computed by
+   * the Compute Engine and allows to skip the computation of the file data when it did not change.
+   */
+  public FileSourceDto setInputsHash(@Nullable String inputsHash) {
+    this.inputsHash = inputsHash;
+    return this;
+  }
+
   public long getCreatedAt() {
     return createdAt;
   }
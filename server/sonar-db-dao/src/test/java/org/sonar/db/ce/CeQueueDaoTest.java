@@ -36,6 +36,7 @@ import static com.google.common.collect.FluentIterable.from;
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.db.ce.CeQueueDto.Status.IN_PROGRESS;
 import static org.sonar.db.ce.CeQueueDto.Status.PENDING;
 import static org.sonar.db.ce.CeQueueTesting.newCeQueueDto;
@@ -182,6 +183,78 @@ public class CeQueueDaoTest {
     assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_2);
   }
 
+  @Test
+  public void selectEligibleForPeek_returns_oldest_pending_task_of_each_component_without_task_in_progress() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 1_000);
+    insert(TASK_UUID_2, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 2_000);
+    insert(TASK_UUID_3, COMPONENT_UUID_2, PENDING);
+    system2.setNow(INIT_TIME + 3_000);
+    insert("TASK_4", "PROJECT_3", IN_PROGRESS);
+    insert("TASK_5", "PROJECT_3", PENDING);
+    insert("TASK_6", null, PENDING);
+    insert("TASK_7", null, PENDING);
+
+    assertThat(underTest.selectEligibleForPeek(db.getSession(), 10))
+      .extracting(CeQueueDto::getUuid)
+      .containsExactly(TASK_UUID_1, TASK_UUID_3, "TASK_6");
+  }
+
+  @Test
+  public void selectEligibleForPeek_returns_the_oldest_tasks_up_to_limit() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    system2.setNow(INIT_TIME + 1_000);
+    insert(TASK_UUID_2, COMPONENT_UUID_2, PENDING);
+    system2.setNow(INIT_TIME + 2_000);
+    insert(TASK_UUID_3, "PROJECT_3", PENDING);
+
+    assertThat(underTest.selectEligibleForPeek(db.getSession(), 2))
+      .extracting(CeQueueDto::getUuid)
+      .containsExactly(TASK_UUID_1, TASK_UUID_2);
+  }
+
+  @Test
+  public void peek_specified_task_only_if_still_pending() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    insert(TASK_UUID_2, COMPONENT_UUID_2, PENDING);
+
+    Optional<CeQueueDto> peek = underTest.peek(db.getSession(), TASK_UUID_2);
+    assertThat(peek.get().getUuid()).isEqualTo(TASK_UUID_2);
+    assertThat(peek.get().getStatus()).isEqualTo(IN_PROGRESS);
+    verifyCeQueueStatuses(TASK_UUID_1, PENDING, TASK_UUID_2, IN_PROGRESS);
+
+    // already peeked
+    assertThat(underTest.peek(db.getSession(), TASK_UUID_2).isPresent()).isFalse();
+    // does not exist
+    assertThat(underTest.peek(db.getSession(), "UNKNOWN").isPresent()).isFalse();
+  }
+
+  @Test
+  public void selectPendingStats_groups_pending_tasks_by_component() {
+    insert(newCeQueueDto(TASK_UUID_1).setComponentUuid(COMPONENT_UUID_1).setSubmitterLogin("henri").setStatus(PENDING)
+      .setCreatedAt(100_000L).setUpdatedAt(100_000L));
+    insert(newCeQueueDto(TASK_UUID_2).setComponentUuid(COMPONENT_UUID_1).setSubmitterLogin("paul").setStatus(PENDING)
+      .setCreatedAt(200_000L).setUpdatedAt(200_000L));
+    insert(newCeQueueDto(TASK_UUID_3).setComponentUuid(COMPONENT_UUID_2).setSubmitterLogin(null).setStatus(PENDING)
+      .setCreatedAt(300_000L).setUpdatedAt(300_000L));
+    // in progress, ignored
+    insert(newCeQueueDto("TASK_4").setComponentUuid(COMPONENT_UUID_2).setSubmitterLogin("henri").setStatus(IN_PROGRESS)
+      .setCreatedAt(50_000L).setUpdatedAt(50_000L));
+
+    List<CeQueuePendingStatsDto> stats = underTest.selectPendingStats(db.getSession(), null);
+
+    assertThat(stats)
+      .extracting(CeQueuePendingStatsDto::getComponentUuid, CeQueuePendingStatsDto::getPendingCount, CeQueuePendingStatsDto::getOldestCreatedAt)
+      .containsOnly(
+        tuple(COMPONENT_UUID_1, 2, 100_000L),
+        tuple(COMPONENT_UUID_2, 1, 300_000L));
+    assertThat(underTest.selectPendingStats(db.getSession(), COMPONENT_UUID_2))
+      .extracting(CeQueuePendingStatsDto::getComponentUuid)
+      .containsExactly(COMPONENT_UUID_2);
+    assertThat(underTest.selectPendingStats(db.getSession(), "PROJECT_3")).isEmpty();
+  }
+
   @Test
   public void select_by_query() {
     // task status not in query
@@ -314,7 +387,7 @@ public class CeQueueDaoTest {
     db.commit();
   }
 
-  private void insert(String uuid, String componentUuid, CeQueueDto.Status status) {
+  private void insert(String uuid, @Nullable String componentUuid, CeQueueDto.Status status) {
     CeQueueDto dto = new CeQueueDto();
     dto.setUuid(uuid);
     dto.setTaskType(CeTaskTypes.REPORT);
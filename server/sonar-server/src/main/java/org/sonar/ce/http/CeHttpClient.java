@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import okhttp3.OkHttpClient;
 import okhttp3.RequestBody;
 import org.apache.commons.io.IOUtils;
@@ -42,6 +43,7 @@ public class CeHttpClient {
 
   private static final String PATH_CHANGE_LOG_LEVEL = "changeLogLevel";
   private static final String PATH_SYSTEM_INFO = "systemInfo";
+  private static final String PATH_WAKE_UP_WORKERS = "wakeUpWorkers";
 
   private final File ipcSharedDir;
 
@@ -119,6 +121,50 @@ public class CeHttpClient {
     }
   }
 
+  /**
+   * Requests the idle workers of the Compute Engine to poll the queue immediately. Does nothing if the Compute Engine
+   * is not up.
+   */
+  public void wakeUpWorkers() {
+    call(WakeUpWorkersActionClient.INSTANCE);
+  }
+
+  private enum WakeUpWorkersActionClient implements ActionClient<Void> {
+    INSTANCE;
+
+    // the Compute Engine polls the queue anyway, there's no need to wait long for it
+    private static final long TIMEOUT_MS = 1_000L;
+
+    @Override
+    public String getPath() {
+      return PATH_WAKE_UP_WORKERS;
+    }
+
+    @Override
+    public Void getDefault() {
+      return null;
+    }
+
+    @Override
+    public Void call(String url) throws Exception {
+      okhttp3.Request request = new okhttp3.Request.Builder()
+        .post(RequestBody.create(null, new byte[0]))
+        .url(url)
+        .build();
+      OkHttpClient client = new OkHttpClient.Builder()
+        .connectTimeout(TIMEOUT_MS, TimeUnit.MILLISECONDS)
+        .readTimeout(TIMEOUT_MS, TimeUnit.MILLISECONDS)
+        .build();
+      try (okhttp3.Response response = client.newCall(request).execute()) {
+        if (response.code() != 200) {
+          throw new IOException(
+            String.format("Failed to wake up workers of Compute Engine. Code was '%s' for url '%s'", response.code(), url));
+        }
+      }
+      return null;
+    }
+  }
+
   private <T> T call(ActionClient<T> actionClient) {
     try (DefaultProcessCommands commands = DefaultProcessCommands.secondary(ipcSharedDir, COMPUTE_ENGINE.getIpcIndex())) {
       if (commands.isUp()) {
@@ -0,0 +1,51 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.http;
+
+import java.util.Collection;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.queue.CeQueueListener;
+import org.sonar.ce.queue.CeTask;
+
+/**
+ * Notifies the Compute Engine process of tasks submitted by the Web Server, so that its idle workers don't wait for
+ * their next polling of the queue to process them.
+ */
+public class WakeUpCeWorkersListener implements CeQueueListener {
+
+  private static final Logger LOG = Loggers.get(WakeUpCeWorkersListener.class);
+
+  private final CeHttpClient ceHttpClient;
+
+  public WakeUpCeWorkersListener(CeHttpClient ceHttpClient) {
+    this.ceHttpClient = ceHttpClient;
+  }
+
+  @Override
+  public void onSubmit(Collection<CeTask> tasks) {
+    try {
+      ceHttpClient.wakeUpWorkers();
+    } catch (RuntimeException e) {
+      // tasks will be processed on next polling of the queue by the Compute Engine
+      LOG.debug("Failed to wake up workers of Compute Engine", e);
+    }
+  }
+}
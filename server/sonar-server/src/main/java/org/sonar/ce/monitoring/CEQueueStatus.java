@@ -61,6 +61,17 @@ public interface CEQueueStatus {
    */
   long addError(long processingTime);
 
+  /**
+   * Adds the specified time to the counter of time spent by tasks in queue before their processing started.
+   *
+   * @param waitingTime duration between submission and start of processing of a task, in ms
+   *
+   * @see #getWaitingTime()
+   *
+   * @throws IllegalArgumentException if waitingTime is < 0
+   */
+  void addWaitingTime(long waitingTime);
+
   /**
    * Count of batch reports waiting for processing since startup, including reports received before instance startup.
    */
@@ -85,4 +96,9 @@ public interface CEQueueStatus {
    * Time spent processing batch reports since startup, in milliseconds.
    */
   long getProcessingTime();
+
+  /**
+   * Time spent by tasks in queue before their processing started, since startup, in milliseconds.
+   */
+  long getWaitingTime();
 }
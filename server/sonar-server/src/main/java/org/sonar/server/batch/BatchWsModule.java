@@ -29,6 +29,7 @@ public class BatchWsModule extends Module {
       ProjectAction.class,
       ProjectDataLoader.class,
       IssuesAction.class,
+      IssuesResponseCache.class,
       UsersAction.class,
       IndexAction.class,
       FileAction.class,
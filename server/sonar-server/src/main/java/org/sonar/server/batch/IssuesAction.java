@@ -19,11 +19,18 @@
  */
 package org.sonar.server.batch;
 
+import com.google.common.net.HttpHeaders;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.CheckForNull;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.sonar.api.resources.Scopes;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
@@ -31,6 +38,7 @@ import org.sonar.api.server.ws.WebService;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.SnapshotDto;
 import org.sonar.scanner.protocol.input.ScannerInput;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.issue.index.IssueDoc;
@@ -39,6 +47,7 @@ import org.sonar.server.user.UserSession;
 import org.sonarqube.ws.MediaTypes;
 
 import static com.google.common.collect.Maps.newHashMap;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 import static org.sonar.api.web.UserRole.USER;
 import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
 
@@ -50,18 +59,22 @@ public class IssuesAction implements BatchWsAction {
   private final IssueIndex issueIndex;
   private final UserSession userSession;
   private final ComponentFinder componentFinder;
+  private final IssuesResponseCache responseCache;
 
-  public IssuesAction(DbClient dbClient, IssueIndex issueIndex, UserSession userSession, ComponentFinder componentFinder) {
+  public IssuesAction(DbClient dbClient, IssueIndex issueIndex, UserSession userSession, ComponentFinder componentFinder, IssuesResponseCache responseCache) {
     this.dbClient = dbClient;
     this.issueIndex = issueIndex;
     this.userSession = userSession;
     this.componentFinder = componentFinder;
+    this.responseCache = responseCache;
   }
 
   @Override
   public void define(WebService.NewController controller) {
     WebService.NewAction action = controller.createAction("issues")
-      .setDescription("Return open issues")
+      .setDescription("Return open issues.<br/>" +
+        "The response has an ETag header, which changes when issues are created, updated or closed, or when the component is analyzed. " +
+        "Requests with the header If-None-Match set to the current ETag get an empty response with status 304.")
       .setResponseExample(getClass().getResource("issues-example.proto"))
       .setSince("5.1")
       .setInternal(true)
@@ -76,22 +89,62 @@ public class IssuesAction implements BatchWsAction {
 
   @Override
   public void handle(Request request, Response response) throws Exception {
-    response.stream().setMediaType(MediaTypes.PROTOBUF);
-
     try (DbSession session = dbClient.openSession(false)) {
       String componentKey = request.mandatoryParam(PARAM_KEY);
       ComponentDto component = componentFinder.getByKey(session, componentKey);
       userSession.checkComponentPermission(USER, component);
 
       Map<String, String> keysByUUid = keysByUUid(session, component);
+      String etag = etag(session, component, keysByUUid);
+      response.setHeader(HttpHeaders.ETAG, etag);
+      // allow clients to store the response, as long as they revalidate it
+      response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+      if (isNotModified(request, etag)) {
+        response.stream().setStatus(HTTP_NOT_MODIFIED);
+        return;
+      }
+
+      response.stream().setMediaType(MediaTypes.PROTOBUF);
+      byte[] cachedResponse = responseCache.get(component.uuid(), etag);
+      if (cachedResponse != null) {
+        response.stream().output().write(cachedResponse);
+        return;
+      }
 
+      RecordingOutputStream output = new RecordingOutputStream(response.stream().output(), responseCache.getMaxResponseSize());
       ScannerInput.ServerIssue.Builder issueBuilder = ScannerInput.ServerIssue.newBuilder();
       for (Iterator<IssueDoc> issueDocIterator = issueIndex.selectIssuesForBatch(component); issueDocIterator.hasNext();) {
-        handleIssue(issueDocIterator.next(), issueBuilder, keysByUUid, response.stream().output());
+        handleIssue(issueDocIterator.next(), issueBuilder, keysByUUid, output);
+      }
+      byte[] recorded = output.recorded();
+      if (recorded != null) {
+        responseCache.put(component.uuid(), etag, recorded);
       }
     }
   }
 
+  /**
+   * The ETag depends on the issues, the last analysis of the project and the keys of the modules, which are part of
+   * the response
+   */
+  private String etag(DbSession session, ComponentDto component, Map<String, String> keysByUUid) {
+    String lastAnalysisUuid = dbClient.snapshotDao().selectLastAnalysisByRootComponentUuid(session, component.projectUuid())
+      .map(SnapshotDto::getUuid)
+      .orElse("");
+    StringBuilder version = new StringBuilder()
+      .append(component.uuid()).append('|')
+      .append(lastAnalysisUuid).append('|')
+      .append(issueIndex.selectIssuesForBatchVersion(component));
+    new TreeMap<>(keysByUUid).forEach((uuid, key) -> version.append('|').append(uuid).append('=').append(key));
+    return '"' + DigestUtils.md5Hex(version.toString()) + '"';
+  }
+
+  private static boolean isNotModified(Request request, String etag) {
+    return request.header(HttpHeaders.IF_NONE_MATCH)
+      .map(values -> Arrays.stream(values.split(",")).map(String::trim).anyMatch(etag::equals))
+      .orElse(false);
+  }
+
   private static void handleIssue(IssueDoc issue, ScannerInput.ServerIssue.Builder issueBuilder, Map<String, String> keysByUUid, OutputStream out) {
     issueBuilder.setKey(issue.key());
     issueBuilder.setModuleKey(keysByUUid.get(issue.moduleUuid()));
@@ -150,4 +203,46 @@ public class IssuesAction implements BatchWsAction {
     }
     return keysByUUid;
   }
+
+  /**
+   * Copies the bytes written to the response, as long as they do not exceed the maximum size
+   */
+  private static class RecordingOutputStream extends FilterOutputStream {
+    private final int maxRecordedSize;
+    @CheckForNull
+    private ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+
+    private RecordingOutputStream(OutputStream out, int maxRecordedSize) {
+      super(out);
+      this.maxRecordedSize = maxRecordedSize;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      record(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      record(b, off, len);
+    }
+
+    private void record(byte[] b, int off, int len) {
+      if (recorded == null) {
+        return;
+      }
+      if (recorded.size() + len > maxRecordedSize) {
+        recorded = null;
+      } else {
+        recorded.write(b, off, len);
+      }
+    }
+
+    @CheckForNull
+    byte[] recorded() {
+      return recorded == null ? null : recorded.toByteArray();
+    }
+  }
 }
@@ -0,0 +1,92 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.batch;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+
+/**
+ * Serialized responses of {@link IssuesAction}, per component and version of its issues. Only the last version of
+ * each component is kept. When the total size of the responses exceeds the limit, the least recently used ones
+ * are evicted.
+ */
+public class IssuesResponseCache {
+
+  private static final long DEFAULT_MAX_SIZE = 32L * 1024 * 1024;
+  private static final int DEFAULT_MAX_RESPONSE_SIZE = 4 * 1024 * 1024;
+
+  private final long maxSize;
+  private final int maxResponseSize;
+  private final LinkedHashMap<String, CachedResponse> responsesByComponentUuid = new LinkedHashMap<>(16, 0.75f, true);
+  private long size = 0L;
+
+  public IssuesResponseCache() {
+    this(DEFAULT_MAX_SIZE, DEFAULT_MAX_RESPONSE_SIZE);
+  }
+
+  IssuesResponseCache(long maxSize, int maxResponseSize) {
+    this.maxSize = maxSize;
+    this.maxResponseSize = maxResponseSize;
+  }
+
+  /**
+   * Responses greater than this size are not cached
+   */
+  public int getMaxResponseSize() {
+    return maxResponseSize;
+  }
+
+  @CheckForNull
+  public synchronized byte[] get(String componentUuid, String version) {
+    CachedResponse response = responsesByComponentUuid.get(componentUuid);
+    if (response == null || !response.version.equals(version)) {
+      return null;
+    }
+    return response.bytes;
+  }
+
+  public synchronized void put(String componentUuid, String version, byte[] bytes) {
+    if (bytes.length > maxResponseSize) {
+      return;
+    }
+    CachedResponse previous = responsesByComponentUuid.put(componentUuid, new CachedResponse(version, bytes));
+    if (previous != null) {
+      size -= previous.bytes.length;
+    }
+    size += bytes.length;
+    Iterator<Map.Entry<String, CachedResponse>> eldest = responsesByComponentUuid.entrySet().iterator();
+    while (size > maxSize && eldest.hasNext()) {
+      size -= eldest.next().getValue().bytes.length;
+      eldest.remove();
+    }
+  }
+
+  private static class CachedResponse {
+    private final String version;
+    private final byte[] bytes;
+
+    private CachedResponse(String version, byte[] bytes) {
+      this.version = version;
+      this.bytes = bytes;
+    }
+  }
+}
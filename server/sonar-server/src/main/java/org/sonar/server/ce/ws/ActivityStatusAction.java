@@ -20,20 +20,27 @@
 package org.sonar.server.ce.ws;
 
 import com.google.common.base.Optional;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.sonar.api.server.ws.Change;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
+import org.sonar.api.utils.System2;
 import org.sonar.api.web.UserRole;
 import org.sonar.core.util.Uuids;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeQueuePendingStatsDto;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.user.UserSession;
 import org.sonar.server.ws.KeyExamples;
 import org.sonarqube.ws.WsCe.ActivityStatusWsResponse;
+import org.sonarqube.ws.WsCe.QueueShare;
 import org.sonarqube.ws.client.ce.ActivityStatusWsRequest;
 
 import static org.sonar.server.component.ComponentFinder.ParamNames.COMPONENT_ID_AND_KEY;
@@ -45,11 +52,13 @@ public class ActivityStatusAction implements CeWsAction {
   private final UserSession userSession;
   private final DbClient dbClient;
   private final ComponentFinder componentFinder;
+  private final System2 system2;
 
-  public ActivityStatusAction(UserSession userSession, DbClient dbClient, ComponentFinder componentFinder) {
+  public ActivityStatusAction(UserSession userSession, DbClient dbClient, ComponentFinder componentFinder, System2 system2) {
     this.userSession = userSession;
     this.dbClient = dbClient;
     this.componentFinder = componentFinder;
+    this.system2 = system2;
   }
 
   @Override
@@ -57,8 +66,10 @@ public class ActivityStatusAction implements CeWsAction {
     WebService.NewAction action = controller
       .createAction("activity_status")
       .setDescription("Return CE activity related metrics.<br>" +
+        "Pending tasks are also detailed by component, as the tasks of the different components get the workers of the Compute Engine in turn.<br>" +
         "Requires 'Administer System' permission or 'Administer' rights on the specified project.")
       .setSince("5.5")
+      .setChangelog(new Change("6.4", "Fields 'pendingTime' and 'shares' have been added to the response"))
       .setResponseExample(getClass().getResource("activity_status-example.json"))
       .setInternal(true)
       .setHandler(this);
@@ -84,14 +95,39 @@ public class ActivityStatusAction implements CeWsAction {
       checkPermissions(component);
       int pendingCount = dbClient.ceQueueDao().countByStatusAndComponentUuid(dbSession, CeQueueDto.Status.PENDING, componentUuid);
       int failingCount = dbClient.ceActivityDao().countLastByStatusAndComponentUuid(dbSession, CeActivityDto.Status.FAILED, componentUuid);
+      List<QueueShare> shares = toShares(dbClient.ceQueueDao().selectPendingStats(dbSession, componentUuid));
 
-      return ActivityStatusWsResponse.newBuilder()
+      ActivityStatusWsResponse.Builder response = ActivityStatusWsResponse.newBuilder()
         .setPending(pendingCount)
         .setFailing(failingCount)
-        .build();
+        .addAllShares(shares);
+      shares.stream().mapToLong(QueueShare::getPendingTime).max().ifPresent(response::setPendingTime);
+      return response.build();
     }
   }
 
+  /**
+   * Shares ordered from the one which waits for the longest time
+   */
+  private List<QueueShare> toShares(List<CeQueuePendingStatsDto> pendingStats) {
+    long now = system2.now();
+    return pendingStats.stream()
+      .map(stats -> toShare(stats, now))
+      .sorted(Comparator.comparingLong(QueueShare::getPendingTime).reversed())
+      .collect(Collectors.toList());
+  }
+
+  private static QueueShare toShare(CeQueuePendingStatsDto stats, long now) {
+    QueueShare.Builder share = QueueShare.newBuilder()
+      .setPending(stats.getPendingCount())
+      .setPendingTime(Math.max(0L, now - stats.getOldestCreatedAt()));
+    String componentUuid = stats.getComponentUuid();
+    if (componentUuid != null) {
+      share.setComponentId(componentUuid);
+    }
+    return share.build();
+  }
+
   private Optional<ComponentDto> searchComponent(DbSession dbSession, ActivityStatusWsRequest request) {
     ComponentDto component = null;
     if (hasComponentInRequest(request)) {
@@ -31,4 +31,17 @@ public interface CeConfiguration {
    * when previous one had nothing to do.
    */
   long getQueuePollingDelay();
+
+  /**
+   * The maximum delay in milliseconds before calling another {@link org.sonar.server.computation.taskprocessor.CeWorkerCallable}
+   * when previous ones had nothing to do. The delay grows from {@link #getQueuePollingDelay()} up to this value as long
+   * as the queue is empty, idle workers being woken up as soon as tasks are submitted.
+   */
+  long getQueueMaxPollingDelay();
+
+  /**
+   * The maximum number of {@link org.sonar.server.computation.task.step.ConcurrentComputationStep} of a single CeTask
+   * to be executed concurrently. {@code 1} means steps are executed sequentially.
+   */
+  int getStepConcurrency();
 }
@@ -30,48 +30,61 @@ import static java.lang.String.format;
 
 /**
  * Immutable implementation of {@link CeConfiguration} which takes value returned by
- * {@link CeConfiguration#getWorkerCount()} from property {@link CeConfigurationImpl#CE_WORKERS_COUNT_PROPERTY} and
- * always returns {@link #DEFAULT_QUEUE_POLLING_DELAY} when {@link CeConfiguration#getQueuePollingDelay()} is called.
+ * {@link CeConfiguration#getWorkerCount()} from property {@link CeConfigurationImpl#CE_WORKERS_COUNT_PROPERTY}, the value
+ * returned by {@link CeConfiguration#getStepConcurrency()} from property {@link CeConfigurationImpl#CE_STEP_CONCURRENCY_PROPERTY} and
+ * always returns {@link #DEFAULT_QUEUE_POLLING_DELAY} when {@link CeConfiguration#getQueuePollingDelay()} is called and
+ * {@link #DEFAULT_QUEUE_MAX_POLLING_DELAY} when {@link CeConfiguration#getQueueMaxPollingDelay()} is called.
  */
 public class CeConfigurationImpl implements CeConfiguration, Startable {
   public static final String CE_WORKERS_COUNT_PROPERTY = "sonar.ce.workerCount";
+  public static final String CE_STEP_CONCURRENCY_PROPERTY = "sonar.ce.stepConcurrency";
 
   private static final Logger LOG = Loggers.get(CeConfigurationImpl.class);
 
   @VisibleForTesting
   protected static final int DEFAULT_WORKER_COUNT = 1;
+  @VisibleForTesting
+  protected static final int DEFAULT_STEP_CONCURRENCY = 1;
   // 2 seconds
   @VisibleForTesting
   protected static final long DEFAULT_QUEUE_POLLING_DELAY = 2 * 1000L;
+  // 10 seconds
+  @VisibleForTesting
+  protected static final long DEFAULT_QUEUE_MAX_POLLING_DELAY = 10 * 1000L;
 
   private final int workerCount;
+  private final int stepConcurrency;
 
   public CeConfigurationImpl(Settings settings) {
-    String workerCountAsStr = settings.getString(CE_WORKERS_COUNT_PROPERTY);
-    if (workerCountAsStr == null || workerCountAsStr.isEmpty()) {
-      this.workerCount = DEFAULT_WORKER_COUNT;
-    } else {
-      this.workerCount = parseStringValue(workerCountAsStr);
+    this.workerCount = readPositiveInt(settings, CE_WORKERS_COUNT_PROPERTY, DEFAULT_WORKER_COUNT);
+    this.stepConcurrency = readPositiveInt(settings, CE_STEP_CONCURRENCY_PROPERTY, DEFAULT_STEP_CONCURRENCY);
+  }
+
+  private static int readPositiveInt(Settings settings, String propertyKey, int defaultValue) {
+    String valueAsStr = settings.getString(propertyKey);
+    if (valueAsStr == null || valueAsStr.isEmpty()) {
+      return defaultValue;
     }
+    return parseStringValue(valueAsStr, propertyKey);
   }
 
-  private static int parseStringValue(String workerCountAsStr) {
+  private static int parseStringValue(String valueAsStr, String propertyKey) {
     try {
-      int value = Integer.parseInt(workerCountAsStr);
+      int value = Integer.parseInt(valueAsStr);
       if (value < 1) {
-        throw parsingError(workerCountAsStr);
+        throw parsingError(valueAsStr, propertyKey);
       }
       return value;
     } catch (NumberFormatException e) {
-      throw parsingError(workerCountAsStr);
+      throw parsingError(valueAsStr, propertyKey);
     }
   }
 
-  private static MessageException parsingError(String workerCountAsStr) {
+  private static MessageException parsingError(String valueAsStr, String propertyKey) {
     return MessageException.of(format(
       "value '%s' of property %s is invalid. It must an integer strictly greater than 0.",
-      workerCountAsStr,
-      CE_WORKERS_COUNT_PROPERTY)
+      valueAsStr,
+      propertyKey)
       );
   }
 
@@ -80,6 +93,9 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
     if (this.workerCount > 1) {
       LOG.info("Compute Engine will use {} concurrent workers to process tasks", this.workerCount);
     }
+    if (this.stepConcurrency > 1) {
+      LOG.info("Compute Engine will execute up to {} steps of a task concurrently", this.stepConcurrency);
+    }
   }
 
   @Override
@@ -96,4 +112,14 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
   public long getQueuePollingDelay() {
     return DEFAULT_QUEUE_POLLING_DELAY;
   }
+
+  @Override
+  public long getQueueMaxPollingDelay() {
+    return DEFAULT_QUEUE_MAX_POLLING_DELAY;
+  }
+
+  @Override
+  public int getStepConcurrency() {
+    return stepConcurrency;
+  }
 }
@@ -48,6 +48,11 @@ public interface CeTasksMBean {
    */
   long getProcessingTime();
 
+  /**
+   * Time spent by tasks in queue before their processing started, since startup, in milliseconds.
+   */
+  long getWaitingTime();
+
   /**
    * Configured number of Workers.
    */
@@ -0,0 +1,79 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.db.ce.CeQueueDto;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.apache.commons.lang.StringUtils.defaultString;
+
+/**
+ * Selects the task to be peeked among the eligible ones: the oldest task of the component which has been served least
+ * recently. Components which have never been served come first. That way, a burst of tasks on a given component does
+ * not delay the tasks of the other components. Tasks which are not related to any component are served as if they
+ * were related to the same component.
+ */
+@ComputeEngineSide
+public class FairShareTaskSelector {
+
+  /**
+   * Maximum number of components to remember. Forgetting the component served least recently does not change its rank.
+   */
+  private static final int MAX_COMPONENTS = 10_000;
+
+  // ordered from the component served least recently to the component served last
+  private final Map<String, Long> lastServedByComponent = new LinkedHashMap<String, Long>() {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+      return size() > MAX_COMPONENTS;
+    }
+  };
+  private long servedCount = 0;
+
+  /**
+   * @param eligibleTasks the tasks which can be peeked, in ascending order of submission
+   * @throws IllegalArgumentException if {@code eligibleTasks} is empty
+   */
+  public synchronized CeQueueDto select(List<CeQueueDto> eligibleTasks) {
+    checkArgument(!eligibleTasks.isEmpty(), "At least one eligible task is required");
+
+    CeQueueDto selected = null;
+    String selectedComponent = null;
+    long selectedLastServed = Long.MAX_VALUE;
+    for (CeQueueDto task : eligibleTasks) {
+      String component = defaultString(task.getComponentUuid());
+      long lastServed = lastServedByComponent.getOrDefault(component, -1L);
+      if (lastServed < selectedLastServed) {
+        selected = task;
+        selectedComponent = component;
+        selectedLastServed = lastServed;
+      }
+    }
+
+    servedCount++;
+    lastServedByComponent.remove(selectedComponent);
+    lastServedByComponent.put(selectedComponent, servedCount);
+    return selected;
+  }
+}
@@ -24,6 +24,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
@@ -32,6 +33,7 @@ import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.utils.System2;
 import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.ce.queue.CeQueueImpl;
+import org.sonar.ce.queue.CeQueueListener;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.ce.queue.CeTaskResult;
 import org.sonar.core.util.UuidFactory;
@@ -47,19 +49,35 @@ import static com.google.common.base.Preconditions.checkState;
 @ComputeEngineSide
 public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue {
 
+  /**
+   * Maximum number of eligible tasks, the oldest ones, among which the task to be peeked is selected. There is at most
+   * one eligible task per component, so it is the number of components which get the workers in turn.
+   */
+  private static final int MAX_ELIGIBLE_TASKS = 100;
+
   private final System2 system2;
   private final DbClient dbClient;
   private final CEQueueStatus queueStatus;
+  private final FairShareTaskSelector taskSelector;
 
   // state
   private AtomicBoolean peekPaused = new AtomicBoolean(false);
 
+  /**
+   * Used by Pico when there is no {@link CeQueueListener} in the container.
+   */
+  public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus,
+    FairShareTaskSelector taskSelector, DefaultOrganizationProvider defaultOrganizationProvider) {
+    this(system2, dbClient, uuidFactory, queueStatus, taskSelector, defaultOrganizationProvider, new CeQueueListener[0]);
+  }
+
   public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus,
-    DefaultOrganizationProvider defaultOrganizationProvider) {
-    super(dbClient, uuidFactory, defaultOrganizationProvider);
+    FairShareTaskSelector taskSelector, DefaultOrganizationProvider defaultOrganizationProvider, CeQueueListener[] listeners) {
+    super(dbClient, uuidFactory, defaultOrganizationProvider, listeners);
     this.system2 = system2;
     this.dbClient = dbClient;
     this.queueStatus = queueStatus;
+    this.taskSelector = taskSelector;
   }
 
   @Override
@@ -68,17 +86,30 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
       return Optional.absent();
     }
     try (DbSession dbSession = dbClient.openSession(false)) {
-      Optional<CeQueueDto> dto = dbClient.ceQueueDao().peek(dbSession);
+      List<CeQueueDto> eligibleTasks = dbClient.ceQueueDao().selectEligibleForPeek(dbSession, MAX_ELIGIBLE_TASKS);
+      if (eligibleTasks.isEmpty()) {
+        return Optional.absent();
+      }
+      CeQueueDto selectedTask = taskSelector.select(eligibleTasks);
+      Optional<CeQueueDto> dto = dbClient.ceQueueDao().peek(dbSession, selectedTask.getUuid());
       CeTask task = null;
       if (dto.isPresent()) {
         task = loadTask(dbSession, dto.get());
         queueStatus.addInProgress();
+        addWaitingTime(dto.get());
       }
       return Optional.fromNullable(task);
 
     }
   }
 
+  private void addWaitingTime(CeQueueDto dto) {
+    Long startedAt = dto.getStartedAt();
+    if (startedAt != null) {
+      queueStatus.addWaitingTime(Math.max(0L, startedAt - dto.getCreatedAt()));
+    }
+  }
+
   @Override
   public int clear() {
     return cancelAll(true);
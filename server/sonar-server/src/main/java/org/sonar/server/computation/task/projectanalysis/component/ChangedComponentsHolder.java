@@ -0,0 +1,40 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.component;
+
+import java.util.Collection;
+
+/**
+ * UUIDs of the components inserted or updated in DB by the current analysis. Disabled components are
+ * available in {@link DisabledComponentsHolder}.
+ */
+public interface ChangedComponentsHolder {
+
+  /**
+   * Whether the UUIDs have been set. They are not set by tasks which do not persist components.
+   */
+  boolean hasUuidsBeenSet();
+
+  /**
+   * @throws IllegalStateException if UUIDs have not been set
+   */
+  Collection<String> getUuids();
+
+}
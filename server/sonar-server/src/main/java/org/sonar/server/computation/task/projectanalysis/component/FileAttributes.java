@@ -34,12 +34,23 @@ public class FileAttributes {
   @CheckForNull
   private final String languageKey;
   private final int lines;
+  @CheckForNull
+  private final String previousSourceHash;
 
   public FileAttributes(boolean unitTest, @Nullable String languageKey, int lines) {
+    this(unitTest, languageKey, lines, null);
+  }
+
+  /**
+   * @param previousSourceHash hash of the source of the previous analysis, when source is not in the report and must be
+   *                           copied from the previous analysis, otherwise {@code null}
+   */
+  public FileAttributes(boolean unitTest, @Nullable String languageKey, int lines, @Nullable String previousSourceHash) {
     this.unitTest = unitTest;
     this.languageKey = languageKey;
     checkArgument(lines > 0, "Number of lines must be greater than zero");
     this.lines = lines;
+    this.previousSourceHash = previousSourceHash;
   }
 
   public boolean isUnitTest() {
@@ -58,6 +69,23 @@ public class FileAttributes {
     return lines;
   }
 
+  /**
+   * Whether source, syntax highlighting and symbols of the file are not in the report, because source did not change
+   * since the previous analysis, and must be copied from the previous analysis
+   */
+  public boolean isCopySourceFromPrevious() {
+    return previousSourceHash != null;
+  }
+
+  /**
+   * Hash of the source of the previous analysis the scanner compared the file to, when
+   * {@link #isCopySourceFromPrevious() source must be copied from the previous analysis}.
+   */
+  @CheckForNull
+  public String getPreviousSourceHash() {
+    return previousSourceHash;
+  }
+
   @Override
   public String toString() {
     return "FileAttributes{" +
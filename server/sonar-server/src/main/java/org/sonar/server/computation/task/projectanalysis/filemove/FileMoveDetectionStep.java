@@ -26,6 +26,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -37,8 +38,6 @@ import javax.annotation.concurrent.Immutable;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
-import org.sonar.core.hash.SourceLinesHashesComputer;
-import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
@@ -181,17 +180,8 @@ public class FileMoveDetectionStep implements ComputationStep {
   private Map<String, File> getReportFileSourcesByKey(Map<String, Component> reportFilesByKey, Set<String> addedFileKeys) {
     ImmutableMap.Builder<String, File> builder = ImmutableMap.builder();
     for (String fileKey : addedFileKeys) {
-      // FIXME computation of sourceHash and lineHashes might be done multiple times for some files: here, in ComputeFileSourceData, in
-      // SourceHashRepository
       Component component = reportFilesByKey.get(fileKey);
-      SourceLinesHashesComputer linesHashesComputer = new SourceLinesHashesComputer();
-      try (CloseableIterator<String> lineIterator = sourceLinesRepository.readLines(component)) {
-        while (lineIterator.hasNext()) {
-          String line = lineIterator.next();
-          linesHashesComputer.addLine(line);
-        }
-      }
-      builder.put(fileKey, new File(component.getReportAttributes().getPath(), linesHashesComputer.getLineHashes()));
+      builder.put(fileKey, new File(component.getReportAttributes().getPath(), sourceLinesRepository.readLineHashes(component)));
     }
     return builder.build();
   }
@@ -199,7 +189,11 @@ public class FileMoveDetectionStep implements ComputationStep {
   private ScoreMatrix computeScoreMatrix(Map<String, DbComponent> dtosByKey, Set<String> dbFileKeys, Map<String, File> reportFileSourcesByKey) {
     int[][] scoreMatrix = new int[dbFileKeys.size()][reportFileSourcesByKey.size()];
     int maxScore = 0;
+    long scoredPairs = 0;
 
+    // only files with a chance to reach MIN_REQUIRED_SCORE are scored, other scores are left to 0
+    List<File> reportFiles = new ArrayList<>(reportFileSourcesByKey.values());
+    SimilarFilesIndex reportFilesIndex = new SimilarFilesIndex(reportFiles);
     try (DbSession dbSession = dbClient.openSession(false)) {
       int dbFileIndex = 0;
       for (String removedFileKey : dbFileKeys) {
@@ -208,19 +202,21 @@ public class FileMoveDetectionStep implements ComputationStep {
           continue;
         }
 
-        int reportFileIndex = 0;
-        for (Map.Entry<String, File> reportFileSourceAndKey : reportFileSourcesByKey.entrySet()) {
-          File unmatchedFile = reportFileSourceAndKey.getValue();
-          int score = fileSimilarity.score(fileInDb, unmatchedFile);
+        BitSet candidates = reportFilesIndex.candidatesOf(fileInDb);
+        int reportFileIndex = candidates.nextSetBit(0);
+        while (reportFileIndex >= 0) {
+          int score = fileSimilarity.score(fileInDb, reportFiles.get(reportFileIndex));
           scoreMatrix[dbFileIndex][reportFileIndex] = score;
           if (score > maxScore) {
             maxScore = score;
           }
-          reportFileIndex++;
+          scoredPairs++;
+          reportFileIndex = candidates.nextSetBit(reportFileIndex + 1);
         }
         dbFileIndex++;
       }
     }
+    LOG.debug("{} pairs of files scored out of {}", scoredPairs, (long) dbFileKeys.size() * reportFileSourcesByKey.size());
 
     return new ScoreMatrix(dbFileKeys, reportFileSourcesByKey, scoreMatrix, maxScore);
   }
@@ -0,0 +1,161 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.filemove;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.sonar.server.computation.task.projectanalysis.filemove.FileSimilarity.File;
+
+import static org.sonar.server.computation.task.projectanalysis.filemove.FileMoveDetectionStep.MIN_REQUIRED_SCORE;
+
+/**
+ * Selects, among a list of files, the ones which may be similar enough to a given file to be considered as a move,
+ * so that the exact (and costly) {@link FileSimilarity#score(File, File)} is only computed for these pairs.
+ * <p>
+ * A pair of files is a candidate when:
+ * <ul>
+ *   <li>the number of lines of the two files allows a score greater or equal to {@link FileMoveDetectionStep#MIN_REQUIRED_SCORE},
+ *   as the edit distance is at least the difference of number of lines</li>
+ *   <li>and the MinHash signatures of the multisets of line hashes of the two files share at least one band
+ *   (locality-sensitive hashing)</li>
+ * </ul>
+ * Multisets are used, rather than sets of distinct line hashes, so that repeated lines are taken into account as they
+ * are by the score: each line is represented by its hash and by the number of previous lines having the same hash.
+ * <p>
+ * If the score of two files is at least {@link FileMoveDetectionStep#MIN_REQUIRED_SCORE}, then their Levenshtein distance
+ * {@code d} is at most 15% of the number of lines {@code n} of the biggest file. At least {@code n - d} lines are
+ * matched by the edit script, and the union of the two multisets has at most {@code n + d} elements. The Jaccard
+ * similarity of the multisets is then greater than {@code 0.85 / 1.15}, about 0.74, for which the probability not to
+ * share any band is lower than 1/10000. Files without any line can not reach the minimum score and are never candidates.
+ * </p>
+ */
+final class SimilarFilesIndex {
+  private static final int BANDS = 32;
+  private static final int ROWS_PER_BAND = 4;
+  private static final int SIGNATURE_SIZE = BANDS * ROWS_PER_BAND;
+  private static final long[] SEEDS = createSeeds();
+
+  private final int[] lineCounts;
+  private final Map<Long, List<Integer>> filesByBand = new HashMap<>();
+
+  SimilarFilesIndex(List<File> files) {
+    this.lineCounts = new int[files.size()];
+    for (int fileIndex = 0; fileIndex < files.size(); fileIndex++) {
+      File file = files.get(fileIndex);
+      lineCounts[fileIndex] = file.getLineHashes().size();
+      if (lineCounts[fileIndex] == 0) {
+        continue;
+      }
+      long[] bandKeys = bandKeys(file);
+      for (long bandKey : bandKeys) {
+        filesByBand.computeIfAbsent(bandKey, k -> new ArrayList<>(1)).add(fileIndex);
+      }
+    }
+  }
+
+  /**
+   * Indexes, in ascending order, of the indexed files which may be similar to the specified file.
+   */
+  BitSet candidatesOf(File file) {
+    BitSet candidates = new BitSet(lineCounts.length);
+    int lineCount = file.getLineHashes().size();
+    if (lineCount == 0) {
+      return candidates;
+    }
+    for (long bandKey : bandKeys(file)) {
+      List<Integer> fileIndexes = filesByBand.get(bandKey);
+      if (fileIndexes != null) {
+        for (Integer fileIndex : fileIndexes) {
+          if (!candidates.get(fileIndex) && mayReachMinRequiredScore(lineCount, lineCounts[fileIndex])) {
+            candidates.set(fileIndex);
+          }
+        }
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * Highest score {@link SourceSimilarityImpl} can return for sources of the specified sizes is the one for the minimum
+   * edit distance, which is the difference of sizes.
+   */
+  static boolean mayReachMinRequiredScore(int lineCount1, int lineCount2) {
+    int max = Math.max(lineCount1, lineCount2);
+    int distance = max - Math.min(lineCount1, lineCount2);
+    return (int) (100 * (1.0 - ((double) distance) / max)) >= MIN_REQUIRED_SCORE;
+  }
+
+  private static long[] bandKeys(File file) {
+    long[] signature = signature(file.getLineHashes());
+    long[] bandKeys = new long[BANDS];
+    for (int band = 0; band < BANDS; band++) {
+      long key = band;
+      for (int row = 0; row < ROWS_PER_BAND; row++) {
+        key = 31 * key + signature[band * ROWS_PER_BAND + row];
+      }
+      bandKeys[band] = mix(key);
+    }
+    return bandKeys;
+  }
+
+  private static long[] signature(List<String> lineHashes) {
+    long[] signature = new long[SIGNATURE_SIZE];
+    Arrays.fill(signature, Long.MAX_VALUE);
+    Map<String, Integer> occurrencesByLineHash = new HashMap<>();
+    for (String lineHash : lineHashes) {
+      int occurrence = occurrencesByLineHash.merge(lineHash, 1, Integer::sum);
+      long hash = mix(mix(lineHash.hashCode()) + occurrence);
+      for (int i = 0; i < SIGNATURE_SIZE; i++) {
+        long value = mix(hash ^ SEEDS[i]);
+        if (value < signature[i]) {
+          signature[i] = value;
+        }
+      }
+    }
+    return signature;
+  }
+
+  private static long[] createSeeds() {
+    long[] seeds = new long[SIGNATURE_SIZE];
+    long seed = 0x9E3779B97F4A7C15L;
+    for (int i = 0; i < SIGNATURE_SIZE; i++) {
+      seed += 0x9E3779B97F4A7C15L;
+      seeds[i] = mix(seed);
+    }
+    return seeds;
+  }
+
+  /**
+   * Finalizer of MurmurHash3, spreading the bits of the input over the whole output.
+   */
+  private static long mix(long value) {
+    long h = value;
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB93FE1A85A9BL;
+    h ^= h >>> 33;
+    return h;
+  }
+}
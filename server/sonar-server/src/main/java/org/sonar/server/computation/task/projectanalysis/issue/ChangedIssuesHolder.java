@@ -0,0 +1,41 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.util.Collection;
+
+/**
+ * Keys of the issues inserted or updated in DB by the current analysis. It's populated by
+ * {@link org.sonar.server.computation.task.projectanalysis.step.PersistIssuesStep} and used to re-index
+ * only these issues.
+ */
+public interface ChangedIssuesHolder {
+
+  /**
+   * Whether the keys have been set. They are not set by tasks which do not persist issues.
+   */
+  boolean hasKeysBeenSet();
+
+  /**
+   * @throws IllegalStateException if keys have not been set
+   */
+  Collection<String> getKeys();
+
+}
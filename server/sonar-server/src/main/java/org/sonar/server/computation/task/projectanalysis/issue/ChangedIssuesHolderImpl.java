@@ -0,0 +1,49 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.util.Collection;
+import javax.annotation.CheckForNull;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+public class ChangedIssuesHolderImpl implements MutableChangedIssuesHolder {
+
+  @CheckForNull
+  private Collection<String> keys;
+
+  @Override
+  public boolean hasKeysBeenSet() {
+    return keys != null;
+  }
+
+  @Override
+  public Collection<String> getKeys() {
+    checkState(keys != null, "Keys have not been set in holder");
+    return keys;
+  }
+
+  @Override
+  public void setKeys(Collection<String> keys) {
+    checkState(this.keys == null, "Keys have already been set in holder");
+    this.keys = requireNonNull(keys, "keys cannot be null");
+  }
+}
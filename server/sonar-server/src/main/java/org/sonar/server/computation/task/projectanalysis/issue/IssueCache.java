@@ -19,25 +19,272 @@
  */
 package org.sonar.server.computation.task.projectanalysis.issue;
 
+import com.google.protobuf.InvalidProtocolBufferException;
 import java.io.File;
 import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.api.issue.IssueComment;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.TempFolder;
 import org.sonar.core.issue.DefaultIssue;
-import org.sonar.server.util.cache.DiskCache;
+import org.sonar.core.issue.DefaultIssueComment;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.db.protobuf.DbIssues;
+import org.sonar.server.util.cache.ProtobufDiskCache;
+
+import static org.sonar.core.util.Protobuf.setNullable;
 
 /**
  * Cache of all the issues involved in the analysis. Their state is as it will be
  * persisted in database (after issue tracking, auto-assignment, ...)
  */
-public class IssueCache extends DiskCache<DefaultIssue> {
+public class IssueCache extends ProtobufDiskCache<DefaultIssue, CeIssueCache.Issue> {
 
   // this constructor is used by picocontainer
   public IssueCache(TempFolder tempFolder, System2 system2) throws IOException {
-    super(tempFolder.newFile("issues", ".dat"), system2);
+    this(tempFolder.newFile("issues", ".dat"), system2);
   }
 
   public IssueCache(File file, System2 system2) {
-    super(file, system2);
+    super(file, CeIssueCache.Issue.PARSER, system2);
+  }
+
+  @Override
+  protected CeIssueCache.Issue toProtobuf(DefaultIssue issue) {
+    CeIssueCache.Issue.Builder builder = CeIssueCache.Issue.newBuilder();
+    setNullable(issue.key(), builder::setKey);
+    setNullable(issue.type(), builder::setRuleType, RuleType::getDbConstant);
+    setNullable(issue.componentUuid(), builder::setComponentUuid);
+    setNullable(issue.componentKey(), builder::setComponentKey);
+    setNullable(issue.moduleUuid(), builder::setModuleUuid);
+    setNullable(issue.moduleUuidPath(), builder::setModuleUuidPath);
+    setNullable(issue.projectUuid(), builder::setProjectUuid);
+    setNullable(issue.projectKey(), builder::setProjectKey);
+    setNullable(issue.ruleKey(), builder::setRuleKey, RuleKey::toString);
+    setNullable(issue.language(), builder::setLanguage);
+    setNullable(issue.severity(), builder::setSeverity);
+    builder.setManualSeverity(issue.manualSeverity());
+    setNullable(issue.message(), builder::setMessage);
+    setNullable(issue.line(), builder::setLine);
+    setNullable(issue.gap(), builder::setGap);
+    setNullable(issue.effort(), builder::setEffort, Duration::toMinutes);
+    setNullable(issue.status(), builder::setStatus);
+    setNullable(issue.resolution(), builder::setResolution);
+    setNullable(issue.assignee(), builder::setAssignee);
+    setNullable(issue.checksum(), builder::setChecksum);
+    for (Map.Entry<String, String> attribute : issue.attributes().entrySet()) {
+      builder.addAttributes(CeIssueCache.Attribute.newBuilder().setKey(attribute.getKey()).setValue(attribute.getValue()));
+    }
+    setNullable(issue.authorLogin(), builder::setAuthorLogin);
+    for (IssueComment comment : issue.comments()) {
+      builder.addComments(toProtobuf((DefaultIssueComment) comment));
+    }
+    builder.addAllTags(issue.tags());
+    Object locations = issue.getLocations();
+    if (locations != null) {
+      builder.setLocations(((DbIssues.Locations) locations).toByteString());
+    }
+    setNullable(issue.creationDate(), builder::setCreationDate, Date::getTime);
+    setNullable(issue.updateDate(), builder::setUpdateDate, Date::getTime);
+    setNullable(issue.closeDate(), builder::setCloseDate, Date::getTime);
+    FieldDiffs currentChange = issue.currentChange();
+    List<FieldDiffs> changes = issue.changes();
+    for (int i = 0; i < changes.size(); i++) {
+      FieldDiffs change = changes.get(i);
+      if (change == currentChange) {
+        builder.setCurrentChangeIndex(i);
+      }
+      builder.addChanges(toProtobuf(change));
+    }
+    if (currentChange != null && !builder.hasCurrentChangeIndex()) {
+      builder.setCurrentChange(toProtobuf(currentChange));
+    }
+    builder.setIsNew(issue.isNew());
+    builder.setBeingClosed(issue.isBeingClosed());
+    builder.setOnDisabledRule(issue.isOnDisabledRule());
+    builder.setIsChanged(issue.isChanged());
+    builder.setSendNotifications(issue.mustSendNotifications());
+    setNullable(issue.selectedAt(), builder::setSelectedAt);
+    return builder.build();
+  }
+
+  @Override
+  protected DefaultIssue fromProtobuf(CeIssueCache.Issue message) {
+    DefaultIssue issue = new DefaultIssue();
+    issue.setKey(message.hasKey() ? message.getKey() : null);
+    issue.setType(message.hasRuleType() ? RuleType.valueOf(message.getRuleType()) : null);
+    issue.setComponentUuid(message.hasComponentUuid() ? message.getComponentUuid() : null);
+    issue.setComponentKey(message.hasComponentKey() ? message.getComponentKey() : null);
+    issue.setModuleUuid(message.hasModuleUuid() ? message.getModuleUuid() : null);
+    issue.setModuleUuidPath(message.hasModuleUuidPath() ? message.getModuleUuidPath() : null);
+    issue.setProjectUuid(message.hasProjectUuid() ? message.getProjectUuid() : null);
+    issue.setProjectKey(message.hasProjectKey() ? message.getProjectKey() : null);
+    issue.setRuleKey(message.hasRuleKey() ? RuleKey.parse(message.getRuleKey()) : null);
+    issue.setLanguage(message.hasLanguage() ? message.getLanguage() : null);
+    issue.setSeverity(message.hasSeverity() ? message.getSeverity() : null);
+    issue.setManualSeverity(message.getManualSeverity());
+    issue.setMessage(message.hasMessage() ? message.getMessage() : null);
+    issue.setLine(message.hasLine() ? message.getLine() : null);
+    issue.setGap(message.hasGap() ? message.getGap() : null);
+    issue.setEffort(message.hasEffort() ? Duration.create(message.getEffort()) : null);
+    if (message.hasStatus()) {
+      issue.setStatus(message.getStatus());
+    }
+    issue.setResolution(message.hasResolution() ? message.getResolution() : null);
+    issue.setAssignee(message.hasAssignee() ? message.getAssignee() : null);
+    issue.setChecksum(message.hasChecksum() ? message.getChecksum() : null);
+    for (CeIssueCache.Attribute attribute : message.getAttributesList()) {
+      issue.setAttribute(attribute.getKey(), attribute.getValue());
+    }
+    issue.setAuthorLogin(message.hasAuthorLogin() ? message.getAuthorLogin() : null);
+    for (CeIssueCache.Comment comment : message.getCommentsList()) {
+      issue.addComment(toDefaultIssueComment(comment));
+    }
+    if (message.getTagsCount() > 0) {
+      issue.setTags(message.getTagsList());
+    }
+    if (message.hasLocations()) {
+      issue.setLocations(parseLocations(message));
+    }
+    issue.setCreationDate(message.hasCreationDate() ? new Date(message.getCreationDate()) : null);
+    issue.setUpdateDate(message.hasUpdateDate() ? new Date(message.getUpdateDate()) : null);
+    issue.setCloseDate(message.hasCloseDate() ? new Date(message.getCloseDate()) : null);
+    readChanges(message, issue);
+    issue.setNew(message.getIsNew());
+    issue.setBeingClosed(message.getBeingClosed());
+    issue.setOnDisabledRule(message.getOnDisabledRule());
+    issue.setChanged(message.getIsChanged());
+    issue.setSendNotifications(message.getSendNotifications());
+    issue.setSelectedAt(message.hasSelectedAt() ? message.getSelectedAt() : null);
+    return issue;
+  }
+
+  /**
+   * {@link DefaultIssue#setCurrentChange(FieldDiffs)} also adds the current change to the changes, therefore the list
+   * of changes is set afterwards to restore it exactly as it was written.
+   */
+  private static void readChanges(CeIssueCache.Issue message, DefaultIssue issue) {
+    List<FieldDiffs> changes = new ArrayList<>(message.getChangesCount());
+    for (CeIssueCache.FieldDiffs change : message.getChangesList()) {
+      changes.add(toFieldDiffs(change));
+    }
+    FieldDiffs currentChange = null;
+    if (message.hasCurrentChangeIndex()) {
+      currentChange = changes.get(message.getCurrentChangeIndex());
+    } else if (message.hasCurrentChange()) {
+      currentChange = toFieldDiffs(message.getCurrentChange());
+    }
+    if (currentChange != null) {
+      issue.setCurrentChange(currentChange);
+      issue.setChanges(changes);
+    } else if (!changes.isEmpty()) {
+      issue.setChanges(changes);
+    }
+  }
+
+  private static DbIssues.Locations parseLocations(CeIssueCache.Issue message) {
+    try {
+      return DbIssues.Locations.parseFrom(message.getLocations());
+    } catch (InvalidProtocolBufferException e) {
+      throw new IllegalStateException("Fail to read locations of issue " + message.getKey(), e);
+    }
+  }
+
+  private static CeIssueCache.Comment toProtobuf(DefaultIssueComment comment) {
+    CeIssueCache.Comment.Builder builder = CeIssueCache.Comment.newBuilder();
+    setNullable(comment.key(), builder::setKey);
+    setNullable(comment.issueKey(), builder::setIssueKey);
+    setNullable(comment.userLogin(), builder::setUserLogin);
+    setNullable(comment.markdownText(), builder::setMarkdownText);
+    setNullable(comment.createdAt(), builder::setCreatedAt, Date::getTime);
+    setNullable(comment.updatedAt(), builder::setUpdatedAt, Date::getTime);
+    builder.setIsNew(comment.isNew());
+    return builder.build();
+  }
+
+  private static DefaultIssueComment toDefaultIssueComment(CeIssueCache.Comment message) {
+    return new DefaultIssueComment()
+      .setKey(message.hasKey() ? message.getKey() : null)
+      .setIssueKey(message.hasIssueKey() ? message.getIssueKey() : null)
+      .setUserLogin(message.hasUserLogin() ? message.getUserLogin() : null)
+      .setMarkdownText(message.hasMarkdownText() ? message.getMarkdownText() : null)
+      .setCreatedAt(message.hasCreatedAt() ? new Date(message.getCreatedAt()) : null)
+      .setUpdatedAt(message.hasUpdatedAt() ? new Date(message.getUpdatedAt()) : null)
+      .setNew(message.getIsNew());
+  }
+
+  private static CeIssueCache.FieldDiffs toProtobuf(FieldDiffs fieldDiffs) {
+    CeIssueCache.FieldDiffs.Builder builder = CeIssueCache.FieldDiffs.newBuilder();
+    setNullable(fieldDiffs.issueKey(), builder::setIssueKey);
+    setNullable(fieldDiffs.userLogin(), builder::setUserLogin);
+    setNullable(fieldDiffs.creationDate(), builder::setCreationDate, Date::getTime);
+    for (Map.Entry<String, FieldDiffs.Diff> entry : fieldDiffs.diffs().entrySet()) {
+      CeIssueCache.Diff.Builder diffBuilder = CeIssueCache.Diff.newBuilder().setField(entry.getKey());
+      setNullable(entry.getValue().oldValue(), diffBuilder::setOldValue, IssueCache::toDiffValue);
+      setNullable(entry.getValue().newValue(), diffBuilder::setNewValue, IssueCache::toDiffValue);
+      builder.addDiffs(diffBuilder);
+    }
+    return builder.build();
+  }
+
+  private static FieldDiffs toFieldDiffs(CeIssueCache.FieldDiffs message) {
+    FieldDiffs fieldDiffs = new FieldDiffs()
+      .setIssueKey(message.hasIssueKey() ? message.getIssueKey() : null)
+      .setUserLogin(message.hasUserLogin() ? message.getUserLogin() : null)
+      .setCreationDate(message.hasCreationDate() ? new Date(message.getCreationDate()) : null);
+    for (CeIssueCache.Diff diff : message.getDiffsList()) {
+      fieldDiffs.setDiff(diff.getField(),
+        diff.hasOldValue() ? toSerializable(diff.getOldValue()) : null,
+        diff.hasNewValue() ? toSerializable(diff.getNewValue()) : null);
+    }
+    return fieldDiffs;
+  }
+
+  private static CeIssueCache.DiffValue toDiffValue(Object value) {
+    CeIssueCache.DiffValue.Builder builder = CeIssueCache.DiffValue.newBuilder();
+    if (value instanceof String) {
+      builder.setStringValue((String) value);
+    } else if (value instanceof Long) {
+      builder.setLongValue((Long) value);
+    } else if (value instanceof Integer) {
+      builder.setIntValue((Integer) value);
+    } else if (value instanceof Double) {
+      builder.setDoubleValue((Double) value);
+    } else if (value instanceof Boolean) {
+      builder.setBooleanValue((Boolean) value);
+    } else if (value instanceof Date) {
+      builder.setDateValue(((Date) value).getTime());
+    } else {
+      throw new IllegalArgumentException("Unsupported type of field change value: " + value.getClass().getName());
+    }
+    return builder.build();
+  }
+
+  @CheckForNull
+  private static Serializable toSerializable(CeIssueCache.DiffValue value) {
+    switch (value.getValueCase()) {
+      case STRING_VALUE:
+        return value.getStringValue();
+      case LONG_VALUE:
+        return value.getLongValue();
+      case INT_VALUE:
+        return value.getIntValue();
+      case DOUBLE_VALUE:
+        return value.getDoubleValue();
+      case BOOLEAN_VALUE:
+        return value.getBooleanValue();
+      case DATE_VALUE:
+        return new Date(value.getDateValue());
+      default:
+        return null;
+    }
   }
 }
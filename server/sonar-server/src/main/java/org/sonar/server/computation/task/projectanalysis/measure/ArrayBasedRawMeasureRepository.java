@@ -0,0 +1,244 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.Developer;
+import org.sonar.server.computation.task.projectanalysis.measure.MapBasedRawMeasureRepository.OverridePolicy;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Implementation of MeasureRepository which supports only raw measures and stores them in arrays indexed by a dense
+ * integer identifying the Component (eg. its ref in the scanner report) and by the index of the Metric.
+ * <p>
+ * Compared to {@link MapBasedRawMeasureRepository}, it does not allocate any {@link MeasureKey} nor map entry per
+ * measure, which matters on projects with millions of Components. Measures of developers (which only exist when the
+ * Developer Cockpit plugin is installed) are stored apart in a map.
+ * </p>
+ *
+ * Intended to be used as a delegate of other MeasureRepository implementations (hence the final keyword).
+ */
+public final class ArrayBasedRawMeasureRepository implements MeasureRepository {
+  private static final int INITIAL_COMPONENT_CAPACITY = 256;
+  private static final Measure[] NO_MEASURES = new Measure[0];
+
+  private final ToIntFunction<Component> componentToIndex;
+  private final Map<String, Integer> metricIndexByKey = new HashMap<>();
+  private final List<String> metricKeys = new ArrayList<>();
+  // measures without developer, by component index then by metric index
+  private Measure[][] measures = new Measure[INITIAL_COMPONENT_CAPACITY][];
+  // measures with a developer, by component index
+  private final Map<Integer, Map<MeasureKey, Measure>> developerMeasures = new HashMap<>();
+
+  public ArrayBasedRawMeasureRepository(ToIntFunction<Component> componentToIndex) {
+    this.componentToIndex = requireNonNull(componentToIndex);
+  }
+
+  /**
+   * @throws UnsupportedOperationException all the time, not supported
+   */
+  @Override
+  public Optional<Measure> getBaseMeasure(Component component, Metric metric) {
+    throw new UnsupportedOperationException("This implementation of MeasureRepository supports only raw measures");
+  }
+
+  @Override
+  public Optional<Measure> getRawMeasure(Component component, Metric metric) {
+    // fail fast
+    requireNonNull(component);
+    requireNonNull(metric);
+
+    return Optional.fromNullable(find(componentIndex(component), metric.getKey(), null));
+  }
+
+  @Override
+  public void add(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    checkValueTypeConsistency(metric, measure);
+
+    if (find(componentIndex(component), metric.getKey(), measure.getDeveloper()) != null) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be set only once for a specific Component (key=%s), Metric (key=%s). Use update method",
+          component.getKey(),
+          metric.getKey()));
+    }
+    add(component, metric, measure, OverridePolicy.OVERRIDE);
+  }
+
+  @Override
+  public void update(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    checkValueTypeConsistency(metric, measure);
+
+    if (find(componentIndex(component), metric.getKey(), measure.getDeveloper()) == null) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be updated only if one already exists for a specific Component (key=%s), Metric (key=%s). Use add method",
+          component.getKey(),
+          metric.getKey()));
+    }
+    add(component, metric, measure, OverridePolicy.OVERRIDE);
+  }
+
+  private static void checkValueTypeConsistency(Metric metric, Measure measure) {
+    checkArgument(
+      measure.getValueType() == Measure.ValueType.NO_VALUE || measure.getValueType() == metric.getType().getValueType(),
+      format(
+        "Measure's ValueType (%s) is not consistent with the Metric's ValueType (%s)",
+        measure.getValueType(), metric.getType().getValueType()));
+  }
+
+  @Override
+  public Set<Measure> getRawMeasures(Component component, Metric metric) {
+    requireNonNull(metric);
+    requireNonNull(component);
+    int componentIndex = componentIndex(component);
+
+    ImmutableSet.Builder<Measure> builder = ImmutableSet.builder();
+    Measure measure = find(componentIndex, metric.getKey(), null);
+    if (measure != null) {
+      builder.add(measure);
+    }
+    Map<MeasureKey, Measure> measuresOfDevelopers = developerMeasures.get(componentIndex);
+    if (measuresOfDevelopers != null) {
+      for (Map.Entry<MeasureKey, Measure> entry : measuresOfDevelopers.entrySet()) {
+        if (entry.getKey().getMetricKey().equals(metric.getKey())) {
+          builder.add(entry.getValue());
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  @Override
+  public SetMultimap<String, Measure> getRawMeasures(Component component) {
+    int componentIndex = componentIndex(component);
+
+    ImmutableSetMultimap.Builder<String, Measure> builder = ImmutableSetMultimap.builder();
+    Measure[] measuresByMetric = measuresOf(componentIndex);
+    for (int metricIndex = 0; metricIndex < measuresByMetric.length; metricIndex++) {
+      Measure measure = measuresByMetric[metricIndex];
+      if (measure != null) {
+        builder.put(metricKeys.get(metricIndex), measure);
+      }
+    }
+    Map<MeasureKey, Measure> measuresOfDevelopers = developerMeasures.get(componentIndex);
+    if (measuresOfDevelopers != null) {
+      for (Map.Entry<MeasureKey, Measure> entry : measuresOfDevelopers.entrySet()) {
+        builder.put(entry.getKey().getMetricKey(), entry.getValue());
+      }
+    }
+    return builder.build();
+  }
+
+  public void add(Component component, Metric metric, Measure measure, OverridePolicy overridePolicy) {
+    requireNonNull(component);
+    requireNonNull(measure);
+    requireNonNull(overridePolicy);
+
+    int componentIndex = componentIndex(component);
+    boolean override = overridePolicy == OverridePolicy.OVERRIDE;
+    if (measure.getDeveloper() != null) {
+      Map<MeasureKey, Measure> measuresOfDevelopers = developerMeasures.computeIfAbsent(componentIndex, k -> new HashMap<>());
+      MeasureKey key = new MeasureKey(metric.getKey(), measure.getDeveloper());
+      if (override || !measuresOfDevelopers.containsKey(key)) {
+        measuresOfDevelopers.put(key, measure);
+      }
+      return;
+    }
+
+    int metricIndex = metricIndex(metric.getKey());
+    Measure[] measuresByMetric = ensureCapacity(componentIndex, metricIndex);
+    if (override || measuresByMetric[metricIndex] == null) {
+      measuresByMetric[metricIndex] = measure;
+    }
+  }
+
+  @CheckForNull
+  private Measure find(int componentIndex, String metricKey, @Nullable Developer developer) {
+    if (developer != null) {
+      Map<MeasureKey, Measure> measuresOfDevelopers = developerMeasures.get(componentIndex);
+      return measuresOfDevelopers == null ? null : measuresOfDevelopers.get(new MeasureKey(metricKey, developer));
+    }
+    Integer metricIndex = metricIndexByKey.get(metricKey);
+    if (metricIndex == null) {
+      return null;
+    }
+    Measure[] measuresByMetric = measuresOf(componentIndex);
+    return metricIndex < measuresByMetric.length ? measuresByMetric[metricIndex] : null;
+  }
+
+  private int componentIndex(Component component) {
+    int componentIndex = componentToIndex.applyAsInt(component);
+    checkArgument(componentIndex >= 0, "Component index must be positive or zero (got %s) for Component (key=%s)", componentIndex, component.getKey());
+    return componentIndex;
+  }
+
+  private int metricIndex(String metricKey) {
+    Integer metricIndex = metricIndexByKey.get(metricKey);
+    if (metricIndex == null) {
+      metricIndex = metricKeys.size();
+      metricKeys.add(metricKey);
+      metricIndexByKey.put(metricKey, metricIndex);
+    }
+    return metricIndex;
+  }
+
+  private Measure[] measuresOf(int componentIndex) {
+    if (componentIndex >= measures.length || measures[componentIndex] == null) {
+      return NO_MEASURES;
+    }
+    return measures[componentIndex];
+  }
+
+  private Measure[] ensureCapacity(int componentIndex, int metricIndex) {
+    if (componentIndex >= measures.length) {
+      measures = Arrays.copyOf(measures, Math.max(componentIndex + 1, measures.length * 2));
+    }
+    Measure[] measuresByMetric = measures[componentIndex];
+    if (measuresByMetric == null) {
+      measuresByMetric = new Measure[metricKeys.size()];
+      measures[componentIndex] = measuresByMetric;
+    } else if (metricIndex >= measuresByMetric.length) {
+      // metrics are few, size the array with all known metrics
+      measuresByMetric = Arrays.copyOf(measuresByMetric, metricKeys.size());
+      measures[componentIndex] = measuresByMetric;
+    }
+    return measuresByMetric;
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.source;
+
+import com.google.common.base.Optional;
+import com.google.protobuf.Message;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.duplication.Duplicate;
+import org.sonar.server.computation.task.projectanalysis.duplication.Duplication;
+import org.sonar.server.computation.task.projectanalysis.duplication.DuplicationRepository;
+import org.sonar.server.computation.task.projectanalysis.duplication.InnerDuplicate;
+import org.sonar.server.computation.task.projectanalysis.duplication.TextBlock;
+import org.sonar.server.computation.task.projectanalysis.scm.Changeset;
+import org.sonar.server.computation.task.projectanalysis.scm.ScmInfo;
+import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepository;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Computes a hash of all the data from which {@link ComputeFileSourceData} computes the source data of a file: source,
+ * coverage, SCM, highlighting, symbols and duplications. Highlighting and symbols copied from the previous analysis are
+ * not hashed, only the fact that they are copied.
+ * <p>
+ * When this hash did not change since the previous analysis, the source data of the file did not change either and does
+ * not need to be computed again.
+ * </p>
+ */
+public class ComputeFileSourceInputsHash {
+  /**
+   * To be incremented whenever the content of the file source data changes for the same inputs, so that the data of all
+   * files is computed again.
+   */
+  private static final byte VERSION = 1;
+
+  private static final byte COVERAGE = 'c';
+  private static final byte SCM = 's';
+  private static final byte COPIED_FROM_PREVIOUS = 'p';
+  private static final byte HIGHLIGHTING = 'h';
+  private static final byte SYMBOLS = 'y';
+  private static final byte DUPLICATIONS = 'd';
+
+  private final BatchReportReader reportReader;
+  private final SourceHashRepository sourceHashRepository;
+  private final ScmInfoRepository scmInfoRepository;
+  private final DuplicationRepository duplicationRepository;
+
+  public ComputeFileSourceInputsHash(BatchReportReader reportReader, SourceHashRepository sourceHashRepository, ScmInfoRepository scmInfoRepository,
+    DuplicationRepository duplicationRepository) {
+    this.reportReader = reportReader;
+    this.sourceHashRepository = sourceHashRepository;
+    this.scmInfoRepository = scmInfoRepository;
+    this.duplicationRepository = duplicationRepository;
+  }
+
+  public String compute(Component file) {
+    int ref = file.getReportAttributes().getRef();
+    MessageDigest digest = DigestUtils.getMd5Digest();
+    digest.update(VERSION);
+    update(digest, sourceHashRepository.getRawSourceHash(file));
+    update(digest, file.getFileAttributes().getLines());
+
+    digest.update(COVERAGE);
+    update(digest, reportReader.readComponentCoverage(ref));
+
+    digest.update(SCM);
+    Optional<ScmInfo> scmInfo = scmInfoRepository.getScmInfo(file);
+    if (scmInfo.isPresent()) {
+      for (Changeset changeset : scmInfo.get().getAllChangesets()) {
+        update(digest, changeset.getRevision());
+        update(digest, changeset.getAuthor());
+        update(digest, changeset.getDate());
+      }
+    }
+
+    if (file.getFileAttributes().isCopySourceFromPrevious()) {
+      // highlighting and symbols are not in the report but copied from the previous source data
+      digest.update(COPIED_FROM_PREVIOUS);
+    }
+
+    digest.update(HIGHLIGHTING);
+    update(digest, reportReader.readComponentSyntaxHighlighting(ref));
+
+    digest.update(SYMBOLS);
+    update(digest, reportReader.readComponentSymbols(ref));
+
+    digest.update(DUPLICATIONS);
+    for (TextBlock textBlock : duplicatedTextBlocks(duplicationRepository.getDuplications(file))) {
+      update(digest, textBlock.getStart());
+      update(digest, textBlock.getEnd());
+    }
+
+    return Hex.encodeHexString(digest.digest());
+  }
+
+  /**
+   * Same text blocks as the ones {@link DuplicationLineReader} indexes.
+   */
+  private static List<TextBlock> duplicatedTextBlocks(Iterable<Duplication> duplications) {
+    List<TextBlock> textBlocks = new ArrayList<>();
+    for (Duplication duplication : duplications) {
+      textBlocks.add(duplication.getOriginal());
+      for (Duplicate duplicate : duplication.getDuplicates()) {
+        if (duplicate instanceof InnerDuplicate) {
+          textBlocks.add(duplicate.getTextBlock());
+        }
+      }
+    }
+    Collections.sort(textBlocks);
+    return textBlocks;
+  }
+
+  private static void update(MessageDigest digest, CloseableIterator<? extends Message> messages) {
+    try (CloseableIterator<? extends Message> it = messages) {
+      while (it.hasNext()) {
+        byte[] bytes = it.next().toByteArray();
+        update(digest, bytes.length);
+        digest.update(bytes);
+      }
+    }
+    update(digest, -1);
+  }
+
+  private static void update(MessageDigest digest, @Nullable String s) {
+    if (s == null) {
+      update(digest, -1);
+    } else {
+      byte[] bytes = s.getBytes(UTF_8);
+      update(digest, bytes.length);
+      digest.update(bytes);
+    }
+  }
+
+  private static void update(MessageDigest digest, int i) {
+    digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(i).array());
+  }
+
+  private static void update(MessageDigest digest, long l) {
+    digest.update(ByteBuffer.allocate(Long.BYTES).putLong(l).array());
+  }
+}
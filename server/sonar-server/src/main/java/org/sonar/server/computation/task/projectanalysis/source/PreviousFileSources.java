@@ -0,0 +1,53 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.source;
+
+import java.util.Objects;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.source.FileSourceDto;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Source of the previous analysis of files whose source is not in the report
+ * (see {@link org.sonar.server.computation.task.projectanalysis.component.FileAttributes#isCopySourceFromPrevious()}).
+ */
+public final class PreviousFileSources {
+
+  private PreviousFileSources() {
+    // only static methods
+  }
+
+  /**
+   * Loads the source of the previous analysis of the file and verifies that it is the source the scanner compared the
+   * file to. It may not be the case if another analysis of the project has been processed since the file was scanned.
+   *
+   * @throws IllegalStateException if there is no previous source or if it is not the expected one
+   */
+  public static FileSourceDto selectSourceToCopy(DbClient dbClient, DbSession dbSession, Component file) {
+    FileSourceDto previousSource = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, file.getUuid());
+    checkState(previousSource != null, "File '%s' has no source code in the report nor in the previous analysis", file);
+    checkState(Objects.equals(previousSource.getSrcHash(), file.getFileAttributes().getPreviousSourceHash()),
+      "Source of file '%s' changed since it was analyzed by the scanner. Analysis must be executed again.", file);
+    return previousSource;
+  }
+}
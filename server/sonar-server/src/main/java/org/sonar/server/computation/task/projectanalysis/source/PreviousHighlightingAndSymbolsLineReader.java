@@ -0,0 +1,66 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.source;
+
+import java.util.Iterator;
+import javax.annotation.CheckForNull;
+import org.sonar.db.protobuf.DbFileSources;
+
+/**
+ * Copies syntax highlighting and symbols of the source data persisted by the previous analysis, for files whose source
+ * did not change and whose highlighting and symbols are consequently not in the report.
+ */
+public class PreviousHighlightingAndSymbolsLineReader implements LineReader {
+
+  private final Iterator<DbFileSources.Line> previousLines;
+  private DbFileSources.Line previousLine;
+
+  public PreviousHighlightingAndSymbolsLineReader(Iterator<DbFileSources.Line> previousLines) {
+    this.previousLines = previousLines;
+  }
+
+  @Override
+  public void read(DbFileSources.Line.Builder lineBuilder) {
+    DbFileSources.Line line = getNextPreviousLineIfMatchLine(lineBuilder.getLine());
+    if (line == null) {
+      return;
+    }
+    if (line.hasHighlighting()) {
+      lineBuilder.setHighlighting(line.getHighlighting());
+    }
+    if (line.hasSymbols()) {
+      lineBuilder.setSymbols(line.getSymbols());
+    }
+    previousLine = null;
+  }
+
+  @CheckForNull
+  private DbFileSources.Line getNextPreviousLineIfMatchLine(int line) {
+    // skip previous lines located before the current one
+    while ((previousLine == null || previousLine.getLine() < line) && previousLines.hasNext()) {
+      previousLine = previousLines.next();
+    }
+    if (previousLine != null && previousLine.getLine() == line) {
+      return previousLine;
+    }
+    return null;
+  }
+
+}
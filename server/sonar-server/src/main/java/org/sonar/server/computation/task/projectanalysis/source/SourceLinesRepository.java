@@ -19,6 +19,7 @@
  */
 package org.sonar.server.computation.task.projectanalysis.source;
 
+import java.util.List;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 
@@ -38,4 +39,15 @@ public interface SourceLinesRepository {
    * @throws IllegalStateException if the file has no source code in the report
    */
   CloseableIterator<String> readLines(Component component);
+
+  /**
+   * The hashes of the source lines, as returned by {@link #readLines(Component)}, of a given component from the report.
+   * Line 1 is at index 0.
+   *
+   * @throws NullPointerException if argument is {@code null}
+   * @throws IllegalArgumentException if component is not a {@link Component.Type#FILE}
+   * @throws IllegalStateException if the file has no source code in the report
+   * @see org.sonar.core.hash.SourceLinesHashesComputer
+   */
+  List<String> readLineHashes(Component component);
 }
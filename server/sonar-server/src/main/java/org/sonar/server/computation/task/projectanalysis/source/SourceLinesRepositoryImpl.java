@@ -20,7 +20,22 @@
 package org.sonar.server.computation.task.projectanalysis.source;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.picocontainer.Startable;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.hash.SourceLinesHashesComputer;
 import org.sonar.core.util.CloseableIterator;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.db.source.FileSourceDto;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 
@@ -29,25 +44,175 @@ import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.FILE;
 
-public class SourceLinesRepositoryImpl implements SourceLinesRepository {
+/**
+ * Source lines of files are read from the report, or from the previous analysis when the report does not contain them
+ * (see {@link org.sonar.server.computation.task.projectanalysis.component.FileAttributes#isCopySourceFromPrevious()}), and kept, along with their hashes, in a cache bounded by the number of
+ * characters it holds. Source of a file is therefore decoded, and its lines hashed, only once when the different steps
+ * of the analysis read it one after the other.
+ */
+public class SourceLinesRepositoryImpl implements SourceLinesRepository, Startable {
+  private static final Logger LOGGER = Loggers.get(SourceLinesRepositoryImpl.class);
+
+  /**
+   * Default maximum number of characters (lines and line hashes) held by the cache, which is about 64MB.
+   */
+  static final long DEFAULT_MAX_CACHED_CHARACTERS = 32L * 1024 * 1024;
 
   private final BatchReportReader reportReader;
+  private final DbClient dbClient;
+  private final long maxCachedCharacters;
+  private final Map<Integer, CachedSource> cache = new LinkedHashMap<>(16, 0.75F, true);
+  private long cachedCharacters = 0;
+  private long hits = 0;
+  private long misses = 0;
+
+  public SourceLinesRepositoryImpl(BatchReportReader reportReader, DbClient dbClient) {
+    this(reportReader, dbClient, DEFAULT_MAX_CACHED_CHARACTERS);
+  }
 
-  public SourceLinesRepositoryImpl(BatchReportReader reportReader) {
+  SourceLinesRepositoryImpl(BatchReportReader reportReader, DbClient dbClient, long maxCachedCharacters) {
     this.reportReader = reportReader;
+    this.dbClient = dbClient;
+    this.maxCachedCharacters = maxCachedCharacters;
   }
 
   @Override
   public CloseableIterator<String> readLines(Component file) {
+    return CloseableIterator.from(getSource(file).lines.iterator());
+  }
+
+  @Override
+  public List<String> readLineHashes(Component file) {
+    CachedSource source = getSource(file);
+    List<String> lineHashes = source.lineHashes;
+    if (lineHashes == null) {
+      SourceLinesHashesComputer linesHashesComputer = new SourceLinesHashesComputer(source.lines.size());
+      source.lines.forEach(linesHashesComputer::addLine);
+      lineHashes = linesHashesComputer.getLineHashes();
+      putLineHashes(file.getReportAttributes().getRef(), source, lineHashes);
+    }
+    return lineHashes;
+  }
+
+  private CachedSource getSource(Component file) {
     requireNonNull(file, "Component should not be bull");
     checkArgument(file.getType() == FILE, "Component '%s' is not a file", file);
 
-    Optional<CloseableIterator<String>> linesIteratorOptional = reportReader.readFileSource(file.getReportAttributes().getRef());
+    int ref = file.getReportAttributes().getRef();
+    CachedSource source = getCached(ref);
+    if (source == null) {
+      source = new CachedSource(readSourceLines(file));
+      put(ref, source);
+    }
+    return source;
+  }
+
+  private List<String> readSourceLines(Component file) {
+    CloseableIterator<String> sourceLines;
+    if (file.getFileAttributes().isCopySourceFromPrevious()) {
+      sourceLines = readPreviousSourceLines(file);
+    } else {
+      Optional<CloseableIterator<String>> linesIteratorOptional = reportReader.readFileSource(file.getReportAttributes().getRef());
+      checkState(linesIteratorOptional.isPresent(), "File '%s' has no source code", file);
+      sourceLines = linesIteratorOptional.get();
+    }
+
+    int numberOfLines = file.getFileAttributes().getLines();
+    List<String> lines = new ArrayList<>(numberOfLines);
+    try (CloseableIterator<String> lineIterator = new ComponentLinesCloseableIterator(file, sourceLines, numberOfLines)) {
+      lineIterator.forEachRemaining(lines::add);
+    }
+    return ImmutableList.copyOf(lines);
+  }
+
+  private CloseableIterator<String> readPreviousSourceLines(Component file) {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      FileSourceDto previousSource = PreviousFileSources.selectSourceToCopy(dbClient, dbSession, file);
+      List<String> lines = new ArrayList<>();
+      for (DbFileSources.Line line : previousSource.getSourceData().getLinesList()) {
+        lines.add(line.getSource());
+      }
+      return CloseableIterator.from(lines.iterator());
+    }
+  }
+
+  @CheckForNull
+  private synchronized CachedSource getCached(int ref) {
+    CachedSource source = cache.get(ref);
+    if (source == null) {
+      misses++;
+    } else {
+      hits++;
+    }
+    return source;
+  }
+
+  private synchronized void put(int ref, CachedSource source) {
+    if (!cache.containsKey(ref) && source.weight <= maxCachedCharacters) {
+      cache.put(ref, source);
+      cachedCharacters += source.weight;
+      evictIfNeeded();
+    }
+  }
+
+  private synchronized void putLineHashes(int ref, CachedSource source, List<String> lineHashes) {
+    if (source.lineHashes == null) {
+      source.lineHashes = lineHashes;
+      long weight = weightOf(lineHashes);
+      source.weight += weight;
+      if (cache.get(ref) == source) {
+        cachedCharacters += weight;
+        evictIfNeeded();
+      }
+    }
+  }
+
+  private void evictIfNeeded() {
+    Iterator<CachedSource> it = cache.values().iterator();
+    while (cachedCharacters > maxCachedCharacters && it.hasNext()) {
+      cachedCharacters -= it.next().weight;
+      it.remove();
+    }
+  }
+
+  synchronized long getHits() {
+    return hits;
+  }
+
+  synchronized long getMisses() {
+    return misses;
+  }
+
+  @Override
+  public void start() {
+    // nothing to do
+  }
+
+  @Override
+  public synchronized void stop() {
+    LOGGER.debug("Source lines cache: {} hits, {} misses", hits, misses);
+    cache.clear();
+    cachedCharacters = 0;
+  }
+
+  private static long weightOf(List<String> strings) {
+    long weight = 0;
+    for (String s : strings) {
+      weight += s.length();
+    }
+    return weight;
+  }
 
-    checkState(linesIteratorOptional.isPresent(), "File '%s' has no source code", file);
-    CloseableIterator<String> lineIterator = linesIteratorOptional.get();
+  private static final class CachedSource {
+    private final List<String> lines;
+    @CheckForNull
+    private volatile List<String> lineHashes;
+    private long weight;
 
-    return new ComponentLinesCloseableIterator(file, lineIterator, file.getFileAttributes().getLines());
+    private CachedSource(List<String> lines) {
+      this.lines = lines;
+      this.weight = weightOf(lines);
+    }
   }
 
   private static class ComponentLinesCloseableIterator extends CloseableIterator<String> {
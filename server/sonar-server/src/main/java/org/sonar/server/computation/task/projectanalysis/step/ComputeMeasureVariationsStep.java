@@ -22,6 +22,7 @@ package org.sonar.server.computation.task.projectanalysis.step;
 import com.google.common.base.Optional;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -43,14 +44,12 @@ import org.sonar.server.computation.task.projectanalysis.measure.MeasureKey;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
-import org.sonar.server.computation.task.projectanalysis.period.Period;
 import org.sonar.server.computation.task.projectanalysis.period.PeriodHolder;
 import org.sonar.server.computation.task.step.ComputationStep;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.String.format;
-import static java.util.function.Function.identity;
-import static org.sonar.core.util.stream.Collectors.uniqueIndex;
+import static java.util.Collections.emptyMap;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.SUBVIEW;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
@@ -63,6 +62,9 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
  */
 public class ComputeMeasureVariationsStep implements ComputationStep {
 
+  // measures on files are currently purged, so past measures are not available on files
+  private static final CrawlerDepthLimit VISITOR_DEPTH = CrawlerDepthLimit.reportMaxDepth(DIRECTORY).withViewsMaxDepth(SUBVIEW);
+
   private final DbClient dbClient;
   private final TreeRootHolder treeRootHolder;
   private final PeriodHolder periodHolder;
@@ -80,24 +82,51 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
 
   @Override
   public void execute() {
+    if (!periodHolder.hasPeriod()) {
+      return;
+    }
     try (DbSession dbSession = dbClient.openSession(false)) {
       List<Metric> metrics = StreamSupport.stream(metricRepository.getAll().spliterator(), false).filter(isNumeric()).collect(Collectors.toList());
-      new DepthTraversalTypeAwareCrawler(new VariationMeasuresVisitor(dbSession, metrics))
+      Map<String, Map<Integer, PastMeasureDto>> pastMeasuresByComponentUuid = loadPastMeasures(dbSession, metrics);
+      new DepthTraversalTypeAwareCrawler(new VariationMeasuresVisitor(pastMeasuresByComponentUuid, metrics))
         .visit(treeRootHolder.getRoot());
     }
   }
 
+  /**
+   * Loads with a single query the measures of the period analysis, indexed by component uuid and metric id, instead
+   * of requesting them component per component. Only the measures of the components visited by
+   * {@link VariationMeasuresVisitor} and of the given metrics are kept in memory.
+   */
+  private Map<String, Map<Integer, PastMeasureDto>> loadPastMeasures(DbSession dbSession, List<Metric> metrics) {
+    Set<String> componentUuids = new HashSet<>();
+    new DepthTraversalTypeAwareCrawler(new TypeAwareVisitorAdapter(VISITOR_DEPTH, PRE_ORDER) {
+      @Override
+      public void visitAny(Component component) {
+        componentUuids.add(component.getUuid());
+      }
+    }).visit(treeRootHolder.getRoot());
+    Set<Integer> metricIds = metrics.stream().map(Metric::getId).collect(Collectors.toSet());
+
+    Map<String, Map<Integer, PastMeasureDto>> pastMeasuresByComponentUuid = new HashMap<>();
+    dbClient.measureDao().selectPastMeasures(dbSession, periodHolder.getPeriod().getAnalysisUuid(), context -> {
+      PastMeasureDto pastMeasure = (PastMeasureDto) context.getResultObject();
+      if (componentUuids.contains(pastMeasure.getComponentUuid()) && metricIds.contains(pastMeasure.getMetricId())) {
+        pastMeasuresByComponentUuid.computeIfAbsent(pastMeasure.getComponentUuid(), k -> new HashMap<>())
+          .put(pastMeasure.getMetricId(), pastMeasure);
+      }
+    });
+    return pastMeasuresByComponentUuid;
+  }
+
   private class VariationMeasuresVisitor extends TypeAwareVisitorAdapter {
 
-    private final DbSession session;
-    private final Set<Integer> metricIds;
+    private final Map<String, Map<Integer, PastMeasureDto>> pastMeasuresByComponentUuid;
     private final List<Metric> metrics;
 
-    VariationMeasuresVisitor(DbSession session, List<Metric> metrics) {
-      // measures on files are currently purged, so past measures are not available on files
-      super(CrawlerDepthLimit.reportMaxDepth(DIRECTORY).withViewsMaxDepth(SUBVIEW), PRE_ORDER);
-      this.session = session;
-      this.metricIds = metrics.stream().map(Metric::getId).collect(Collectors.toSet());
+    VariationMeasuresVisitor(Map<String, Map<Integer, PastMeasureDto>> pastMeasuresByComponentUuid, List<Metric> metrics) {
+      super(VISITOR_DEPTH, PRE_ORDER);
+      this.pastMeasuresByComponentUuid = pastMeasuresByComponentUuid;
       this.metrics = metrics;
     }
 
@@ -109,27 +138,16 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
 
     private MeasuresWithVariationRepository computeMeasuresWithVariations(Component component) {
       MeasuresWithVariationRepository measuresWithVariationRepository = new MeasuresWithVariationRepository();
-      if (periodHolder.hasPeriod()) {
-        Period period = periodHolder.getPeriod();
-        List<PastMeasureDto> pastMeasures = dbClient.measureDao()
-          .selectPastMeasures(session, component.getUuid(), period.getAnalysisUuid(), metricIds);
-        setVariationMeasures(component, pastMeasures, measuresWithVariationRepository);
-      }
-      return measuresWithVariationRepository;
-    }
-
-    private void setVariationMeasures(Component component, List<PastMeasureDto> pastMeasures, MeasuresWithVariationRepository measuresWithVariationRepository) {
-      Map<MeasureKey, PastMeasureDto> pastMeasuresByMeasureKey = pastMeasures
-        .stream()
-        .collect(uniqueIndex(m -> new MeasureKey(metricRepository.getById((long) m.getMetricId()).getKey(), null), identity()));
+      Map<Integer, PastMeasureDto> pastMeasuresByMetricId = pastMeasuresByComponentUuid.getOrDefault(component.getUuid(), emptyMap());
       for (Metric metric : metrics) {
         Optional<Measure> measure = measureRepository.getRawMeasure(component, metric);
         if (measure.isPresent() && !measure.get().hasVariation()) {
-          PastMeasureDto pastMeasure = pastMeasuresByMeasureKey.get(new MeasureKey(metric.getKey(), null));
+          PastMeasureDto pastMeasure = pastMeasuresByMetricId.get(metric.getId());
           double pastValue = (pastMeasure != null && pastMeasure.hasValue()) ? pastMeasure.getValue() : 0d;
           measuresWithVariationRepository.add(metric, measure.get(), computeVariation(measure.get(), pastValue));
         }
       }
+      return measuresWithVariationRepository;
     }
 
     private double computeVariation(Measure measure, double pastValue) {
@@ -19,27 +19,35 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.Optional;
+import org.apache.commons.io.FileUtils;
 import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.TempFolder;
 import org.sonar.api.utils.ZipUtils;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeTaskInputDao;
+import org.sonar.scanner.protocol.output.ScannerReportReader;
 import org.sonar.server.computation.task.projectanalysis.batch.MutableBatchReportDirectoryHolder;
 import org.sonar.server.computation.task.step.ComputationStep;
 
 /**
- * Extracts the content zip file of the {@link CeTask} to a temp directory and adds a {@link File}
- * representing that temp directory to the {@link MutableBatchReportDirectoryHolder}.
+ * Copies the content zip file of the {@link CeTask} to a temp file and adds this {@link File} to the
+ * {@link MutableBatchReportDirectoryHolder}, so that the report is read directly from its archive.
+ * <p>
+ * If the zip file can not be read in place (for example if its central directory is missing), it is extracted
+ * to a temp directory which is added to the {@link MutableBatchReportDirectoryHolder} instead.
+ * </p>
  */
 public class ExtractReportStep implements ComputationStep {
 
+  private static final Logger LOGGER = Loggers.get(ExtractReportStep.class);
+
   private final DbClient dbClient;
   private final CeTask task;
   private final TempFolder tempFolder;
@@ -58,20 +66,38 @@ public class ExtractReportStep implements ComputationStep {
     try (DbSession dbSession = dbClient.openSession(false)) {
       Optional<CeTaskInputDao.DataStream> opt = dbClient.ceTaskInputDao().selectData(dbSession, task.getUuid());
       if (opt.isPresent()) {
-        File unzippedDir = tempFolder.newDir();
-        try (CeTaskInputDao.DataStream reportStream = opt.get();
-             InputStream zipStream = new BufferedInputStream(reportStream.getInputStream())) {
-          ZipUtils.unzip(zipStream, unzippedDir);
+        File zip = tempFolder.newFile("report", ".zip");
+        try (CeTaskInputDao.DataStream reportStream = opt.get()) {
+          FileUtils.copyInputStreamToFile(reportStream.getInputStream(), zip);
         } catch (IOException e) {
           throw new IllegalStateException("Fail to extract report " + task.getUuid() + " from database", e);
         }
-        reportDirectoryHolder.setDirectory(unzippedDir);
+        reportDirectoryHolder.setDirectory(isReadableInPlace(zip) ? zip : unzip(zip));
       } else {
         throw MessageException.of("Analysis report " + task.getUuid() + " is missing in database");
       }
     }
   }
 
+  private boolean isReadableInPlace(File zip) {
+    try (ScannerReportReader reader = ScannerReportReader.openArchive(zip)) {
+      return true;
+    } catch (IllegalStateException | IOException e) {
+      LOGGER.debug("Report " + task.getUuid() + " can not be read from its archive, it is extracted", e);
+      return false;
+    }
+  }
+
+  private File unzip(File zip) {
+    File unzippedDir = tempFolder.newDir();
+    try {
+      ZipUtils.unzip(zip, unzippedDir);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to extract report " + task.getUuid() + " from database", e);
+    }
+    return unzippedDir;
+  }
+
   @Override
   public String getDescription() {
     return "Extract report";
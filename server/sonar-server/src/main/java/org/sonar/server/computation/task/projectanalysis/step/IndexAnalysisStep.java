@@ -21,28 +21,55 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.server.component.index.ComponentIndexer;
+import org.sonar.server.computation.task.projectanalysis.component.ChangedComponentsHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.issue.ChangedIssuesHolder;
 import org.sonar.server.computation.task.step.ComputationStep;
 import org.sonar.server.es.ProjectIndexer;
+import org.sonar.server.issue.index.IssueIndexer;
 
+/**
+ * Index the data of the analysed project.
+ * <p>
+ * When no component has been inserted or updated by the analysis, the documents of the other components
+ * are still accurate. Only the issues persisted by the analysis are then re-indexed and the component index is
+ * left untouched. Otherwise the issues denormalize some component fields (path, module, ...) and the whole
+ * project is re-indexed. Removed issues and disabled components are deleted from indices by
+ * {@link PurgeDatastoresStep}.
+ * </p>
+ */
 public class IndexAnalysisStep implements ComputationStep {
 
   private static final Logger LOGGER = Loggers.get(IndexAnalysisStep.class);
 
   private final TreeRootHolder treeRootHolder;
+  private final ChangedComponentsHolder changedComponentsHolder;
+  private final ChangedIssuesHolder changedIssuesHolder;
   private final ProjectIndexer[] indexers;
 
-  public IndexAnalysisStep(TreeRootHolder treeRootHolder, ProjectIndexer... indexers) {
+  public IndexAnalysisStep(TreeRootHolder treeRootHolder, ChangedComponentsHolder changedComponentsHolder,
+    ChangedIssuesHolder changedIssuesHolder, ProjectIndexer... indexers) {
     this.treeRootHolder = treeRootHolder;
+    this.changedComponentsHolder = changedComponentsHolder;
+    this.changedIssuesHolder = changedIssuesHolder;
     this.indexers = indexers;
   }
 
   @Override
   public void execute() {
     String projectUuid = treeRootHolder.getRoot().getUuid();
+    boolean componentsUnchanged = changedComponentsHolder.hasUuidsBeenSet() && changedComponentsHolder.getUuids().isEmpty();
     for (ProjectIndexer indexer : indexers) {
-      LOGGER.debug("Call {}", indexer);
-      indexer.indexProject(projectUuid, ProjectIndexer.Cause.NEW_ANALYSIS);
+      if (componentsUnchanged && indexer instanceof ComponentIndexer) {
+        LOGGER.debug("Skip {}, no component changed", indexer);
+      } else if (componentsUnchanged && changedIssuesHolder.hasKeysBeenSet() && indexer instanceof IssueIndexer) {
+        LOGGER.debug("Call {} on {} changed issues", indexer, changedIssuesHolder.getKeys().size());
+        ((IssueIndexer) indexer).index(changedIssuesHolder.getKeys());
+      } else {
+        LOGGER.debug("Call {}", indexer);
+        indexer.indexProject(projectUuid, ProjectIndexer.Cause.NEW_ANALYSIS);
+      }
     }
   }
 
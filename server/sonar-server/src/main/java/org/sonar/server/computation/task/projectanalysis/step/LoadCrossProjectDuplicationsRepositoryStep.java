@@ -20,11 +20,20 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import javax.annotation.Nonnull;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.duplication.DuplicationUnitDto;
@@ -53,6 +62,9 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
  * Blocks can be empty if :
  * - The file is excluded from the analysis using {@link org.sonar.api.CoreProperties#CPD_EXCLUSIONS}
  * - On Java, if the number of statements of the file is too small, nothing will be sent.
+ *
+ * Candidate duplication units are loaded from database once for all the files of a given language, before
+ * the duplications of each file are computed.
  */
 public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationStep {
 
@@ -79,7 +91,11 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
   @Override
   public void execute() {
     if (crossProjectDuplicationStatusHolder.isEnabled()) {
-      new DepthTraversalTypeAwareCrawler(new CrossProjectDuplicationVisitor()).visit(treeRootHolder.getRoot());
+      Component root = treeRootHolder.getRoot();
+      HashCollector hashCollector = new HashCollector();
+      new DepthTraversalTypeAwareCrawler(hashCollector).visit(root);
+      Map<String, ListMultimap<String, DuplicationUnitDto>> candidatesByLanguage = selectCandidates(hashCollector.hashesByLanguage);
+      new DepthTraversalTypeAwareCrawler(new CrossProjectDuplicationVisitor(candidatesByLanguage)).visit(root);
     }
   }
 
@@ -88,10 +104,58 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
     return "Compute cross project duplications";
   }
 
+  private Map<String, ListMultimap<String, DuplicationUnitDto>> selectCandidates(Map<String, Set<String>> hashesByLanguage) {
+    Map<String, ListMultimap<String, DuplicationUnitDto>> candidatesByLanguage = new HashMap<>();
+    if (hashesByLanguage.isEmpty()) {
+      return candidatesByLanguage;
+    }
+    Analysis projectAnalysis = analysisMetadataHolder.getBaseAnalysis();
+    String analysisUuid = projectAnalysis == null ? null : projectAnalysis.getUuid();
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      for (Map.Entry<String, Set<String>> languageAndHashes : hashesByLanguage.entrySet()) {
+        String language = languageAndHashes.getKey();
+        Set<String> hashes = languageAndHashes.getValue();
+        ListMultimap<String, DuplicationUnitDto> candidatesByHash = ArrayListMultimap.create();
+        for (DuplicationUnitDto dto : dbClient.duplicationDao().selectCandidates(dbSession, analysisUuid, language, hashes)) {
+          candidatesByHash.put(dto.getHash(), dto);
+        }
+        LOGGER.debug("Found {} candidate cpd blocks for {} hashes of language {}", candidatesByHash.size(), hashes.size(), language);
+        candidatesByLanguage.put(language, candidatesByHash);
+      }
+    }
+    return candidatesByLanguage;
+  }
+
+  /**
+   * Collects the hashes of the cpd blocks of all the files, by language
+   */
+  private class HashCollector extends TypeAwareVisitorAdapter {
+    private final Map<String, Set<String>> hashesByLanguage = new HashMap<>();
+
+    private HashCollector() {
+      super(CrawlerDepthLimit.FILE, PRE_ORDER);
+    }
+
+    @Override
+    public void visitFile(Component file) {
+      try (CloseableIterator<CpdTextBlock> cpdTextBlocks = reportReader.readCpdTextBlocks(file.getReportAttributes().getRef())) {
+        if (!cpdTextBlocks.hasNext()) {
+          return;
+        }
+        Set<String> hashes = hashesByLanguage.computeIfAbsent(file.getFileAttributes().getLanguageKey(), language -> new HashSet<>());
+        while (cpdTextBlocks.hasNext()) {
+          hashes.add(cpdTextBlocks.next().getHash());
+        }
+      }
+    }
+  }
+
   private class CrossProjectDuplicationVisitor extends TypeAwareVisitorAdapter {
+    private final Map<String, ListMultimap<String, DuplicationUnitDto>> candidatesByLanguage;
 
-    private CrossProjectDuplicationVisitor() {
+    private CrossProjectDuplicationVisitor(Map<String, ListMultimap<String, DuplicationUnitDto>> candidatesByLanguage) {
       super(CrawlerDepthLimit.FILE, PRE_ORDER);
+      this.candidatesByLanguage = candidatesByLanguage;
     }
 
     @Override
@@ -102,7 +166,7 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
         return;
       }
 
-      Collection<String> hashes = from(cpdTextBlocks).transform(CpdTextBlockToHash.INSTANCE).toList();
+      Collection<String> hashes = new LinkedHashSet<>(from(cpdTextBlocks).transform(CpdTextBlockToHash.INSTANCE).toList());
       List<DuplicationUnitDto> dtos = selectDuplicates(file, hashes);
       if (dtos.isEmpty()) {
         return;
@@ -116,11 +180,14 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
     }
 
     private List<DuplicationUnitDto> selectDuplicates(Component file, Collection<String> hashes) {
-      try (DbSession dbSession = dbClient.openSession(false)) {
-        Analysis projectAnalysis = analysisMetadataHolder.getBaseAnalysis();
-        String analysisUuid = projectAnalysis == null ? null : projectAnalysis.getUuid();
-        return dbClient.duplicationDao().selectCandidates(dbSession, analysisUuid, file.getFileAttributes().getLanguageKey(), hashes);
+      ListMultimap<String, DuplicationUnitDto> candidatesByHash = candidatesByLanguage.get(file.getFileAttributes().getLanguageKey());
+      List<DuplicationUnitDto> dtos = new ArrayList<>();
+      if (candidatesByHash != null) {
+        for (String hash : hashes) {
+          dtos.addAll(candidatesByHash.get(hash));
+        }
       }
+      return dtos;
     }
   }
 
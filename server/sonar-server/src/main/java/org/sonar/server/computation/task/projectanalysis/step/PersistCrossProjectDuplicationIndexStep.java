@@ -19,6 +19,8 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import com.google.common.collect.ImmutableSet;
+import java.util.Set;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -32,14 +34,14 @@ import org.sonar.server.computation.task.projectanalysis.component.DepthTraversa
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationStatusHolder;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 
 /**
  * Persist cross project duplications text blocks into DUPLICATIONS_INDEX table
  */
-public class PersistCrossProjectDuplicationIndexStep implements ComputationStep {
+public class PersistCrossProjectDuplicationIndexStep implements ConcurrentComputationStep {
 
   private final DbClient dbClient;
   private final TreeRootHolder treeRootHolder;
@@ -57,6 +59,16 @@ public class PersistCrossProjectDuplicationIndexStep implements ComputationStep
     this.crossProjectDuplicationStatusHolder = crossProjectDuplicationStatusHolder;
   }
 
+  @Override
+  public Set<String> getReadResources() {
+    return ImmutableSet.of("TreeRootHolder", "BatchReportReader", "AnalysisMetadataHolder", "CrossProjectDuplicationStatusHolder");
+  }
+
+  @Override
+  public Set<String> getWrittenResources() {
+    return ImmutableSet.of("db:duplications_index");
+  }
+
   @Override
   public void execute() {
     if (!crossProjectDuplicationStatusHolder.isEnabled()) {
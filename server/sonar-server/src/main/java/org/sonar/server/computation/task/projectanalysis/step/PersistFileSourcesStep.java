@@ -21,15 +21,19 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang.ObjectUtils;
 import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -48,19 +52,24 @@ import org.sonar.server.computation.task.projectanalysis.scm.Changeset;
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfo;
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepository;
 import org.sonar.server.computation.task.projectanalysis.source.ComputeFileSourceData;
+import org.sonar.server.computation.task.projectanalysis.source.ComputeFileSourceInputsHash;
 import org.sonar.server.computation.task.projectanalysis.source.CoverageLineReader;
 import org.sonar.server.computation.task.projectanalysis.source.DuplicationLineReader;
 import org.sonar.server.computation.task.projectanalysis.source.HighlightingLineReader;
 import org.sonar.server.computation.task.projectanalysis.source.LineReader;
+import org.sonar.server.computation.task.projectanalysis.source.PreviousFileSources;
+import org.sonar.server.computation.task.projectanalysis.source.PreviousHighlightingAndSymbolsLineReader;
 import org.sonar.server.computation.task.projectanalysis.source.RangeOffsetConverter;
 import org.sonar.server.computation.task.projectanalysis.source.ScmLineReader;
+import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepository;
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepository;
 import org.sonar.server.computation.task.projectanalysis.source.SymbolsLineReader;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 
-public class PersistFileSourcesStep implements ComputationStep {
+public class PersistFileSourcesStep implements ConcurrentComputationStep {
+  private static final Logger LOGGER = Loggers.get(PersistFileSourcesStep.class);
 
   private final DbClient dbClient;
   private final System2 system2;
@@ -69,9 +78,10 @@ public class PersistFileSourcesStep implements ComputationStep {
   private final SourceLinesRepository sourceLinesRepository;
   private final ScmInfoRepository scmInfoRepository;
   private final DuplicationRepository duplicationRepository;
+  private final ComputeFileSourceInputsHash computeInputsHash;
 
   public PersistFileSourcesStep(DbClient dbClient, System2 system2, TreeRootHolder treeRootHolder, BatchReportReader reportReader, SourceLinesRepository sourceLinesRepository,
-    ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository) {
+    ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, SourceHashRepository sourceHashRepository) {
     this.dbClient = dbClient;
     this.system2 = system2;
     this.treeRootHolder = treeRootHolder;
@@ -79,14 +89,28 @@ public class PersistFileSourcesStep implements ComputationStep {
     this.sourceLinesRepository = sourceLinesRepository;
     this.scmInfoRepository = scmInfoRepository;
     this.duplicationRepository = duplicationRepository;
+    this.computeInputsHash = new ComputeFileSourceInputsHash(reportReader, sourceHashRepository, scmInfoRepository, duplicationRepository);
+  }
+
+  @Override
+  public Set<String> getReadResources() {
+    return ImmutableSet.of("TreeRootHolder", "BatchReportReader", "SourceLinesRepository", "DuplicationRepository");
+  }
+
+  @Override
+  public Set<String> getWrittenResources() {
+    // ScmInfoRepository and SourceHashRepository lazily cache the ScmInfo and hashes they load
+    return ImmutableSet.of("ScmInfoRepository", "SourceHashRepository", "db:file_sources[SOURCE]");
   }
 
   @Override
   public void execute() {
     // Don't use batch insert for file_sources since keeping all data in memory can produce OOM for big files
     try (DbSession dbSession = dbClient.openSession(false)) {
-      new DepthTraversalTypeAwareCrawler(new FileSourceVisitor(dbSession))
+      FileSourceVisitor visitor = new FileSourceVisitor(dbSession);
+      new DepthTraversalTypeAwareCrawler(visitor)
         .visit(treeRootHolder.getRoot());
+      LOGGER.debug("Sources of {} files out of {} are unchanged and have been skipped", visitor.skippedFiles, visitor.visitedFiles);
     }
   }
 
@@ -96,6 +120,8 @@ public class PersistFileSourcesStep implements ComputationStep {
 
     private Map<String, FileSourceDto> previousFileSourcesByUuid = new HashMap<>();
     private String projectUuid;
+    private int visitedFiles = 0;
+    private int skippedFiles = 0;
 
     private FileSourceVisitor(DbSession session) {
       super(CrawlerDepthLimit.FILE, PRE_ORDER);
@@ -114,12 +140,26 @@ public class PersistFileSourcesStep implements ComputationStep {
 
     @Override
     public void visitFile(Component file) {
+      visitedFiles++;
+      String inputsHash;
+      try {
+        inputsHash = computeInputsHash.compute(file);
+      } catch (Exception e) {
+        throw new IllegalStateException(String.format("Cannot persist sources of %s", file.getKey()), e);
+      }
+      FileSourceDto previousDto = previousFileSourcesByUuid.get(file.getUuid());
+      if (previousDto != null && inputsHash.equals(previousDto.getInputsHash())) {
+        // nothing changed in the inputs of the source data since the previous analysis
+        skippedFiles++;
+        return;
+      }
+
       CloseableIterator<String> linesIterator = sourceLinesRepository.readLines(file);
-      LineReaders lineReaders = new LineReaders(reportReader, scmInfoRepository, duplicationRepository, file);
+      LineReaders lineReaders = new LineReaders(reportReader, scmInfoRepository, duplicationRepository, file, loadPreviousSourceDataIfCopied(file));
       try {
         ComputeFileSourceData computeFileSourceData = new ComputeFileSourceData(linesIterator, lineReaders.readers(), file.getFileAttributes().getLines());
         ComputeFileSourceData.Data fileSourceData = computeFileSourceData.compute();
-        persistSource(fileSourceData, file.getUuid(), lineReaders.getLatestChange());
+        persistSource(fileSourceData, file.getUuid(), lineReaders.getLatestChange(), inputsHash);
       } catch (Exception e) {
         throw new IllegalStateException(String.format("Cannot persist sources of %s", file.getKey()), e);
       } finally {
@@ -128,7 +168,15 @@ public class PersistFileSourcesStep implements ComputationStep {
       }
     }
 
-    private void persistSource(ComputeFileSourceData.Data fileSourceData, String componentUuid, @Nullable Changeset latestChange) {
+    @CheckForNull
+    private DbFileSources.Data loadPreviousSourceDataIfCopied(Component file) {
+      if (!file.getFileAttributes().isCopySourceFromPrevious()) {
+        return null;
+      }
+      return PreviousFileSources.selectSourceToCopy(dbClient, session, file).getSourceData();
+    }
+
+    private void persistSource(ComputeFileSourceData.Data fileSourceData, String componentUuid, @Nullable Changeset latestChange, String inputsHash) {
       DbFileSources.Data fileData = fileSourceData.getFileSourceData();
 
       byte[] data = FileSourceDto.encodeSourceData(fileData);
@@ -146,24 +194,27 @@ public class PersistFileSourcesStep implements ComputationStep {
           .setSrcHash(srcHash)
           .setDataHash(dataHash)
           .setLineHashes(lineHashes)
+          .setInputsHash(inputsHash)
           .setCreatedAt(system2.now())
           .setUpdatedAt(system2.now())
           .setRevision(computeRevision(latestChange));
         dbClient.fileSourceDao().insert(session, dto);
         session.commit();
       } else {
-        // Update only if data_hash has changed or if src_hash is missing or revision is missing (progressive migration)
+        // Update only if data_hash has changed or if src_hash, revision or inputs_hash is missing (progressive migration)
         boolean binaryDataUpdated = !dataHash.equals(previousDto.getDataHash());
         boolean srcHashUpdated = !srcHash.equals(previousDto.getSrcHash());
         String revision = computeRevision(latestChange);
         boolean revisionUpdated = !ObjectUtils.equals(revision, previousDto.getRevision());
-        if (binaryDataUpdated || srcHashUpdated || revisionUpdated) {
+        boolean inputsHashUpdated = !inputsHash.equals(previousDto.getInputsHash());
+        if (binaryDataUpdated || srcHashUpdated || revisionUpdated || inputsHashUpdated) {
           previousDto
             .setBinaryData(data)
             .setDataHash(dataHash)
             .setSrcHash(srcHash)
             .setLineHashes(lineHashes)
             .setRevision(revision)
+            .setInputsHash(inputsHash)
             .setUpdatedAt(system2.now());
           dbClient.fileSourceDao().update(session, previousDto);
           session.commit();
@@ -186,7 +237,8 @@ public class PersistFileSourcesStep implements ComputationStep {
     @CheckForNull
     private final ScmLineReader scmLineReader;
 
-    LineReaders(BatchReportReader reportReader, ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, Component component) {
+    LineReaders(BatchReportReader reportReader, ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, Component component,
+      @Nullable DbFileSources.Data previousSourceData) {
       int componentRef = component.getReportAttributes().getRef();
       CloseableIterator<ScannerReport.LineCoverage> coverageIt = reportReader.readComponentCoverage(componentRef);
       closeables.add(coverageIt);
@@ -200,14 +252,19 @@ public class PersistFileSourcesStep implements ComputationStep {
         this.scmLineReader = null;
       }
 
-      RangeOffsetConverter rangeOffsetConverter = new RangeOffsetConverter();
-      CloseableIterator<ScannerReport.SyntaxHighlightingRule> highlightingIt = reportReader.readComponentSyntaxHighlighting(componentRef);
-      closeables.add(highlightingIt);
-      readers.add(new HighlightingLineReader(component, highlightingIt, rangeOffsetConverter));
+      if (previousSourceData != null) {
+        // source did not change, highlighting and symbols are not in the report
+        readers.add(new PreviousHighlightingAndSymbolsLineReader(previousSourceData.getLinesList().iterator()));
+      } else {
+        RangeOffsetConverter rangeOffsetConverter = new RangeOffsetConverter();
+        CloseableIterator<ScannerReport.SyntaxHighlightingRule> highlightingIt = reportReader.readComponentSyntaxHighlighting(componentRef);
+        closeables.add(highlightingIt);
+        readers.add(new HighlightingLineReader(component, highlightingIt, rangeOffsetConverter));
 
-      CloseableIterator<ScannerReport.Symbol> symbolsIt = reportReader.readComponentSymbols(componentRef);
-      closeables.add(symbolsIt);
-      readers.add(new SymbolsLineReader(component, symbolsIt, rangeOffsetConverter));
+        CloseableIterator<ScannerReport.Symbol> symbolsIt = reportReader.readComponentSymbols(componentRef);
+        closeables.add(symbolsIt);
+        readers.add(new SymbolsLineReader(component, symbolsIt, rangeOffsetConverter));
+      }
 
       readers.add(new DuplicationLineReader(duplicationRepository.getDuplications(component)));
     }
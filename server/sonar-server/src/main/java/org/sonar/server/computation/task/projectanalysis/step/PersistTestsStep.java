@@ -23,6 +23,7 @@ import com.google.common.base.Joiner;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Table;
 import java.util.ArrayList;
@@ -51,9 +52,9 @@ import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthL
 import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 
-public class PersistTestsStep implements ComputationStep {
+public class PersistTestsStep implements ConcurrentComputationStep {
 
   private static final Logger LOG = Loggers.get(PersistTestsStep.class);
 
@@ -69,6 +70,16 @@ public class PersistTestsStep implements ComputationStep {
     this.treeRootHolder = treeRootHolder;
   }
 
+  @Override
+  public Set<String> getReadResources() {
+    return ImmutableSet.of("TreeRootHolder", "BatchReportReader");
+  }
+
+  @Override
+  public Set<String> getWrittenResources() {
+    return ImmutableSet.of("db:file_sources[TEST]");
+  }
+
   @Override
   public void execute() {
     try (DbSession dbSession = dbClient.openSession(true)) {
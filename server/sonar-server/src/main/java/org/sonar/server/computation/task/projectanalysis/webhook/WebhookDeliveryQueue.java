@@ -0,0 +1,230 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.webhook;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.HttpUrl;
+import org.picocontainer.Startable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Sends webhooks asynchronously, so that a slow or unreachable endpoint does not hold the Compute Engine
+ * worker which processed the analysis.
+ * <p>
+ * Deliveries are executed by {@link WebhookDeliveryExecutorService}. The number of concurrent requests to the same
+ * host is limited. Requests failing because of a connectivity problem, a timeout or a server error (5xx) are
+ * retried with an exponential backoff. Only the last attempt is persisted by {@link WebhookDeliveryStorage}.
+ * </p>
+ * <p>
+ * The queue is kept in memory: deliveries not sent yet are lost when the Compute Engine stops.
+ * </p>
+ */
+@ComputeEngineSide
+public class WebhookDeliveryQueue implements Startable {
+
+  private static final Logger LOGGER = Loggers.get(WebhookDeliveryQueue.class);
+
+  private static final int DEFAULT_MAX_ATTEMPTS = 3;
+  private static final long DEFAULT_INITIAL_BACKOFF_MS = 10_000L;
+  private static final int DEFAULT_MAX_CONCURRENCY_PER_HOST = 2;
+  private static final long HOST_BUSY_DELAY_MS = 500L;
+
+  private final WebhookDeliveryExecutorService executorService;
+  private final WebhookCaller caller;
+  private final WebhookDeliveryStorage deliveryStorage;
+  private final int maxAttempts;
+  private final long initialBackoffMs;
+  private final int maxConcurrencyPerHost;
+  private final Map<String, Semaphore> permitsByHost = new ConcurrentHashMap<>();
+
+  private final AtomicLong pendingCount = new AtomicLong();
+  private final AtomicLong successCount = new AtomicLong();
+  private final AtomicLong failureCount = new AtomicLong();
+  private final AtomicLong retryCount = new AtomicLong();
+
+  public WebhookDeliveryQueue(WebhookDeliveryExecutorService executorService, WebhookCaller caller, WebhookDeliveryStorage deliveryStorage) {
+    this(executorService, caller, deliveryStorage, DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF_MS, DEFAULT_MAX_CONCURRENCY_PER_HOST);
+  }
+
+  @VisibleForTesting
+  WebhookDeliveryQueue(WebhookDeliveryExecutorService executorService, WebhookCaller caller, WebhookDeliveryStorage deliveryStorage,
+    int maxAttempts, long initialBackoffMs, int maxConcurrencyPerHost) {
+    this.executorService = executorService;
+    this.caller = caller;
+    this.deliveryStorage = deliveryStorage;
+    this.maxAttempts = maxAttempts;
+    this.initialBackoffMs = initialBackoffMs;
+    this.maxConcurrencyPerHost = maxConcurrencyPerHost;
+  }
+
+  @Override
+  public void start() {
+    // nothing to do
+  }
+
+  @Override
+  public void stop() {
+    long pending = pendingCount.get();
+    if (pending > 0) {
+      LOGGER.warn("{} webhook deliveries have not been sent", pending);
+    }
+  }
+
+  /**
+   * Enqueues the delivery of the payload to the webhook and returns immediately.
+   */
+  public void enqueue(Webhook webhook, WebhookPayload payload) {
+    pendingCount.incrementAndGet();
+    schedule(new Attempt(webhook, payload, 1), 0L);
+  }
+
+  private void schedule(Attempt attempt, long delayMs) {
+    try {
+      executorService.schedule(() -> deliver(attempt), delayMs, MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      pendingCount.decrementAndGet();
+      LOGGER.warn("Webhook '{}' can not be sent, delivery queue is stopped", attempt.webhook.getName());
+    }
+  }
+
+  /**
+   * Executed by {@link WebhookDeliveryExecutorService}, which would silently drop exceptions.
+   */
+  private void deliver(Attempt attempt) {
+    boolean success;
+    try {
+      Optional<WebhookDelivery> delivery = send(attempt);
+      if (!delivery.isPresent()) {
+        // delivery has been scheduled again
+        return;
+      }
+      deliveryStorage.persist(delivery.get());
+      success = delivery.get().isSuccess();
+    } catch (RuntimeException e) {
+      LOGGER.error(format("Fail to send webhook '%s'", attempt.webhook.getName()), e);
+      success = false;
+    }
+    pendingCount.decrementAndGet();
+    if (success) {
+      successCount.incrementAndGet();
+    } else {
+      failureCount.incrementAndGet();
+    }
+  }
+
+  /**
+   * @return the result of the last attempt, or empty if the delivery has been scheduled again
+   */
+  private Optional<WebhookDelivery> send(Attempt attempt) {
+    Semaphore hostPermits = permitsByHost.computeIfAbsent(attempt.host, h -> new Semaphore(maxConcurrencyPerHost));
+    if (!hostPermits.tryAcquire()) {
+      schedule(attempt, HOST_BUSY_DELAY_MS);
+      return Optional.empty();
+    }
+    WebhookDelivery delivery;
+    try {
+      delivery = caller.call(attempt.webhook, attempt.payload);
+    } finally {
+      hostPermits.release();
+    }
+    log(delivery, attempt.number);
+
+    if (attempt.number < maxAttempts && isRetryable(delivery)) {
+      retryCount.incrementAndGet();
+      schedule(attempt.next(), initialBackoffMs << (attempt.number - 1));
+      return Optional.empty();
+    }
+    return Optional.of(delivery);
+  }
+
+  private static boolean isRetryable(WebhookDelivery delivery) {
+    return delivery.getError().isPresent() || delivery.getHttpStatus().filter(status -> status >= 500).isPresent();
+  }
+
+  private static void log(WebhookDelivery delivery, int attemptNumber) {
+    Optional<String> error = delivery.getErrorMessage();
+    if (error.isPresent()) {
+      LOGGER.debug("Failed to send webhook '{}' | url={} | attempt={} | message={}",
+        delivery.getWebhook().getName(), delivery.getWebhook().getUrl(), attemptNumber, error.get());
+    } else {
+      LOGGER.debug("Sent webhook '{}' | url={} | attempt={} | time={}ms | status={}",
+        delivery.getWebhook().getName(), delivery.getWebhook().getUrl(), attemptNumber, delivery.getDurationInMs().orElse(-1),
+        delivery.getHttpStatus().orElse(-1));
+    }
+  }
+
+  /**
+   * Count of deliveries enqueued and not completed yet, including the ones waiting for a retry.
+   */
+  public long getPendingCount() {
+    return pendingCount.get();
+  }
+
+  /**
+   * Count of deliveries which succeeded since startup.
+   */
+  public long getSuccessCount() {
+    return successCount.get();
+  }
+
+  /**
+   * Count of deliveries which failed since startup, after all their attempts.
+   */
+  public long getFailureCount() {
+    return failureCount.get();
+  }
+
+  /**
+   * Count of attempts which have been retried since startup.
+   */
+  public long getRetryCount() {
+    return retryCount.get();
+  }
+
+  private static final class Attempt {
+    private final Webhook webhook;
+    private final WebhookPayload payload;
+    private final int number;
+    private final String host;
+
+    private Attempt(Webhook webhook, WebhookPayload payload, int number) {
+      this.webhook = webhook;
+      this.payload = payload;
+      this.number = number;
+      HttpUrl url = HttpUrl.parse(webhook.getUrl());
+      this.host = url == null ? webhook.getUrl() : url.host();
+    }
+
+    private Attempt next() {
+      return new Attempt(webhook, payload, number + 1);
+    }
+  }
+}
@@ -19,16 +19,45 @@
  */
 package org.sonar.server.computation.task.step;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.slf4j.MDC;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.logs.Profiler;
+import org.sonar.server.computation.configuration.CeConfiguration;
 
+import static java.util.Collections.disjoint;
+
+/**
+ * Executes the {@link ComputationStep}s returned by {@link ComputationSteps#instances()}.
+ * <p>
+ * When {@link CeConfiguration#getStepConcurrency()} is greater than 1, consecutive {@link ConcurrentComputationStep}s
+ * which do not conflict on the resources they declare are executed concurrently on a bounded pool of threads. Any
+ * other step is executed alone, in the calling thread.
+ * </p>
+ */
 public final class ComputationStepExecutor {
   private static final Logger LOGGER = Loggers.get(ComputationStepExecutor.class);
+  private static final String THREAD_NAME_PREFIX = "ce-step-";
+  private static final int DEFAULT_STEP_CONCURRENCY = 1;
 
   private final ComputationSteps steps;
+  private final int stepConcurrency;
   @CheckForNull
   private final Listener listener;
 
@@ -37,11 +66,28 @@ public final class ComputationStepExecutor {
    * container.
    */
   public ComputationStepExecutor(ComputationSteps steps) {
-    this(steps, null);
+    this(steps, DEFAULT_STEP_CONCURRENCY, null);
   }
 
   public ComputationStepExecutor(ComputationSteps steps, @Nullable Listener listener) {
+    this(steps, DEFAULT_STEP_CONCURRENCY, listener);
+  }
+
+  /**
+   * Used when no {@link ComputationStepExecutor.Listener} is available in pico
+   * container.
+   */
+  public ComputationStepExecutor(ComputationSteps steps, CeConfiguration ceConfiguration) {
+    this(steps, ceConfiguration.getStepConcurrency(), null);
+  }
+
+  public ComputationStepExecutor(ComputationSteps steps, CeConfiguration ceConfiguration, @Nullable Listener listener) {
+    this(steps, ceConfiguration.getStepConcurrency(), listener);
+  }
+
+  private ComputationStepExecutor(ComputationSteps steps, int stepConcurrency, @Nullable Listener listener) {
     this.steps = steps;
+    this.stepConcurrency = stepConcurrency;
     this.listener = listener;
   }
 
@@ -59,10 +105,174 @@ public final class ComputationStepExecutor {
   }
 
   private void executeSteps(Profiler stepProfiler) {
-    for (ComputationStep step : steps.instances()) {
-      stepProfiler.start();
-      step.execute();
-      stepProfiler.stopDebug(step.getDescription());
+    if (stepConcurrency <= 1) {
+      for (ComputationStep step : steps.instances()) {
+        executeStep(stepProfiler, step);
+      }
+      return;
+    }
+
+    ExecutorService executorService = null;
+    try {
+      List<ConcurrentComputationStep> group = new ArrayList<>();
+      for (ComputationStep step : steps.instances()) {
+        if (step instanceof ConcurrentComputationStep) {
+          group.add((ConcurrentComputationStep) step);
+          continue;
+        }
+        executorService = executeGroup(stepProfiler, group, executorService);
+        group.clear();
+        executeStep(stepProfiler, step);
+      }
+      executorService = executeGroup(stepProfiler, group, executorService);
+    } finally {
+      if (executorService != null) {
+        executorService.shutdownNow();
+      }
+    }
+  }
+
+  private static void executeStep(Profiler stepProfiler, ComputationStep step) {
+    stepProfiler.start();
+    step.execute();
+    stepProfiler.stopDebug(step.getDescription());
+  }
+
+  /**
+   * Executes the specified steps, running concurrently those which do not conflict with a step declared before them
+   * and which is not done yet.
+   *
+   * @return the {@link ExecutorService} used to run the steps, created if {@code executorService} is {@code null} and is required
+   */
+  @CheckForNull
+  private ExecutorService executeGroup(Profiler stepProfiler, List<ConcurrentComputationStep> group, @Nullable ExecutorService executorService) {
+    if (group.isEmpty()) {
+      return executorService;
+    }
+    if (group.size() == 1) {
+      executeStep(stepProfiler, group.get(0));
+      return executorService;
+    }
+
+    ExecutorService service = executorService == null ? createExecutorService() : executorService;
+    new GroupExecution(group, service).execute();
+    return service;
+  }
+
+  private ExecutorService createExecutorService() {
+    return Executors.newFixedThreadPool(
+      stepConcurrency,
+      new ThreadFactoryBuilder()
+        .setNameFormat(THREAD_NAME_PREFIX + "%d")
+        .setDaemon(true)
+        .build());
+  }
+
+  private static boolean conflict(ConcurrentComputationStep step1, ConcurrentComputationStep step2) {
+    return !disjoint(step1.getWrittenResources(), step2.getWrittenResources())
+      || !disjoint(step1.getWrittenResources(), step2.getReadResources())
+      || !disjoint(step1.getReadResources(), step2.getWrittenResources());
+  }
+
+  /**
+   * Executes a group of {@link ConcurrentComputationStep} as a DAG where a step depends on each step declared before it
+   * which it conflicts with.
+   * <p>
+   * Once a step has failed, no other step is started, the ones already running are waited for and the failure of the
+   * first step to fail is propagated as is.
+   * </p>
+   */
+  private static final class GroupExecution {
+    private final List<ConcurrentComputationStep> group;
+    private final CompletionService<Integer> completionService;
+    private final List<Set<Integer>> successors = new ArrayList<>();
+    private final int[] pendingPredecessors;
+    @CheckForNull
+    private final Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+
+    private GroupExecution(List<ConcurrentComputationStep> group, ExecutorService executorService) {
+      this.group = group;
+      this.completionService = new ExecutorCompletionService<>(executorService);
+      this.pendingPredecessors = new int[group.size()];
+      for (int i = 0; i < group.size(); i++) {
+        successors.add(new HashSet<>());
+        for (int j = 0; j < i; j++) {
+          if (conflict(group.get(j), group.get(i))) {
+            successors.get(j).add(i);
+            pendingPredecessors[i]++;
+          }
+        }
+      }
+    }
+
+    private void execute() {
+      // steps ready to be executed, ordered by declaration order
+      NavigableSet<Integer> ready = new TreeSet<>();
+      for (int i = 0; i < group.size(); i++) {
+        if (pendingPredecessors[i] == 0) {
+          ready.add(i);
+        }
+      }
+
+      int running = 0;
+      Throwable failure = null;
+      try {
+        while (true) {
+          while (failure == null && !ready.isEmpty()) {
+            submit(ready.pollFirst());
+            running++;
+          }
+          if (running == 0) {
+            break;
+          }
+          Future<Integer> done = completionService.take();
+          running--;
+          try {
+            for (Integer successor : successors.get(done.get())) {
+              pendingPredecessors[successor]--;
+              if (pendingPredecessors[successor] == 0) {
+                ready.add(successor);
+              }
+            }
+          } catch (ExecutionException e) {
+            if (failure == null) {
+              failure = e.getCause();
+            }
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while executing computation steps", e);
+      }
+
+      if (failure != null) {
+        propagate(failure);
+      }
+    }
+
+    private void submit(int index) {
+      ComputationStep step = group.get(index);
+      completionService.submit(() -> {
+        if (mdcContext != null) {
+          MDC.setContextMap(mdcContext);
+        }
+        try {
+          executeStep(Profiler.create(LOGGER), step);
+          return index;
+        } finally {
+          MDC.clear();
+        }
+      });
+    }
+
+    private static void propagate(Throwable failure) {
+      if (failure instanceof RuntimeException) {
+        throw (RuntimeException) failure;
+      }
+      if (failure instanceof Error) {
+        throw (Error) failure;
+      }
+      throw new IllegalStateException(failure);
     }
   }
 
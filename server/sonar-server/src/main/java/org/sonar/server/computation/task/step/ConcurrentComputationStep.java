@@ -0,0 +1,49 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.util.Set;
+
+/**
+ * A {@link ComputationStep} which declares the resources (holders, repositories, DB tables, ...) it reads and writes.
+ * <p>
+ * {@link ComputationStepExecutor} may execute such a step concurrently with any other {@link ConcurrentComputationStep}
+ * as long as none of them writes a resource the other reads or writes.
+ * </p>
+ * <p>
+ * A step which does not implement this interface acts as a barrier: it is executed once all the steps before it are
+ * done and no step after it starts before it is done.
+ * </p>
+ * <p>
+ * Resources are identified by free-form names. By convention, DB tables are named {@code "db:<table_name>"}.
+ * </p>
+ */
+public interface ConcurrentComputationStep extends ComputationStep {
+
+  /**
+   * Resources this step reads but does not modify.
+   */
+  Set<String> getReadResources();
+
+  /**
+   * Resources this step modifies.
+   */
+  Set<String> getWrittenResources();
+}
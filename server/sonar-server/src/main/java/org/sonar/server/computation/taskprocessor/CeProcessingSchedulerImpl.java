@@ -22,7 +22,8 @@ package org.sonar.server.computation.taskprocessor;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListenableScheduledFuture;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.CheckForNull;
@@ -32,7 +33,6 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.server.computation.configuration.CeConfiguration;
 
-import static com.google.common.util.concurrent.Futures.addCallback;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startable {
@@ -42,15 +42,17 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
   private final CeWorkerCallable workerRunnable;
 
   private final long delayBetweenTasks;
+  private final long maxDelayBetweenTasks;
   private final TimeUnit timeUnit;
   private final ChainingCallback[] chainingCallbacks;
 
   public CeProcessingSchedulerImpl(CeConfiguration ceConfiguration,
-    CeProcessingSchedulerExecutorService processingExecutorService, CeWorkerCallable workerRunnable) {
+    CeProcessingSchedulerExecutorService processingExecutorService, CeWorkerCallable workerRunnable, CeWorkersWakeUp workersWakeUp) {
     this.executorService = processingExecutorService;
     this.workerRunnable = workerRunnable;
 
     this.delayBetweenTasks = ceConfiguration.getQueuePollingDelay();
+    this.maxDelayBetweenTasks = Math.max(delayBetweenTasks, ceConfiguration.getQueueMaxPollingDelay());
     this.timeUnit = MILLISECONDS;
 
     int workerCount = ceConfiguration.getWorkerCount();
@@ -58,6 +60,7 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
     for (int i = 0; i < workerCount; i++) {
       chainingCallbacks[i] = new ChainingCallback();
     }
+    workersWakeUp.register(this::wakeUpIdleWorkers);
   }
 
   @Override
@@ -68,8 +71,16 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
   @Override
   public void startScheduling() {
     for (ChainingCallback chainingCallback : chainingCallbacks) {
-      ListenableScheduledFuture<Boolean> future = executorService.schedule(workerRunnable, delayBetweenTasks, timeUnit);
-      addCallback(future, chainingCallback, executorService);
+      chainingCallback.start();
+    }
+  }
+
+  /**
+   * Workers waiting for their next polling of the queue poll it immediately. Busy workers are not affected.
+   */
+  private void wakeUpIdleWorkers() {
+    for (ChainingCallback chainingCallback : chainingCallbacks) {
+      chainingCallback.wakeUp();
     }
   }
 
@@ -84,18 +95,30 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
     private final AtomicBoolean keepRunning = new AtomicBoolean(true);
     @CheckForNull
     private ListenableFuture<Boolean> workerFuture;
+    @CheckForNull
+    private Polling polling;
+    // delay of the pending polling, 0 if worker is not waiting for its next polling
+    private long currentDelay = 0;
+
+    synchronized void start() {
+      chainWithDelay(delayBetweenTasks);
+    }
 
     @Override
     public void onSuccess(@Nullable Boolean result) {
       if (result != null && result) {
         chainWithoutDelay();
       } else {
-        chainWithDelay();
+        chainWithDelay(nextDelay());
       }
     }
 
     @Override
     public void onFailure(Throwable t) {
+      if (t instanceof CancellationException) {
+        // polling was cancelled by stop() or by wakeUp(), which takes care of chaining
+        return;
+      }
       if (t instanceof Error) {
         LOG.error("Compute Engine execution failed. Scheduled processing interrupted.", t);
       } else {
@@ -103,16 +126,30 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
       }
     }
 
-    private void chainWithoutDelay() {
+    /**
+     * The delay doubles each time the worker finds the queue empty, up to {@link #maxDelayBetweenTasks}.
+     */
+    private synchronized long nextDelay() {
+      if (currentDelay == 0) {
+        return delayBetweenTasks;
+      }
+      return Math.min(currentDelay * 2, maxDelayBetweenTasks);
+    }
+
+    private synchronized void chainWithoutDelay() {
+      currentDelay = 0;
       if (keepRunning()) {
-        workerFuture = executorService.submit(workerRunnable);
+        polling = new Polling();
+        workerFuture = executorService.submit(polling);
       }
       addCallback();
     }
 
-    private void chainWithDelay() {
+    private synchronized void chainWithDelay(long delay) {
+      currentDelay = delay;
       if (keepRunning()) {
-        workerFuture = executorService.schedule(workerRunnable, delayBetweenTasks, timeUnit);
+        polling = new Polling();
+        workerFuture = executorService.schedule(polling, delay, timeUnit);
       }
       addCallback();
     }
@@ -127,10 +164,46 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
       return keepRunning.get();
     }
 
-    public void stop() {
+    synchronized void wakeUp() {
+      if (currentDelay > 0 && keepRunning() && cancelPolling()) {
+        chainWithoutDelay();
+      }
+    }
+
+    public synchronized void stop() {
       this.keepRunning.set(false);
-      if (workerFuture != null) {
-        workerFuture.cancel(false);
+      cancelPolling();
+    }
+
+    /**
+     * Cancels the pending polling, unless it has already started: the future of a running polling can be cancelled,
+     * but its execution would not be interrupted.
+     */
+    private synchronized boolean cancelPolling() {
+      if (workerFuture == null || polling == null || polling.started) {
+        return false;
+      }
+      polling.cancelled = true;
+      return workerFuture.cancel(false);
+    }
+
+    /**
+     * Call to {@link #workerRunnable} which does nothing if cancelled before being started
+     */
+    private class Polling implements Callable<Boolean> {
+      // both guarded by the enclosing ChainingCallback
+      private boolean started = false;
+      private boolean cancelled = false;
+
+      @Override
+      public Boolean call() throws Exception {
+        synchronized (ChainingCallback.this) {
+          if (cancelled) {
+            return false;
+          }
+          started = true;
+        }
+        return workerRunnable.call();
       }
     }
   }
@@ -0,0 +1,57 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.taskprocessor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.ce.queue.CeQueueListener;
+import org.sonar.ce.queue.CeTask;
+
+/**
+ * Wakes up the idle workers of the Compute Engine as soon as tasks are submitted, rather than letting them wait for
+ * their next polling of the queue.
+ * <p>
+ * Tasks submitted within the Compute Engine are notified through {@link CeQueueListener}, tasks submitted by the Web
+ * Server are notified through the HTTP server of the Compute Engine, which calls {@link #wakeUp()}.
+ * </p>
+ */
+@ComputeEngineSide
+public class CeWorkersWakeUp implements CeQueueListener {
+
+  private final List<Runnable> wakeUpCallbacks = new CopyOnWriteArrayList<>();
+
+  /**
+   * Registers a callback to be run each time idle workers must be woken up. Callbacks must not block.
+   */
+  void register(Runnable wakeUpCallback) {
+    wakeUpCallbacks.add(wakeUpCallback);
+  }
+
+  public void wakeUp() {
+    wakeUpCallbacks.forEach(Runnable::run);
+  }
+
+  @Override
+  public void onSubmit(Collection<CeTask> tasks) {
+    wakeUp();
+  }
+}
@@ -25,6 +25,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -32,8 +33,10 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.SortedSet;
 import java.util.TimeZone;
 import java.util.regex.Pattern;
@@ -43,11 +46,10 @@ import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.StringUtils;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
-import org.elasticsearch.action.search.SearchType;
-import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.bucket.filter.FilterAggregationBuilder;
@@ -57,8 +59,10 @@ import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInter
 import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms.Order;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsBuilder;
+import org.elasticsearch.search.aggregations.metrics.max.Max;
 import org.elasticsearch.search.aggregations.metrics.min.Min;
 import org.elasticsearch.search.aggregations.metrics.sum.SumBuilder;
+import org.elasticsearch.search.sort.SortOrder;
 import org.joda.time.Duration;
 import org.sonar.api.issue.Issue;
 import org.sonar.api.resources.Scopes;
@@ -144,6 +148,12 @@ public class IssueIndex extends BaseIndex {
   private static final Order EFFORT_AGGREGATION_ORDER = Order.aggregation(FACET_MODE_EFFORT, false);
 
   private static final int DEFAULT_FACET_SIZE = 15;
+  private static final int BATCH_PAGE_SIZE = 1_000;
+  private static final String[] BATCH_FIELDS = {IssueIndexDefinition.FIELD_ISSUE_KEY, IssueIndexDefinition.FIELD_ISSUE_RULE_KEY,
+    IssueIndexDefinition.FIELD_ISSUE_MODULE_UUID, IssueIndexDefinition.FIELD_ISSUE_FILE_PATH, IssueIndexDefinition.FIELD_ISSUE_SEVERITY,
+    IssueIndexDefinition.FIELD_ISSUE_MANUAL_SEVERITY, IssueIndexDefinition.FIELD_ISSUE_RESOLUTION, IssueIndexDefinition.FIELD_ISSUE_STATUS,
+    IssueIndexDefinition.FIELD_ISSUE_ASSIGNEE, IssueIndexDefinition.FIELD_ISSUE_LINE, IssueIndexDefinition.FIELD_ISSUE_MESSAGE,
+    IssueIndexDefinition.FIELD_ISSUE_CHECKSUM, IssueIndexDefinition.FIELD_ISSUE_FUNC_CREATED_AT};
   private static final Duration TWENTY_DAYS = Duration.standardDays(20L);
   private static final Duration TWENTY_WEEKS = Duration.standardDays(20L * 7L);
   private static final Duration TWENTY_MONTHS = Duration.standardDays(20L * 30L);
@@ -328,7 +338,7 @@ public class IssueIndex extends BaseIndex {
 
   private QueryBuilder createAuthorizationFilter(boolean checkAuthorization) {
     if (checkAuthorization) {
-      return authorizationTypeSupport.createQueryFilter();
+      return authorizationTypeSupport.createQueryFilter(IssueIndexDefinition.INDEX_TYPE_ISSUE);
     }
     return matchAllQuery();
   }
@@ -666,10 +676,33 @@ public class IssueIndex extends BaseIndex {
   }
 
   /**
-   * Return non closed issues for a given project, module, or file. Other kind of components are not allowed.
+   * Return non closed issues for a given project, module, or file, sorted by key. Other kind of components are not allowed.
    * Only fields needed for the batch are returned.
+   * <p>
+   * Issues are requested page per page with simple searches, each one filtered on the keys greater than the last key
+   * of the previous page, so that Elasticsearch does not keep any scroll context while the caller streams the issues.
    */
   public Iterator<IssueDoc> selectIssuesForBatch(ComponentDto component) {
+    return new BatchIssueIterator(createBatchFilter(component));
+  }
+
+  /**
+   * Version of the issues returned by {@link #selectIssuesForBatch(ComponentDto)}. It changes as soon as one of these
+   * issues is created, updated or closed.
+   */
+  public String selectIssuesForBatchVersion(ComponentDto component) {
+    SearchResponse response = getClient()
+      .prepareSearch(IssueIndexDefinition.INDEX_TYPE_ISSUE)
+      .setSize(0)
+      .setQuery(boolQuery().must(matchAllQuery()).filter(createBatchFilter(component)))
+      .addAggregation(AggregationBuilders.max(IssueIndexDefinition.FIELD_ISSUE_TECHNICAL_UPDATED_AT).field(IssueIndexDefinition.FIELD_ISSUE_TECHNICAL_UPDATED_AT))
+      .get();
+    Max lastUpdate = response.getAggregations().get(IssueIndexDefinition.FIELD_ISSUE_TECHNICAL_UPDATED_AT);
+    long total = response.getHits().getTotalHits();
+    return total == 0 ? "0" : (total + "-" + (long) lastUpdate.getValue());
+  }
+
+  private BoolQueryBuilder createBatchFilter(ComponentDto component) {
     BoolQueryBuilder filter = boolQuery()
       .must(createAuthorizationFilter(true))
       .mustNot(termsQuery(IssueIndexDefinition.FIELD_ISSUE_STATUS, Issue.STATUS_CLOSED));
@@ -684,22 +717,55 @@ public class IssueIndex extends BaseIndex {
       default:
         throw new IllegalStateException(format("Component of scope '%s' is not allowed", component.scope()));
     }
+    return filter;
+  }
 
-    SearchRequestBuilder requestBuilder = getClient()
-      .prepareSearch(IssueIndexDefinition.INDEX_TYPE_ISSUE)
-      .setSearchType(SearchType.SCAN)
-      .setScroll(TimeValue.timeValueMinutes(EsUtils.SCROLL_TIME_IN_MINUTES))
-      .setSize(10_000)
-      .setFetchSource(
-        new String[] {IssueIndexDefinition.FIELD_ISSUE_KEY, IssueIndexDefinition.FIELD_ISSUE_RULE_KEY, IssueIndexDefinition.FIELD_ISSUE_MODULE_UUID,
-          IssueIndexDefinition.FIELD_ISSUE_FILE_PATH, IssueIndexDefinition.FIELD_ISSUE_SEVERITY, IssueIndexDefinition.FIELD_ISSUE_MANUAL_SEVERITY,
-          IssueIndexDefinition.FIELD_ISSUE_RESOLUTION, IssueIndexDefinition.FIELD_ISSUE_STATUS, IssueIndexDefinition.FIELD_ISSUE_ASSIGNEE,
-          IssueIndexDefinition.FIELD_ISSUE_LINE, IssueIndexDefinition.FIELD_ISSUE_MESSAGE, IssueIndexDefinition.FIELD_ISSUE_CHECKSUM,
-          IssueIndexDefinition.FIELD_ISSUE_FUNC_CREATED_AT},
-        null)
-      .setQuery(boolQuery().must(matchAllQuery()).filter(filter));
-    SearchResponse response = requestBuilder.get();
-
-    return EsUtils.scroll(getClient(), response.getScrollId(), DOC_CONVERTER);
+  private class BatchIssueIterator implements Iterator<IssueDoc> {
+    private final BoolQueryBuilder filter;
+    private final Queue<SearchHit> hits = new ArrayDeque<>();
+    @CheckForNull
+    private String lastKey;
+    private boolean lastPage = false;
+
+    private BatchIssueIterator(BoolQueryBuilder filter) {
+      this.filter = filter;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (hits.isEmpty() && !lastPage) {
+        readNextPage();
+      }
+      return !hits.isEmpty();
+    }
+
+    @Override
+    public IssueDoc next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return DOC_CONVERTER.apply(hits.poll().getSource());
+    }
+
+    private void readNextPage() {
+      BoolQueryBuilder pageFilter = boolQuery().must(filter);
+      if (lastKey != null) {
+        pageFilter.must(QueryBuilders.rangeQuery(IssueIndexDefinition.FIELD_ISSUE_KEY).gt(lastKey));
+      }
+      SearchHit[] page = getClient()
+        .prepareSearch(IssueIndexDefinition.INDEX_TYPE_ISSUE)
+        .setSize(BATCH_PAGE_SIZE)
+        .addSort(IssueIndexDefinition.FIELD_ISSUE_KEY, SortOrder.ASC)
+        .setFetchSource(BATCH_FIELDS, null)
+        .setQuery(boolQuery().must(matchAllQuery()).filter(pageFilter))
+        .get()
+        .getHits()
+        .getHits();
+      Collections.addAll(hits, page);
+      lastPage = page.length < BATCH_PAGE_SIZE;
+      if (page.length > 0) {
+        lastKey = (String) page[page.length - 1].getSource().get(IssueIndexDefinition.FIELD_ISSUE_KEY);
+      }
+    }
   }
 }
@@ -241,7 +241,7 @@ public class ProjectMeasuresIndex extends BaseIndex {
 
   private Map<String, QueryBuilder> createFilters(ProjectMeasuresQuery query) {
     Map<String, QueryBuilder> filters = new HashMap<>();
-    filters.put("__authorization", authorizationTypeSupport.createQueryFilter());
+    filters.put("__authorization", authorizationTypeSupport.createQueryFilter(INDEX_TYPE_PROJECT_MEASURES));
     Multimap<String, MetricCriterion> metricCriterionMultimap = ArrayListMultimap.create();
     query.getMetricCriteria().forEach(metricCriterion -> metricCriterionMultimap.put(metricCriterion.getMetricKey(), metricCriterion));
     metricCriterionMultimap.asMap().entrySet().forEach(entry -> {
@@ -322,7 +322,7 @@ public class ProjectMeasuresIndex extends BaseIndex {
 
     SearchRequestBuilder searchQuery = getClient()
       .prepareSearch(INDEX_TYPE_PROJECT_MEASURES)
-      .setQuery(authorizationTypeSupport.createQueryFilter())
+      .setQuery(authorizationTypeSupport.createQueryFilter(INDEX_TYPE_PROJECT_MEASURES))
       .setFetchSource(false)
       .setSize(0)
       .addAggregation(tagFacet);
@@ -26,12 +26,14 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import java.io.IOException;
 import java.io.InvalidClassException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
-import org.sonar.api.utils.SonarException;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.db.notification.NotificationQueueDao;
@@ -81,23 +83,36 @@ public class DefaultNotificationManager implements NotificationManager {
   }
 
   /**
-   * Give the notification queue so that it can be processed
+   * Give at most {@code batchSize} of the oldest notifications of the queue to {@code delivery}, then remove them from
+   * the queue. Notifications are kept in the queue if {@code delivery} fails, so that they are not lost if server stops
+   * while they are being delivered. Notifications which can't be deserialized are ignored.
+   *
+   * @return the number of notifications removed from the queue, zero if queue is empty
    */
-  public Notification getFromQueue() {
-    int batchSize = 1;
+  public int deliverFromQueue(int batchSize, Consumer<List<Notification>> delivery) {
     List<NotificationQueueDto> notificationDtos = notificationQueueDao.selectOldest(batchSize);
     if (notificationDtos.isEmpty()) {
-      return null;
+      return 0;
     }
-    notificationQueueDao.delete(notificationDtos);
 
-    return convertToNotification(notificationDtos);
+    List<Notification> notifications = new ArrayList<>(notificationDtos.size());
+    for (NotificationQueueDto notificationDto : notificationDtos) {
+      Notification notification = convertToNotification(notificationDto);
+      if (notification != null) {
+        notifications.add(notification);
+      }
+    }
+    if (!notifications.isEmpty()) {
+      delivery.accept(notifications);
+    }
+    notificationQueueDao.delete(notificationDtos);
+    return notificationDtos.size();
   }
 
-  private Notification convertToNotification(List<NotificationQueueDto> notifications) {
+  @CheckForNull
+  private Notification convertToNotification(NotificationQueueDto notification) {
     try {
-      // If batchSize is increased then we should return a list instead of a single element
-      return notifications.get(0).toNotification();
+      return notification.toNotification();
     } catch (InvalidClassException e) {
       // SONAR-4739
       if (!alreadyLoggedDeserializationIssue) {
@@ -106,7 +121,9 @@ public class DefaultNotificationManager implements NotificationManager {
       }
       return null;
     } catch (IOException | ClassNotFoundException e) {
-      throw new SonarException(UNABLE_TO_READ_NOTIFICATION, e);
+      // do not block the queue
+      LOG.error(UNABLE_TO_READ_NOTIFICATION, e);
+      return null;
     }
   }
 
@@ -21,9 +21,14 @@ package org.sonar.server.notification;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.picocontainer.Startable;
 import org.sonar.api.Properties;
 import org.sonar.api.Property;
@@ -48,6 +53,17 @@ import org.sonar.api.utils.log.Loggers;
 @ServerSide
 public class NotificationDaemon implements Startable {
   private static final String THREAD_NAME_PREFIX = "sq-notification-service-";
+  private static final String WORKER_THREAD_NAME_PREFIX = "sq-notification-worker-";
+  /**
+   * Number of notifications read from the queue by a single DB request. They are removed from the queue
+   * once delivered, so at most this number of notifications are delivered again if server crashes.
+   */
+  @VisibleForTesting
+  static final int BATCH_SIZE = 20;
+  /**
+   * Number of notifications delivered concurrently
+   */
+  private static final int WORKER_COUNT = 4;
 
   private static final Logger LOG = Loggers.get(NotificationDaemon.class);
 
@@ -59,8 +75,13 @@ public class NotificationDaemon implements Startable {
   private final DefaultNotificationManager manager;
   private final NotificationService service;
 
+  private final AtomicLong deliveredCount = new AtomicLong();
+  private final AtomicLong failedCount = new AtomicLong();
+  private final AtomicLong deliveryTimeInMs = new AtomicLong();
+
   private ScheduledExecutorService executorService;
-  private boolean stopping = false;
+  private ExecutorService workerService;
+  private volatile boolean stopping = false;
 
   public NotificationDaemon(Settings settings, DefaultNotificationManager manager, NotificationService service) {
     this.delayInSeconds = settings.getLong(PROPERTY_DELAY);
@@ -71,10 +92,17 @@ public class NotificationDaemon implements Startable {
 
   @Override
   public void start() {
+    workerService = Executors.newFixedThreadPool(WORKER_COUNT,
+      new ThreadFactoryBuilder()
+        .setNameFormat(WORKER_THREAD_NAME_PREFIX + "%d")
+        .setPriority(Thread.MIN_PRIORITY)
+        .setDaemon(true)
+        .build());
     executorService = Executors.newSingleThreadScheduledExecutor(
       new ThreadFactoryBuilder()
         .setNameFormat(THREAD_NAME_PREFIX + "%d")
         .setPriority(Thread.MIN_PRIORITY)
+        .setDaemon(true)
         .build());
     executorService.scheduleWithFixedDelay(() -> {
       try {
@@ -86,12 +114,18 @@ public class NotificationDaemon implements Startable {
     LOG.info("Notification service started (delay {} sec.)", delayInSeconds);
   }
 
+  /**
+   * The batch being delivered is completed before stopping, unless it takes too long. Its notifications are
+   * then still in the queue and are delivered on next startup.
+   */
   @Override
   public void stop() {
     try {
       stopping = true;
       executorService.shutdown();
       executorService.awaitTermination(5, TimeUnit.SECONDS);
+      workerService.shutdown();
+      workerService.awaitTermination(5, TimeUnit.SECONDS);
     } catch (InterruptedException e) {
       LOG.error("Error during stop of notification service", e);
       Thread.currentThread().interrupt();
@@ -105,10 +139,9 @@ public class NotificationDaemon implements Startable {
     long lastLog = start;
     long notifSentCount = 0;
 
-    Notification notifToSend = manager.getFromQueue();
-    while (notifToSend != null) {
-      service.deliver(notifToSend);
-      notifSentCount++;
+    int processedCount = manager.deliverFromQueue(BATCH_SIZE, this::deliver);
+    while (processedCount > 0) {
+      notifSentCount += processedCount;
       if (stopping) {
         break;
       }
@@ -119,10 +152,67 @@ public class NotificationDaemon implements Startable {
         long spentTimeInMinutes = (now - start) / (60 * 1000);
         log(notifSentCount, remainingNotifCount, spentTimeInMinutes);
       }
-      notifToSend = manager.getFromQueue();
+      processedCount = manager.deliverFromQueue(BATCH_SIZE, this::deliver);
+    }
+  }
+
+  /**
+   * Deliver the notifications concurrently and wait for all of them to be processed, so that a failure on one of them
+   * does not prevent the others from being delivered.
+   *
+   * @throws IllegalStateException if interrupted, so that notifications are kept in the queue
+   */
+  private void deliver(List<Notification> notifications) {
+    List<Callable<Void>> tasks = new ArrayList<>(notifications.size());
+    for (Notification notification : notifications) {
+      tasks.add(() -> {
+        deliver(notification);
+        return null;
+      });
+    }
+    try {
+      workerService.invokeAll(tasks);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while delivering notifications", e);
+    }
+  }
+
+  private void deliver(Notification notification) {
+    long startNanos = System.nanoTime();
+    try {
+      service.deliver(notification);
+      deliveredCount.incrementAndGet();
+    } catch (RuntimeException e) {
+      failedCount.incrementAndGet();
+      LOG.error("Fail to deliver notification " + notification.getType(), e);
+    } finally {
+      deliveryTimeInMs.addAndGet(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
     }
   }
 
+  /**
+   * Number of notifications successfully delivered since startup
+   */
+  public long getDeliveredCount() {
+    return deliveredCount.get();
+  }
+
+  /**
+   * Number of notifications which failed to be delivered since startup
+   */
+  public long getFailedCount() {
+    return failedCount.get();
+  }
+
+  /**
+   * Average time spent to deliver a notification (resolving recipients and sending on all channels), in milliseconds
+   */
+  public long getAverageDeliveryTimeInMs() {
+    long processedCount = deliveredCount.get() + failedCount.get();
+    return processedCount == 0 ? 0 : (deliveryTimeInMs.get() / processedCount);
+  }
+
   @VisibleForTesting
   void log(long notifSentCount, long remainingNotifCount, long spentTimeInMinutes) {
     LOG.info("{} notifications sent during the past {} minutes and {} still waiting to be sent",
@@ -28,6 +28,7 @@ import java.util.Set;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.server.permission.index.PermissionIndexer;
+import org.sonar.server.user.UserPermissionCache;
 
 /**
  * Add or remove global/project permissions to a group. This class
@@ -40,20 +41,30 @@ public class PermissionUpdater {
   private final PermissionIndexer permissionIndexer;
   private final UserPermissionChanger userPermissionChanger;
   private final GroupPermissionChanger groupPermissionChanger;
+  private final UserPermissionCache permissionCache;
 
   public PermissionUpdater(DbClient dbClient, PermissionIndexer permissionIndexer,
-                           UserPermissionChanger userPermissionChanger, GroupPermissionChanger groupPermissionChanger) {
+                           UserPermissionChanger userPermissionChanger, GroupPermissionChanger groupPermissionChanger,
+                           UserPermissionCache permissionCache) {
     this.dbClient = dbClient;
     this.permissionIndexer = permissionIndexer;
     this.userPermissionChanger = userPermissionChanger;
     this.groupPermissionChanger = groupPermissionChanger;
+    this.permissionCache = permissionCache;
   }
 
   public void apply(DbSession dbSession, Collection<PermissionChange> changes) {
     Set<Long> projectIds = new HashSet<>();
     List<String> projectOrViewUuids = new ArrayList<>();
+    Set<Integer> changedUserIds = new HashSet<>();
+    boolean changedGroupsOfOrganization = false;
     for (PermissionChange change : changes) {
       boolean changed = doApply(dbSession, change);
+      if (changed && change instanceof UserPermissionChange) {
+        changedUserIds.add(((UserPermissionChange) change).getUserId().getId());
+      } else if (changed && !change.getProjectId().isPresent()) {
+        changedGroupsOfOrganization = true;
+      }
       Optional<ProjectId> projectId = change.getProjectId();
       if (changed && projectId.isPresent()) {
         projectIds.add(projectId.get().getId());
@@ -64,12 +75,24 @@ public class PermissionUpdater {
       dbClient.resourceDao().updateAuthorizationDate(projectId, dbSession);
     }
     dbSession.commit();
+    invalidatePermissionCache(changedUserIds, changedGroupsOfOrganization, projectOrViewUuids);
 
     if (!projectIds.isEmpty()) {
       permissionIndexer.indexProjectsByUuids(dbSession, projectOrViewUuids);
     }
   }
 
+  private void invalidatePermissionCache(Set<Integer> changedUserIds, boolean changedGroupsOfOrganization, List<String> changedProjectUuids) {
+    if (changedGroupsOfOrganization) {
+      permissionCache.invalidateAll();
+      return;
+    }
+    changedUserIds.forEach(permissionCache::invalidateUser);
+    if (!changedProjectUuids.isEmpty()) {
+      permissionCache.invalidateProjects(changedProjectUuids);
+    }
+  }
+
   private boolean doApply(DbSession dbSession, PermissionChange change) {
     if (change instanceof UserPermissionChange) {
       return userPermissionChanger.apply(dbSession, (UserPermissionChange) change);
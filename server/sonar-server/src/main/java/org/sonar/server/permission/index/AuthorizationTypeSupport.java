@@ -20,12 +20,17 @@
 package org.sonar.server.permission.index;
 
 import com.google.common.collect.ImmutableMap;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import javax.annotation.Nullable;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.server.ServerSide;
+import org.sonar.core.util.stream.Collectors;
 import org.sonar.db.user.GroupDto;
 import org.sonar.server.es.IndexType;
 import org.sonar.server.es.NewIndex;
@@ -35,6 +40,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
 import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termsQuery;
 
 @ServerSide
 @ComputeEngineSide
@@ -52,10 +58,14 @@ public class AuthorizationTypeSupport {
    */
   public static final String FIELD_ALLOW_ANYONE = "allowAnyone";
 
+  private static final String FIELD_PARENT = "_parent";
+
   private final UserSession userSession;
+  private final AuthorizedProjectsCache authorizedProjectsCache;
 
-  public AuthorizationTypeSupport(UserSession userSession) {
+  public AuthorizationTypeSupport(UserSession userSession, AuthorizedProjectsCache authorizedProjectsCache) {
     this.userSession = userSession;
+    this.authorizedProjectsCache = authorizedProjectsCache;
   }
 
   /**
@@ -94,15 +104,58 @@ public class AuthorizationTypeSupport {
   }
 
   /**
-   * Build a filter to restrict query to the documents on which
+   * Build a filter to restrict query to the documents of {@code indexType} on which
    * user has read access.
+   * <p>
+   * The filter is on the uuids of the projects the user can browse when they are
+   * available in {@link AuthorizedProjectsCache}, else it joins with the authorization type.
+   * Projects browsable by the groups of the user are cached by set of groups, so that users
+   * with the same groups share them, and projects browsable by the user itself are cached by user.
+   * </p>
    */
-  public QueryBuilder createQueryFilter() {
+  public QueryBuilder createQueryFilter(IndexType indexType) {
     if (userSession.isRoot()) {
       return QueryBuilders.matchAllQuery();
     }
 
     Integer userId = userSession.getUserId();
+    List<Integer> groupIds = userSession.getGroups().stream()
+      .map(GroupDto::getId)
+      .sorted()
+      .collect(Collectors.toList());
+    Optional<QueryBuilder> cachedFilter = createCachedProjectsFilter(getAuthorizationIndexType(indexType), userId, groupIds);
+    if (cachedFilter.isPresent()) {
+      return cachedFilter.get();
+    }
+    return QueryBuilders.hasParentQuery(TYPE_AUTHORIZATION,
+      QueryBuilders.boolQuery().filter(createPermissionFilter(userId, groupIds)));
+  }
+
+  private Optional<QueryBuilder> createCachedProjectsFilter(IndexType authorizationType, @Nullable Integer userId, List<Integer> groupIds) {
+    Optional<Set<String>> groupsProjectUuids = authorizedProjectsCache.getProjectUuids(authorizationType, "groups|" + groupIds,
+      createPermissionFilter(null, groupIds));
+    if (!groupsProjectUuids.isPresent()) {
+      return Optional.empty();
+    }
+    Set<String> userProjectUuids = Collections.emptySet();
+    if (userId != null) {
+      Optional<Set<String>> uuids = authorizedProjectsCache.getProjectUuids(authorizationType, "user|" + userId,
+        boolQuery().should(termQuery(FIELD_USER_IDS, userId.longValue())));
+      if (!uuids.isPresent()) {
+        return Optional.empty();
+      }
+      userProjectUuids = uuids.get();
+    }
+
+    if (userProjectUuids.isEmpty()) {
+      return Optional.of(termsQuery(FIELD_PARENT, groupsProjectUuids.get()));
+    }
+    return Optional.of(boolQuery()
+      .should(termsQuery(FIELD_PARENT, groupsProjectUuids.get()))
+      .should(termsQuery(FIELD_PARENT, userProjectUuids)));
+  }
+
+  private static BoolQueryBuilder createPermissionFilter(@Nullable Integer userId, List<Integer> groupIds) {
     BoolQueryBuilder filter = boolQuery();
 
     // anyone
@@ -114,12 +167,8 @@ public class AuthorizationTypeSupport {
       .ifPresent(id -> filter.should(termQuery(FIELD_USER_IDS, id)));
 
     // groups
-    userSession.getGroups()
-      .stream()
-      .map(GroupDto::getId)
-      .forEach(groupId -> filter.should(termQuery(FIELD_GROUP_IDS, groupId)));
+    groupIds.forEach(groupId -> filter.should(termQuery(FIELD_GROUP_IDS, groupId)));
 
-    return QueryBuilders.hasParentQuery(TYPE_AUTHORIZATION,
-      QueryBuilders.boolQuery().filter(filter));
+    return filter;
   }
 }
@@ -0,0 +1,131 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.permission.index;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.server.ServerSide;
+import org.sonar.server.es.EsClient;
+import org.sonar.server.es.EsUtils;
+import org.sonar.server.es.IndexType;
+
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+
+/**
+ * Uuids of the projects that a user or a set of groups can browse, as defined
+ * by the documents of the authorization types.
+ * <p>
+ * Filtering search results on a list of project uuids is much cheaper than joining
+ * with the authorization type with a {@code has_parent} query. The lists are
+ * loaded on demand and dropped by {@link PermissionIndexer} as soon as it indexes
+ * authorizations. Entries also expire after {@link #DEFAULT_TTL_SECONDS} seconds
+ * to take into account changes indexed by another process.
+ * </p>
+ * <p>
+ * Loading is abandoned when more than {@link #DEFAULT_MAX_PROJECTS} projects match. In
+ * that case callers should keep on joining with the authorization type.
+ * </p>
+ */
+@ServerSide
+@ComputeEngineSide
+public class AuthorizedProjectsCache {
+
+  static final int DEFAULT_MAX_PROJECTS = 10_000;
+  static final long DEFAULT_TTL_SECONDS = 60L;
+  // the weight of an entry is its number of project uuids
+  private static final long MAX_WEIGHT = 200_000L;
+  private static final int PAGE_SIZE = 1_000;
+
+  private final EsClient esClient;
+  private final int maxProjects;
+  private final Cache<String, Optional<Set<String>>> cache;
+
+  public AuthorizedProjectsCache(EsClient esClient) {
+    this(esClient, DEFAULT_MAX_PROJECTS, DEFAULT_TTL_SECONDS, TimeUnit.SECONDS);
+  }
+
+  @VisibleForTesting
+  AuthorizedProjectsCache(EsClient esClient, int maxProjects, long ttl, TimeUnit ttlUnit) {
+    this.esClient = esClient;
+    this.maxProjects = maxProjects;
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(MAX_WEIGHT)
+      .weigher((String key, Optional<Set<String>> projectUuids) -> 1 + projectUuids.map(Set::size).orElse(0))
+      .expireAfterWrite(ttl, ttlUnit)
+      .build();
+  }
+
+  /**
+   * @param authorizationType the authorization type to be searched
+   * @param permissionKey identifies {@code permissionFilter}, for example a set of group ids
+   * @param permissionFilter the filter on the documents of the authorization type
+   * @return the uuids of the projects matching {@code permissionFilter}, or empty if there are too many of them
+   */
+  public Optional<Set<String>> getProjectUuids(IndexType authorizationType, String permissionKey, QueryBuilder permissionFilter) {
+    String key = authorizationType.getIndex() + '|' + permissionKey;
+    try {
+      return cache.get(key, () -> load(authorizationType, permissionFilter));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Fail to load authorized projects", e.getCause());
+    }
+  }
+
+  private Optional<Set<String>> load(IndexType authorizationType, QueryBuilder permissionFilter) {
+    SearchRequestBuilder esSearch = esClient.prepareSearch(authorizationType)
+      .setSearchType(SearchType.SCAN)
+      .setScroll(TimeValue.timeValueMinutes(EsUtils.SCROLL_TIME_IN_MINUTES))
+      .setFetchSource(false)
+      .setSize(PAGE_SIZE)
+      .setQuery(boolQuery().filter(permissionFilter));
+    SearchResponse response = esSearch.get();
+    if (response.getHits().getTotalHits() > maxProjects) {
+      esClient.nativeClient().prepareClearScroll().addScrollId(response.getScrollId()).get();
+      return Optional.empty();
+    }
+    Set<String> projectUuids = new HashSet<>((int) response.getHits().getTotalHits());
+    Iterator<String> ids = EsUtils.scrollIds(esClient, response.getScrollId(), id -> id);
+    ids.forEachRemaining(projectUuids::add);
+    return Optional.of(projectUuids);
+  }
+
+  /**
+   * Drop all the lists. To be called when authorizations are indexed.
+   */
+  public void invalidate() {
+    cache.invalidateAll();
+  }
+}
@@ -57,18 +57,22 @@ public class PermissionIndexer implements ProjectIndexer, StartupIndexer {
 
   private final DbClient dbClient;
   private final EsClient esClient;
+  private final AuthorizedProjectsCache authorizedProjectsCache;
   private final Collection<AuthorizationScope> authorizationScopes;
 
-  public PermissionIndexer(DbClient dbClient, EsClient esClient, NeedAuthorizationIndexer... needAuthorizationIndexers) {
-    this(dbClient, esClient, Arrays.stream(needAuthorizationIndexers)
+  public PermissionIndexer(DbClient dbClient, EsClient esClient, AuthorizedProjectsCache authorizedProjectsCache,
+    NeedAuthorizationIndexer... needAuthorizationIndexers) {
+    this(dbClient, esClient, authorizedProjectsCache, Arrays.stream(needAuthorizationIndexers)
       .map(NeedAuthorizationIndexer::getAuthorizationScope)
       .collect(Collectors.toList(needAuthorizationIndexers.length)));
   }
 
   @VisibleForTesting
-  public PermissionIndexer(DbClient dbClient, EsClient esClient, Collection<AuthorizationScope> authorizationScopes) {
+  public PermissionIndexer(DbClient dbClient, EsClient esClient, AuthorizedProjectsCache authorizedProjectsCache,
+    Collection<AuthorizationScope> authorizationScopes) {
     this.dbClient = dbClient;
     this.esClient = esClient;
+    this.authorizedProjectsCache = authorizedProjectsCache;
     this.authorizationScopes = authorizationScopes;
   }
 
@@ -129,6 +133,7 @@ public class PermissionIndexer implements ProjectIndexer, StartupIndexer {
       .setRouting(projectUuid)
       .setRefresh(true)
       .get());
+    authorizedProjectsCache.invalidate();
   }
 
   private Stream<AuthorizationScope> getScopes(Set<IndexType> indexTypes) {
@@ -143,6 +148,7 @@ public class PermissionIndexer implements ProjectIndexer, StartupIndexer {
 
     // index each authorization in each scope
     scopes.forEach(scope -> index(authorizations, scope, bulkSize));
+    authorizedProjectsCache.invalidate();
   }
 
   private void index(Collection<PermissionIndexerDao.Dto> authorizations, AuthorizationScope scope, Size bulkSize) {
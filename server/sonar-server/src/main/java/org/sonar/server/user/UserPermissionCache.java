@@ -0,0 +1,176 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import org.sonar.api.server.ServerSide;
+import org.sonar.db.permission.OrganizationPermission;
+
+/**
+ * Permissions of users on organizations and projects, shared by all the {@link ServerUserSession}
+ * of the web server.
+ * <p>
+ * Entries expire {@link #DEFAULT_TTL_SECONDS} seconds after being loaded, so that changes done outside
+ * of the permission and group services are eventually taken into account. Services which change
+ * permissions, group memberships or apply permission templates must call {@link #invalidateUser(int)},
+ * {@link #invalidateProjects(Collection)} or {@link #invalidateAll()} once their changes are committed.
+ * </p>
+ */
+@ServerSide
+public class UserPermissionCache {
+
+  static final long DEFAULT_MAX_SIZE = 10_000L;
+  static final long DEFAULT_TTL_SECONDS = 60L;
+
+  private final Cache<Key, Set<OrganizationPermission>> organizationPermissions;
+  private final Cache<Key, Set<String>> projectPermissions;
+  private final AtomicLong invalidationCount = new AtomicLong();
+
+  public UserPermissionCache() {
+    this(DEFAULT_MAX_SIZE, DEFAULT_TTL_SECONDS, TimeUnit.SECONDS);
+  }
+
+  @VisibleForTesting
+  UserPermissionCache(long maxSize, long ttl, TimeUnit ttlUnit) {
+    this.organizationPermissions = newCache(maxSize, ttl, ttlUnit);
+    this.projectPermissions = newCache(maxSize, ttl, ttlUnit);
+  }
+
+  private static <V> Cache<Key, V> newCache(long maxSize, long ttl, TimeUnit ttlUnit) {
+    return CacheBuilder.newBuilder()
+      .maximumSize(maxSize)
+      .expireAfterWrite(ttl, ttlUnit)
+      .recordStats()
+      .build();
+  }
+
+  /**
+   * @param userId id of user, {@code null} for anonymous
+   */
+  public Set<OrganizationPermission> getOrganizationPermissions(@Nullable Integer userId, String organizationUuid,
+    Function<String, Set<OrganizationPermission>> loader) {
+    return get(organizationPermissions, new Key(userId, organizationUuid), loader);
+  }
+
+  /**
+   * @param userId id of user, {@code null} for anonymous
+   */
+  public Set<String> getProjectPermissions(@Nullable Integer userId, String projectUuid, Function<String, Set<String>> loader) {
+    return get(projectPermissions, new Key(userId, projectUuid), loader);
+  }
+
+  private static <V> V get(Cache<Key, V> cache, Key key, Function<String, V> loader) {
+    try {
+      return cache.get(key, () -> loader.apply(key.uuid));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Fail to load permissions on " + key.uuid, e.getCause());
+    }
+  }
+
+  /**
+   * To be called when the permissions of a single user changed, for example when
+   * a permission is granted to this user or when the user joins a group.
+   */
+  public void invalidateUser(int userId) {
+    organizationPermissions.asMap().keySet().removeIf(key -> key.isUser(userId));
+    projectPermissions.asMap().keySet().removeIf(key -> key.isUser(userId));
+    invalidationCount.incrementAndGet();
+  }
+
+  /**
+   * To be called when the permissions of any user on the given projects changed, for example
+   * when a permission template is applied.
+   */
+  public void invalidateProjects(Collection<String> projectUuids) {
+    Set<String> uuids = new HashSet<>(projectUuids);
+    projectPermissions.asMap().keySet().removeIf(key -> uuids.contains(key.uuid));
+    invalidationCount.incrementAndGet();
+  }
+
+  /**
+   * To be called when the permissions of an unknown number of users changed, for example
+   * when a permission is granted to a group or when a group is deleted.
+   */
+  public void invalidateAll() {
+    organizationPermissions.invalidateAll();
+    projectPermissions.invalidateAll();
+    invalidationCount.incrementAndGet();
+  }
+
+  public long size() {
+    return organizationPermissions.size() + projectPermissions.size();
+  }
+
+  public CacheStats stats() {
+    return organizationPermissions.stats().plus(projectPermissions.stats());
+  }
+
+  public long getInvalidationCount() {
+    return invalidationCount.get();
+  }
+
+  private static final class Key {
+    @Nullable
+    private final Integer userId;
+    private final String uuid;
+
+    private Key(@Nullable Integer userId, String uuid) {
+      this.userId = userId;
+      this.uuid = uuid;
+    }
+
+    private boolean isUser(int id) {
+      return userId != null && userId == id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return Objects.equals(userId, key.userId) && uuid.equals(key.uuid);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(userId, uuid);
+    }
+  }
+}
@@ -77,9 +77,10 @@ public class UserUpdater {
   private final System2 system2;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
   private final OrganizationCreation organizationCreation;
+  private final UserPermissionCache permissionCache;
 
   public UserUpdater(NewUserNotifier newUserNotifier, Settings settings, DbClient dbClient, UserIndexer userIndexer, System2 system2,
-    DefaultOrganizationProvider defaultOrganizationProvider, OrganizationCreation organizationCreation) {
+    DefaultOrganizationProvider defaultOrganizationProvider, OrganizationCreation organizationCreation, UserPermissionCache permissionCache) {
     this.newUserNotifier = newUserNotifier;
     this.settings = settings;
     this.dbClient = dbClient;
@@ -87,6 +88,7 @@ public class UserUpdater {
     this.system2 = system2;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
     this.organizationCreation = organizationCreation;
+    this.permissionCache = permissionCache;
   }
 
   public UserDto create(NewUser newUser) {
@@ -125,8 +127,11 @@ public class UserUpdater {
     existingUser.setLocal(true);
     updateUserDto(dbSession, updateUser, existingUser);
     updateUser(dbSession, existingUser);
-    addDefaultGroup(dbSession, existingUser);
+    boolean joinedDefaultGroup = addDefaultGroup(dbSession, existingUser);
     dbSession.commit();
+    if (joinedDefaultGroup) {
+      permissionCache.invalidateUser(existingUser.getId());
+    }
   }
 
   public void update(DbSession dbSession, UpdateUser updateUser) {
@@ -355,9 +360,12 @@ public class UserUpdater {
     long now = system2.now();
     userDto.setActive(true).setCreatedAt(now).setUpdatedAt(now);
     UserDto res = dbClient.userDao().insert(dbSession, userDto);
-    addDefaultGroup(dbSession, userDto);
+    boolean joinedDefaultGroup = addDefaultGroup(dbSession, userDto);
     organizationCreation.createForUser(dbSession, userDto);
     dbSession.commit();
+    if (joinedDefaultGroup) {
+      permissionCache.invalidateUser(userDto.getId());
+    }
     userIndexer.index(userDto.getLogin());
     return res;
   }
@@ -387,10 +395,14 @@ public class UserUpdater {
       .build());
   }
 
-  private void addDefaultGroup(DbSession dbSession, UserDto userDto) {
+  /**
+   * @return true if the user has been added to the default group. The permission cache
+   * must then be invalidated once the session is committed.
+   */
+  private boolean addDefaultGroup(DbSession dbSession, UserDto userDto) {
     String defaultGroupName = settings.getString(CoreProperties.CORE_DEFAULT_GROUP);
     if (defaultGroupName == null) {
-      return;
+      return false;
     }
     String defOrgUuid = defaultOrganizationProvider.get().getUuid();
     List<GroupDto> userGroups = dbClient.groupDao().selectByUserLogin(dbSession, userDto.getLogin());
@@ -402,6 +414,8 @@ public class UserUpdater {
             defaultGroupName));
       }
       dbClient.userGroupDao().insert(dbSession, new UserGroupDto().setUserId(userDto.getId()).setGroupId(groupDto.get().getId()));
+      return true;
     }
+    return false;
   }
 }
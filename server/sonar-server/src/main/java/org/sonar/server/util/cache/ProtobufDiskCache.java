@@ -0,0 +1,116 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.sonar.api.utils.System2;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.core.util.Protobuf;
+
+/**
+ * Store objects on disk as a stream of delimited protobuf messages. No search capabilities, only traversal (full scan).
+ * <p>
+ * Unlike {@link DiskCache}, objects are not serialized with Java serialization but converted to a protobuf message by
+ * {@link #toProtobuf(Object)}, which is much cheaper in CPU and disk space.
+ * </p>
+ */
+public abstract class ProtobufDiskCache<O, MSG extends Message> {
+
+  private final File file;
+  private final Parser<MSG> parser;
+  private final System2 system2;
+
+  protected ProtobufDiskCache(File file, Parser<MSG> parser, System2 system2) {
+    this.file = file;
+    this.parser = parser;
+    this.system2 = system2;
+    try {
+      // truncates the file, which may already exist
+      system2.close(new FileOutputStream(file));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write into file: " + file, e);
+    }
+  }
+
+  protected abstract MSG toProtobuf(O object);
+
+  protected abstract O fromProtobuf(MSG message);
+
+  public DiskAppender newAppender() {
+    return new DiskAppender();
+  }
+
+  public CloseableIterator<O> traverse() {
+    return new ConvertingIterator(Protobuf.readStream(file, parser));
+  }
+
+  public class DiskAppender implements AutoCloseable {
+    private final OutputStream output;
+
+    private DiskAppender() {
+      try {
+        this.output = new BufferedOutputStream(new FileOutputStream(file, true));
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to open file " + file, e);
+      }
+    }
+
+    public DiskAppender append(O object) {
+      try {
+        toProtobuf(object).writeDelimitedTo(output);
+        return this;
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to write into file " + file, e);
+      }
+    }
+
+    @Override
+    public void close() {
+      system2.close(output);
+    }
+  }
+
+  private class ConvertingIterator extends CloseableIterator<O> {
+    private final CloseableIterator<MSG> messages;
+
+    private ConvertingIterator(CloseableIterator<MSG> messages) {
+      this.messages = messages;
+    }
+
+    @Override
+    protected O doNext() {
+      if (messages.hasNext()) {
+        return fromProtobuf(messages.next());
+      }
+      return null;
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+      messages.close();
+    }
+  }
+}
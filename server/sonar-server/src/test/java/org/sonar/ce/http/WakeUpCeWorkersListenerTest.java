@@ -0,0 +1,49 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.http;
+
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class WakeUpCeWorkersListenerTest {
+
+  private CeHttpClient ceHttpClient = mock(CeHttpClient.class);
+  private WakeUpCeWorkersListener underTest = new WakeUpCeWorkersListener(ceHttpClient);
+
+  @Test
+  public void onSubmit_wakes_up_workers_of_Compute_Engine() {
+    underTest.onSubmit(Collections.emptyList());
+
+    verify(ceHttpClient).wakeUpWorkers();
+  }
+
+  @Test
+  public void onSubmit_does_not_fail_if_Compute_Engine_can_not_be_reached() {
+    doThrow(new IllegalStateException("Failed to call HTTP server of process ce")).when(ceHttpClient).wakeUpWorkers();
+
+    underTest.onSubmit(Collections.emptyList());
+
+    verify(ceHttpClient).wakeUpWorkers();
+  }
+}
@@ -40,8 +40,13 @@ import org.sonar.server.organization.DefaultOrganizationProvider;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 public class CeQueueImplTest {
 
@@ -124,6 +129,40 @@ public class CeQueueImplTest {
     verifyCeTask(taskSubmit2, tasks.get(1), null);
   }
 
+  @Test
+  public void submit_notifies_listeners_once_task_is_persisted() {
+    CeQueueListener listener = mock(CeQueueListener.class);
+    underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory, defaultOrganizationProvider, new CeQueueListener[] {listener});
+
+    CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
+
+    verify(listener).onSubmit(singletonList(task));
+  }
+
+  @Test
+  public void massSubmit_notifies_listeners_once_tasks_are_persisted() {
+    CeQueueListener listener = mock(CeQueueListener.class);
+    underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory, defaultOrganizationProvider, new CeQueueListener[] {listener});
+
+    List<CeTask> tasks = underTest.massSubmit(asList(createTaskSubmit(CeTaskTypes.REPORT, "PROJECT_1", "rob"), createTaskSubmit("some type")));
+
+    verify(listener).onSubmit(tasks);
+  }
+
+  @Test
+  public void submit_does_not_fail_if_a_listener_fails() {
+    CeQueueListener failingListener = mock(CeQueueListener.class);
+    doThrow(new IllegalStateException("Unexpected exception")).when(failingListener).onSubmit(anyCollection());
+    CeQueueListener listener = mock(CeQueueListener.class);
+    underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory, defaultOrganizationProvider, new CeQueueListener[] {failingListener, listener});
+
+    CeTaskSubmit taskSubmit = createTaskSubmit(CeTaskTypes.REPORT, "PROJECT_1", "rob");
+    CeTask task = underTest.submit(taskSubmit);
+
+    verifyCeQueueDtoForTaskSubmit(taskSubmit);
+    verify(listener).onSubmit(singletonList(task));
+  }
+
   @Test
   public void cancel_pending() throws Exception {
     CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
@@ -21,6 +21,7 @@ package org.sonar.server.batch;
 
 import java.io.ByteArrayInputStream;
 import java.util.Arrays;
+import java.util.Date;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -45,6 +46,7 @@ import org.sonar.server.issue.index.IssueIndexDefinition;
 import org.sonar.server.issue.index.IssueIndexer;
 import org.sonar.server.issue.index.IssueIteratorFactory;
 import org.sonar.server.permission.index.AuthorizationTypeSupport;
+import org.sonar.server.permission.index.AuthorizedProjectsCache;
 import org.sonar.server.permission.index.PermissionIndexerDao;
 import org.sonar.server.permission.index.PermissionIndexerTester;
 import org.sonar.server.platform.ServerFileSystem;
@@ -78,14 +80,16 @@ public class IssuesActionTest {
   public UserSessionRule userSessionRule = UserSessionRule.standalone();
 
   private IssueIndexer issueIndexer = new IssueIndexer(es.client(), new IssueIteratorFactory(db.getDbClient()));
-  private PermissionIndexerTester authorizationIndexerTester = new PermissionIndexerTester(es, issueIndexer);
+  private AuthorizedProjectsCache authorizedProjectsCache = new AuthorizedProjectsCache(es.client());
+  private PermissionIndexerTester authorizationIndexerTester = new PermissionIndexerTester(es, authorizedProjectsCache, issueIndexer);
   private ServerFileSystem fs = mock(ServerFileSystem.class);
+  private IssuesResponseCache responseCache = new IssuesResponseCache();
   private WsTester tester;
 
   @Before
   public void before() {
-    IssueIndex issueIndex = new IssueIndex(es.client(), system2, userSessionRule, new AuthorizationTypeSupport(userSessionRule));
-    IssuesAction issuesAction = new IssuesAction(db.getDbClient(), issueIndex, userSessionRule, new ComponentFinder(db.getDbClient()));
+    IssueIndex issueIndex = new IssueIndex(es.client(), system2, userSessionRule, new AuthorizationTypeSupport(userSessionRule, authorizedProjectsCache));
+    IssuesAction issuesAction = new IssuesAction(db.getDbClient(), issueIndex, userSessionRule, new ComponentFinder(db.getDbClient()), responseCache);
     tester = new WsTester(new BatchWs(issuesAction));
   }
 
@@ -309,6 +313,60 @@ public class IssuesActionTest {
     assertThat(serverIssue.getModuleKey()).isEqualTo(MODULE_KEY);
   }
 
+  @Test
+  public void return_not_modified_when_issues_did_not_change() throws Exception {
+    ComponentDto project = db.components().insertProject();
+    ComponentDto file = db.components().insertComponent(ComponentTesting.newFileDto(project));
+    indexIssues(IssueDocTesting.newDoc("EFGH", file));
+    addBrowsePermissionOnComponent(project);
+
+    WsTester.Result result = tester.newGetRequest("batch", "issues").setParam("key", project.key()).execute();
+    String etag = result.header("ETag");
+    assertThat(etag).startsWith("\"").endsWith("\"");
+    assertThat(ServerIssue.parseDelimitedFrom(new ByteArrayInputStream(result.output())).getKey()).isEqualTo("EFGH");
+
+    WsTester.Result notModified = tester.newGetRequest("batch", "issues").setParam("key", project.key())
+      .setHeader("If-None-Match", etag)
+      .execute();
+    notModified.assertNotModified().assertHeader("ETag", etag);
+    assertThat(notModified.output()).isEmpty();
+
+    WsTester.Result otherVersion = tester.newGetRequest("batch", "issues").setParam("key", project.key())
+      .setHeader("If-None-Match", "\"other\"")
+      .execute();
+    assertThat(otherVersion.output()).isEqualTo(result.output());
+  }
+
+  @Test
+  public void etag_changes_when_issues_change() throws Exception {
+    ComponentDto project = db.components().insertProject();
+    ComponentDto file = db.components().insertComponent(ComponentTesting.newFileDto(project));
+    indexIssues(IssueDocTesting.newDoc("EFGH", file));
+    addBrowsePermissionOnComponent(project);
+    String etag = tester.newGetRequest("batch", "issues").setParam("key", project.key()).execute().header("ETag");
+
+    indexIssues(IssueDocTesting.newDoc("EFGH", file).setTechnicalUpdateDate(new Date()).setAssignee("john"));
+
+    WsTester.Result result = tester.newGetRequest("batch", "issues").setParam("key", project.key())
+      .setHeader("If-None-Match", etag)
+      .execute();
+    assertThat(result.header("ETag")).isNotEqualTo(etag);
+    assertThat(ServerIssue.parseDelimitedFrom(new ByteArrayInputStream(result.output())).getAssigneeLogin()).isEqualTo("john");
+  }
+
+  @Test
+  public void cache_response_per_version_of_issues() throws Exception {
+    ComponentDto project = db.components().insertProject();
+    ComponentDto file = db.components().insertComponent(ComponentTesting.newFileDto(project));
+    indexIssues(IssueDocTesting.newDoc("EFGH", file));
+    addBrowsePermissionOnComponent(project);
+
+    WsTester.Result result = tester.newGetRequest("batch", "issues").setParam("key", project.key()).execute();
+
+    assertThat(responseCache.get(project.uuid(), result.header("ETag"))).isEqualTo(result.output());
+    assertThat(tester.newGetRequest("batch", "issues").setParam("key", project.key()).execute().output()).isEqualTo(result.output());
+  }
+
   @Test
   public void fail_without_browse_permission_on_file() throws Exception {
     ComponentDto project = db.components().insertProject();
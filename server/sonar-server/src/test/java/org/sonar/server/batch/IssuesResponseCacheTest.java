@@ -0,0 +1,68 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.batch;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IssuesResponseCacheTest {
+
+  private IssuesResponseCache underTest = new IssuesResponseCache(10, 6);
+
+  @Test
+  public void get_response_of_same_version() {
+    underTest.put("P1", "v1", new byte[] {1, 2});
+
+    assertThat(underTest.get("P1", "v1")).containsExactly(new byte[] {1, 2});
+    assertThat(underTest.get("P1", "v2")).isNull();
+    assertThat(underTest.get("P2", "v1")).isNull();
+  }
+
+  @Test
+  public void new_version_replaces_previous_one() {
+    underTest.put("P1", "v1", new byte[] {1, 2});
+    underTest.put("P1", "v2", new byte[] {3});
+
+    assertThat(underTest.get("P1", "v1")).isNull();
+    assertThat(underTest.get("P1", "v2")).containsExactly(new byte[] {3});
+  }
+
+  @Test
+  public void do_not_cache_responses_greater_than_max_response_size() {
+    underTest.put("P1", "v1", new byte[7]);
+
+    assertThat(underTest.get("P1", "v1")).isNull();
+  }
+
+  @Test
+  public void evict_least_recently_used_responses_when_max_size_is_exceeded() {
+    underTest.put("P1", "v1", new byte[4]);
+    underTest.put("P2", "v1", new byte[4]);
+    // P1 is now more recently used than P2
+    underTest.get("P1", "v1");
+
+    underTest.put("P3", "v1", new byte[4]);
+
+    assertThat(underTest.get("P1", "v1")).isNotNull();
+    assertThat(underTest.get("P2", "v1")).isNull();
+    assertThat(underTest.get("P3", "v1")).isNotNull();
+  }
+}
@@ -45,6 +45,9 @@ import org.sonarqube.ws.MediaTypes;
 import org.sonarqube.ws.WsCe;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.sonar.db.ce.CeQueueTesting.newCeQueueDto;
 import static org.sonar.db.component.ComponentTesting.newProjectDto;
 import static org.sonar.test.JsonAssert.assertJson;
@@ -60,14 +63,19 @@ public class ActivityStatusActionTest {
   @Rule
   public DbTester db = DbTester.create(System2.INSTANCE);
 
+  private System2 system2 = mock(System2.class);
   private DbClient dbClient = db.getDbClient();
   private DbSession dbSession = db.getSession();
-  private WsActionTester ws = new WsActionTester(new ActivityStatusAction(userSession, dbClient, new ComponentFinder(dbClient)));
+  private WsActionTester ws = new WsActionTester(new ActivityStatusAction(userSession, dbClient, new ComponentFinder(dbClient), system2));
 
   @Test
   public void json_example() {
-    dbClient.ceQueueDao().insert(dbSession, newCeQueueDto("ce-queue-uuid-1").setStatus(CeQueueDto.Status.PENDING));
-    dbClient.ceQueueDao().insert(dbSession, newCeQueueDto("ce-queue-uuid-2").setStatus(CeQueueDto.Status.PENDING));
+    long now = System2.INSTANCE.now();
+    when(system2.now()).thenReturn(now);
+    dbClient.ceQueueDao().insert(dbSession, newCeQueueDto("ce-queue-uuid-1").setStatus(CeQueueDto.Status.PENDING)
+      .setComponentUuid("AU-Tpxb--iU5OvuD2FLy").setCreatedAt(now - 95_000L));
+    dbClient.ceQueueDao().insert(dbSession, newCeQueueDto("ce-queue-uuid-2").setStatus(CeQueueDto.Status.PENDING)
+      .setComponentUuid("AU-Tpxb--iU5OvuD2FLy").setCreatedAt(now - 20_000L));
     for (int i = 0; i < 5; i++) {
       dbClient.ceActivityDao().insert(dbSession, new CeActivityDto(newCeQueueDto("ce-activity-uuid-" + i))
         .setStatus(CeActivityDto.Status.FAILED));
@@ -107,12 +115,37 @@ public class ActivityStatusActionTest {
     assertThat(result.getFailing()).isEqualTo(1);
   }
 
+  @Test
+  public void pending_tasks_are_detailed_by_component() {
+    long now = System2.INSTANCE.now();
+    when(system2.now()).thenReturn(now);
+    insertInQueue(CeQueueDto.Status.PENDING, "project-1", now - 3_000L);
+    insertInQueue(CeQueueDto.Status.PENDING, "project-1", now - 1_000L);
+    insertInQueue(CeQueueDto.Status.PENDING, "project-2", now - 5_000L);
+    insertInQueue(CeQueueDto.Status.PENDING, null, now - 500L);
+    // in progress tasks are not waiting anymore
+    insertInQueue(CeQueueDto.Status.IN_PROGRESS, "project-3", now - 10_000L);
+
+    WsCe.ActivityStatusWsResponse result = call();
+
+    assertThat(result.getPending()).isEqualTo(4);
+    assertThat(result.getPendingTime()).isEqualTo(5_000L);
+    assertThat(result.getSharesList())
+      .extracting(WsCe.QueueShare::getComponentId, WsCe.QueueShare::getPending, WsCe.QueueShare::getPendingTime)
+      .containsExactly(
+        tuple("project-2", 1, 5_000L),
+        tuple("project-1", 2, 3_000L),
+        tuple("", 1, 500L));
+  }
+
   @Test
   public void empty_status() {
     WsCe.ActivityStatusWsResponse result = call();
 
     assertThat(result.getPending()).isEqualTo(0);
     assertThat(result.getFailing()).isEqualTo(0);
+    assertThat(result.hasPendingTime()).isFalse();
+    assertThat(result.getSharesList()).isEmpty();
   }
 
   @Test
@@ -166,6 +199,14 @@ public class ActivityStatusActionTest {
     db.commit();
   }
 
+  private void insertInQueue(CeQueueDto.Status status, @Nullable String componentUuid, long createdAt) {
+    dbClient.ceQueueDao().insert(dbSession, newCeQueueDto(Uuids.createFast())
+      .setStatus(status)
+      .setComponentUuid(componentUuid)
+      .setCreatedAt(createdAt));
+    db.commit();
+  }
+
   private void insertActivity(CeActivityDto.Status status, @Nullable String componentUuid) {
     dbClient.ceActivityDao().insert(dbSession, new CeActivityDto(
       newCeQueueDto(Uuids.createFast())
@@ -36,6 +36,7 @@ import org.sonar.db.organization.OrganizationTesting;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.textsearch.ComponentTextSearchFeatureRule;
 import org.sonar.server.permission.index.AuthorizationTypeSupport;
+import org.sonar.server.permission.index.AuthorizedProjectsCache;
 import org.sonar.server.permission.index.PermissionIndexerTester;
 import org.sonar.server.tester.UserSessionRule;
 
@@ -61,8 +62,9 @@ public abstract class ComponentIndexTest {
 
   protected ComponentIndexer indexer = new ComponentIndexer(db.getDbClient(), es.client());
 
-  protected ComponentIndex index = new ComponentIndex(es.client(), new AuthorizationTypeSupport(userSession));
-  protected PermissionIndexerTester authorizationIndexerTester = new PermissionIndexerTester(es, indexer);
+  protected AuthorizedProjectsCache authorizedProjectsCache = new AuthorizedProjectsCache(es.client());
+  protected ComponentIndex index = new ComponentIndex(es.client(), new AuthorizationTypeSupport(userSession, authorizedProjectsCache));
+  protected PermissionIndexerTester authorizationIndexerTester = new PermissionIndexerTester(es, authorizedProjectsCache, indexer);
   private OrganizationDto organization;
 
   @Before
@@ -33,6 +33,7 @@ import org.sonar.server.component.index.ComponentIndexDefinition;
 import org.sonar.server.component.index.ComponentIndexer;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.permission.index.AuthorizationTypeSupport;
+import org.sonar.server.permission.index.AuthorizedProjectsCache;
 import org.sonar.server.permission.index.PermissionIndexerTester;
 import org.sonar.server.tester.UserSessionRule;
 import org.sonarqube.ws.WsComponents;
@@ -54,11 +55,12 @@ public class SuggestionsActionTest {
   private ComponentIndexer componentIndexer = new ComponentIndexer(db.getDbClient(), es.client());
   private SuggestionsAction action;
   private OrganizationDto organization;
-  private PermissionIndexerTester authorizationIndexerTester = new PermissionIndexerTester(es, componentIndexer);
+  private AuthorizedProjectsCache authorizedProjectsCache = new AuthorizedProjectsCache(es.client());
+  private PermissionIndexerTester authorizationIndexerTester = new PermissionIndexerTester(es, authorizedProjectsCache, componentIndexer);
 
   @Before
   public void setUp() {
-    ComponentIndex index = new ComponentIndex(es.client(), new AuthorizationTypeSupport(userSessionRule));
+    ComponentIndex index = new ComponentIndex(es.client(), new AuthorizationTypeSupport(userSessionRule, authorizedProjectsCache));
     action = new SuggestionsAction(db.getDbClient(), index);
     organization = db.organizations().insert();
   }
@@ -29,6 +29,8 @@ import static com.google.common.base.Preconditions.checkArgument;
 public class CeConfigurationRule extends ExternalResource implements CeConfiguration {
   private int workerCount = CeConfigurationImpl.DEFAULT_WORKER_COUNT;
   private long queuePollingDelay = CeConfigurationImpl.DEFAULT_QUEUE_POLLING_DELAY;
+  private long queueMaxPollingDelay = CeConfigurationImpl.DEFAULT_QUEUE_MAX_POLLING_DELAY;
+  private int stepConcurrency = CeConfigurationImpl.DEFAULT_STEP_CONCURRENCY;
 
   @Override
   public int getWorkerCount() {
@@ -50,4 +52,25 @@ public class CeConfigurationRule extends ExternalResource implements CeConfigura
     checkArgument(queuePollingDelay > 0, "Queue polling delay must be >= 0");
     this.queuePollingDelay = queuePollingDelay;
   }
+
+  @Override
+  public long getQueueMaxPollingDelay() {
+    return queueMaxPollingDelay;
+  }
+
+  public void setQueueMaxPollingDelay(long queueMaxPollingDelay) {
+    checkArgument(queueMaxPollingDelay > 0, "Queue max polling delay must be >= 0");
+    this.queueMaxPollingDelay = queueMaxPollingDelay;
+  }
+
+  @Override
+  public int getStepConcurrency() {
+    return stepConcurrency;
+  }
+
+  public CeConfigurationRule setStepConcurrency(int stepConcurrency) {
+    checkArgument(stepConcurrency >= 1, "step concurrency must be >= 1");
+    this.stepConcurrency = stepConcurrency;
+    return this;
+  }
 }
@@ -133,6 +133,23 @@ public class CEQueueStatusImplTest {
     assertThat(underTest.getProcessingTime()).isEqualTo(calls);
   }
 
+  @Test
+  public void addWaitingTime_throws_IAE_if_time_is_less_than_0() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Waiting time can not be < 0");
+
+    underTest.addWaitingTime(-1);
+  }
+
+  @Test
+  public void addWaitingTime_sums_waiting_times() {
+    underTest.addWaitingTime(SOME_PROCESSING_TIME);
+    underTest.addWaitingTime(SOME_PROCESSING_TIME);
+
+    assertThat(underTest.getWaitingTime()).isEqualTo(2 * SOME_PROCESSING_TIME);
+    assertThat(underTest.getInProgressCount()).isEqualTo(0);
+  }
+
   @Test
   public void count_Pending_from_database() {
     when(dbClient.ceQueueDao().countByStatus(any(DbSession.class), eq(CeQueueDto.Status.PENDING))).thenReturn(42);
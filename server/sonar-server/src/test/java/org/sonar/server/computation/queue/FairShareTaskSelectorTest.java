@@ -0,0 +1,85 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import java.util.Collections;
+import javax.annotation.Nullable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.db.ce.CeQueueDto;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FairShareTaskSelectorTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private FairShareTaskSelector underTest = new FairShareTaskSelector();
+
+  @Test
+  public void select_oldest_task_when_no_component_has_been_served() {
+    CeQueueDto task1 = newTask("T1", "P1");
+    CeQueueDto task2 = newTask("T2", "P2");
+
+    assertThat(underTest.select(asList(task1, task2))).isSameAs(task1);
+  }
+
+  @Test
+  public void select_task_of_component_served_least_recently() {
+    CeQueueDto burst1 = newTask("T1", "P1");
+    CeQueueDto other1 = newTask("T2", "P2");
+    CeQueueDto noComponent1 = newTask("T3", null);
+    assertThat(underTest.select(asList(burst1, other1, noComponent1))).isSameAs(burst1);
+
+    CeQueueDto burst2 = newTask("T4", "P1");
+    assertThat(underTest.select(asList(other1, noComponent1, burst2))).isSameAs(other1);
+    assertThat(underTest.select(asList(noComponent1, burst2))).isSameAs(noComponent1);
+
+    // tasks not related to any component are served as if they were related to the same component
+    CeQueueDto noComponent2 = newTask("T5", null);
+    assertThat(underTest.select(asList(noComponent2, burst2))).isSameAs(burst2);
+    assertThat(underTest.select(asList(noComponent2))).isSameAs(noComponent2);
+  }
+
+  @Test
+  public void component_served_last_comes_after_component_which_submits_again() {
+    underTest.select(asList(newTask("T1", "P1")));
+    underTest.select(asList(newTask("T2", "P2")));
+
+    CeQueueDto task1 = newTask("T3", "P1");
+    CeQueueDto task2 = newTask("T4", "P2");
+    assertThat(underTest.select(asList(task2, task1))).isSameAs(task1);
+  }
+
+  @Test
+  public void fail_if_no_eligible_task() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("At least one eligible task is required");
+
+    underTest.select(Collections.emptyList());
+  }
+
+  private static CeQueueDto newTask(String uuid, @Nullable String componentUuid) {
+    return new CeQueueDto().setUuid(uuid).setComponentUuid(componentUuid);
+  }
+}
@@ -69,7 +69,8 @@ public class InternalCeQueueImplTest {
   private UuidFactory uuidFactory = UuidFactoryImpl.INSTANCE;
   private CEQueueStatus queueStatus = new CEQueueStatusImpl(dbTester.getDbClient());
   private DefaultOrganizationProvider defaultOrganizationProvider = TestDefaultOrganizationProvider.from(dbTester);
-  private InternalCeQueue underTest = new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus, defaultOrganizationProvider);
+  private InternalCeQueue underTest = new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus, new FairShareTaskSelector(),
+    defaultOrganizationProvider);
 
   @Test
   public void submit_returns_task_populated_from_CeTaskSubmit_and_creates_CeQueue_row() {
@@ -241,6 +242,36 @@ public class InternalCeQueueImplTest {
     assertThat(peek.isPresent()).isFalse();
   }
 
+  @Test
+  public void peek_serves_components_in_turn() {
+    CeTask burst1 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask burst2 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask burst3 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask other = submit(CeTaskTypes.REPORT, "PROJECT_2");
+
+    peekAndRemove(burst1);
+    peekAndRemove(other);
+    peekAndRemove(burst2);
+    peekAndRemove(burst3);
+    assertThat(underTest.peek().isPresent()).isFalse();
+  }
+
+  private void peekAndRemove(CeTask expectedTask) {
+    CeTask task = underTest.peek().get();
+    assertThat(task.getUuid()).isEqualTo(expectedTask.getUuid());
+    underTest.remove(task, CeActivityDto.Status.SUCCESS, null, null);
+  }
+
+  @Test
+  public void peek_records_time_spent_by_task_in_queue() {
+    submit(CeTaskTypes.REPORT, "PROJECT_1");
+    ((TestSystem2) system2).setNow(1_450_000_005_000L);
+
+    underTest.peek();
+
+    assertThat(queueStatus.getWaitingTime()).isEqualTo(5_000L);
+  }
+
   @Test
   public void peek_nothing_if_paused() throws Exception {
     submit(CeTaskTypes.REPORT, "PROJECT_1");
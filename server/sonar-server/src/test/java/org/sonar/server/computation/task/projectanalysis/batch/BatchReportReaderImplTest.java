@@ -25,6 +25,7 @@ import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.api.utils.ZipUtils;
 import org.sonar.api.utils.internal.JUnitTempFolder;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.scanner.protocol.output.ScannerReport;
@@ -315,4 +316,26 @@ public class BatchReportReaderImplTest {
     assertThat(res).containsExactly(COVERAGE_DETAIL_1, COVERAGE_DETAIL_2);
     res.close();
   }
+
+  @Test
+  public void read_report_from_its_archive() throws IOException {
+    ScannerReport.Metadata metadata = ScannerReport.Metadata.newBuilder().setProjectKey("P1").build();
+    writer.writeMetadata(metadata);
+    writer.writeComponent(COMPONENT);
+    writer.writeTests(COMPONENT_REF, of(TEST_1, TEST_2));
+    FileUtils.writeLines(writer.getSourceFile(COMPONENT_REF), of("1", "2"));
+    FileUtils.write(writer.getFileStructure().analysisLog(), "log1\nlog2");
+    File zip = tempFolder.newFile();
+    ZipUtils.zipDir(writer.getFileStructure().root(), zip);
+
+    BatchReportReaderImpl archiveReader = new BatchReportReaderImpl(new ImmutableBatchReportDirectoryHolder(zip));
+
+    assertThat(archiveReader.readMetadata()).isEqualTo(metadata);
+    assertThat(archiveReader.readComponent(COMPONENT_REF)).isEqualTo(COMPONENT);
+    assertThat(archiveReader.readTests(COMPONENT_REF)).containsExactly(TEST_1, TEST_2);
+    assertThat(archiveReader.readFileSource(COMPONENT_REF).get()).containsExactly("1", "2");
+    assertThat(archiveReader.readScannerLogs()).containsExactly("log1", "log2");
+    assertThat(archiveReader.readCoverageDetails(COMPONENT_REF)).isEmpty();
+    archiveReader.stop();
+  }
 }
@@ -489,6 +489,16 @@ public class ComponentRootBuilderTest {
     assertThat(createFileAttributes(newBuilder().setType(FILE).setLines(10).build()).getLines()).isEqualTo(10);
   }
 
+  @Test
+  public void createFileAttributes_sets_copySourceFromPrevious_from_Scanner_Component() {
+    assertThat(createFileAttributes(newBuilder().setType(FILE).setLines(1).build()).isCopySourceFromPrevious()).isFalse();
+    assertThat(createFileAttributes(newBuilder().setType(FILE).setLines(1).setPreviousSourceHash("source-hash").build()).isCopySourceFromPrevious()).isFalse();
+
+    FileAttributes copied = createFileAttributes(newBuilder().setType(FILE).setLines(1).setCopySourceFromPrevious(true).setPreviousSourceHash("source-hash").build());
+    assertThat(copied.isCopySourceFromPrevious()).isTrue();
+    assertThat(copied.getPreviousSourceHash()).isEqualTo("source-hash");
+  }
+
   @Test
   public void fail_with_IAE_when_createFileAttributes_lines_is_not_set() throws Exception {
     expectedException.expect(IllegalArgumentException.class);
@@ -37,6 +37,16 @@ public class FileAttributesTest {
     assertThat(underTest.isUnitTest()).isTrue();
     assertThat(underTest.getLanguageKey()).isEqualTo("java");
     assertThat(underTest.getLines()).isEqualTo(10);
+    assertThat(underTest.isCopySourceFromPrevious()).isFalse();
+    assertThat(underTest.getPreviousSourceHash()).isNull();
+  }
+
+  @Test
+  public void create_file_whose_source_is_copied_from_previous_analysis() throws Exception {
+    FileAttributes underTest = new FileAttributes(false, "java", 10, "source-hash");
+
+    assertThat(underTest.isCopySourceFromPrevious()).isTrue();
+    assertThat(underTest.getPreviousSourceHash()).isEqualTo("source-hash");
   }
 
   @Test
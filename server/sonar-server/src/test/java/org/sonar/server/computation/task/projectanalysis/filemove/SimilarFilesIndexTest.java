@@ -0,0 +1,159 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.filemove;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.sonar.server.computation.task.projectanalysis.filemove.FileSimilarity.File;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SimilarFilesIndexTest {
+
+  private Random random = new Random(42);
+  private SourceSimilarity sourceSimilarity = new SourceSimilarityImpl();
+
+  @Test
+  public void identical_file_is_a_candidate() {
+    File file = randomFile(50);
+    SimilarFilesIndex underTest = new SimilarFilesIndex(asList(randomFile(50), file, randomFile(50)));
+
+    assertThat(underTest.candidatesOf(file).stream().toArray()).containsExactly(1);
+  }
+
+  @Test
+  public void slightly_modified_file_is_a_candidate() {
+    File file = randomFile(100);
+    File modified = modify(file, 10);
+    assertThat(sourceSimilarity.score(file.getLineHashes(), modified.getLineHashes())).isGreaterThanOrEqualTo(FileMoveDetectionStep.MIN_REQUIRED_SCORE);
+
+    SimilarFilesIndex underTest = new SimilarFilesIndex(asList(randomFile(100), modified));
+
+    assertThat(underTest.candidatesOf(file).stream().toArray()).containsExactly(1);
+  }
+
+  @Test
+  public void repetitive_files_with_a_different_line_are_candidates() {
+    for (int i = 0; i < 1_000; i++) {
+      List<String> lineHashes = new ArrayList<>(Collections.nCopies(99, Long.toHexString(random.nextLong())));
+      List<String> movedLineHashes = new ArrayList<>(lineHashes);
+      lineHashes.add("y");
+      movedLineHashes.add("z");
+      File file = new File("file", lineHashes);
+      File moved = new File("moved", movedLineHashes);
+      assertThat(sourceSimilarity.score(lineHashes, movedLineHashes)).isEqualTo(99);
+
+      SimilarFilesIndex underTest = new SimilarFilesIndex(Collections.singletonList(moved));
+
+      assertThat(underTest.candidatesOf(file).get(0)).isTrue();
+    }
+  }
+
+  @Test
+  public void files_with_few_distinct_lines_reaching_min_required_score_are_candidates() {
+    for (int i = 0; i < 1_000; i++) {
+      List<String> distinctLineHashes = asList(Long.toHexString(random.nextLong()), Long.toHexString(random.nextLong()), "");
+      List<String> lineHashes = new ArrayList<>();
+      for (int line = 0; line < 100; line++) {
+        lineHashes.add(distinctLineHashes.get(random.nextInt(distinctLineHashes.size())));
+      }
+      File file = new File("file", lineHashes);
+      File moved = modify(file, 15);
+      assertThat(sourceSimilarity.score(lineHashes, moved.getLineHashes())).isGreaterThanOrEqualTo(FileMoveDetectionStep.MIN_REQUIRED_SCORE);
+
+      SimilarFilesIndex underTest = new SimilarFilesIndex(Collections.singletonList(moved));
+
+      assertThat(underTest.candidatesOf(file).get(0)).isTrue();
+    }
+  }
+
+  @Test
+  public void files_with_too_different_sizes_are_not_candidates() {
+    File file = randomFile(100);
+    File truncated = new File("truncated", file.getLineHashes().subList(0, 50));
+
+    SimilarFilesIndex underTest = new SimilarFilesIndex(Collections.singletonList(truncated));
+
+    assertThat(underTest.candidatesOf(file).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void empty_files_are_never_candidates() {
+    File empty = new File("empty", emptyList());
+    SimilarFilesIndex underTest = new SimilarFilesIndex(asList(empty, randomFile(10)));
+
+    assertThat(underTest.candidatesOf(empty).isEmpty()).isTrue();
+    assertThat(underTest.candidatesOf(new File("other empty", emptyList())).isEmpty()).isTrue();
+  }
+
+  @Test
+  public void mayReachMinRequiredScore_is_based_on_difference_of_number_of_lines() {
+    assertThat(SimilarFilesIndex.mayReachMinRequiredScore(100, 100)).isTrue();
+    assertThat(SimilarFilesIndex.mayReachMinRequiredScore(100, 90)).isTrue();
+    assertThat(SimilarFilesIndex.mayReachMinRequiredScore(90, 100)).isTrue();
+    assertThat(SimilarFilesIndex.mayReachMinRequiredScore(100, 80)).isFalse();
+    assertThat(SimilarFilesIndex.mayReachMinRequiredScore(1, 2)).isFalse();
+  }
+
+  @Test
+  public void all_moved_files_are_candidates_among_many_files() {
+    int nbFiles = 1_000;
+    List<File> removedFiles = new ArrayList<>();
+    List<File> addedFiles = new ArrayList<>();
+    for (int i = 0; i < nbFiles; i++) {
+      File removed = randomFile(20 + random.nextInt(200));
+      removedFiles.add(removed);
+      addedFiles.add(modify(removed, removed.getLineHashes().size() / 10));
+    }
+
+    SimilarFilesIndex underTest = new SimilarFilesIndex(addedFiles);
+
+    long candidatePairs = 0;
+    for (int i = 0; i < nbFiles; i++) {
+      BitSet candidates = underTest.candidatesOf(removedFiles.get(i));
+      assertThat(candidates.get(i)).isTrue();
+      candidatePairs += candidates.cardinality();
+    }
+    // random files share no line, only the moved file is expected to be a candidate
+    assertThat(candidatePairs).isEqualTo(nbFiles);
+  }
+
+  private File randomFile(int nbLines) {
+    List<String> lineHashes = new ArrayList<>(nbLines);
+    for (int i = 0; i < nbLines; i++) {
+      lineHashes.add(Long.toHexString(random.nextLong()));
+    }
+    return new File("file_" + random.nextInt(), lineHashes);
+  }
+
+  private File modify(File file, int nbModifiedLines) {
+    List<String> lineHashes = new ArrayList<>(file.getLineHashes());
+    for (int i = 0; i < nbModifiedLines; i++) {
+      lineHashes.set(random.nextInt(lineHashes.size()), Long.toHexString(random.nextLong()));
+    }
+    return new File("moved_" + file.getPath(), lineHashes);
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ChangedIssuesHolderImplTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  ChangedIssuesHolderImpl underTest = new ChangedIssuesHolderImpl();
+
+  @Test
+  public void set_and_get_keys() {
+    underTest.setKeys(asList("K1", "K2"));
+
+    assertThat(underTest.hasKeysBeenSet()).isTrue();
+    assertThat(underTest.getKeys()).containsExactly("K1", "K2");
+  }
+
+  @Test
+  public void setKeys_fails_if_called_twice() {
+    underTest.setKeys(asList("K1"));
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Keys have already been set in holder");
+    underTest.setKeys(asList("K1"));
+  }
+
+  @Test
+  public void setKeys_fails_if_null() {
+    expectedException.expect(NullPointerException.class);
+    expectedException.expectMessage("keys cannot be null");
+    underTest.setKeys(null);
+  }
+
+  @Test
+  public void getKeys_fails_if_not_initialized() {
+    assertThat(underTest.hasKeysBeenSet()).isFalse();
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Keys have not been set in holder");
+    underTest.getKeys();
+  }
+}
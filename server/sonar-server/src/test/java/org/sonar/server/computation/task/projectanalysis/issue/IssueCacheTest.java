@@ -0,0 +1,238 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.api.utils.System2;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.DefaultIssueComment;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.db.protobuf.DbCommons;
+import org.sonar.db.protobuf.DbIssues;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class IssueCacheTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void traverse_empty_cache() throws Exception {
+    IssueCache underTest = new IssueCache(temp.newFile(), System2.INSTANCE);
+
+    try (CloseableIterator<DefaultIssue> issues = underTest.traverse()) {
+      assertThat(issues).isEmpty();
+    }
+  }
+
+  @Test
+  public void traverse_returns_issues_in_order_of_appending_even_with_many_appenders() throws Exception {
+    IssueCache underTest = new IssueCache(temp.newFile(), System2.INSTANCE);
+
+    underTest.newAppender().append(new DefaultIssue().setKey("A")).append(new DefaultIssue().setKey("B")).close();
+    underTest.newAppender().append(new DefaultIssue().setKey("C")).close();
+
+    assertThat(readAll(underTest)).extracting(DefaultIssue::key).containsExactly("A", "B", "C");
+  }
+
+  @Test
+  public void constructor_truncates_existing_file() throws Exception {
+    File file = temp.newFile();
+    new IssueCache(file, System2.INSTANCE).newAppender().append(new DefaultIssue().setKey("A")).close();
+
+    assertThat(readAll(new IssueCache(file, System2.INSTANCE))).isEmpty();
+  }
+
+  @Test
+  public void issue_with_only_default_values_is_read_as_written() throws Exception {
+    IssueCache underTest = new IssueCache(temp.newFile(), System2.INSTANCE);
+
+    underTest.newAppender().append(new DefaultIssue()).close();
+
+    DefaultIssue read = readAll(underTest).get(0);
+    assertThat(read.key()).isNull();
+    assertThat(read.type()).isNull();
+    assertThat(read.ruleKey()).isNull();
+    assertThat(read.status()).isNull();
+    assertThat(read.line()).isNull();
+    assertThat(read.gap()).isNull();
+    assertThat(read.effort()).isNull();
+    assertThat(read.creationDate()).isNull();
+    assertThat((Object) read.getLocations()).isNull();
+    assertThat(read.currentChange()).isNull();
+    assertThat(read.changes()).isEmpty();
+    assertThat(read.comments()).isEmpty();
+    assertThat(read.tags()).isEmpty();
+    assertThat(read.attributes()).isEmpty();
+    assertThat(read.isNew()).isTrue();
+    assertThat(read.manualSeverity()).isFalse();
+  }
+
+  @Test
+  public void all_fields_of_issue_are_read_as_written() throws Exception {
+    IssueCache underTest = new IssueCache(temp.newFile(), System2.INSTANCE);
+    DbIssues.Locations locations = DbIssues.Locations.newBuilder()
+      .setTextRange(DbCommons.TextRange.newBuilder().setStartLine(2).setEndLine(3))
+      .build();
+    FieldDiffs currentChange = new FieldDiffs()
+      .setIssueKey("ISSUE_1")
+      .setUserLogin("john")
+      .setCreationDate(new Date(1_500_000_000_000L))
+      .setDiff("severity", "MINOR", "MAJOR")
+      .setDiff("effort", 10L, null)
+      .setDiff("line", null, 12);
+    DefaultIssue issue = new DefaultIssue()
+      .setKey("ISSUE_1")
+      .setType(RuleType.BUG)
+      .setComponentUuid("FILE_UUID")
+      .setComponentKey("FILE_KEY")
+      .setModuleUuid("MODULE_UUID")
+      .setModuleUuidPath(".MODULE_UUID.")
+      .setProjectUuid("PROJECT_UUID")
+      .setProjectKey("PROJECT_KEY")
+      .setRuleKey(RuleKey.of("java", "S001"))
+      .setLanguage("java")
+      .setSeverity(Severity.MAJOR)
+      .setManualSeverity(true)
+      .setMessage("the message")
+      .setLine(12)
+      .setGap(1.5)
+      .setEffort(Duration.create(30L))
+      .setStatus("RESOLVED")
+      .setResolution("FIXED")
+      .setAssignee("john")
+      .setChecksum("checksum")
+      .setAttributes(ImmutableMap.of("jira", "SONAR-1"))
+      .setAuthorLogin("jane")
+      .addComment(new DefaultIssueComment().setKey("COMMENT_1").setIssueKey("ISSUE_1").setUserLogin("john").setMarkdownText("*text*")
+        .setCreatedAt(new Date(1_400_000_000_000L)).setUpdatedAt(new Date(1_400_000_001_000L)).setNew(true))
+      .setTags(Arrays.asList("tag1", "tag2"))
+      .setLocations(locations)
+      .setCreationDate(new Date(1_300_000_000_000L))
+      .setUpdateDate(new Date(1_300_000_001_000L))
+      .setCloseDate(new Date(1_300_000_002_000L))
+      .setCurrentChange(currentChange)
+      .addChange(new FieldDiffs().setIssueKey("ISSUE_1").setCreationDate(new Date(1_200_000_000_000L)).setDiff("status", "OPEN", "CONFIRMED"))
+      .setNew(false)
+      .setBeingClosed(true)
+      .setOnDisabledRule(true)
+      .setChanged(true)
+      .setSendNotifications(true)
+      .setSelectedAt(1_600_000_000_000L);
+
+    underTest.newAppender().append(issue).close();
+
+    DefaultIssue read = readAll(underTest).get(0);
+    assertThat(read.key()).isEqualTo("ISSUE_1");
+    assertThat(read.type()).isEqualTo(RuleType.BUG);
+    assertThat(read.componentUuid()).isEqualTo("FILE_UUID");
+    assertThat(read.componentKey()).isEqualTo("FILE_KEY");
+    assertThat(read.moduleUuid()).isEqualTo("MODULE_UUID");
+    assertThat(read.moduleUuidPath()).isEqualTo(".MODULE_UUID.");
+    assertThat(read.projectUuid()).isEqualTo("PROJECT_UUID");
+    assertThat(read.projectKey()).isEqualTo("PROJECT_KEY");
+    assertThat(read.ruleKey()).isEqualTo(RuleKey.of("java", "S001"));
+    assertThat(read.language()).isEqualTo("java");
+    assertThat(read.severity()).isEqualTo(Severity.MAJOR);
+    assertThat(read.manualSeverity()).isTrue();
+    assertThat(read.message()).isEqualTo("the message");
+    assertThat(read.line()).isEqualTo(12);
+    assertThat(read.gap()).isEqualTo(1.5);
+    assertThat(read.effort()).isEqualTo(Duration.create(30L));
+    assertThat(read.status()).isEqualTo("RESOLVED");
+    assertThat(read.resolution()).isEqualTo("FIXED");
+    assertThat(read.assignee()).isEqualTo("john");
+    assertThat(read.checksum()).isEqualTo("checksum");
+    assertThat(read.attributes()).containsOnly(entry("jira", "SONAR-1"));
+    assertThat(read.authorLogin()).isEqualTo("jane");
+    assertThat(read.tags()).containsExactly("tag1", "tag2");
+    assertThat((DbIssues.Locations) read.getLocations()).isEqualTo(locations);
+    assertThat(read.creationDate()).isEqualTo(issue.creationDate());
+    assertThat(read.updateDate()).isEqualTo(issue.updateDate());
+    assertThat(read.closeDate()).isEqualTo(issue.closeDate());
+    assertThat(read.isNew()).isFalse();
+    assertThat(read.isBeingClosed()).isTrue();
+    assertThat(read.isOnDisabledRule()).isTrue();
+    assertThat(read.isChanged()).isTrue();
+    assertThat(read.mustSendNotifications()).isTrue();
+    assertThat(read.selectedAt()).isEqualTo(1_600_000_000_000L);
+
+    assertThat(read.comments()).hasSize(1);
+    DefaultIssueComment comment = (DefaultIssueComment) read.comments().get(0);
+    assertThat(comment.key()).isEqualTo("COMMENT_1");
+    assertThat(comment.issueKey()).isEqualTo("ISSUE_1");
+    assertThat(comment.userLogin()).isEqualTo("john");
+    assertThat(comment.markdownText()).isEqualTo("*text*");
+    assertThat(comment.createdAt()).isEqualTo(new Date(1_400_000_000_000L));
+    assertThat(comment.updatedAt()).isEqualTo(new Date(1_400_000_001_000L));
+    assertThat(comment.isNew()).isTrue();
+
+    FieldDiffs readChange = read.currentChange();
+    assertThat(readChange.issueKey()).isEqualTo("ISSUE_1");
+    assertThat(readChange.userLogin()).isEqualTo("john");
+    assertThat(readChange.creationDate()).isEqualTo(new Date(1_500_000_000_000L));
+    assertThat(readChange.diffs().keySet()).containsExactly("severity", "effort", "line");
+    assertThat(readChange.get("severity").oldValue()).isEqualTo("MINOR");
+    assertThat(readChange.get("severity").newValue()).isEqualTo("MAJOR");
+    assertThat(readChange.get("effort").oldValue()).isEqualTo(10L);
+    assertThat(readChange.get("effort").newValue()).isNull();
+    assertThat(readChange.get("line").oldValue()).isNull();
+    assertThat(readChange.get("line").newValue()).isEqualTo(12);
+
+    assertThat(read.changes()).hasSize(2);
+    assertThat(read.changes().get(0)).isSameAs(readChange);
+    assertThat(read.changes().get(1).toString()).isEqualTo("status=OPEN|CONFIRMED");
+  }
+
+  @Test
+  public void current_change_which_is_not_part_of_changes_is_read_as_written() throws Exception {
+    IssueCache underTest = new IssueCache(temp.newFile(), System2.INSTANCE);
+    FieldDiffs change = new FieldDiffs().setDiff("status", "OPEN", "CONFIRMED");
+    DefaultIssue issue = new DefaultIssue().setCurrentChange(new FieldDiffs().setDiff("severity", "MINOR", "MAJOR"));
+    issue.setChanges(newArrayList(change));
+
+    underTest.newAppender().append(issue).close();
+
+    DefaultIssue read = readAll(underTest).get(0);
+    assertThat(read.currentChange().toString()).isEqualTo("severity=MINOR|MAJOR");
+    assertThat(read.changes()).extracting(FieldDiffs::toString).containsExactly("status=OPEN|CONFIRMED");
+  }
+
+  private static List<DefaultIssue> readAll(IssueCache issueCache) {
+    try (CloseableIterator<DefaultIssue> issues = issueCache.traverse()) {
+      return newArrayList(issues);
+    }
+  }
+}
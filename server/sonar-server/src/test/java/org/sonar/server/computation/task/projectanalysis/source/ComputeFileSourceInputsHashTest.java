@@ -0,0 +1,148 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.source;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
+import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+import org.sonar.server.computation.task.projectanalysis.duplication.DuplicationRepositoryRule;
+import org.sonar.server.computation.task.projectanalysis.duplication.TextBlock;
+import org.sonar.server.computation.task.projectanalysis.scm.Changeset;
+import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepositoryRule;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ComputeFileSourceInputsHashTest {
+
+  private static final int FILE_REF = 2;
+  private static final Component FILE = ReportComponent.builder(Component.Type.FILE, FILE_REF)
+    .setKey("FILE_KEY")
+    .setFileAttributes(new FileAttributes(false, null, 2))
+    .build();
+
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule()
+    .setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).addChildren(FILE).build());
+  @Rule
+  public BatchReportReaderRule reportReader = new BatchReportReaderRule();
+  @Rule
+  public ScmInfoRepositoryRule scmInfoRepository = new ScmInfoRepositoryRule();
+  @Rule
+  public SourceLinesRepositoryRule sourceLinesRepository = new SourceLinesRepositoryRule()
+    .addLines(FILE_REF, "line1", "line2");
+  @Rule
+  public DuplicationRepositoryRule duplicationRepository = DuplicationRepositoryRule.create(treeRootHolder);
+
+  @Test
+  public void hash_is_the_same_for_the_same_inputs() {
+    String hash = compute();
+
+    assertThat(hash).hasSize(32);
+    assertThat(compute()).isEqualTo(hash);
+  }
+
+  @Test
+  public void hash_changes_when_source_changes() {
+    String hash = compute();
+
+    sourceLinesRepository.addLines(FILE_REF, "line3");
+
+    assertThat(compute()).isNotEqualTo(hash);
+  }
+
+  @Test
+  public void hash_changes_when_coverage_changes() {
+    String hash = compute();
+
+    reportReader.putCoverage(FILE_REF, newArrayList(ScannerReport.LineCoverage.newBuilder().setLine(1).setHits(true).build()));
+
+    assertThat(compute()).isNotEqualTo(hash);
+  }
+
+  @Test
+  public void hash_changes_when_scm_changes() {
+    scmInfoRepository.setScmInfo(FILE_REF, Changeset.newChangesetBuilder().setRevision("rev-1").setDate(10L).build());
+    String hash = compute();
+
+    scmInfoRepository.setScmInfo(FILE_REF, Changeset.newChangesetBuilder().setRevision("rev-1").setAuthor("john").setDate(10L).build());
+
+    assertThat(compute()).isNotEqualTo(hash);
+  }
+
+  @Test
+  public void hash_changes_when_highlighting_changes() {
+    String hash = compute();
+
+    reportReader.putSyntaxHighlighting(FILE_REF, newArrayList(ScannerReport.SyntaxHighlightingRule.newBuilder()
+      .setRange(ScannerReport.TextRange.newBuilder().setStartLine(1).setEndLine(1).setStartOffset(0).setEndOffset(2).build())
+      .setType(ScannerReport.SyntaxHighlightingRule.HighlightingType.KEYWORD)
+      .build()));
+
+    assertThat(compute()).isNotEqualTo(hash);
+  }
+
+  @Test
+  public void hash_changes_when_symbols_change() {
+    String hash = compute();
+
+    reportReader.putSymbols(FILE_REF, newArrayList(ScannerReport.Symbol.newBuilder()
+      .setDeclaration(ScannerReport.TextRange.newBuilder().setStartLine(1).setEndLine(1).setStartOffset(0).setEndOffset(2).build())
+      .build()));
+
+    assertThat(compute()).isNotEqualTo(hash);
+  }
+
+  @Test
+  public void hash_changes_when_duplications_change() {
+    String hash = compute();
+
+    duplicationRepository.addDuplication(FILE_REF, new TextBlock(1, 1), new TextBlock(2, 2));
+
+    assertThat(compute()).isNotEqualTo(hash);
+  }
+
+  @Test
+  public void hash_changes_when_highlighting_and_symbols_are_copied_from_previous_analysis() {
+    String hash = compute();
+
+    Component copiedFile = ReportComponent.builder(Component.Type.FILE, FILE_REF)
+      .setKey("FILE_KEY")
+      .setFileAttributes(new FileAttributes(false, null, 2, "PREVIOUS_SOURCE_HASH"))
+      .build();
+
+    assertThat(compute(copiedFile)).isNotEqualTo(hash);
+    assertThat(compute(copiedFile)).isEqualTo(compute(copiedFile));
+  }
+
+  private String compute() {
+    return compute(FILE);
+  }
+
+  private String compute(Component file) {
+    return new ComputeFileSourceInputsHash(reportReader, new SourceHashRepositoryImpl(sourceLinesRepository), scmInfoRepository, duplicationRepository)
+      .compute(file);
+  }
+}
@@ -19,10 +19,16 @@
  */
 package org.sonar.server.computation.task.projectanalysis.source;
 
+import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.utils.System2;
+import org.sonar.core.hash.SourceLinesHashesComputer;
 import org.sonar.core.util.CloseableIterator;
+import org.sonar.db.DbTester;
+import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.db.source.FileSourceDto;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
@@ -35,6 +41,7 @@ public class SourceLinesRepositoryImplTest {
   static final String FILE_UUID = "FILE_UUID";
   static final String FILE_KEY = "FILE_KEY";
   static final int FILE_REF = 2;
+  static final String PREVIOUS_SOURCE_HASH = "PREVIOUS_SOURCE_HASH";
 
   @Rule
   public ExpectedException thrown = ExpectedException.none();
@@ -42,7 +49,10 @@ public class SourceLinesRepositoryImplTest {
   @Rule
   public BatchReportReaderRule reportReader = new BatchReportReaderRule();
 
-  SourceLinesRepositoryImpl underTest = new SourceLinesRepositoryImpl(reportReader);
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+
+  SourceLinesRepositoryImpl underTest = new SourceLinesRepositoryImpl(reportReader, dbTester.getDbClient());
 
   @Test
   public void read_lines_from_report() throws Exception {
@@ -89,6 +99,50 @@ public class SourceLinesRepositoryImplTest {
       .build());
   }
 
+  @Test
+  public void read_lines_from_previous_analysis_when_not_in_report() throws Exception {
+    dbTester.getDbClient().fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
+      .setProjectUuid("PROJECT_UUID")
+      .setFileUuid(FILE_UUID)
+      .setSourceData(DbFileSources.Data.newBuilder()
+        .addLines(DbFileSources.Line.newBuilder().setLine(1).setSource("line1"))
+        .addLines(DbFileSources.Line.newBuilder().setLine(2).setSource("line2"))
+        .build())
+      .setSrcHash(PREVIOUS_SOURCE_HASH)
+      .setCreatedAt(1L)
+      .setUpdatedAt(1L));
+    dbTester.commit();
+
+    assertThat(underTest.readLines(createCopiedComponent(2))).containsExactly("line1", "line2");
+  }
+
+  @Test
+  public void fail_with_ISE_when_source_of_previous_analysis_is_not_the_one_the_scanner_compared_file_to() throws Exception {
+    dbTester.getDbClient().fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
+      .setProjectUuid("PROJECT_UUID")
+      .setFileUuid(FILE_UUID)
+      .setSourceData(DbFileSources.Data.newBuilder()
+        .addLines(DbFileSources.Line.newBuilder().setLine(1).setSource("line1"))
+        .build())
+      .setSrcHash("hash of a more recent analysis")
+      .setCreatedAt(1L)
+      .setUpdatedAt(1L));
+    dbTester.commit();
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Source of file 'ReportComponent{ref=2, key='FILE_KEY', type=FILE}' changed since it was analyzed by the scanner. Analysis must be executed again.");
+
+    underTest.readLines(createCopiedComponent(1));
+  }
+
+  @Test
+  public void fail_with_ISE_when_file_has_no_source_in_previous_analysis() throws Exception {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("File 'ReportComponent{ref=2, key='FILE_KEY', type=FILE}' has no source code in the report nor in the previous analysis");
+
+    underTest.readLines(createCopiedComponent(2));
+  }
+
   @Test
   public void fail_with_NPE_to_read_lines_on_null_component() throws Exception {
     thrown.expect(NullPointerException.class);
@@ -105,14 +159,91 @@ public class SourceLinesRepositoryImplTest {
     underTest.readLines(builder(Component.Type.PROJECT, 123).setKey("NotFile").build());
   }
 
+  @Test
+  public void lines_are_read_from_report_only_once() throws Exception {
+    reportReader.putFileSourceLines(FILE_REF, "line1", "line2");
+    Component file = createComponent(2);
+
+    assertThat(underTest.readLines(file)).containsExactly("line1", "line2");
+    reportReader.putFileSourceLines(FILE_REF, "other1", "other2");
+    assertThat(underTest.readLines(file)).containsExactly("line1", "line2");
+    assertThat(underTest.readLineHashes(file)).isEqualTo(hashesOf("line1", "line2"));
+
+    assertThat(underTest.getMisses()).isEqualTo(1);
+    assertThat(underTest.getHits()).isEqualTo(2);
+  }
+
+  @Test
+  public void read_line_hashes_from_report() throws Exception {
+    reportReader.putFileSourceLines(FILE_REF, "line1", " line 2");
+
+    List<String> lineHashes = underTest.readLineHashes(createComponent(3));
+
+    assertThat(lineHashes).isEqualTo(hashesOf("line1", " line 2", ""));
+    assertThat(underTest.readLineHashes(createComponent(3))).isSameAs(lineHashes);
+  }
+
+  @Test
+  public void least_recently_used_files_are_evicted_when_cache_is_full() throws Exception {
+    underTest = new SourceLinesRepositoryImpl(reportReader, dbTester.getDbClient(), 10);
+    reportReader.putFileSourceLines(1, "file1");
+    reportReader.putFileSourceLines(2, "file_2");
+    reportReader.putFileSourceLines(3, "a file which is too big to be cached");
+
+    consume(underTest.readLines(createComponent(1, 1)));
+    // file 1 is evicted
+    consume(underTest.readLines(createComponent(2, 1)));
+    consume(underTest.readLines(createComponent(2, 1)));
+    // file 2 is evicted
+    consume(underTest.readLines(createComponent(1, 1)));
+    // file 3 is never cached, file 1 stays in cache
+    consume(underTest.readLines(createComponent(3, 1)));
+    consume(underTest.readLines(createComponent(3, 1)));
+    consume(underTest.readLines(createComponent(1, 1)));
+
+    assertThat(underTest.getHits()).isEqualTo(2);
+    assertThat(underTest.getMisses()).isEqualTo(5);
+  }
+
+  @Test
+  public void cache_is_cleared_when_stopped() throws Exception {
+    reportReader.putFileSourceLines(FILE_REF, "line1", "line2");
+    consume(underTest.readLines(createComponent(2)));
+
+    underTest.stop();
+    consume(underTest.readLines(createComponent(2)));
+
+    assertThat(underTest.getMisses()).isEqualTo(2);
+  }
+
+  private static List<String> hashesOf(String... lines) {
+    SourceLinesHashesComputer linesHashesComputer = new SourceLinesHashesComputer();
+    for (String line : lines) {
+      linesHashesComputer.addLine(line);
+    }
+    return linesHashesComputer.getLineHashes();
+  }
+
   private static Component createComponent(int lineCount) {
-    return builder(Component.Type.FILE, FILE_REF)
+    return createComponent(FILE_REF, lineCount);
+  }
+
+  private static Component createComponent(int ref, int lineCount) {
+    return builder(Component.Type.FILE, ref)
       .setKey(FILE_KEY)
       .setUuid(FILE_UUID)
       .setFileAttributes(new FileAttributes(false, null, lineCount))
       .build();
   }
 
+  private static Component createCopiedComponent(int lineCount) {
+    return builder(Component.Type.FILE, FILE_REF)
+      .setKey(FILE_KEY)
+      .setUuid(FILE_UUID)
+      .setFileAttributes(new FileAttributes(false, null, lineCount, PREVIOUS_SOURCE_HASH))
+      .build();
+  }
+
   private static void consume(CloseableIterator<String> stringCloseableIterator) {
     try {
       while (stringCloseableIterator.hasNext()) {
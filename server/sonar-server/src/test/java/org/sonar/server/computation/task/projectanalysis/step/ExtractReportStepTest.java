@@ -70,26 +70,42 @@ public class ExtractReportStepTest {
   }
 
   @Test
-  public void unzip_report() throws Exception {
-    File reportFile = generateReport();
-    try (InputStream input = FileUtils.openInputStream(reportFile)) {
-      dbTester.getDbClient().ceTaskInputDao().insert(dbTester.getSession(), TASK_UUID, input);
-    }
-    dbTester.getSession().commit();
-    dbTester.getSession().close();
+  public void report_is_read_from_its_archive() throws Exception {
+    File reportFile = generateReport("metadata.pb");
+    insertReport(reportFile);
+
+    underTest.execute();
+
+    // report is not uncompressed
+    File report = reportDirectoryHolder.getDirectory();
+    assertThat(report).isFile().exists();
+    assertThat(report).hasBinaryContent(FileUtils.readFileToByteArray(reportFile));
+  }
+
+  @Test
+  public void unzip_report_which_can_not_be_read_from_its_archive() throws Exception {
+    insertReport(generateReport("other.pb"));
 
     underTest.execute();
 
-    // directory contains the uncompressed report (which contains only metadata.pb in this test)
+    // directory contains the uncompressed report (which contains only other.pb in this test)
     File unzippedDir = reportDirectoryHolder.getDirectory();
     assertThat(unzippedDir).isDirectory().exists();
     assertThat(unzippedDir.listFiles()).hasSize(1);
-    assertThat(new File(unzippedDir, "metadata.pb")).hasContent("{metadata}");
+    assertThat(new File(unzippedDir, "other.pb")).hasContent("{metadata}");
+  }
+
+  private void insertReport(File reportFile) throws IOException {
+    try (InputStream input = FileUtils.openInputStream(reportFile)) {
+      dbTester.getDbClient().ceTaskInputDao().insert(dbTester.getSession(), TASK_UUID, input);
+    }
+    dbTester.getSession().commit();
+    dbTester.getSession().close();
   }
 
-  private File generateReport() throws IOException {
+  private File generateReport(String fileName) throws IOException {
     File zipDir = tempFolder.newDir();
-    File metadataFile = new File(zipDir, "metadata.pb");
+    File metadataFile = new File(zipDir, fileName);
     FileUtils.write(metadataFile, "{metadata}");
     File zip = tempFolder.newFile();
     ZipUtils.zipDir(zipDir, zip);
@@ -21,16 +21,25 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import org.junit.Rule;
 import org.junit.Test;
+import org.sonar.server.component.index.ComponentIndexer;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
+import org.sonar.server.computation.task.projectanalysis.component.ChangedComponentsHolderImpl;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.ViewsComponent;
+import org.sonar.server.computation.task.projectanalysis.issue.ChangedIssuesHolderImpl;
 import org.sonar.server.computation.task.step.ComputationStep;
 import org.sonar.server.es.ProjectIndexer;
+import org.sonar.server.issue.index.IssueIndexer;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.VIEW;
 
@@ -44,8 +53,13 @@ public class IndexAnalysisStepTest extends BaseStepTest {
   @Rule
   public BatchReportReaderRule reportReader = new BatchReportReaderRule();
 
-  private ProjectIndexer componentIndexer = mock(ProjectIndexer.class);
-  private IndexAnalysisStep underTest = new IndexAnalysisStep(treeRootHolder, componentIndexer);
+  private ChangedComponentsHolderImpl changedComponentsHolder = new ChangedComponentsHolderImpl();
+  private ChangedIssuesHolderImpl changedIssuesHolder = new ChangedIssuesHolderImpl();
+  private ProjectIndexer projectIndexer = mock(ProjectIndexer.class);
+  private IssueIndexer issueIndexer = mock(IssueIndexer.class);
+  private ComponentIndexer componentIndexer = mock(ComponentIndexer.class);
+  private IndexAnalysisStep underTest = new IndexAnalysisStep(treeRootHolder, changedComponentsHolder, changedIssuesHolder,
+    projectIndexer, issueIndexer, componentIndexer);
 
   @Test
   public void call_indexByProjectUuid_of_indexer_for_project() {
@@ -54,6 +68,8 @@ public class IndexAnalysisStepTest extends BaseStepTest {
 
     underTest.execute();
 
+    verify(projectIndexer).indexProject(PROJECT_UUID, ProjectIndexer.Cause.NEW_ANALYSIS);
+    verify(issueIndexer).indexProject(PROJECT_UUID, ProjectIndexer.Cause.NEW_ANALYSIS);
     verify(componentIndexer).indexProject(PROJECT_UUID, ProjectIndexer.Cause.NEW_ANALYSIS);
   }
 
@@ -64,6 +80,35 @@ public class IndexAnalysisStepTest extends BaseStepTest {
 
     underTest.execute();
 
+    verify(projectIndexer).indexProject(PROJECT_UUID, ProjectIndexer.Cause.NEW_ANALYSIS);
+    verify(issueIndexer).indexProject(PROJECT_UUID, ProjectIndexer.Cause.NEW_ANALYSIS);
+    verify(componentIndexer).indexProject(PROJECT_UUID, ProjectIndexer.Cause.NEW_ANALYSIS);
+  }
+
+  @Test
+  public void index_only_changed_issues_when_no_component_changed() {
+    treeRootHolder.setRoot(ReportComponent.builder(PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).build());
+    changedComponentsHolder.setUuids(emptyList());
+    changedIssuesHolder.setKeys(asList("ISSUE1", "ISSUE2"));
+
+    underTest.execute();
+
+    verify(projectIndexer).indexProject(PROJECT_UUID, ProjectIndexer.Cause.NEW_ANALYSIS);
+    verify(issueIndexer).index(asList("ISSUE1", "ISSUE2"));
+    verify(issueIndexer, never()).indexProject(PROJECT_UUID, ProjectIndexer.Cause.NEW_ANALYSIS);
+    verifyZeroInteractions(componentIndexer);
+  }
+
+  @Test
+  public void index_whole_project_when_components_changed() {
+    treeRootHolder.setRoot(ReportComponent.builder(PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).build());
+    changedComponentsHolder.setUuids(singletonList("FILE_UUID"));
+    changedIssuesHolder.setKeys(asList("ISSUE1", "ISSUE2"));
+
+    underTest.execute();
+
+    verify(projectIndexer).indexProject(PROJECT_UUID, ProjectIndexer.Cause.NEW_ANALYSIS);
+    verify(issueIndexer).indexProject(PROJECT_UUID, ProjectIndexer.Cause.NEW_ANALYSIS);
     verify(componentIndexer).indexProject(PROJECT_UUID, ProjectIndexer.Cause.NEW_ANALYSIS);
   }
 
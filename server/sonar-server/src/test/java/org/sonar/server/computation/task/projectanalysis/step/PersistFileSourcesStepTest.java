@@ -19,7 +19,9 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import com.google.common.base.Throwables;
 import java.util.Arrays;
+import javax.annotation.Nullable;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -46,11 +48,14 @@ import org.sonar.server.computation.task.projectanalysis.duplication.InnerDuplic
 import org.sonar.server.computation.task.projectanalysis.duplication.TextBlock;
 import org.sonar.server.computation.task.projectanalysis.scm.Changeset;
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepositoryRule;
+import org.sonar.server.computation.task.projectanalysis.source.ComputeFileSourceInputsHash;
+import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepositoryRule;
 import org.sonar.server.computation.task.step.ComputationStep;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -82,13 +87,15 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
 
   private DbClient dbClient = dbTester.getDbClient();
   private DbSession session = dbTester.getSession();
+  private SourceHashRepositoryImpl sourceHashRepository = new SourceHashRepositoryImpl(fileSourceRepository);
 
   private PersistFileSourcesStep underTest;
 
   @Before
   public void setup() {
     when(system2.now()).thenReturn(NOW);
-    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository, duplicationRepository);
+    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository, duplicationRepository,
+      sourceHashRepository);
   }
 
   @Override
@@ -130,6 +137,7 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, "FILE");
     assertThat(fileSourceDto.getLineHashes()).isEqualTo("137f72c3708c6bd0de00a0e5a69c699b\ne6251bcf1a7dc3ba5e7933e325bbe605");
     assertThat(fileSourceDto.getSrcHash()).isEqualTo("ee5a58024a155466b43bc559d953e018");
+    assertThat(fileSourceDto.getInputsHash()).isEqualTo(computeInputsHash());
   }
 
   @Test
@@ -282,6 +290,7 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     String srcHash = "137f72c3708c6bd0de00a0e5a69c699b";
     String lineHashes = "137f72c3708c6bd0de00a0e5a69c699b";
     String dataHash = "29f25900140c94db38035128cb6de6a2";
+    initBasicReport(1);
 
     dbClient.fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
       .setProjectUuid(PROJECT_UUID)
@@ -289,6 +298,7 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
       .setSrcHash(srcHash)
       .setLineHashes(lineHashes)
       .setDataHash(dataHash)
+      .setInputsHash(computeInputsHash())
       .setSourceData(DbFileSources.Data.newBuilder()
         .addLines(DbFileSources.Line.newBuilder()
           .setLine(1)
@@ -299,9 +309,6 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
       .setUpdatedAt(past));
     dbTester.getSession().commit();
 
-    // Sources from the report
-    initBasicReport(1);
-
     underTest.execute();
 
     assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(1);
@@ -313,6 +320,61 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(past);
   }
 
+  @Test
+  public void do_not_compute_sources_when_inputs_hash_has_not_changed() {
+    // Existing sources, with a data hash which does not match the data computed from the report
+    long past = 150000L;
+    initBasicReport(1);
+    dbClient.fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
+      .setProjectUuid(PROJECT_UUID)
+      .setFileUuid(FILE_UUID)
+      .setDataType(Type.SOURCE)
+      .setSrcHash("137f72c3708c6bd0de00a0e5a69c699b")
+      .setLineHashes("137f72c3708c6bd0de00a0e5a69c699b")
+      .setDataHash("stale")
+      .setInputsHash(computeInputsHash())
+      .setSourceData(DbFileSources.Data.newBuilder().build())
+      .setCreatedAt(past)
+      .setUpdatedAt(past));
+    dbTester.getSession().commit();
+
+    underTest.execute();
+
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE_UUID);
+    assertThat(fileSourceDto.getDataHash()).isEqualTo("stale");
+    assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(past);
+  }
+
+  @Test
+  public void update_sources_when_inputs_hash_is_missing() {
+    // Existing sources, persisted before inputs hash was introduced
+    long past = 150000L;
+    dbClient.fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
+      .setProjectUuid(PROJECT_UUID)
+      .setFileUuid(FILE_UUID)
+      .setDataType(Type.SOURCE)
+      .setSrcHash("137f72c3708c6bd0de00a0e5a69c699b")
+      .setLineHashes("137f72c3708c6bd0de00a0e5a69c699b")
+      .setDataHash("29f25900140c94db38035128cb6de6a2")
+      .setSourceData(DbFileSources.Data.newBuilder()
+        .addLines(DbFileSources.Line.newBuilder()
+          .setLine(1)
+          .setSource("line1")
+          .build())
+        .build())
+      .setCreatedAt(past)
+      .setUpdatedAt(past));
+    dbTester.getSession().commit();
+
+    initBasicReport(1);
+
+    underTest.execute();
+
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE_UUID);
+    assertThat(fileSourceDto.getInputsHash()).isEqualTo(computeInputsHash());
+    assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(NOW);
+  }
+
   @Test
   public void update_sources_when_source_updated() {
     // Existing sources
@@ -456,11 +518,74 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(fileSourceDto.getRevision()).isNull();
   }
 
+  private String computeInputsHash() {
+    return new ComputeFileSourceInputsHash(reportReader, sourceHashRepository, scmInfoRepository, duplicationRepository)
+      .compute(treeRootHolder.getComponentByRef(FILE_REF));
+  }
+
+  @Test
+  public void copy_highlighting_and_symbols_from_previous_analysis_when_source_is_not_in_report() {
+    dbClient.fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
+      .setProjectUuid(PROJECT_UUID)
+      .setFileUuid(FILE_UUID)
+      .setSourceData(DbFileSources.Data.newBuilder()
+        .addLines(DbFileSources.Line.newBuilder().setLine(1).setSource("line1").setHighlighting("0,2,k").setSymbols("0,2,1").setLineHits(1))
+        .build())
+      .setSrcHash("SRC_HASH")
+      .setDataHash("DATA_HASH")
+      .setCreatedAt(NOW)
+      .setUpdatedAt(NOW));
+    dbTester.commit();
+    initBasicReport(1, "SRC_HASH");
+    reportReader.putSyntaxHighlighting(FILE_REF, newArrayList(ScannerReport.SyntaxHighlightingRule.newBuilder()
+      .setRange(ScannerReport.TextRange.newBuilder().setStartLine(1).setEndLine(1).setStartOffset(2).setEndOffset(4).build())
+      .setType(HighlightingType.ANNOTATION)
+      .build()));
+
+    underTest.execute();
+
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE_UUID);
+    DbFileSources.Data data = fileSourceDto.getSourceData();
+    assertThat(data.getLinesList()).hasSize(1);
+    assertThat(data.getLines(0).getHighlighting()).isEqualTo("0,2,k");
+    assertThat(data.getLines(0).getSymbols()).isEqualTo("0,2,1");
+    // coverage is always read from the report
+    assertThat(data.getLines(0).hasLineHits()).isFalse();
+  }
+
+  @Test
+  public void fail_when_source_of_previous_analysis_is_not_the_one_the_scanner_compared_file_to() {
+    dbClient.fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
+      .setProjectUuid(PROJECT_UUID)
+      .setFileUuid(FILE_UUID)
+      .setSourceData(DbFileSources.Data.newBuilder()
+        .addLines(DbFileSources.Line.newBuilder().setLine(1).setSource("line1"))
+        .build())
+      .setSrcHash("SRC_HASH_OF_A_MORE_RECENT_ANALYSIS")
+      .setDataHash("DATA_HASH")
+      .setCreatedAt(NOW)
+      .setUpdatedAt(NOW));
+    dbTester.commit();
+    initBasicReport(1, "SRC_HASH");
+
+    try {
+      underTest.execute();
+      fail("analysis should have failed");
+    } catch (RuntimeException e) {
+      assertThat(Throwables.getRootCause(e)).isInstanceOf(IllegalStateException.class).hasMessage("Source of file 'ReportComponent{ref=3, key='MODULE_KEY:src/Foo.java', type=FILE}' " +
+        "changed since it was analyzed by the scanner. Analysis must be executed again.");
+    }
+  }
+
   private void initBasicReport(int numberOfLines) {
+    initBasicReport(numberOfLines, null);
+  }
+
+  private void initBasicReport(int numberOfLines, @Nullable String previousSourceHash) {
     treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(
       ReportComponent.builder(Component.Type.MODULE, 2).setUuid("MODULE").setKey("MODULE_KEY").addChildren(
         ReportComponent.builder(Component.Type.FILE, FILE_REF).setUuid(FILE_UUID).setKey("MODULE_KEY:src/Foo.java")
-          .setFileAttributes(new FileAttributes(false, null, numberOfLines)).build())
+          .setFileAttributes(new FileAttributes(false, null, numberOfLines, previousSourceHash)).build())
         .build())
       .build());
 
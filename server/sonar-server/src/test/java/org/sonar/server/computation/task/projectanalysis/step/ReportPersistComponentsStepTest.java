@@ -32,6 +32,7 @@ import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolderRule;
+import org.sonar.server.computation.task.projectanalysis.component.ChangedComponentsHolderImpl;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
 import org.sonar.server.computation.task.projectanalysis.component.MutableDbIdsRepositoryRule;
@@ -72,6 +73,7 @@ public class ReportPersistComponentsStepTest extends BaseStepTest {
   private DbClient dbClient = dbTester.getDbClient();
   private Date now;
   private MutableDisabledComponentsHolder disabledComponentsHolder = mock(MutableDisabledComponentsHolder.class, RETURNS_DEEP_STUBS);
+  private ChangedComponentsHolderImpl changedComponentsHolder = new ChangedComponentsHolderImpl();
   private PersistComponentsStep underTest;
 
   @Before
@@ -80,7 +82,7 @@ public class ReportPersistComponentsStepTest extends BaseStepTest {
     when(system2.now()).thenReturn(now.getTime());
 
     dbTester.organizations().insertForUuid(ORGANIZATION_UUID);
-    underTest = new PersistComponentsStep(dbClient, treeRootHolder, dbIdsRepository, system2, disabledComponentsHolder, analysisMetadataHolder);
+    underTest = new PersistComponentsStep(dbClient, treeRootHolder, dbIdsRepository, system2, disabledComponentsHolder, changedComponentsHolder, analysisMetadataHolder);
   }
 
   @Override
@@ -180,6 +182,7 @@ public class ReportPersistComponentsStepTest extends BaseStepTest {
     assertThat(dbIdsRepository.getComponentId(module)).isEqualTo(moduleDto.getId());
     assertThat(dbIdsRepository.getComponentId(directory)).isEqualTo(directoryDto.getId());
     assertThat(dbIdsRepository.getComponentId(file)).isEqualTo(fileDto.getId());
+    assertThat(changedComponentsHolder.getUuids()).containsOnly("ABCD", "BCDE", "CDEF", "DEFG");
   }
 
   @Test
@@ -460,6 +463,31 @@ public class ReportPersistComponentsStepTest extends BaseStepTest {
     assertThat(fileReloaded.path()).isEqualTo(file.path());
   }
 
+  @Test
+  public void do_not_record_components_unchanged_since_previous_analysis() {
+    Component project = builder(PROJECT, 1).setUuid("ABCD").setKey(PROJECT_KEY).setName("Project")
+      .addChildren(
+        builder(Component.Type.MODULE, 2).setUuid("BCDE").setKey(MODULE_KEY).setName("Module")
+          .addChildren(
+            builder(DIRECTORY, 3).setUuid("CDEF").setKey("MODULE_KEY:src/main/java/dir").setPath("src/main/java/dir")
+              .addChildren(
+                builder(FILE, 4).setUuid("DEFG").setKey("MODULE_KEY:src/main/java/dir/Foo.java").setPath("src/main/java/dir/Foo.java")
+                  .build())
+              .build())
+          .build())
+      .build();
+    treeRootHolder.setRoot(project);
+    underTest.execute();
+    dbClient.componentDao().applyBChangesForRootComponentUuid(dbTester.getSession(), "ABCD");
+    dbTester.getSession().commit();
+
+    ChangedComponentsHolderImpl secondAnalysisHolder = new ChangedComponentsHolderImpl();
+    new PersistComponentsStep(dbClient, treeRootHolder, MutableDbIdsRepositoryRule.create(project), system2, disabledComponentsHolder, secondAnalysisHolder,
+      analysisMetadataHolder).execute();
+
+    assertThat(secondAnalysisHolder.getUuids()).isEmpty();
+  }
+
   @Test
   public void update_module_name_and_description() {
     ComponentDto project = ComponentTesting.newProjectDto(dbTester.getDefaultOrganization(), "ABCD").setKey(PROJECT_KEY).setName("Project").setDescription("Project description");
@@ -486,6 +514,7 @@ public class ReportPersistComponentsStepTest extends BaseStepTest {
     // functional transaction not finished, "A-fields" are not updated yet
     assertNameAndDescription(PROJECT_KEY, "Project", "Project description");
     assertNameAndDescription(MODULE_KEY, "Module", null);
+    assertThat(changedComponentsHolder.getUuids()).containsOnly("ABCD", "BCDE");
 
     // commit functional transaction -> copies B-fields to A-fields
     dbClient.componentDao().applyBChangesForRootComponentUuid(dbTester.getSession(), "ABCD");
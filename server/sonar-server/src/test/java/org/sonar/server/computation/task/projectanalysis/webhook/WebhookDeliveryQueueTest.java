@@ -0,0 +1,212 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.webhook;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class WebhookDeliveryQueueTest {
+
+  private static final long NOW = 1_500_000_000_000L;
+  private static final long INITIAL_BACKOFF_MS = 100L;
+  private static final Webhook WEBHOOK = new Webhook("P1_UUID", "TASK_UUID", "First", "http://url1");
+  private static final WebhookPayload PAYLOAD = new WebhookPayload("P1", "{\"payload\":{}}");
+
+  @Rule
+  public LogTester logTester = new LogTester().setLevel(LoggerLevel.DEBUG);
+
+  private final Queue<Scheduled> scheduled = new LinkedList<>();
+  private final WebhookDeliveryExecutorService executorService = mock(WebhookDeliveryExecutorService.class);
+  private final TestWebhookCaller caller = new TestWebhookCaller();
+  private final WebhookDeliveryStorage deliveryStorage = mock(WebhookDeliveryStorage.class);
+  private WebhookDeliveryQueue underTest = new WebhookDeliveryQueue(executorService, caller, deliveryStorage, 3, INITIAL_BACKOFF_MS, 2);
+
+  @Before
+  public void setUp() {
+    when(executorService.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenAnswer(invocation -> {
+      scheduled.add(new Scheduled((Runnable) invocation.getArguments()[0], (long) invocation.getArguments()[1]));
+      return null;
+    });
+  }
+
+  @Test
+  public void enqueue_does_not_send_webhook() {
+    underTest.enqueue(WEBHOOK, PAYLOAD);
+
+    assertThat(caller.countSent()).isEqualTo(0);
+    assertThat(scheduled).extracting(s -> s.delayMs).containsExactly(0L);
+    assertThat(underTest.getPendingCount()).isEqualTo(1);
+    verifyZeroInteractions(deliveryStorage);
+  }
+
+  @Test
+  public void send_and_persist_delivery() {
+    caller.enqueueSuccess(NOW, 200, 1_234);
+
+    underTest.enqueue(WEBHOOK, PAYLOAD);
+    runScheduled(0L);
+
+    assertThat(caller.countSent()).isEqualTo(1);
+    assertThat(scheduled).isEmpty();
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Sent webhook 'First' | url=http://url1 | attempt=1 | time=1234ms | status=200");
+    assertThat(persistedDelivery().getHttpStatus()).hasValue(200);
+    assertThat(underTest.getPendingCount()).isEqualTo(0);
+    assertThat(underTest.getSuccessCount()).isEqualTo(1);
+    assertThat(underTest.getFailureCount()).isEqualTo(0);
+    assertThat(underTest.getRetryCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void retry_with_exponential_backoff_then_persist_last_failure() {
+    caller.enqueueFailure(NOW, new IOException("Fail to connect"));
+    caller.enqueueSuccess(NOW, 503, 10);
+    caller.enqueueFailure(NOW, new IOException("Timeout"));
+
+    underTest.enqueue(WEBHOOK, PAYLOAD);
+    runScheduled(0L);
+    runScheduled(INITIAL_BACKOFF_MS);
+    runScheduled(2 * INITIAL_BACKOFF_MS);
+
+    assertThat(caller.countSent()).isEqualTo(3);
+    assertThat(scheduled).isEmpty();
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains(
+      "Failed to send webhook 'First' | url=http://url1 | attempt=1 | message=Fail to connect",
+      "Sent webhook 'First' | url=http://url1 | attempt=2 | time=10ms | status=503",
+      "Failed to send webhook 'First' | url=http://url1 | attempt=3 | message=Timeout");
+    assertThat(persistedDelivery().getErrorMessage()).hasValue("Timeout");
+    assertThat(underTest.getPendingCount()).isEqualTo(0);
+    assertThat(underTest.getSuccessCount()).isEqualTo(0);
+    assertThat(underTest.getFailureCount()).isEqualTo(1);
+    assertThat(underTest.getRetryCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void do_not_retry_client_errors() {
+    caller.enqueueSuccess(NOW, 404, 10);
+
+    underTest.enqueue(WEBHOOK, PAYLOAD);
+    runScheduled(0L);
+
+    assertThat(caller.countSent()).isEqualTo(1);
+    assertThat(scheduled).isEmpty();
+    assertThat(persistedDelivery().getHttpStatus()).hasValue(404);
+    assertThat(underTest.getFailureCount()).isEqualTo(1);
+    assertThat(underTest.getRetryCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void count_delivery_as_failed_if_call_throws_an_exception() {
+    // caller fails with NullPointerException as no delivery is enqueued
+    underTest.enqueue(WEBHOOK, PAYLOAD);
+    runScheduled(0L);
+
+    assertThat(scheduled).isEmpty();
+    assertThat(logTester.logs(LoggerLevel.ERROR)).containsExactly("Fail to send webhook 'First'");
+    verifyZeroInteractions(deliveryStorage);
+    assertThat(underTest.getPendingCount()).isEqualTo(0);
+    assertThat(underTest.getFailureCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void count_delivery_as_failed_if_it_can_not_be_persisted() {
+    caller.enqueueSuccess(NOW, 200, 1_234);
+    doThrow(new IllegalStateException("DB is down")).when(deliveryStorage).persist(any(WebhookDelivery.class));
+
+    underTest.enqueue(WEBHOOK, PAYLOAD);
+    runScheduled(0L);
+
+    assertThat(logTester.logs(LoggerLevel.ERROR)).containsExactly("Fail to send webhook 'First'");
+    assertThat(underTest.getPendingCount()).isEqualTo(0);
+    assertThat(underTest.getSuccessCount()).isEqualTo(0);
+    assertThat(underTest.getFailureCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void postpone_delivery_when_too_many_concurrent_requests_on_host() {
+    underTest = new WebhookDeliveryQueue(executorService, caller, deliveryStorage, 3, INITIAL_BACKOFF_MS, 0);
+
+    underTest.enqueue(WEBHOOK, PAYLOAD);
+    runScheduled(0L);
+
+    assertThat(caller.countSent()).isEqualTo(0);
+    assertThat(scheduled).extracting(s -> s.delayMs).containsExactly(500L);
+    assertThat(underTest.getPendingCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void drop_delivery_if_executor_is_stopped() {
+    when(executorService.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenThrow(new RejectedExecutionException());
+
+    underTest.enqueue(WEBHOOK, PAYLOAD);
+
+    assertThat(underTest.getPendingCount()).isEqualTo(0);
+    assertThat(logTester.logs(LoggerLevel.WARN)).containsExactly("Webhook 'First' can not be sent, delivery queue is stopped");
+  }
+
+  @Test
+  public void log_pending_deliveries_on_stop() {
+    underTest.enqueue(WEBHOOK, PAYLOAD);
+
+    underTest.stop();
+
+    assertThat(logTester.logs(LoggerLevel.WARN)).containsExactly("1 webhook deliveries have not been sent");
+  }
+
+  private void runScheduled(long expectedDelayMs) {
+    Scheduled next = scheduled.poll();
+    assertThat(next).isNotNull();
+    assertThat(next.delayMs).isEqualTo(expectedDelayMs);
+    next.runnable.run();
+  }
+
+  private WebhookDelivery persistedDelivery() {
+    ArgumentCaptor<WebhookDelivery> deliveryCaptor = ArgumentCaptor.forClass(WebhookDelivery.class);
+    verify(deliveryStorage).persist(deliveryCaptor.capture());
+    return deliveryCaptor.getValue();
+  }
+
+  private static class Scheduled {
+    private final Runnable runnable;
+    private final long delayMs;
+
+    private Scheduled(Runnable runnable, long delayMs) {
+      this.runnable = runnable;
+      this.delayMs = delayMs;
+    }
+  }
+}
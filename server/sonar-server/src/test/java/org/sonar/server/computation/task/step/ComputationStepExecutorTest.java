@@ -19,19 +19,27 @@
  */
 package org.sonar.server.computation.task.step;
 
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockito.InOrder;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.server.computation.configuration.CeConfigurationRule;
 import org.sonar.server.computation.task.ChangeLogLevel;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
@@ -44,6 +52,8 @@ public class ComputationStepExecutorTest {
   public LogTester logTester = new LogTester();
   @Rule
   public ExpectedException expectedException = ExpectedException.none();
+  @Rule
+  public CeConfigurationRule ceConfiguration = new CeConfigurationRule().setStepConcurrency(4);
 
   private final ComputationStepExecutor.Listener listener = mock(ComputationStepExecutor.Listener.class);
   private final ComputationStep computationStep1 = mockComputationStep("step1");
@@ -152,6 +162,87 @@ public class ComputationStepExecutorTest {
     new ComputationStepExecutor(mockComputationSteps(computationStep1), listener).execute();
   }
 
+  @Test
+  public void execute_runs_non_conflicting_ConcurrentComputationSteps_concurrently() {
+    CountDownLatch latch = new CountDownLatch(2);
+    Runnable awaitOther = () -> {
+      latch.countDown();
+      try {
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    };
+    ConcurrentStep step1 = new ConcurrentStep("step1", ImmutableSet.of("a"), ImmutableSet.of("b"), awaitOther);
+    ConcurrentStep step2 = new ConcurrentStep("step2", ImmutableSet.of("a"), ImmutableSet.of("c"), awaitOther);
+
+    new ComputationStepExecutor(mockComputationSteps(step1, step2), ceConfiguration).execute();
+
+    assertThat(latch.getCount()).isZero();
+  }
+
+  @Test
+  public void execute_runs_conflicting_ConcurrentComputationSteps_in_declaration_order() {
+    List<String> executed = Collections.synchronizedList(new ArrayList<>());
+    ConcurrentStep step1 = new ConcurrentStep("step1", ImmutableSet.of(), ImmutableSet.of("a"), () -> executed.add("step1"));
+    ConcurrentStep step2 = new ConcurrentStep("step2", ImmutableSet.of("a"), ImmutableSet.of("b"), () -> executed.add("step2"));
+    ConcurrentStep step3 = new ConcurrentStep("step3", ImmutableSet.of("b"), ImmutableSet.of(), () -> executed.add("step3"));
+
+    new ComputationStepExecutor(mockComputationSteps(step1, step2, step3), ceConfiguration).execute();
+
+    assertThat(executed).containsExactly("step1", "step2", "step3");
+  }
+
+  @Test
+  public void execute_runs_ComputationStep_which_is_not_concurrent_after_all_previous_steps() {
+    List<String> executed = Collections.synchronizedList(new ArrayList<>());
+    ConcurrentStep step1 = new ConcurrentStep("step1", ImmutableSet.of(), ImmutableSet.of("a"), () -> executed.add("step1"));
+    ConcurrentStep step2 = new ConcurrentStep("step2", ImmutableSet.of(), ImmutableSet.of("b"), () -> executed.add("step2"));
+    ComputationStep barrier = mockComputationStep("barrier");
+    doAnswer(invocation -> executed.add("barrier")).when(barrier).execute();
+    ConcurrentStep step3 = new ConcurrentStep("step3", ImmutableSet.of(), ImmutableSet.of("c"), () -> executed.add("step3"));
+
+    new ComputationStepExecutor(mockComputationSteps(step1, step2, barrier, step3), ceConfiguration).execute();
+
+    assertThat(executed).containsOnly("step1", "step2", "barrier", "step3");
+    assertThat(executed.subList(2, 4)).containsExactly("barrier", "step3");
+  }
+
+  @Test
+  public void execute_let_exception_thrown_by_ConcurrentComputationStep_go_up_as_is_and_does_not_start_following_steps() {
+    RuntimeException toBeThrown = new RuntimeException("simulating failing concurrent step");
+    List<String> executed = Collections.synchronizedList(new ArrayList<>());
+    ConcurrentStep step1 = new ConcurrentStep("step1", ImmutableSet.of(), ImmutableSet.of("a"), () -> {
+      throw toBeThrown;
+    });
+    ConcurrentStep step2 = new ConcurrentStep("step2", ImmutableSet.of("a"), ImmutableSet.of(), () -> executed.add("step2"));
+
+    try {
+      new ComputationStepExecutor(mockComputationSteps(step1, step2), ceConfiguration, listener).execute();
+      fail("exception toBeThrown should have been raised");
+    } catch (RuntimeException e) {
+      assertThat(e).isSameAs(toBeThrown);
+      assertThat(executed).isEmpty();
+      verify(listener).finished(false);
+    }
+  }
+
+  @Test
+  public void execute_logs_end_timing_for_each_ConcurrentComputationStep_when_level_is_DEBUG() {
+    ConcurrentStep step1 = new ConcurrentStep("step1", ImmutableSet.of(), ImmutableSet.of("a"), () -> {
+    });
+    ConcurrentStep step2 = new ConcurrentStep("step2", ImmutableSet.of(), ImmutableSet.of("b"), () -> {
+    });
+
+    try (ChangeLogLevel executor = new ChangeLogLevel(ComputationStepExecutor.class, LoggerLevel.DEBUG)) {
+      new ComputationStepExecutor(mockComputationSteps(step1, step2), ceConfiguration).execute();
+    }
+
+    List<String> debugLogs = logTester.logs(LoggerLevel.DEBUG);
+    assertThat(debugLogs).hasSize(2);
+    assertThat(String.join("\n", debugLogs)).contains("step1 | time=").contains("step2 | time=");
+  }
+
   private static ComputationSteps mockComputationSteps(ComputationStep... computationSteps) {
     ComputationSteps steps = mock(ComputationSteps.class);
     when(steps.instances()).thenReturn(Arrays.asList(computationSteps));
@@ -163,4 +254,38 @@ public class ComputationStepExecutorTest {
     when(mock.getDescription()).thenReturn(desc);
     return mock;
   }
+
+  private static class ConcurrentStep implements ConcurrentComputationStep {
+    private final String description;
+    private final Set<String> readResources;
+    private final Set<String> writtenResources;
+    private final Runnable body;
+
+    private ConcurrentStep(String description, Set<String> readResources, Set<String> writtenResources, Runnable body) {
+      this.description = description;
+      this.readResources = readResources;
+      this.writtenResources = writtenResources;
+      this.body = body;
+    }
+
+    @Override
+    public Set<String> getReadResources() {
+      return readResources;
+    }
+
+    @Override
+    public Set<String> getWrittenResources() {
+      return writtenResources;
+    }
+
+    @Override
+    public void execute() {
+      body.run();
+    }
+
+    @Override
+    public String getDescription() {
+      return description;
+    }
+  }
 }
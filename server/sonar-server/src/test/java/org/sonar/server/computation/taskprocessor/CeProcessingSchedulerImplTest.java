@@ -50,6 +50,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -65,10 +66,11 @@ public class CeProcessingSchedulerImplTest {
 
   private CeWorkerCallable ceWorkerRunnable = mock(CeWorkerCallable.class);
   private StubCeProcessingSchedulerExecutorService processingExecutorService = new StubCeProcessingSchedulerExecutorService();
-  private SchedulerCall regularDelayedPoll = new SchedulerCall(ceWorkerRunnable, 2000L, TimeUnit.MILLISECONDS);
-  private SchedulerCall notDelayedPoll = new SchedulerCall(ceWorkerRunnable);
+  private SchedulerCall regularDelayedPoll = new SchedulerCall(2000L, TimeUnit.MILLISECONDS);
+  private SchedulerCall notDelayedPoll = new SchedulerCall();
+  private CeWorkersWakeUp workersWakeUp = new CeWorkersWakeUp();
 
-  private CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable);
+  private CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable, workersWakeUp);
 
   @Test
   public void polls_without_delay_when_CeWorkerCallable_returns_true() throws Exception {
@@ -99,8 +101,11 @@ public class CeProcessingSchedulerImplTest {
   }
 
   @Test
-  public void polls_with_regular_delay_when_CeWorkerCallable_returns_false() throws Exception {
+  public void polls_with_increasing_delay_when_CeWorkerCallable_returns_false() throws Exception {
     when(ceWorkerRunnable.call())
+      .thenReturn(false)
+      .thenReturn(false)
+      .thenReturn(false)
       .thenReturn(false)
       .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
 
@@ -108,10 +113,76 @@ public class CeProcessingSchedulerImplTest {
 
     assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
       regularDelayedPoll,
+      delayedPoll(4000L),
+      delayedPoll(8000L),
+      delayedPoll(10000L),
+      delayedPoll(10000L)
+      );
+  }
+
+  @Test
+  public void polls_with_regular_delay_when_CeWorkerCallable_returns_false_after_processing_a_task() throws Exception {
+    when(ceWorkerRunnable.call())
+      .thenReturn(true)
+      .thenReturn(false)
+      .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+
+    startSchedulingAndRun();
+
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
+      regularDelayedPoll,
+      notDelayedPoll,
       regularDelayedPoll
       );
   }
 
+  @Test
+  public void wakeUp_polls_without_delay_when_worker_is_waiting_for_next_polling() throws Exception {
+    when(ceWorkerRunnable.call())
+      .thenReturn(false)
+      .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+
+    underTest.startScheduling();
+    workersWakeUp.wakeUp();
+    processingExecutorService.runFutures();
+
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
+      regularDelayedPoll,
+      notDelayedPoll,
+      regularDelayedPoll
+      );
+    verify(ceWorkerRunnable, times(2)).call();
+  }
+
+  @Test
+  public void wakeUp_does_not_affect_worker_which_is_polling() throws Exception {
+    when(ceWorkerRunnable.call())
+      .thenAnswer(invocation -> {
+        workersWakeUp.wakeUp();
+        return false;
+      })
+      .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+
+    startSchedulingAndRun();
+
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
+      regularDelayedPoll,
+      delayedPoll(4000L)
+      );
+    verify(ceWorkerRunnable, times(2)).call();
+  }
+
+  @Test
+  public void wakeUp_does_nothing_once_stopped() throws Exception {
+    underTest.startScheduling();
+    underTest.stop();
+    workersWakeUp.wakeUp();
+    processingExecutorService.runFutures();
+
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(regularDelayedPoll);
+    verify(ceWorkerRunnable, never()).call();
+  }
+
   @Test
   public void startScheduling_schedules_CeWorkerCallable_at_fixed_rate_run_head_of_queue() throws Exception {
     when(ceWorkerRunnable.call())
@@ -137,8 +208,8 @@ public class CeProcessingSchedulerImplTest {
       regularDelayedPoll,
       notDelayedPoll,
       regularDelayedPoll,
-      regularDelayedPoll,
-      regularDelayedPoll
+      delayedPoll(4000L),
+      delayedPoll(8000L)
       );
   }
 
@@ -175,7 +246,7 @@ public class CeProcessingSchedulerImplTest {
     assertThat(cancelledTaskFutureCount).isEqualTo(1);
     assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
       regularDelayedPoll,
-      regularDelayedPoll,
+      delayedPoll(4000L),
       notDelayedPoll,
       regularDelayedPoll
       );
@@ -189,16 +260,20 @@ public class CeProcessingSchedulerImplTest {
 
     ListenableScheduledFuture listenableScheduledFuture = mock(ListenableScheduledFuture.class);
     CeProcessingSchedulerExecutorService processingExecutorService = mock(CeProcessingSchedulerExecutorService.class);
-    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable);
-    when(processingExecutorService.schedule(ceWorkerRunnable, ceConfiguration.getQueuePollingDelay(), MILLISECONDS))
+    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable, workersWakeUp);
+    when(processingExecutorService.schedule(any(Callable.class), eq(ceConfiguration.getQueuePollingDelay()), eq(MILLISECONDS)))
         .thenReturn(listenableScheduledFuture);
 
     underTest.startScheduling();
 
-    verify(processingExecutorService, times(workerCount)).schedule(ceWorkerRunnable, ceConfiguration.getQueuePollingDelay(), MILLISECONDS);
+    verify(processingExecutorService, times(workerCount)).schedule(any(Callable.class), eq(ceConfiguration.getQueuePollingDelay()), eq(MILLISECONDS));
     verify(listenableScheduledFuture, times(workerCount)).addListener(any(Runnable.class), eq(processingExecutorService));
   }
 
+  private SchedulerCall delayedPoll(long delay) {
+    return new SchedulerCall(delay, TimeUnit.MILLISECONDS);
+  }
+
   private void startSchedulingAndRun() throws ExecutionException, InterruptedException {
     underTest.startScheduling();
 
@@ -234,13 +309,13 @@ public class CeProcessingSchedulerImplTest {
 
     @Override
     public <V> ListenableScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
-      this.schedulerCalls.add(new SchedulerCall(callable, delay, unit));
+      this.schedulerCalls.add(new SchedulerCall(delay, unit));
       return delegate.schedule(callable, delay, unit);
     }
 
     @Override
     public <T> ListenableFuture<T> submit(Callable<T> task) {
-      this.schedulerCalls.add(new SchedulerCall(task));
+      this.schedulerCalls.add(new SchedulerCall());
       return delegate.submit(task);
     }
 
@@ -495,19 +570,19 @@ public class CeProcessingSchedulerImplTest {
    * Used to log parameters of calls to {@link CeProcessingSchedulerExecutorService#schedule(Callable, long, TimeUnit)}
    */
   @Immutable
+  /**
+   * Scheduled callables are wrappers of the {@link CeWorkerCallable}, which is called as many times as they are run
+   */
   private static final class SchedulerCall {
-    private final Callable<?> callable;
     private final long delay;
     private final TimeUnit unit;
 
-    private SchedulerCall(Callable<?> callable, long delay, TimeUnit unit) {
-      this.callable = callable;
+    private SchedulerCall(long delay, TimeUnit unit) {
       this.delay = delay;
       this.unit = unit;
     }
 
-    private SchedulerCall(Callable<?> callable) {
-      this.callable = callable;
+    private SchedulerCall() {
       this.delay = -63366;
       this.unit = TimeUnit.NANOSECONDS;
     }
@@ -521,19 +596,18 @@ public class CeProcessingSchedulerImplTest {
         return false;
       }
       SchedulerCall that = (SchedulerCall) o;
-      return delay == that.delay && callable == that.callable && unit.equals(that.unit);
+      return delay == that.delay && unit.equals(that.unit);
     }
 
     @Override
     public int hashCode() {
-      return Objects.hash(callable, delay, unit);
+      return Objects.hash(delay, unit);
     }
 
     @Override
     public String toString() {
       return "SchedulerCall{" +
-        "callable=" + callable +
-        ", delay=" + delay +
+        "delay=" + delay +
         ", unit=" + unit +
         '}';
     }
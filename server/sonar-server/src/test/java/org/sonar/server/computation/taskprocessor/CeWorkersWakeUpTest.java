@@ -0,0 +1,61 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.taskprocessor;
+
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class CeWorkersWakeUpTest {
+
+  private CeWorkersWakeUp underTest = new CeWorkersWakeUp();
+
+  @Test
+  public void wakeUp_runs_all_registered_callbacks() {
+    Runnable callback1 = mock(Runnable.class);
+    Runnable callback2 = mock(Runnable.class);
+    underTest.register(callback1);
+    underTest.register(callback2);
+
+    underTest.wakeUp();
+
+    verify(callback1).run();
+    verify(callback2).run();
+  }
+
+  @Test
+  public void onSubmit_wakes_up_workers() {
+    Runnable callback = mock(Runnable.class);
+    underTest.register(callback);
+
+    underTest.onSubmit(Collections.emptyList());
+    underTest.onSubmit(Collections.emptyList());
+
+    verify(callback, times(2)).run();
+  }
+
+  @Test
+  public void wakeUp_does_nothing_if_no_callback() {
+    underTest.wakeUp();
+  }
+}
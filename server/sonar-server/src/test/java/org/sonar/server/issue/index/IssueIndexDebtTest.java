@@ -41,6 +41,7 @@ import org.sonar.server.issue.IssueDocTesting;
 import org.sonar.server.issue.IssueQuery;
 import org.sonar.server.issue.IssueQuery.Builder;
 import org.sonar.server.permission.index.AuthorizationTypeSupport;
+import org.sonar.server.permission.index.AuthorizedProjectsCache;
 import org.sonar.server.permission.index.PermissionIndexerDao;
 import org.sonar.server.permission.index.PermissionIndexerTester;
 import org.sonar.server.tester.UserSessionRule;
@@ -67,14 +68,15 @@ public class IssueIndexDebtTest {
   private System2 system2 = System2.INSTANCE;
   private IssueIndex index;
   private IssueIndexer issueIndexer = new IssueIndexer(tester.client(), new IssueIteratorFactory(null));
-  private PermissionIndexerTester authorizationIndexerTester = new PermissionIndexerTester(tester, issueIndexer);
+  private AuthorizedProjectsCache authorizedProjectsCache = new AuthorizedProjectsCache(tester.client());
+  private PermissionIndexerTester authorizationIndexerTester = new PermissionIndexerTester(tester, authorizedProjectsCache, issueIndexer);
 
   @Before
   public void setUp() {
     System2 system = mock(System2.class);
     when(system.getDefaultTimeZone()).thenReturn(TimeZone.getTimeZone("+01:00"));
     when(system.now()).thenReturn(System.currentTimeMillis());
-    index = new IssueIndex(tester.client(), system, userSessionRule, new AuthorizationTypeSupport(userSessionRule));
+    index = new IssueIndex(tester.client(), system, userSessionRule, new AuthorizationTypeSupport(userSessionRule, authorizedProjectsCache));
   }
 
   @Test
@@ -22,6 +22,7 @@ package org.sonar.server.issue.index;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -51,6 +52,7 @@ import org.sonar.server.es.SearchResult;
 import org.sonar.server.issue.IssueDocTesting;
 import org.sonar.server.issue.IssueQuery;
 import org.sonar.server.permission.index.AuthorizationTypeSupport;
+import org.sonar.server.permission.index.AuthorizedProjectsCache;
 import org.sonar.server.permission.index.PermissionIndexerDao;
 import org.sonar.server.permission.index.PermissionIndexerTester;
 import org.sonar.server.tester.UserSessionRule;
@@ -87,7 +89,8 @@ public class IssueIndexTest {
   private IssueIndex underTest;
   private IssueIndexer issueIndexer = new IssueIndexer(tester.client(), new IssueIteratorFactory(null));
   private ViewIndexer viewIndexer = new ViewIndexer(null, tester.client());
-  private PermissionIndexerTester authorizationIndexerTester = new PermissionIndexerTester(tester, issueIndexer);
+  private AuthorizedProjectsCache authorizedProjectsCache = new AuthorizedProjectsCache(tester.client());
+  private PermissionIndexerTester authorizationIndexerTester = new PermissionIndexerTester(tester, authorizedProjectsCache, issueIndexer);
 
   @Before
   public void setUp() {
@@ -95,7 +98,7 @@ public class IssueIndexTest {
     when(system.getDefaultTimeZone()).thenReturn(TimeZone.getTimeZone("GMT-1:00"));
     when(system.now()).thenReturn(System.currentTimeMillis());
 
-    underTest = new IssueIndex(tester.client(), system, userSessionRule, new AuthorizationTypeSupport(userSessionRule));
+    underTest = new IssueIndex(tester.client(), system, userSessionRule, new AuthorizationTypeSupport(userSessionRule, authorizedProjectsCache));
   }
 
   @Test
@@ -1283,6 +1286,44 @@ public class IssueIndexTest {
     assertThat(Lists.newArrayList(underTest.selectIssuesForBatch(newProjectDto(newOrganizationDto())))).isEmpty();
   }
 
+  @Test
+  public void search_issues_for_batch_page_per_page() {
+    ComponentDto project = newProjectDto(newOrganizationDto());
+    ComponentDto file = newFileDto(project, null);
+    List<IssueDoc> docs = new ArrayList<>();
+    for (int i = 0; i < 2_345; i++) {
+      docs.add(IssueDocTesting.newDoc(String.format("ISSUE_%05d", i), file));
+    }
+    issueIndexer.index(docs.iterator());
+    PermissionIndexerDao.Dto access = new PermissionIndexerDao.Dto(project.uuid(), system2.now(), "TRK");
+    access.allowAnyone();
+    authorizationIndexerTester.allow(access);
+
+    List<IssueDoc> issues = Lists.newArrayList(underTest.selectIssuesForBatch(project));
+
+    assertThat(issues).extracting(IssueDoc::key).doesNotHaveDuplicates().hasSize(2_345);
+    assertThat(issues.get(0).key()).isEqualTo("ISSUE_00000");
+    assertThat(issues.get(2_344).key()).isEqualTo("ISSUE_02344");
+  }
+
+  @Test
+  public void version_of_issues_for_batch_changes_when_issues_change() {
+    ComponentDto project = newProjectDto(newOrganizationDto());
+    ComponentDto file = newFileDto(project, null);
+    assertThat(underTest.selectIssuesForBatchVersion(project)).isEqualTo("0");
+
+    indexIssues(IssueDocTesting.newDoc("ISSUE1", file).setTechnicalUpdateDate(new Date(1_000L)));
+    String version = underTest.selectIssuesForBatchVersion(project);
+    assertThat(version).isEqualTo("1-1000");
+    assertThat(underTest.selectIssuesForBatchVersion(project)).isEqualTo(version);
+
+    indexIssues(IssueDocTesting.newDoc("ISSUE1", file).setTechnicalUpdateDate(new Date(2_000L)));
+    assertThat(underTest.selectIssuesForBatchVersion(project)).isEqualTo("1-2000");
+
+    indexIssues(IssueDocTesting.newDoc("ISSUE2", file).setTechnicalUpdateDate(new Date(1_500L)));
+    assertThat(underTest.selectIssuesForBatchVersion(project)).isEqualTo("2-2000");
+  }
+
   @Test
   public void fail_to_search_issues_for_batch_on_not_allowed_scope() {
     try {
@@ -21,11 +21,14 @@ package org.sonar.server.notification;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import java.io.IOException;
 import java.io.InvalidClassException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InOrder;
@@ -38,9 +41,12 @@ import org.sonar.db.notification.NotificationQueueDto;
 import org.sonar.db.property.PropertiesDao;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.only;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -93,32 +99,76 @@ public class DefaultNotificationManagerTest {
   }
 
   @Test
-  public void shouldGetFromQueueAndDelete() {
+  public void shouldDeliverFromQueueAndDelete() {
     Notification notification = new Notification("test");
     NotificationQueueDto dto = NotificationQueueDto.toNotificationQueueDto(notification);
     List<NotificationQueueDto> dtos = Arrays.asList(dto);
-    when(notificationQueueDao.selectOldest(1)).thenReturn(dtos);
+    when(notificationQueueDao.selectOldest(10)).thenReturn(dtos);
+    Consumer<List<Notification>> delivery = mock(Consumer.class);
 
-    assertThat(manager.getFromQueue()).isNotNull();
+    assertThat(manager.deliverFromQueue(10, delivery)).isEqualTo(1);
 
-    InOrder inOrder = inOrder(notificationQueueDao);
-    inOrder.verify(notificationQueueDao).selectOldest(1);
+    InOrder inOrder = inOrder(notificationQueueDao, delivery);
+    inOrder.verify(notificationQueueDao).selectOldest(10);
+    inOrder.verify(delivery).accept(anyList());
     inOrder.verify(notificationQueueDao).delete(dtos);
   }
 
+  @Test
+  public void shouldKeepNotificationsInQueueWhenDeliveryFails() {
+    NotificationQueueDto dto = NotificationQueueDto.toNotificationQueueDto(new Notification("test"));
+    when(notificationQueueDao.selectOldest(10)).thenReturn(Arrays.asList(dto));
+
+    try {
+      manager.deliverFromQueue(10, notifications -> {
+        throw new IllegalStateException("Interrupted");
+      });
+      fail();
+    } catch (IllegalStateException e) {
+      verify(notificationQueueDao, never()).delete(anyList());
+    }
+  }
+
   // SONAR-4739
   @Test
   public void shouldNotFailWhenUnableToDeserialize() throws Exception {
     NotificationQueueDto dto1 = mock(NotificationQueueDto.class);
     when(dto1.toNotification()).thenThrow(new InvalidClassException("Pouet"));
-    List<NotificationQueueDto> dtos = Arrays.asList(dto1);
-    when(notificationQueueDao.selectOldest(1)).thenReturn(dtos);
+    NotificationQueueDto dto2 = NotificationQueueDto.toNotificationQueueDto(new Notification("test"));
+    List<NotificationQueueDto> dtos = Arrays.asList(dto1, dto2);
+    when(notificationQueueDao.selectOldest(10)).thenReturn(dtos);
+    List<Notification> delivered = new ArrayList<>();
 
     manager = spy(manager);
-    assertThat(manager.getFromQueue()).isNull();
-    assertThat(manager.getFromQueue()).isNull();
+    assertThat(manager.deliverFromQueue(10, delivered::addAll)).isEqualTo(2);
+    assertThat(manager.deliverFromQueue(10, delivered::addAll)).isEqualTo(2);
 
+    assertThat(delivered).extracting(Notification::getType).containsExactly("test", "test");
     verify(manager, times(1)).logDeserializationIssue();
+    verify(notificationQueueDao, times(2)).delete(dtos);
+  }
+
+  @Test
+  public void shouldRemoveUnreadableNotificationsFromQueue() throws Exception {
+    NotificationQueueDto dto = mock(NotificationQueueDto.class);
+    when(dto.toNotification()).thenThrow(new IOException("Corrupted"));
+    when(notificationQueueDao.selectOldest(10)).thenReturn(Arrays.asList(dto));
+    Consumer<List<Notification>> delivery = mock(Consumer.class);
+
+    assertThat(manager.deliverFromQueue(10, delivery)).isEqualTo(1);
+
+    verify(delivery, never()).accept(anyList());
+    verify(notificationQueueDao).delete(Arrays.asList(dto));
+  }
+
+  @Test
+  public void shouldGetNothingFromEmptyQueue() {
+    Consumer<List<Notification>> delivery = mock(Consumer.class);
+
+    assertThat(manager.deliverFromQueue(10, delivery)).isEqualTo(0);
+
+    verify(delivery, never()).accept(anyList());
+    verify(notificationQueueDao, never()).delete(anyList());
   }
 
   @Test
@@ -21,6 +21,8 @@ package org.sonar.server.notification;
 
 import com.google.common.collect.Sets;
 import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -31,10 +33,14 @@ import org.sonar.api.notifications.NotificationChannel;
 import org.sonar.db.DbClient;
 import org.sonar.db.property.PropertiesDao;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.same;
@@ -68,7 +74,7 @@ public class NotificationDaemonTest {
     when(commentOnIssueCreatedByMe.getType()).thenReturn("issue-changes");
     when(qualityGateChange.getKey()).thenReturn("QGateChange");
     when(qualityGateChange.getType()).thenReturn("qgate-changes");
-    when(manager.getFromQueue()).thenReturn(notification).thenReturn(null);
+    when(manager.deliverFromQueue(eq(NotificationDaemon.BATCH_SIZE), any(Consumer.class))).then(deliver(singletonList(notification))).thenReturn(0);
 
     Settings settings = new MapSettings().setProperty("sonar.notifications.delay", 1L);
 
@@ -174,7 +180,8 @@ public class NotificationDaemonTest {
   @Test
   public void shouldNotStopWhenException() {
     setUpMocks();
-    when(manager.getFromQueue()).thenThrow(new RuntimeException("Unexpected exception")).thenReturn(notification).thenReturn(null);
+    when(manager.deliverFromQueue(eq(NotificationDaemon.BATCH_SIZE), any(Consumer.class))).thenThrow(new RuntimeException("Unexpected exception"))
+      .then(deliver(singletonList(notification))).thenReturn(0);
     doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
     doAnswer(addUser(CREATOR_SIMON, emailChannel)).when(commentOnIssueCreatedByMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
 
@@ -216,7 +223,8 @@ public class NotificationDaemonTest {
   public void shouldLogEvery10Minutes() {
     setUpMocks();
     // Emulate 2 notifications in DB
-    when(manager.getFromQueue()).thenReturn(notification).thenReturn(notification).thenReturn(null);
+    when(manager.deliverFromQueue(eq(NotificationDaemon.BATCH_SIZE), any(Consumer.class))).then(deliver(singletonList(notification))).then(deliver(singletonList(notification)))
+      .thenReturn(0);
     when(manager.count()).thenReturn(1L).thenReturn(0L);
     underTest = spy(underTest);
     // Emulate processing of each notification take 10 min to have a log each time
@@ -227,6 +235,24 @@ public class NotificationDaemonTest {
     underTest.stop();
   }
 
+  @Test
+  public void deliver_all_notifications_of_batch_even_if_one_fails() {
+    setUpMocks();
+    Notification failing = mock(Notification.class);
+    NotificationService failingService = mock(NotificationService.class);
+    doThrow(new IllegalStateException("Unexpected exception")).when(failingService).deliver(failing);
+    when(manager.deliverFromQueue(eq(NotificationDaemon.BATCH_SIZE), any(Consumer.class))).then(deliver(asList(failing, notification))).thenReturn(0);
+    underTest = new NotificationDaemon(new MapSettings().setProperty("sonar.notifications.delay", 1L), manager, failingService);
+
+    underTest.start();
+    verify(failingService, timeout(2000)).deliver(notification);
+    underTest.stop();
+
+    assertThat(underTest.getDeliveredCount()).isEqualTo(1);
+    assertThat(underTest.getFailedCount()).isEqualTo(1);
+    assertThat(underTest.getAverageDeliveryTimeInMs()).isGreaterThanOrEqualTo(0);
+  }
+
   @Test
   public void hasProjectSubscribersForType() {
     setUpMocks();
@@ -243,6 +269,13 @@ public class NotificationDaemonTest {
     assertThat(service.hasProjectSubscribersForTypes("PROJECT_UUID", Sets.newHashSet("issue-changes"))).isTrue();
   }
 
+  private static Answer<Integer> deliver(List<Notification> notifications) {
+    return invocation -> {
+      ((Consumer<List<Notification>>) invocation.getArguments()[1]).accept(notifications);
+      return notifications.size();
+    };
+  }
+
   private static Answer<Object> addUser(final String user, final NotificationChannel channel) {
     return addUser(user, new NotificationChannel[]{channel});
   }
@@ -19,16 +19,31 @@
  */
 package org.sonar.server.permission.index;
 
+import java.util.Optional;
 import org.elasticsearch.index.query.HasParentQueryBuilder;
 import org.elasticsearch.index.query.MatchAllQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.TermsQueryBuilder;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.GroupTesting;
+import org.sonar.server.es.IndexType;
 import org.sonar.server.tester.UserSessionRule;
 
+import static com.google.common.collect.Sets.newHashSet;
+import static java.util.Collections.emptySet;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.sonar.server.permission.index.FooIndexDefinition.INDEX_TYPE_FOO;
 import static org.sonar.test.JsonAssert.assertJson;
 
 public class AuthorizationTypeSupportTest {
@@ -36,22 +51,90 @@ public class AuthorizationTypeSupportTest {
   @Rule
   public UserSessionRule userSession = UserSessionRule.standalone();
 
-  private AuthorizationTypeSupport underTest = new AuthorizationTypeSupport(userSession);
+  private AuthorizedProjectsCache authorizedProjectsCache = mock(AuthorizedProjectsCache.class);
+  private AuthorizationTypeSupport underTest = new AuthorizationTypeSupport(userSession, authorizedProjectsCache);
+
+  @Before
+  public void setUp() {
+    // too many projects, authorization type must be joined
+    when(authorizedProjectsCache.getProjectUuids(any(IndexType.class), anyString(), any(QueryBuilder.class))).thenReturn(Optional.empty());
+  }
 
   @Test
   public void createQueryFilter_does_not_include_permission_filters_if_user_is_flagged_as_root() {
     userSession.logIn().setRoot();
 
-    QueryBuilder filter = underTest.createQueryFilter();
+    QueryBuilder filter = underTest.createQueryFilter(INDEX_TYPE_FOO);
 
     assertThat(filter).isInstanceOf(MatchAllQueryBuilder.class);
+    verifyZeroInteractions(authorizedProjectsCache);
+  }
+
+  @Test
+  public void createQueryFilter_filters_on_parent_projects_if_they_are_cached() {
+    GroupDto group1 = GroupTesting.newGroupDto().setId(10);
+    GroupDto group2 = GroupTesting.newGroupDto().setId(11);
+    userSession.logIn().setUserId(1234).setGroups(group2, group1);
+    when(authorizedProjectsCache.getProjectUuids(eq(new IndexType("foos", "authorization")), eq("groups|[10, 11]"), any(QueryBuilder.class)))
+      .thenReturn(Optional.of(newHashSet("P1")));
+    when(authorizedProjectsCache.getProjectUuids(eq(new IndexType("foos", "authorization")), eq("user|1234"), any(QueryBuilder.class)))
+      .thenReturn(Optional.of(emptySet()));
+
+    TermsQueryBuilder filter = (TermsQueryBuilder) underTest.createQueryFilter(INDEX_TYPE_FOO);
+
+    assertJson(filter.toString()).isSimilarTo("{" +
+      "  \"terms\": {" +
+      "    \"_parent\": [\"P1\"]" +
+      "  }" +
+      "}");
+  }
+
+  @Test
+  public void createQueryFilter_filters_on_parent_projects_of_groups_and_of_user_if_they_are_cached() {
+    userSession.logIn().setUserId(1234).setGroups(GroupTesting.newGroupDto().setId(10));
+    when(authorizedProjectsCache.getProjectUuids(eq(new IndexType("foos", "authorization")), eq("groups|[10]"), any(QueryBuilder.class)))
+      .thenReturn(Optional.of(newHashSet("P1")));
+    when(authorizedProjectsCache.getProjectUuids(eq(new IndexType("foos", "authorization")), eq("user|1234"), any(QueryBuilder.class)))
+      .thenReturn(Optional.of(newHashSet("P2")));
+
+    QueryBuilder filter = underTest.createQueryFilter(INDEX_TYPE_FOO);
+
+    assertJson(filter.toString()).isSimilarTo("{" +
+      "  \"bool\": {" +
+      "    \"should\": [" +
+      "      {\"terms\": {\"_parent\": [\"P1\"]}}," +
+      "      {\"terms\": {\"_parent\": [\"P2\"]}}" +
+      "    ]" +
+      "  }" +
+      "}");
+  }
+
+  @Test
+  public void createQueryFilter_joins_authorization_type_if_projects_of_user_are_not_cached() {
+    userSession.logIn().setUserId(1234);
+    when(authorizedProjectsCache.getProjectUuids(eq(new IndexType("foos", "authorization")), eq("groups|[]"), any(QueryBuilder.class)))
+      .thenReturn(Optional.of(newHashSet("P1")));
+
+    QueryBuilder filter = underTest.createQueryFilter(INDEX_TYPE_FOO);
+
+    assertThat(filter).isInstanceOf(HasParentQueryBuilder.class);
+  }
+
+  @Test
+  public void createQueryFilter_caches_projects_of_anonymous_by_groups_only() {
+    userSession.anonymous();
+
+    underTest.createQueryFilter(INDEX_TYPE_FOO);
+
+    verify(authorizedProjectsCache).getProjectUuids(eq(new IndexType("foos", "authorization")), eq("groups|[]"), any(QueryBuilder.class));
+    verifyNoMoreInteractions(authorizedProjectsCache);
   }
 
   @Test
   public void createQueryFilter_sets_filter_on_anyone_group_if_user_is_anonymous() {
     userSession.anonymous();
 
-    HasParentQueryBuilder filter = (HasParentQueryBuilder) underTest.createQueryFilter();
+    HasParentQueryBuilder filter = (HasParentQueryBuilder) underTest.createQueryFilter(INDEX_TYPE_FOO);
 
     assertJson(filter.toString()).isSimilarTo("{" +
       "  \"has_parent\" : {" +
@@ -77,7 +160,7 @@ public class AuthorizationTypeSupportTest {
   public void createQueryFilter_sets_filter_on_anyone_and_user_id_if_user_is_logged_in_but_has_no_groups() {
     userSession.logIn().setUserId(1234);
 
-    HasParentQueryBuilder filter = (HasParentQueryBuilder) underTest.createQueryFilter();
+    HasParentQueryBuilder filter = (HasParentQueryBuilder) underTest.createQueryFilter(INDEX_TYPE_FOO);
 
     assertJson(filter.toString()).isSimilarTo("{" +
       "  \"has_parent\": {" +
@@ -112,7 +195,7 @@ public class AuthorizationTypeSupportTest {
     GroupDto group2 = GroupTesting.newGroupDto().setId(11);
     userSession.logIn().setUserId(1234).setGroups(group1, group2);
 
-    HasParentQueryBuilder filter = (HasParentQueryBuilder) underTest.createQueryFilter();
+    HasParentQueryBuilder filter = (HasParentQueryBuilder) underTest.createQueryFilter(INDEX_TYPE_FOO);
 
     assertJson(filter.toString()).isSimilarTo("{" +
       "  \"has_parent\": {" +
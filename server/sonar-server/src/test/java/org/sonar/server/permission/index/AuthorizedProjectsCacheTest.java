@@ -0,0 +1,113 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.permission.index;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.resources.Qualifiers;
+import org.sonar.server.es.EsTester;
+import org.sonar.server.es.IndexType;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.sonar.server.permission.index.FooIndexDefinition.INDEX_TYPE_FOO;
+
+public class AuthorizedProjectsCacheTest {
+
+  private static final IndexType AUTHORIZATION_TYPE = AuthorizationTypeSupport.getAuthorizationIndexType(INDEX_TYPE_FOO);
+
+  @Rule
+  public EsTester esTester = new EsTester(new FooIndexDefinition());
+
+  private AuthorizedProjectsCache underTest = new AuthorizedProjectsCache(esTester.client());
+  private PermissionIndexer permissionIndexer = new PermissionIndexer(null, esTester.client(), underTest, new FooIndexer(esTester.client()));
+
+  @Test
+  public void load_uuids_of_projects_matching_filter() {
+    indexProject("P1", 1, 10);
+    indexProject("P2", 2, 10);
+    indexProject("P3", 1, 11);
+
+    assertThat(getProjectsOfGroup(10)).containsOnly("P1", "P2");
+    assertThat(getProjectsOfGroup(11)).containsOnly("P3");
+    assertThat(getProjectsOfGroup(12)).isEmpty();
+  }
+
+  @Test
+  public void return_empty_if_too_many_projects_match() {
+    underTest = new AuthorizedProjectsCache(esTester.client(), 2, 1, TimeUnit.HOURS);
+    indexProject("P1", 1, 10);
+    indexProject("P2", 1, 10);
+    indexProject("P3", 1, 10);
+
+    assertThat(underTest.getProjectUuids(AUTHORIZATION_TYPE, "group10", termQuery(AuthorizationTypeSupport.FIELD_GROUP_IDS, 10))).isEmpty();
+  }
+
+  @Test
+  public void keep_projects_in_cache_until_authorizations_are_indexed() {
+    indexProject("P1", 1, 10);
+    assertThat(getProjectsOfGroup(10)).containsOnly("P1");
+
+    // authorizations changed without being notified
+    new PermissionIndexer(null, esTester.client(), new AuthorizedProjectsCache(esTester.client()), new FooIndexer(esTester.client()))
+      .index(asList(newDto("P2", 1, 10)));
+    assertThat(getProjectsOfGroup(10)).containsOnly("P1");
+
+    indexProject("P3", 1, 10);
+    assertThat(getProjectsOfGroup(10)).containsOnly("P1", "P2", "P3");
+
+    permissionIndexer.deleteProject("P1");
+    assertThat(getProjectsOfGroup(10)).containsOnly("P2", "P3");
+  }
+
+  @Test
+  public void projects_expire() {
+    underTest = new AuthorizedProjectsCache(esTester.client(), 10, 1, TimeUnit.NANOSECONDS);
+    indexProject("P1", 1, 10);
+    assertThat(getProjectsOfGroup(10)).containsOnly("P1");
+
+    new PermissionIndexer(null, esTester.client(), new AuthorizedProjectsCache(esTester.client()), new FooIndexer(esTester.client()))
+      .index(asList(newDto("P2", 1, 10)));
+
+    assertThat(getProjectsOfGroup(10)).containsOnly("P1", "P2");
+  }
+
+  private Set<String> getProjectsOfGroup(int groupId) {
+    Optional<Set<String>> uuids = underTest.getProjectUuids(AUTHORIZATION_TYPE, "group" + groupId,
+      boolQuery().should(termQuery(AuthorizationTypeSupport.FIELD_GROUP_IDS, groupId)));
+    assertThat(uuids).isPresent();
+    return uuids.get();
+  }
+
+  private void indexProject(String uuid, int userId, int groupId) {
+    permissionIndexer.index(asList(newDto(uuid, userId, groupId)));
+  }
+
+  private static PermissionIndexerDao.Dto newDto(String uuid, int userId, int groupId) {
+    return new PermissionIndexerDao.Dto(uuid, System.currentTimeMillis(), Qualifiers.PROJECT)
+      .addUserId(userId)
+      .addGroupId(groupId);
+  }
+}
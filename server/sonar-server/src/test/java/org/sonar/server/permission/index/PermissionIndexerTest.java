@@ -57,10 +57,11 @@ public class PermissionIndexerTest {
 
   private ComponentDbTester componentDbTester = new ComponentDbTester(dbTester);
   private UserDbTester userDbTester = new UserDbTester(dbTester);
-  private FooIndex fooIndex = new FooIndex(esTester.client(), new AuthorizationTypeSupport(userSession));
+  private AuthorizedProjectsCache authorizedProjectsCache = new AuthorizedProjectsCache(esTester.client());
+  private FooIndex fooIndex = new FooIndex(esTester.client(), new AuthorizationTypeSupport(userSession, authorizedProjectsCache));
   private FooIndexer fooIndexer = new FooIndexer(esTester.client());
   private PermissionIndexer underTest = new PermissionIndexer(
-    dbTester.getDbClient(), esTester.client(), fooIndexer);
+    dbTester.getDbClient(), esTester.client(), authorizedProjectsCache, fooIndexer);
 
   @Test
   public void initializeOnStartup_grants_access_to_user() {
@@ -33,8 +33,16 @@ public class PermissionIndexerTester {
   private final PermissionIndexer permissionIndexer;
 
   public PermissionIndexerTester(EsTester esTester, NeedAuthorizationIndexer indexer, NeedAuthorizationIndexer... others) {
+    this(esTester, new AuthorizedProjectsCache(esTester.client()), indexer, others);
+  }
+
+  /**
+   * @param authorizedProjectsCache the cache to be invalidated when authorizations are indexed
+   */
+  public PermissionIndexerTester(EsTester esTester, AuthorizedProjectsCache authorizedProjectsCache, NeedAuthorizationIndexer indexer,
+    NeedAuthorizationIndexer... others) {
     NeedAuthorizationIndexer[] indexers = Stream.concat(Stream.of(indexer), Arrays.stream(others)).toArray(NeedAuthorizationIndexer[]::new);
-    this.permissionIndexer = new PermissionIndexer(null, esTester.client(), indexers);
+    this.permissionIndexer = new PermissionIndexer(null, esTester.client(), authorizedProjectsCache, indexers);
   }
 
   public PermissionIndexerTester allowOnlyAnyone(ComponentDto project) {
@@ -31,6 +31,7 @@ import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.exceptions.ServerException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
 import static org.sonar.api.web.UserRole.ISSUE_ADMIN;
 import static org.sonar.core.permission.GlobalPermissions.PROVISIONING;
 import static org.sonar.core.permission.GlobalPermissions.SYSTEM_ADMIN;
@@ -65,6 +66,7 @@ public class AddGroupActionTest extends BasePermissionWsTest<AddGroupAction> {
       .execute();
 
     assertThat(db.users().selectGroupPermissions(group, null)).containsOnly(SYSTEM_ADMIN);
+    verify(permissionCache).invalidateAll();
   }
 
   @Test
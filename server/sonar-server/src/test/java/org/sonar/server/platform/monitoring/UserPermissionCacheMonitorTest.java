@@ -0,0 +1,53 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Test;
+import org.sonar.server.user.UserPermissionCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UserPermissionCacheMonitorTest {
+
+  private UserPermissionCache cache = new UserPermissionCache();
+  private UserPermissionCacheMonitor underTest = new UserPermissionCacheMonitor(cache);
+
+  @Test
+  public void name_is_not_empty() {
+    assertThat(underTest.name()).isNotEmpty();
+  }
+
+  @Test
+  public void attributes_are_the_statistics_of_cache() {
+    cache.getProjectPermissions(1, "P1", uuid -> Collections.singleton("user"));
+    cache.getProjectPermissions(1, "P1", uuid -> Collections.singleton("user"));
+    cache.invalidateUser(2);
+
+    Map<String, Object> attributes = underTest.attributes();
+
+    assertThat(attributes).containsEntry("Size", 1L)
+      .containsEntry("Hits", 1L)
+      .containsEntry("Misses", 1L)
+      .containsEntry("Evictions", 0L)
+      .containsEntry("Invalidations", 1L);
+  }
+}
@@ -72,6 +72,7 @@ public class ServerUserSessionTest {
   private UserDto userDto = newUserDto().setLogin(LOGIN);
   private TestOrganizationFlags organizationFlags = TestOrganizationFlags.standalone();
   private TestDefaultOrganizationProvider defaultOrganizationProvider = TestDefaultOrganizationProvider.from(db);
+  private UserPermissionCache permissionCache = new UserPermissionCache();
   private OrganizationDto organization;
   private ComponentDto project;
 
@@ -320,6 +321,30 @@ public class ServerUserSessionTest {
     assertThat(session.hasComponentPermission(UserRole.ADMIN, project)).isFalse();
   }
 
+  @Test
+  public void permissions_are_shared_by_sessions_until_invalidation_of_cache() {
+    ComponentDto project = db.components().insertProject();
+    db.users().insertProjectPermissionOnUser(userDto, UserRole.USER, project);
+    assertThat(newUserSession(userDto).hasComponentPermission(UserRole.USER, project)).isTrue();
+
+    db.users().deletePermissionFromUser(project, userDto, UserRole.USER);
+    assertThat(newUserSession(userDto).hasComponentPermission(UserRole.USER, project)).isTrue();
+
+    permissionCache.invalidateUser(userDto.getId());
+    assertThat(newUserSession(userDto).hasComponentPermission(UserRole.USER, project)).isFalse();
+  }
+
+  @Test
+  public void permissions_of_anonymous_are_not_shared_with_logged_in_users() {
+    OrganizationDto org = db.organizations().insert();
+    db.users().insertPermissionOnAnyone(org, PROVISION_PROJECTS);
+    db.users().insertPermissionOnUser(org, userDto, SCAN);
+
+    assertThat(newAnonymousSession().hasPermission(SCAN, org.getUuid())).isFalse();
+    assertThat(newUserSession(userDto).hasPermission(SCAN, org.getUuid())).isTrue();
+    assertThat(newAnonymousSession().hasPermission(PROVISION_PROJECTS, org.getUuid())).isTrue();
+  }
+
   @Test
   public void isSystemAdministrator_returns_true_if_org_feature_is_enabled_and_user_is_root() {
     organizationFlags.setEnabled(true);
@@ -406,7 +431,7 @@ public class ServerUserSessionTest {
   }
 
   private ServerUserSession newUserSession(@Nullable UserDto userDto) {
-    return new ServerUserSession(dbClient, organizationFlags, defaultOrganizationProvider, userDto);
+    return new ServerUserSession(dbClient, organizationFlags, defaultOrganizationProvider, permissionCache, userDto);
   }
 
   private ServerUserSession newAnonymousSession() {
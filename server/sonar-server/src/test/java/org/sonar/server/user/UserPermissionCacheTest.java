@@ -0,0 +1,133 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.Test;
+import org.sonar.db.permission.OrganizationPermission;
+
+import static com.google.common.collect.Sets.newHashSet;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UserPermissionCacheTest {
+
+  private static final int USER_ID = 42;
+  private static final int OTHER_USER_ID = 43;
+
+  private AtomicInteger loads = new AtomicInteger();
+  private Function<String, Set<String>> loader = uuid -> {
+    loads.incrementAndGet();
+    return singleton("user");
+  };
+  private UserPermissionCache underTest = new UserPermissionCache();
+
+  @Test
+  public void load_permissions_once_per_user_and_project() {
+    assertThat(underTest.getProjectPermissions(USER_ID, "P1", loader)).containsOnly("user");
+    assertThat(underTest.getProjectPermissions(USER_ID, "P1", loader)).containsOnly("user");
+    assertThat(loads.get()).isEqualTo(1);
+
+    underTest.getProjectPermissions(OTHER_USER_ID, "P1", loader);
+    underTest.getProjectPermissions(null, "P1", loader);
+    underTest.getProjectPermissions(USER_ID, "P2", loader);
+    assertThat(loads.get()).isEqualTo(4);
+    assertThat(underTest.size()).isEqualTo(4);
+    assertThat(underTest.stats().hitCount()).isEqualTo(1);
+    assertThat(underTest.stats().missCount()).isEqualTo(4);
+  }
+
+  @Test
+  public void load_organization_permissions_once_per_user_and_organization() {
+    Function<String, Set<OrganizationPermission>> organizationLoader = uuid -> {
+      loads.incrementAndGet();
+      return singleton(OrganizationPermission.SCAN);
+    };
+
+    assertThat(underTest.getOrganizationPermissions(USER_ID, "O1", organizationLoader)).containsOnly(OrganizationPermission.SCAN);
+    assertThat(underTest.getOrganizationPermissions(USER_ID, "O1", organizationLoader)).containsOnly(OrganizationPermission.SCAN);
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void invalidateUser_drops_only_permissions_of_user() {
+    underTest.getProjectPermissions(USER_ID, "P1", loader);
+    underTest.getProjectPermissions(OTHER_USER_ID, "P1", loader);
+    underTest.getProjectPermissions(null, "P1", loader);
+
+    underTest.invalidateUser(USER_ID);
+
+    assertThat(underTest.size()).isEqualTo(2);
+    underTest.getProjectPermissions(USER_ID, "P1", loader);
+    assertThat(loads.get()).isEqualTo(4);
+    assertThat(underTest.getInvalidationCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void invalidateProjects_drops_permissions_of_all_users_on_projects() {
+    underTest.getProjectPermissions(USER_ID, "P1", loader);
+    underTest.getProjectPermissions(null, "P1", loader);
+    underTest.getProjectPermissions(USER_ID, "P2", loader);
+    underTest.getProjectPermissions(USER_ID, "P3", loader);
+
+    underTest.invalidateProjects(asList("P1", "P2"));
+
+    assertThat(underTest.size()).isEqualTo(1);
+    underTest.getProjectPermissions(USER_ID, "P3", loader);
+    assertThat(loads.get()).isEqualTo(4);
+  }
+
+  @Test
+  public void invalidateAll_drops_all_permissions() {
+    underTest.getProjectPermissions(USER_ID, "P1", loader);
+    underTest.getOrganizationPermissions(USER_ID, "O1", uuid -> newHashSet(OrganizationPermission.SCAN));
+
+    underTest.invalidateAll();
+
+    assertThat(underTest.size()).isZero();
+    assertThat(underTest.getInvalidationCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void permissions_expire() {
+    underTest = new UserPermissionCache(10, 1, TimeUnit.NANOSECONDS);
+
+    underTest.getProjectPermissions(USER_ID, "P1", loader);
+    underTest.getProjectPermissions(USER_ID, "P1", loader);
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void size_is_bounded() {
+    underTest = new UserPermissionCache(2, 1, TimeUnit.HOURS);
+
+    underTest.getProjectPermissions(USER_ID, "P1", loader);
+    underTest.getProjectPermissions(USER_ID, "P2", loader);
+    underTest.getProjectPermissions(USER_ID, "P3", loader);
+
+    assertThat(underTest.size()).isLessThanOrEqualTo(2);
+    assertThat(underTest.stats().evictionCount()).isGreaterThan(0);
+  }
+}
@@ -88,7 +88,9 @@ public class UserUpdaterTest {
   private DbSession session = db.getSession();
   private UserIndexer userIndexer = new UserIndexer(dbClient, es.client());
   private OrganizationCreation organizationCreation = mock(OrganizationCreation.class);
-  private UserUpdater underTest = new UserUpdater(newUserNotifier, settings, dbClient, userIndexer, system2, TestDefaultOrganizationProvider.from(db), organizationCreation);
+  private UserPermissionCache permissionCache = mock(UserPermissionCache.class);
+  private UserUpdater underTest = new UserUpdater(newUserNotifier, settings, dbClient, userIndexer, system2, TestDefaultOrganizationProvider.from(db), organizationCreation,
+    permissionCache);
 
   @Before
   public void setUp() {
@@ -454,6 +456,7 @@ public class UserUpdaterTest {
 
     Multimap<String, String> groups = dbClient.groupMembershipDao().selectGroupsByLogins(session, asList("user"));
     assertThat(groups.get("user")).containsOnly(DEFAULT_GROUP);
+    verify(permissionCache).invalidateUser(dbClient.userDao().selectByLogin(session, "user").getId());
   }
 
   @Test
@@ -514,6 +517,7 @@ public class UserUpdaterTest {
     assertThat(dto.getUpdatedAt()).isEqualTo(NOW);
 
     assertThat(dbClient.userDao().selectByLogin(session, DEFAULT_LOGIN).isActive()).isTrue();
+    verify(permissionCache).invalidateUser(dto.getId());
   }
 
   @Test
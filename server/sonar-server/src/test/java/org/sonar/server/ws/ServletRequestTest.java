@@ -60,6 +60,14 @@ public class ServletRequestTest {
     assertThat(underTest.getMediaType()).isEqualTo(MediaTypes.JSON);
   }
 
+  @Test
+  public void read_header() {
+    when(source.getHeader("If-None-Match")).thenReturn("\"abcd\"");
+
+    assertThat(underTest.header("If-None-Match")).contains("\"abcd\"");
+    assertThat(underTest.header("Unknown")).isEmpty();
+  }
+
   @Test
   public void default_media_type_is_octet_stream() throws Exception {
     when(source.getRequestURI()).thenReturn("/path/to/resource/search");
@@ -22,12 +22,15 @@ package org.sonar.core.issue.tracking;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.sonar.api.rule.RuleKey;
 
 class BlockRecognizer<RAW extends Trackable, BASE extends Trackable> {
 
@@ -122,12 +125,17 @@ class BlockRecognizer<RAW extends Trackable, BASE extends Trackable> {
   }
 
   private void map(Collection<RAW> raws, Collection<BASE> bases, Tracking<RAW, BASE> result) {
+    // unmatched bases by rule, so that each raw is matched in constant time
+    Map<RuleKey, Deque<BASE>> unmatchedBasesByRule = new HashMap<>();
+    for (BASE base : bases) {
+      if (result.containsUnmatchedBase(base)) {
+        unmatchedBasesByRule.computeIfAbsent(base.getRuleKey(), k -> new ArrayDeque<>()).add(base);
+      }
+    }
     for (RAW raw : raws) {
-      for (BASE base : bases) {
-        if (result.containsUnmatchedBase(base) && base.getRuleKey().equals(raw.getRuleKey())) {
-          result.match(raw, base);
-          break;
-        }
+      Deque<BASE> candidates = unmatchedBasesByRule.get(raw.getRuleKey());
+      if (candidates != null && !candidates.isEmpty()) {
+        result.match(raw, candidates.poll());
       }
     }
   }
@@ -0,0 +1,282 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.issue.tracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Index of the raw and base issues of a {@link Tracking}, used by {@link Tracker} to execute its matching passes.
+ * <p>
+ * Rule keys, line hashes and messages are interned into integer ids once, when the index is created, so that each pass
+ * only compares integers. Each pass builds an open hash index of the unmatched base issues, chained through arrays
+ * of base indexes, from which a matched base is unlinked in constant time.
+ * </p>
+ */
+class TrackingIndex<RAW extends Trackable, BASE extends Trackable> {
+
+  private static final int NONE = -1;
+  private static final int NO_LINE = 0;
+  /**
+   * Maximum number of base issues compared to a raw issue, so that matching stays linear when
+   * many base issues share the same rule and fields.
+   */
+  private static final int MAX_CANDIDATES = 20;
+
+  private final Tracking<RAW, BASE> tracking;
+  private final List<RAW> raws;
+  private final List<BASE> bases;
+  private final Fields rawFields;
+  private final Fields baseFields;
+
+  TrackingIndex(Tracking<RAW, BASE> tracking, Input<RAW> rawInput, Input<BASE> baseInput) {
+    this.tracking = tracking;
+    this.raws = new ArrayList<>(rawInput.getIssues());
+    this.bases = new ArrayList<>(baseInput.getIssues());
+    Dictionary dictionary = new Dictionary();
+    this.rawFields = new Fields(raws, dictionary);
+    this.baseFields = new Fields(bases, dictionary);
+  }
+
+  /**
+   * Matches the unmatched raw issues with the unmatched base issues which have the same rule and the same values
+   * for the fields of the specified pass.
+   * <p>
+   * When several base issues are candidates for a raw issue, the one sharing the most fields not compared by the pass
+   * is selected (message first, then line hash, then line), then the one with the closest line, then the first one
+   * in the order of the base input. The search stops at the first candidate sharing all fields and, when there are
+   * more candidates, at the {@link #MAX_CANDIDATES} first ones.
+   * </p>
+   */
+  void match(Pass pass) {
+    if (tracking.isComplete()) {
+      return;
+    }
+    Chains chains = new Chains(pass);
+    for (int rawIndex = 0; rawIndex < raws.size(); rawIndex++) {
+      RAW raw = raws.get(rawIndex);
+      if (tracking.baseFor(raw) != null) {
+        continue;
+      }
+      int baseIndex = chains.bestCandidate(rawIndex);
+      if (baseIndex != NONE) {
+        tracking.match(raw, bases.get(baseIndex));
+        chains.unlink(baseIndex);
+      }
+    }
+  }
+
+  enum Pass {
+    // same rule, same line and same line hash, but not necessarily with same message
+    LINE_AND_LINE_HASH(true, true, false),
+    // same rule, same message and same line hash
+    LINE_HASH_AND_MESSAGE(false, true, true),
+    // same rule, same line and same message
+    LINE_AND_MESSAGE(true, false, true),
+    // same rule and same line hash but different line and different message
+    LINE_HASH(false, true, false);
+
+    private final boolean line;
+    private final boolean lineHash;
+    private final boolean message;
+
+    Pass(boolean line, boolean lineHash, boolean message) {
+      this.line = line;
+      this.lineHash = lineHash;
+      this.message = message;
+    }
+  }
+
+  /**
+   * Hash chains of the unmatched base issues for a given pass.
+   */
+  private class Chains {
+    private final Pass pass;
+    private final int perfectScore;
+    private final int mask;
+    private final int[] heads;
+    private final int[] tails;
+    private final int[] next;
+    private final int[] previous;
+    private final int[] hashes;
+
+    Chains(Pass pass) {
+      this.pass = pass;
+      this.perfectScore = (pass.message ? 0 : 4) + (pass.lineHash ? 0 : 2) + (pass.line ? 0 : 1);
+      int size = bases.size();
+      int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+      this.mask = capacity - 1;
+      this.heads = new int[capacity];
+      this.tails = new int[capacity];
+      this.next = new int[size];
+      this.previous = new int[size];
+      this.hashes = new int[size];
+      Arrays.fill(heads, NONE);
+      Arrays.fill(tails, NONE);
+      for (int baseIndex = 0; baseIndex < size; baseIndex++) {
+        if (tracking.containsUnmatchedBase(bases.get(baseIndex))) {
+          append(baseIndex);
+        }
+      }
+    }
+
+    private void append(int baseIndex) {
+      int hash = hash(baseFields, baseIndex);
+      int bucket = hash & mask;
+      hashes[baseIndex] = hash;
+      next[baseIndex] = NONE;
+      previous[baseIndex] = tails[bucket];
+      if (tails[bucket] == NONE) {
+        heads[bucket] = baseIndex;
+      } else {
+        next[tails[bucket]] = baseIndex;
+      }
+      tails[bucket] = baseIndex;
+    }
+
+    int bestCandidate(int rawIndex) {
+      int hash = hash(rawFields, rawIndex);
+      int best = NONE;
+      int bestScore = 0;
+      int bestDistance = 0;
+      int candidates = 0;
+      for (int baseIndex = heads[hash & mask]; baseIndex != NONE; baseIndex = next[baseIndex]) {
+        if (hashes[baseIndex] != hash || !sameKey(rawIndex, baseIndex)) {
+          continue;
+        }
+        int score = score(rawIndex, baseIndex);
+        int distance = Math.abs(rawFields.lines[rawIndex] - baseFields.lines[baseIndex]);
+        if (best == NONE || score > bestScore || (score == bestScore && distance < bestDistance)) {
+          best = baseIndex;
+          bestScore = score;
+          bestDistance = distance;
+        }
+        candidates++;
+        if ((bestScore == perfectScore && bestDistance == 0) || candidates == MAX_CANDIDATES) {
+          // next candidates can't be better, or there are too many of them
+          break;
+        }
+      }
+      return best;
+    }
+
+    void unlink(int baseIndex) {
+      int bucket = hashes[baseIndex] & mask;
+      int previousIndex = previous[baseIndex];
+      int nextIndex = next[baseIndex];
+      if (previousIndex == NONE) {
+        heads[bucket] = nextIndex;
+      } else {
+        next[previousIndex] = nextIndex;
+      }
+      if (nextIndex == NONE) {
+        tails[bucket] = previousIndex;
+      } else {
+        previous[nextIndex] = previousIndex;
+      }
+    }
+
+    private int hash(Fields fields, int index) {
+      int result = fields.rules[index];
+      result = 31 * result + (pass.lineHash ? fields.lineHashes[index] : 0);
+      result = 31 * result + (pass.message ? fields.messages[index] : 0);
+      result = 31 * result + (pass.line ? fields.lines[index] : 0);
+      // spread high bits, as buckets are selected with a mask
+      return result ^ (result >>> 16);
+    }
+
+    private boolean sameKey(int rawIndex, int baseIndex) {
+      return rawFields.rules[rawIndex] == baseFields.rules[baseIndex]
+        && (!pass.line || rawFields.lines[rawIndex] == baseFields.lines[baseIndex])
+        && (!pass.lineHash || rawFields.lineHashes[rawIndex] == baseFields.lineHashes[baseIndex])
+        && (!pass.message || rawFields.messages[rawIndex] == baseFields.messages[baseIndex]);
+    }
+
+    private int score(int rawIndex, int baseIndex) {
+      int score = 0;
+      if (!pass.message && rawFields.messages[rawIndex] == baseFields.messages[baseIndex]) {
+        score += 4;
+      }
+      if (!pass.lineHash && rawFields.lineHashes[rawIndex] == baseFields.lineHashes[baseIndex]) {
+        score += 2;
+      }
+      if (!pass.line && rawFields.lines[rawIndex] == baseFields.lines[baseIndex]) {
+        score += 1;
+      }
+      return score;
+    }
+  }
+
+  /**
+   * Interned fields of a list of issues, indexed by the position of the issue in the list.
+   */
+  private static class Fields {
+    private final int[] rules;
+    private final int[] lines;
+    private final int[] lineHashes;
+    private final int[] messages;
+
+    Fields(List<? extends Trackable> trackables, Dictionary dictionary) {
+      int size = trackables.size();
+      this.rules = new int[size];
+      this.lines = new int[size];
+      this.lineHashes = new int[size];
+      this.messages = new int[size];
+      for (int i = 0; i < size; i++) {
+        Trackable trackable = trackables.get(i);
+        Integer line = trackable.getLine();
+        rules[i] = dictionary.ruleId(trackable);
+        lines[i] = line == null ? NO_LINE : line;
+        lineHashes[i] = dictionary.lineHashId(trackable);
+        messages[i] = dictionary.messageId(trackable);
+      }
+    }
+  }
+
+  /**
+   * Assigns the same integer id to equal values, shared by raw and base issues.
+   */
+  private static class Dictionary {
+    private final Map<Object, Integer> ruleIds = new HashMap<>();
+    private final Map<String, Integer> lineHashIds = new HashMap<>();
+    private final Map<String, Integer> messageIds = new HashMap<>();
+
+    int ruleId(Trackable trackable) {
+      return idOf(ruleIds, trackable.getRuleKey());
+    }
+
+    int lineHashId(Trackable trackable) {
+      return idOf(lineHashIds, StringUtils.defaultString(trackable.getLineHash(), ""));
+    }
+
+    int messageId(Trackable trackable) {
+      String message = trackable.getMessage();
+      return message == null ? NONE : idOf(messageIds, message);
+    }
+
+    private static <K> int idOf(Map<K, Integer> ids, K value) {
+      return ids.computeIfAbsent(value, k -> ids.size());
+    }
+  }
+}
@@ -381,6 +381,99 @@ public class TrackerTest {
     assertThat(tracking.baseFor(raw1)).isEqualTo(base1);
   }
 
+  @Test
+  public void prefer_base_issue_with_same_message_when_several_ones_are_on_same_line() {
+    FakeInput baseInput = new FakeInput("H1");
+    Issue base1 = baseInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg1");
+    Issue base2 = baseInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg2");
+
+    FakeInput rawInput = new FakeInput("H1");
+    Issue raw = rawInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg2");
+
+    Tracking<Issue, Issue> tracking = tracker.track(rawInput, baseInput);
+    assertThat(tracking.baseFor(raw)).isSameAs(base2);
+    assertThat(tracking.getUnmatchedBases()).containsExactly(base1);
+  }
+
+  @Test
+  public void prefer_closest_base_issue_when_only_line_hash_matches() {
+    FakeInput baseInput = new FakeInput("H1", "H2", "H3", "H4", "H1", "H5", "H1");
+    Issue base1 = baseInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg1");
+    Issue base2 = baseInput.createIssueOnLine(5, RULE_SYSTEM_PRINT, "msg2");
+    Issue base3 = baseInput.createIssueOnLine(7, RULE_SYSTEM_PRINT, "msg3");
+
+    FakeInput rawInput = new FakeInput("A1", "A2", "A3", "H1");
+    Issue raw = rawInput.createIssueOnLine(4, RULE_SYSTEM_PRINT, "msg4");
+
+    Tracking<Issue, Issue> tracking = tracker.track(rawInput, baseInput);
+    assertThat(tracking.baseFor(raw)).isSameAs(base2);
+    assertThat(tracking.getUnmatchedBases()).containsExactly(base1, base3);
+  }
+
+  @Test
+  public void take_first_base_issue_when_several_ones_are_equivalent() {
+    FakeInput baseInput = new FakeInput("H1");
+    Issue base1 = baseInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+    Issue base2 = baseInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+    Issue base3 = baseInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+
+    FakeInput rawInput = new FakeInput("H1");
+    Issue raw1 = rawInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+    Issue raw2 = rawInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+
+    Tracking<Issue, Issue> tracking = tracker.track(rawInput, baseInput);
+    assertThat(tracking.baseFor(raw1)).isSameAs(base1);
+    assertThat(tracking.baseFor(raw2)).isSameAs(base2);
+    assertThat(tracking.getUnmatchedBases()).containsExactly(base3);
+  }
+
+  @Test
+  public void match_thousands_of_issues() {
+    int nbLines = 1_000;
+    String[] lineHashes = new String[nbLines];
+    for (int i = 0; i < nbLines; i++) {
+      lineHashes[i] = "H" + i;
+    }
+    FakeInput baseInput = new FakeInput(lineHashes);
+    FakeInput rawInput = new FakeInput(lineHashes);
+    List<Issue> raws = new ArrayList<>();
+    List<Issue> bases = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      RuleKey ruleKey = i % 2 == 0 ? RULE_SYSTEM_PRINT : RULE_UNUSED_LOCAL_VARIABLE;
+      bases.add(baseInput.createIssueOnLine(1 + i % nbLines, ruleKey, "msg" + i));
+      raws.add(rawInput.createIssueOnLine(1 + i % nbLines, ruleKey, "msg" + i));
+    }
+
+    Tracking<Issue, Issue> tracking = tracker.track(rawInput, baseInput);
+    assertThat(tracking.getUnmatchedBases()).isEmpty();
+    for (int i = 0; i < raws.size(); i++) {
+      assertThat(tracking.baseFor(raws.get(i))).isSameAs(bases.get(i));
+    }
+  }
+
+  @Test
+  public void match_thousands_of_issues_sharing_the_same_fields() {
+    FakeInput baseInput = new FakeInput("H1", "H2", "H1");
+    FakeInput rawInput = new FakeInput("H1", "H1");
+    List<Issue> raws = new ArrayList<>();
+    List<Issue> bases = new ArrayList<>();
+    for (int i = 0; i < 50_000; i++) {
+      bases.add(baseInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg"));
+      raws.add(rawInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg"));
+    }
+    for (int i = 0; i < 50_000; i++) {
+      // issues of a line moved from line 3 to line 2
+      bases.add(baseInput.createIssueOnLine(3, RULE_UNUSED_LOCAL_VARIABLE, "base" + i));
+      raws.add(rawInput.createIssueOnLine(2, RULE_UNUSED_LOCAL_VARIABLE, "raw" + i));
+    }
+
+    Tracking<Issue, Issue> tracking = tracker.track(rawInput, baseInput);
+    assertThat(tracking.getUnmatchedBases()).isEmpty();
+    for (int i = 0; i < raws.size(); i++) {
+      assertThat(tracking.baseFor(raws.get(i))).isSameAs(bases.get(i));
+    }
+  }
+
   private static class Issue implements Trackable {
     private final RuleKey ruleKey;
     private final Integer line;
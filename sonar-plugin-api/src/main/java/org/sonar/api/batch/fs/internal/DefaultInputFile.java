@@ -51,7 +51,10 @@ public class DefaultInputFile extends DefaultInputComponent implements InputFile
     this.publish = false;
   }
 
-  public void checkMetadata() {
+  /**
+   * Synchronized as files may be read by sensors executed concurrently.
+   */
+  public synchronized void checkMetadata() {
     if (metadata == null) {
       metadataGenerator.accept(this);
     }
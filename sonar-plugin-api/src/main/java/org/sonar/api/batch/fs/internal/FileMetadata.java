@@ -19,7 +19,6 @@
  */
 package org.sonar.api.batch.fs.internal;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -56,6 +55,7 @@ public class FileMetadata {
 
   private static final char LINE_FEED = '\n';
   private static final char CARRIAGE_RETURN = '\r';
+  private static final int BUFFER_SIZE = 8192;
 
   public abstract static class CharHandler {
 
@@ -271,10 +271,23 @@ public class FileMetadata {
    * Maximum performance is needed.
    */
   public Metadata readMetadata(File file, Charset encoding) {
+    return readMetadata(file, encoding, null);
+  }
+
+  /**
+   * Same as {@link #readMetadata(File, Charset)} but, when {@code lineHashConsumer} is not null, hashes of lines used
+   * for issue tracking (see {@link #computeLineHashesForIssueTracking(InputFile, LineHashConsumer)}) are computed
+   * while the file is read, instead of reading it again later.
+   */
+  public Metadata readMetadata(File file, Charset encoding, @Nullable LineHashConsumer lineHashConsumer) {
     LineCounter lineCounter = new LineCounter(file, encoding);
     FileHashComputer fileHashComputer = new FileHashComputer(file);
     LineOffsetCounter lineOffsetCounter = new LineOffsetCounter();
-    readFile(file, encoding, lineCounter, fileHashComputer, lineOffsetCounter);
+    if (lineHashConsumer == null) {
+      readFile(file, encoding, lineCounter, fileHashComputer, lineOffsetCounter);
+    } else {
+      readFile(file, encoding, lineCounter, fileHashComputer, lineOffsetCounter, new LineHashComputer(lineHashConsumer, file));
+    }
     return new Metadata(lineCounter.lines(), lineCounter.nonBlankLines(), fileHashComputer.getHash(), lineOffsetCounter.getOriginalLineOffsets(),
       lineOffsetCounter.getLastValidOffset());
   }
@@ -298,58 +311,72 @@ public class FileMetadata {
   public static void readFile(File file, Charset encoding, CharHandler... handlers) {
     try (BOMInputStream bomIn = new BOMInputStream(new FileInputStream(file),
       ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE);
-      Reader reader = new BufferedReader(new InputStreamReader(bomIn, encoding))) {
+      Reader reader = new InputStreamReader(bomIn, encoding)) {
       read(reader, handlers);
     } catch (IOException e) {
       throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", file.getAbsolutePath(), encoding), e);
     }
   }
 
+  /**
+   * Characters are read by chunks, so that the reader is not called for every character.
+   */
   private static void read(Reader reader, CharHandler... handlers) throws IOException {
-    char c;
-    int i = reader.read();
+    char[] buffer = new char[BUFFER_SIZE];
     boolean afterCR = false;
-    while (i != -1) {
-      c = (char) i;
+    int length = reader.read(buffer);
+    while (length != -1) {
+      for (int i = 0; i < length; i++) {
+        afterCR = read(buffer[i], afterCR, handlers);
+      }
+      length = reader.read(buffer);
+    }
+    for (CharHandler handler : handlers) {
       if (afterCR) {
-        for (CharHandler handler : handlers) {
-          if (c == CARRIAGE_RETURN) {
-            handler.newLine();
-            handler.handleAll(c);
-          } else if (c == LINE_FEED) {
-            handler.handleAll(c);
-            handler.newLine();
-          } else {
-            handler.newLine();
-            handler.handleIgnoreEoL(c);
-            handler.handleAll(c);
-          }
-        }
-        afterCR = c == CARRIAGE_RETURN;
-      } else if (c == LINE_FEED) {
-        for (CharHandler handler : handlers) {
-          handler.handleAll(c);
+        handler.newLine();
+      }
+      handler.eof();
+    }
+  }
+
+  /**
+   * @return whether {@code c} is a carriage return
+   */
+  private static boolean read(char c, boolean afterCR, CharHandler... handlers) {
+    if (afterCR) {
+      for (CharHandler handler : handlers) {
+        if (c == CARRIAGE_RETURN) {
           handler.newLine();
-        }
-      } else if (c == CARRIAGE_RETURN) {
-        afterCR = true;
-        for (CharHandler handler : handlers) {
           handler.handleAll(c);
-        }
-      } else {
-        for (CharHandler handler : handlers) {
+        } else if (c == LINE_FEED) {
+          handler.handleAll(c);
+          handler.newLine();
+        } else {
+          handler.newLine();
           handler.handleIgnoreEoL(c);
           handler.handleAll(c);
         }
       }
-      i = reader.read();
+      return c == CARRIAGE_RETURN;
     }
-    for (CharHandler handler : handlers) {
-      if (afterCR) {
+    if (c == LINE_FEED) {
+      for (CharHandler handler : handlers) {
+        handler.handleAll(c);
         handler.newLine();
       }
-      handler.eof();
+      return false;
+    }
+    if (c == CARRIAGE_RETURN) {
+      for (CharHandler handler : handlers) {
+        handler.handleAll(c);
+      }
+      return true;
+    }
+    for (CharHandler handler : handlers) {
+      handler.handleIgnoreEoL(c);
+      handler.handleAll(c);
     }
+    return false;
   }
 
   @FunctionalInterface
@@ -84,4 +84,20 @@ public interface SensorDescriptor {
    * @since 6.4
    */
   SensorDescriptor global();
+
+  /**
+   * This sensor can be executed concurrently with other thread-safe sensors when the parallel execution of sensors
+   * is enabled. Its code, and the code of the components it uses, must then be thread-safe.
+   * Default is to execute the sensor alone.
+   * @since 6.4
+   */
+  SensorDescriptor threadSafe();
+
+  /**
+   * Names (see {@link #name(String)}) of the sensors which must be executed before this {@link Sensor}, for example because
+   * it reads what they saved. Used by the platform to order sensors, and to wait for these sensors when sensors are executed
+   * concurrently.
+   * @since 6.4
+   */
+  SensorDescriptor dependsOnSensors(String... sensorNames);
 }
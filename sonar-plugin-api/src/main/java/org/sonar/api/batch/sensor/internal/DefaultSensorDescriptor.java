@@ -33,6 +33,8 @@ public class DefaultSensorDescriptor implements SensorDescriptor {
   private String[] ruleRepositories = new String[0];
   private String[] properties = new String[0];
   private boolean global = false;
+  private boolean threadSafe = false;
+  private String[] sensorDependencies = new String[0];
 
   public String name() {
     return name;
@@ -59,6 +61,14 @@ public class DefaultSensorDescriptor implements SensorDescriptor {
     return global;
   }
 
+  public boolean isThreadSafe() {
+    return threadSafe;
+  }
+
+  public Collection<String> sensorDependencies() {
+    return Arrays.asList(sensorDependencies);
+  }
+
   @Override
   public DefaultSensorDescriptor name(String name) {
     this.name = name;
@@ -110,4 +120,16 @@ public class DefaultSensorDescriptor implements SensorDescriptor {
     return this;
   }
 
+  @Override
+  public DefaultSensorDescriptor threadSafe() {
+    this.threadSafe = true;
+    return this;
+  }
+
+  @Override
+  public DefaultSensorDescriptor dependsOnSensors(String... sensorNames) {
+    this.sensorDependencies = sensorNames;
+    return this;
+  }
+
 }
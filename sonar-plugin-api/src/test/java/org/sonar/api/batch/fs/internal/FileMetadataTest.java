@@ -22,6 +22,8 @@ package org.sonar.api.batch.fs.internal;
 import java.io.File;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 import javax.annotation.Nullable;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.io.FileUtils;
@@ -35,6 +37,7 @@ import org.sonar.api.utils.log.LoggerLevel;
 
 import static org.apache.commons.codec.digest.DigestUtils.md5Hex;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.assertj.core.api.Assertions.fail;
 
 public class FileMetadataTest {
@@ -274,6 +277,37 @@ public class FileMetadataTest {
     });
   }
 
+  @Test
+  public void compute_line_hashes_while_reading_metadata() throws Exception {
+    File tempFile = temp.newFile();
+    FileUtils.write(tempFile, " foo\nb ar\r\n\r\nbaz \t", StandardCharsets.UTF_8, true);
+
+    Map<Integer, String> hashes = new HashMap<>();
+    Metadata metadata = new FileMetadata().readMetadata(tempFile, StandardCharsets.UTF_8,
+      (lineIdx, hash) -> hashes.put(lineIdx, hash == null ? null : Hex.encodeHexString(hash)));
+
+    assertThat(metadata.lines()).isEqualTo(4);
+    assertThat(metadata.nonBlankLines()).isEqualTo(3);
+    assertThat(metadata.hash()).isEqualTo(new FileMetadata().readMetadata(tempFile, StandardCharsets.UTF_8).hash());
+    assertThat(hashes).containsOnly(entry(1, md5Hex("foo")), entry(2, md5Hex("bar")), entry(4, md5Hex("baz")));
+  }
+
+  @Test
+  public void read_file_larger_than_buffer() throws Exception {
+    File tempFile = temp.newFile();
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      sb.append("line ").append(i).append("\r\n");
+    }
+    FileUtils.write(tempFile, sb.toString(), StandardCharsets.UTF_8, true);
+
+    Metadata metadata = new FileMetadata().readMetadata(tempFile, StandardCharsets.UTF_8);
+    assertThat(metadata.lines()).isEqualTo(5001);
+    assertThat(metadata.nonBlankLines()).isEqualTo(5000);
+    assertThat(metadata.hash()).isEqualTo(md5Hex(sb.toString().replace("\r\n", "\n")));
+    assertThat(metadata.originalLineOffsets()[4999]).isEqualTo(sb.lastIndexOf("line 4999"));
+  }
+
   @Test
   public void should_throw_if_file_does_not_exist() throws Exception {
     File tempFolder = temp.newFolder();
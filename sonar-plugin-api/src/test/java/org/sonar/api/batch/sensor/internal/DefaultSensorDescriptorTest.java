@@ -41,6 +41,20 @@ public class DefaultSensorDescriptorTest {
     assertThat(descriptor.type()).isEqualTo(InputFile.Type.MAIN);
     assertThat(descriptor.properties()).containsOnly("sonar.foo.reportPath");
     assertThat(descriptor.ruleRepositories()).containsOnly("squid-java");
+    assertThat(descriptor.isThreadSafe()).isFalse();
+    assertThat(descriptor.sensorDependencies()).isEmpty();
+  }
+
+  @Test
+  public void describe_thread_safe_sensor_with_dependencies() {
+    DefaultSensorDescriptor descriptor = new DefaultSensorDescriptor();
+    descriptor
+      .name("Foo")
+      .threadSafe()
+      .dependsOnSensors("Bar", "Baz");
+
+    assertThat(descriptor.isThreadSafe()).isTrue();
+    assertThat(descriptor.sensorDependencies()).containsExactly("Bar", "Baz");
   }
 
 }
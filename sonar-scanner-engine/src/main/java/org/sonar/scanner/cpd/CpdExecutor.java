@@ -22,15 +22,20 @@ package org.sonar.scanner.cpd;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputComponent;
@@ -56,6 +61,11 @@ import static com.google.common.collect.FluentIterable.from;
  * Runs on the root module, at the end of the project analysis.
  * It executes copy paste detection involving all files of all modules, which were indexed during sensors execution for each module
  * by {@link CpdSensor). The sensor is responsible for handling exclusions and block sizes.
+ * <p>
+ * Detection is executed concurrently for several files, on a pool whose size is defined by the property {@value #THREADS_PROPERTY}
+ * (by default, the number of available processors). Results are written to the report in the order of the index, whatever the order
+ * in which detections complete.
+ * </p>
  */
 public class CpdExecutor {
   private static final Logger LOG = Loggers.get(CpdExecutor.class);
@@ -63,6 +73,7 @@ public class CpdExecutor {
   private static final int TIMEOUT = 5 * 60 * 1000;
   static final int MAX_CLONE_GROUP_PER_FILE = 100;
   static final int MAX_CLONE_PART_PER_GROUP = 100;
+  static final String THREADS_PROPERTY = "sonar.cpd.threads";
 
   private final SonarCpdBlockIndex index;
   private final ReportPublisher publisher;
@@ -87,14 +98,20 @@ public class CpdExecutor {
   @VisibleForTesting
   void execute(long timeout) {
     total = index.noResources();
+    int threads = getThreads();
     progressReport.start(String.format("Calculating CPD for %d files", total));
-    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    LOG.debug("Calculating CPD with {} threads", threads);
+    ExecutorService executorService = Executors.newWorkStealingPool(threads);
     try {
+      List<FileDetection> detections = new ArrayList<>(total);
       Iterator<ResourceBlocks> it = index.iterator();
 
       while (it.hasNext()) {
         ResourceBlocks resourceBlocks = it.next();
-        runCpdAnalysis(executorService, resourceBlocks.resourceId(), resourceBlocks.blocks(), timeout);
+        detections.add(submitCpdAnalysis(executorService, resourceBlocks.resourceId(), resourceBlocks.blocks()));
+      }
+      for (FileDetection detection : detections) {
+        saveCpdAnalysis(detection, timeout);
         count++;
       }
       progressReport.stop("CPD calculation finished");
@@ -108,24 +125,40 @@ public class CpdExecutor {
 
   @VisibleForTesting
   void runCpdAnalysis(ExecutorService executorService, String componentKey, final Collection<Block> fileBlocks, long timeout) {
+    saveCpdAnalysis(submitCpdAnalysis(executorService, componentKey, fileBlocks), timeout);
+  }
+
+  @CheckForNull
+  private FileDetection submitCpdAnalysis(ExecutorService executorService, String componentKey, Collection<Block> fileBlocks) {
     DefaultInputComponent component = (DefaultInputComponent) componentStore.getByKey(componentKey);
     if (component == null) {
       LOG.error("Resource not found in component store: {}. Skipping CPD computation for it", componentKey);
-      return;
+      return null;
     }
+    FileDetection detection = new FileDetection(component);
+    detection.submit(executorService, () -> SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks));
+    return detection;
+  }
 
+  private void saveCpdAnalysis(@Nullable FileDetection detection, long timeout) {
+    if (detection == null) {
+      return;
+    }
+    DefaultInputComponent component = detection.component;
     InputFile inputFile = (InputFile) component;
     LOG.debug("Detection of duplications for {}", inputFile.absolutePath());
     progressReport.message(String.format("%d/%d - current file: %s", count, total, inputFile.absolutePath()));
 
     List<CloneGroup> duplications;
-    Future<List<CloneGroup>> futureResult = executorService.submit(() -> SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks));
     try {
-      duplications = futureResult.get(timeout, TimeUnit.MILLISECONDS);
+      duplications = detection.get(timeout);
     } catch (TimeoutException e) {
       LOG.warn("Timeout during detection of duplications for " + inputFile.absolutePath());
-      futureResult.cancel(true);
+      detection.cancel();
       return;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted during detection of duplication for " + inputFile.absolutePath(), e);
     } catch (Exception e) {
       throw new IllegalStateException("Fail during detection of duplication for " + inputFile.absolutePath(), e);
     }
@@ -141,6 +174,15 @@ public class CpdExecutor {
     saveDuplications(component, filtered);
   }
 
+  @VisibleForTesting
+  int getThreads() {
+    int threads = settings.getInt(THREADS_PROPERTY);
+    if (threads <= 0) {
+      threads = Runtime.getRuntime().availableProcessors();
+    }
+    return threads;
+  }
+
   @VisibleForTesting
   /**
    * Not applicable to Java, as the {@link BlockChunker} that it uses does not record start and end units of each block. 
@@ -213,4 +255,40 @@ public class CpdExecutor {
     }
     return dupBuilder.build();
   }
+
+  /**
+   * Detection of the duplications of a file. The timeout applies from the moment the detection starts, not from
+   * its submission, so that waiting for a free thread is not accounted. Still, the detection times out if it does not
+   * start within the timeout, for example because all threads are stuck on other files.
+   */
+  private static class FileDetection {
+    private final DefaultInputComponent component;
+    private final CountDownLatch started = new CountDownLatch(1);
+    private volatile long startNanos;
+    private Future<List<CloneGroup>> future;
+
+    private FileDetection(DefaultInputComponent component) {
+      this.component = component;
+    }
+
+    private void submit(ExecutorService executorService, Callable<List<CloneGroup>> detection) {
+      this.future = executorService.submit(() -> {
+        startNanos = System.nanoTime();
+        started.countDown();
+        return detection.call();
+      });
+    }
+
+    private List<CloneGroup> get(long timeoutMs) throws InterruptedException, ExecutionException, TimeoutException {
+      if (!started.await(timeoutMs, TimeUnit.MILLISECONDS)) {
+        throw new TimeoutException("Detection of duplications did not start");
+      }
+      long remainingNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMs) - System.nanoTime();
+      return future.get(Math.max(0L, remainingNanos), TimeUnit.NANOSECONDS);
+    }
+
+    private void cancel() {
+      future.cancel(true);
+    }
+  }
 }
@@ -54,7 +54,13 @@ public final class FileHashes {
     final byte[][] hashes = new byte[f.lines()][];
     FileMetadata.computeLineHashesForIssueTracking(f,
       (lineIdx, hash) -> hashes[lineIdx - 1] = hash);
+    return create(hashes);
+  }
 
+  /**
+   * @param hashes hashes of lines, as computed by {@link FileMetadata#computeLineHashesForIssueTracking(InputFile, FileMetadata.LineHashConsumer)}
+   */
+  public static FileHashes create(byte[][] hashes) {
     int size = hashes.length;
     Multimap<String, Integer> linesByHash = LinkedHashMultimap.create();
     String[] hexHashes = new String[size];
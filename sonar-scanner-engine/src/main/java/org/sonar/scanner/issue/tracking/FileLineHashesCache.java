@@ -0,0 +1,118 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.tracking;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.picocontainer.Startable;
+import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.scanner.analysis.DefaultAnalysisMode;
+import org.sonar.scanner.repository.ProjectRepositories;
+
+/**
+ * Keeps the line hashes used by issue tracking, computed while the metadata of files are read, so that
+ * {@link SourceHashHolder} does not have to read files again.
+ * <p>
+ * Hashes are kept only when issue tracking is executed, that is in issues mode when project was already analyzed,
+ * and only for the files whose issues are tracked. Unchanged files are skipped when only changed files are scanned,
+ * because their server issues are copied as is.
+ * <p>
+ * The total number of cached lines is bounded. Hashes of files which do not fit are not kept, and
+ * {@link SourceHashHolder} computes them again by reading the file. Hashes are dropped as soon as the
+ * file is tracked.
+ */
+@ScannerSide
+public class FileLineHashesCache implements Startable {
+
+  static final long DEFAULT_MAX_LINES = 500_000L;
+
+  private final boolean enabled;
+  private final boolean scanAllFiles;
+  private final long maxLines;
+  private final AtomicLong cachedLines = new AtomicLong();
+  private final Map<String, byte[][]> hashesByFileKey = new ConcurrentHashMap<>();
+
+  public FileLineHashesCache(DefaultAnalysisMode mode, ProjectRepositories projectRepositories) {
+    this(mode, projectRepositories, DEFAULT_MAX_LINES);
+  }
+
+  @VisibleForTesting
+  FileLineHashesCache(DefaultAnalysisMode mode, ProjectRepositories projectRepositories, long maxLines) {
+    this.enabled = mode.isIssues() && projectRepositories.lastAnalysisDate() != null;
+    this.scanAllFiles = mode.scanAllFiles();
+    this.maxLines = maxLines;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Status of file must be set, as it decides whether the issues of the file are tracked.
+   *
+   * @param hashes hashes of lines, indexed by line minus one. Hash of a blank line is null.
+   */
+  public void put(InputFile inputFile, byte[][] hashes) {
+    if (!enabled || !isTracked(inputFile)) {
+      return;
+    }
+    if (cachedLines.addAndGet(hashes.length) > maxLines) {
+      cachedLines.addAndGet(-hashes.length);
+      return;
+    }
+    release(hashesByFileKey.put(inputFile.key(), hashes));
+  }
+
+  private boolean isTracked(InputFile inputFile) {
+    return scanAllFiles || inputFile.status() != InputFile.Status.SAME;
+  }
+
+  /**
+   * @return the hashes of lines of the file, or null if they were not computed or not kept. Hashes are removed from the cache.
+   */
+  @CheckForNull
+  public byte[][] remove(InputFile inputFile) {
+    byte[][] hashes = hashesByFileKey.remove(inputFile.key());
+    release(hashes);
+    return hashes;
+  }
+
+  private void release(@Nullable byte[][] hashes) {
+    if (hashes != null) {
+      cachedLines.addAndGet(-hashes.length);
+    }
+  }
+
+  @Override
+  public void start() {
+    // nothing to do
+  }
+
+  @Override
+  public void stop() {
+    hashesByFileKey.clear();
+    cachedLines.set(0L);
+  }
+}
@@ -66,7 +66,7 @@ public class IssueTransition {
       localIssueTracking.init();
     }
 
-    ScannerReportReader reader = new ScannerReportReader(reportPublisher.getReportDir());
+    ScannerReportReader reader = reportPublisher.getWriter().newReader();
     int nbComponents = inputComponentStore.all().size();
 
     if (nbComponents == 0) {
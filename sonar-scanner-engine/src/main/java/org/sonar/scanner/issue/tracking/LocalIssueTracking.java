@@ -56,11 +56,13 @@ public class LocalIssueTracking {
   private final ServerIssueRepository serverIssueRepository;
   private final DefaultAnalysisMode mode;
   private final InputComponentTree componentTree;
+  private final FileLineHashesCache lineHashesCache;
 
   private boolean hasServerAnalysis;
 
   public LocalIssueTracking(Tracker<TrackedIssue, ServerIssueFromWs> tracker, ServerLineHashesLoader lastLineHashes, InputComponentTree componentTree,
-    ActiveRules activeRules, ServerIssueRepository serverIssueRepository, ProjectRepositories projectRepositories, DefaultAnalysisMode mode) {
+    ActiveRules activeRules, ServerIssueRepository serverIssueRepository, ProjectRepositories projectRepositories, DefaultAnalysisMode mode,
+    FileLineHashesCache lineHashesCache) {
     this.tracker = tracker;
     this.lastLineHashes = lastLineHashes;
     this.componentTree = componentTree;
@@ -68,6 +70,7 @@ public class LocalIssueTracking {
     this.mode = mode;
     this.activeRules = activeRules;
     this.hasServerAnalysis = projectRepositories.lastAnalysisDate() != null;
+    this.lineHashesCache = lineHashesCache;
   }
 
   public void init() {
@@ -99,6 +102,7 @@ public class LocalIssueTracking {
         mergeMatched(track, trackedIssues, rIssues);
         addUnmatchedFromReport(track.getUnmatchedRaws(), trackedIssues, analysisDate);
       }
+      releaseLineHashes(component);
     }
 
     if (hasServerAnalysis && componentTree.getParent(component) == null) {
@@ -160,13 +164,22 @@ public class LocalIssueTracking {
     }
   }
 
+  /**
+   * Line hashes are not consumed by {@link SourceHashHolder} when the file has neither raw nor server issues.
+   */
+  private void releaseLineHashes(InputComponent component) {
+    if (component.isFile()) {
+      lineHashesCache.remove((InputFile) component);
+    }
+  }
+
   @CheckForNull
   private SourceHashHolder loadSourceHashes(InputComponent component) {
     SourceHashHolder sourceHashHolder = null;
     if (component.isFile()) {
       DefaultInputModule module = (DefaultInputModule) componentTree.getParent(componentTree.getParent(component));
       DefaultInputFile file = (DefaultInputFile) component;
-      sourceHashHolder = new SourceHashHolder(module, file, lastLineHashes);
+      sourceHashHolder = new SourceHashHolder(module, file, lastLineHashes, lineHashesCache);
     }
     return sourceHashHolder;
   }
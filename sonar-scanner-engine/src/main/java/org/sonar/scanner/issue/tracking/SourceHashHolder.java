@@ -32,19 +32,22 @@ public class SourceHashHolder {
   private final DefaultInputModule module;
   private final DefaultInputFile inputFile;
   private final ServerLineHashesLoader lastSnapshots;
+  private final FileLineHashesCache lineHashesCache;
 
   private FileHashes hashedReference;
   private FileHashes hashedSource;
 
-  public SourceHashHolder(DefaultInputModule module, DefaultInputFile inputFile, ServerLineHashesLoader lastSnapshots) {
+  public SourceHashHolder(DefaultInputModule module, DefaultInputFile inputFile, ServerLineHashesLoader lastSnapshots, FileLineHashesCache lineHashesCache) {
     this.module = module;
     this.inputFile = inputFile;
     this.lastSnapshots = lastSnapshots;
+    this.lineHashesCache = lineHashesCache;
   }
 
   private void initHashes() {
     if (hashedSource == null) {
-      hashedSource = FileHashes.create(inputFile);
+      byte[][] cachedHashes = lineHashesCache.remove(inputFile);
+      hashedSource = cachedHashes != null ? FileHashes.create(cachedHashes) : FileHashes.create(inputFile);
       Status status = inputFile.status();
       if (status == Status.ADDED) {
         hashedReference = null;
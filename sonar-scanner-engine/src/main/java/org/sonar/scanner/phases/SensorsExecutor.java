@@ -20,32 +20,51 @@
 package org.sonar.scanner.phases;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
+import org.sonar.api.config.Settings;
 import org.sonar.api.resources.Project;
 import org.sonar.scanner.bootstrap.ScannerExtensionDictionnary;
 import org.sonar.scanner.events.EventBus;
 import org.sonar.scanner.sensor.SensorStrategy;
+import org.sonar.scanner.sensor.SensorWrapper;
 
+/**
+ * Executes sensors of a module, in the order of their dependencies.
+ * <p>
+ * When {@link #PARALLEL_PROPERTY} is enabled, sensors declared as thread-safe (see
+ * {@link org.sonar.api.batch.sensor.SensorDescriptor#threadSafe()}) are executed concurrently, as long as they do not
+ * depend on each other and belong to the same phase. Other sensors are still executed alone.
+ */
 @ScannerSide
 public class SensorsExecutor {
+  public static final String PARALLEL_PROPERTY = "sonar.scanner.parallelSensors";
+
   private final ScannerExtensionDictionnary selector;
   private final DefaultInputModule module;
   private final EventBus eventBus;
   private final SensorStrategy strategy;
   private final boolean isRoot;
+  private final boolean parallel;
 
-  public SensorsExecutor(ScannerExtensionDictionnary selector, DefaultInputModule module, EventBus eventBus, SensorStrategy strategy) {
+  public SensorsExecutor(ScannerExtensionDictionnary selector, DefaultInputModule module, EventBus eventBus, SensorStrategy strategy, Settings settings) {
     this.selector = selector;
     this.module = module;
     this.eventBus = eventBus;
     this.strategy = strategy;
     this.isRoot = module.definition().getParent() == null;
+    this.parallel = settings.getBoolean(PARALLEL_PROPERTY);
   }
 
   public void execute(SensorContext context) {
@@ -77,11 +96,71 @@ public class SensorsExecutor {
   }
 
   private void execute(SensorContext context, Collection<Sensor> sensors) {
-    for (Sensor sensor : sensors) {
-      executeSensor(context, sensor);
+    if (parallel && sensors.stream().filter(SensorsExecutor::isThreadSafe).count() > 1) {
+      executeConcurrently(context, new ArrayList<>(sensors));
+    } else {
+      for (Sensor sensor : sensors) {
+        executeSensor(context, sensor);
+      }
+    }
+  }
+
+  /**
+   * Each sensor is started once all the sensors it can not be executed concurrently with, and which are before it in
+   * the given sorted list, are done.
+   */
+  private void executeConcurrently(SensorContext context, List<Sensor> sortedSensors) {
+    int threads = Math.min(Math.max(2, Runtime.getRuntime().availableProcessors()), sortedSensors.size());
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+      .setNameFormat("sensor-%d")
+      .setDaemon(true)
+      .build());
+    try {
+      List<CompletableFuture<Void>> futures = new ArrayList<>(sortedSensors.size());
+      for (int i = 0; i < sortedSensors.size(); i++) {
+        Sensor sensor = sortedSensors.get(i);
+        List<CompletableFuture<Void>> previousFutures = new ArrayList<>();
+        for (int j = 0; j < i; j++) {
+          if (!canBeExecutedConcurrently(sortedSensors.get(j), sensor)) {
+            previousFutures.add(futures.get(j));
+          }
+        }
+        futures.add(CompletableFuture.allOf(previousFutures.toArray(new CompletableFuture[previousFutures.size()]))
+          .thenRunAsync(() -> executeSensor(context, sensor), executor));
+      }
+      for (CompletableFuture<Void> future : futures) {
+        joinSensor(future);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void joinSensor(CompletableFuture<Void> future) {
+    try {
+      future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
     }
   }
 
+  private static boolean canBeExecutedConcurrently(Sensor previous, Sensor sensor) {
+    if (!isThreadSafe(previous) || !isThreadSafe(sensor)) {
+      return false;
+    }
+    SensorWrapper previousWrapper = (SensorWrapper) previous;
+    SensorWrapper wrapper = (SensorWrapper) sensor;
+    return previousWrapper.phase() == wrapper.phase()
+      && (previousWrapper.sensorName() == null || !wrapper.sensorDependencies().contains(previousWrapper.sensorName()));
+  }
+
+  private static boolean isThreadSafe(Sensor sensor) {
+    return sensor instanceof SensorWrapper && ((SensorWrapper) sensor).isThreadSafe();
+  }
+
   private void executeSensor(SensorContext context, Sensor sensor) {
     eventBus.fireEvent(new SensorExecutionEvent(sensor, true));
     sensor.analyse(new Project(module.definition()), context);
@@ -52,17 +52,19 @@ public class ComponentsPublisher implements ReportPublisherStep {
 
   private InputComponentTree componentTree;
   private InputModuleHierarchy moduleHierarchy;
+  private DeltaReport deltaReport;
   private ScannerReportReader reader;
   private ScannerReportWriter writer;
 
-  public ComponentsPublisher(InputModuleHierarchy moduleHierarchy, InputComponentTree inputComponentTree) {
+  public ComponentsPublisher(InputModuleHierarchy moduleHierarchy, InputComponentTree inputComponentTree, DeltaReport deltaReport) {
     this.moduleHierarchy = moduleHierarchy;
     this.componentTree = inputComponentTree;
+    this.deltaReport = deltaReport;
   }
 
   @Override
   public void publish(ScannerReportWriter writer) {
-    this.reader = new ScannerReportReader(writer.getFileStructure().root());
+    this.reader = writer.newReader();
     this.writer = writer;
     recursiveWriteComponent((DefaultInputComponent) moduleHierarchy.root());
   }
@@ -109,6 +111,11 @@ public class ComponentsPublisher implements ReportPublisherStep {
       DefaultInputFile file = (DefaultInputFile) component;
       builder.setIsTest(file.type() == InputFile.Type.TEST);
       builder.setLines(file.lines());
+      if (deltaReport.skipSourceOf(file)) {
+        // status SAME means that hash of the file is the one of the source of the previous analysis
+        builder.setCopySourceFromPrevious(true);
+        builder.setPreviousSourceHash(file.hash());
+      }
 
       String lang = getLanguageKey(file);
       if (lang != null) {
@@ -0,0 +1,53 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.report;
+
+import org.sonar.api.batch.AnalysisMode;
+import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.config.Settings;
+
+/**
+ * When enabled with {@link #ENABLED_PROPERTY}, source, syntax highlighting and symbols of files which did not change since
+ * previous analysis (status {@link InputFile.Status#SAME}) are not sent in the report. Compute Engine copies them from
+ * previous analysis.
+ */
+@ScannerSide
+public class DeltaReport {
+
+  public static final String ENABLED_PROPERTY = "sonar.scanner.deltaReport";
+
+  private final boolean enabled;
+
+  public DeltaReport(Settings settings, AnalysisMode analysisMode) {
+    this.enabled = analysisMode.isPublish() && settings.getBoolean(ENABLED_PROPERTY);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @return whether source, syntax highlighting and symbols of the file must not be written to the report
+   */
+  public boolean skipSourceOf(InputFile file) {
+    return enabled && file.status() == InputFile.Status.SAME;
+  }
+}
@@ -29,7 +29,9 @@ import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
 import javax.annotation.Nullable;
 import okhttp3.HttpUrl;
@@ -65,6 +67,10 @@ public class ReportPublisher implements Startable {
   public static final String KEEP_REPORT_PROP_KEY = "sonar.batch.keepReport";
   public static final String VERBOSE_KEY = "sonar.verbose";
   public static final String METADATA_DUMP_FILENAME = "report-task.txt";
+  /**
+   * Layout of the report, see {@link ScannerReportWriter.Layout}. Default is one file per component and type of data.
+   */
+  public static final String LAYOUT_PROP_KEY = "sonar.scanner.report.layout";
 
   private final Settings settings;
   private final ScannerWsClient wsClient;
@@ -93,7 +99,7 @@ public class ReportPublisher implements Startable {
   @Override
   public void start() {
     reportDir = new File(projectReactor.getRoot().getWorkDir(), "batch-report");
-    writer = new ScannerReportWriter(reportDir);
+    writer = new ScannerReportWriter(reportDir, layout());
     contextPublisher.init(writer);
 
     if (!analysisMode.isIssues() && !analysisMode.isMediumTest()) {
@@ -111,6 +117,19 @@ public class ReportPublisher implements Startable {
     }
   }
 
+  private ScannerReportWriter.Layout layout() {
+    String layout = settings.getString(LAYOUT_PROP_KEY);
+    if (layout == null) {
+      return ScannerReportWriter.Layout.FILES;
+    }
+    try {
+      return ScannerReportWriter.Layout.valueOf(layout.toUpperCase(Locale.ENGLISH));
+    } catch (IllegalArgumentException e) {
+      throw MessageException.of(String.format("Unsupported value of property %s: '%s'. Supported values are %s", LAYOUT_PROP_KEY, layout,
+        Arrays.toString(ScannerReportWriter.Layout.values())));
+    }
+  }
+
   public File getReportDir() {
     return reportDir;
   }
@@ -144,6 +163,7 @@ public class ReportPublisher implements Startable {
       for (ReportPublisherStep publisher : publishers) {
         publisher.publish(writer);
       }
+      writer.finish();
       long stopTime = System.currentTimeMillis();
       LOG.info("Analysis report generated in {}ms, dir size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOfDirectory(reportDir)));
 
@@ -20,52 +20,64 @@
 package org.sonar.scanner.report;
 
 import org.apache.commons.io.ByteOrderMark;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.BOMInputStream;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scan.filesystem.InputComponentStore;
 
 import java.io.BufferedReader;
-import java.io.File;
+import java.io.BufferedWriter;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 
 public class SourcePublisher implements ReportPublisherStep {
 
   private final InputComponentStore componentCache;
+  private final DeltaReport deltaReport;
 
-  public SourcePublisher(InputComponentStore componentStore) {
+  public SourcePublisher(InputComponentStore componentStore, DeltaReport deltaReport) {
     this.componentCache = componentStore;
+    this.deltaReport = deltaReport;
   }
 
   @Override
   public void publish(ScannerReportWriter writer) {
     for (final DefaultInputFile inputFile : componentCache.allFilesToPublish()) {
-      File iofile = writer.getSourceFile(inputFile.batchId());
-
-      try (FileOutputStream output = new FileOutputStream(iofile);
-        BOMInputStream bomIn = new BOMInputStream(new FileInputStream(inputFile.file()),
-          ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE);
-        BufferedReader reader = new BufferedReader(new InputStreamReader(bomIn, inputFile.charset()))) {
-        writeSource(reader, output, inputFile.lines());
-      } catch (IOException e) {
+      if (deltaReport.skipSourceOf(inputFile)) {
+        continue;
+      }
+      try {
+        writer.writeComponentSource(inputFile.batchId(), out -> writeSource(inputFile, out));
+      } catch (RuntimeException e) {
         throw new IllegalStateException("Unable to store file source in the report", e);
       }
     }
   }
 
-  private static void writeSource(BufferedReader reader, FileOutputStream output, int lines) throws IOException {
+  private static void writeSource(DefaultInputFile inputFile, OutputStream out) throws IOException {
+    try (BOMInputStream bomIn = new BOMInputStream(new FileInputStream(inputFile.file()),
+      ByteOrderMark.UTF_8, ByteOrderMark.UTF_16LE, ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_32LE, ByteOrderMark.UTF_32BE);
+      BufferedReader reader = new BufferedReader(new InputStreamReader(bomIn, inputFile.charset()))) {
+      // the output stream is closed by the report writer
+      Writer output = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+      writeSource(reader, output, inputFile.lines());
+      output.flush();
+    }
+  }
+
+  private static void writeSource(BufferedReader reader, Writer output, int lines) throws IOException {
     int line = 0;
     String lineStr = reader.readLine();
     while (lineStr != null) {
-      IOUtils.write(lineStr, output, StandardCharsets.UTF_8);
+      output.write(lineStr);
       line++;
       if (line < lines) {
-        IOUtils.write("\n", output, StandardCharsets.UTF_8);
+        output.write('\n');
       }
       lineStr = reader.readLine();
     }
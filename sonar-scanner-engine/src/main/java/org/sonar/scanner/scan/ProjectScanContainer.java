@@ -53,6 +53,7 @@ import org.sonar.scanner.issue.DefaultProjectIssues;
 import org.sonar.scanner.issue.IssueCache;
 import org.sonar.scanner.issue.tracking.DefaultServerLineHashesLoader;
 import org.sonar.scanner.issue.tracking.IssueTransition;
+import org.sonar.scanner.issue.tracking.FileLineHashesCache;
 import org.sonar.scanner.issue.tracking.LocalIssueTracking;
 import org.sonar.scanner.issue.tracking.ServerIssueRepository;
 import org.sonar.scanner.issue.tracking.ServerLineHashesLoader;
@@ -62,6 +63,7 @@ import org.sonar.scanner.profiling.PhasesSumUpTimeProfiler;
 import org.sonar.scanner.report.ActiveRulesPublisher;
 import org.sonar.scanner.report.AnalysisContextReportPublisher;
 import org.sonar.scanner.report.ComponentsPublisher;
+import org.sonar.scanner.report.DeltaReport;
 import org.sonar.scanner.report.ContextPropertiesPublisher;
 import org.sonar.scanner.report.CoveragePublisher;
 import org.sonar.scanner.report.MeasuresPublisher;
@@ -88,6 +90,7 @@ import org.sonar.scanner.rule.DefaultRulesLoader;
 import org.sonar.scanner.rule.RulesLoader;
 import org.sonar.scanner.rule.RulesProvider;
 import org.sonar.scanner.scan.filesystem.BatchIdGenerator;
+import org.sonar.scanner.scan.filesystem.FileMetadataCache;
 import org.sonar.scanner.scan.filesystem.InputComponentStore;
 import org.sonar.scanner.scan.measure.DefaultMetricFinder;
 import org.sonar.scanner.scan.measure.DeprecatedMetricFinder;
@@ -154,6 +157,8 @@ public class ProjectScanContainer extends ComponentContainer {
       DefaultInputModuleHierarchy.class,
       DefaultComponentTree.class,
       BatchIdGenerator.class,
+      FileMetadataCache.class,
+      FileLineHashesCache.class,
 
       // rules
       new ActiveRulesProvider(),
@@ -189,6 +194,7 @@ public class ProjectScanContainer extends ComponentContainer {
       // Report
       ScannerMetrics.class,
       ReportPublisher.class,
+      DeltaReport.class,
       AnalysisContextReportPublisher.class,
       MetadataPublisher.class,
       ActiveRulesPublisher.class,
@@ -0,0 +1,274 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.filesystem;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.picocontainer.Startable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.batch.fs.internal.Metadata;
+import org.sonar.api.config.Settings;
+import org.sonar.home.cache.FileCache;
+import org.sonar.scanner.scan.ImmutableProjectReactor;
+
+/**
+ * Local cache of the {@link Metadata} of the files of the project, persisted in the user cache between analyses.
+ * <p>
+ * An entry is identified by the absolute path, size and last modification time of the file and by the default encoding
+ * of the module. When the file did not change since the previous analysis, its metadata is taken from the cache and the
+ * file is not read.
+ * </p>
+ * <p>
+ * Disabled by default, see {@link #ENABLED_PROPERTY}.
+ * </p>
+ */
+@ScannerSide
+public class FileMetadataCache implements Startable {
+  public static final String ENABLED_PROPERTY = "sonar.scanner.fileMetadataCache";
+
+  private static final Logger LOG = LoggerFactory.getLogger(FileMetadataCache.class);
+  private static final String CACHE_DIR = "_file_metadata";
+  private static final int FORMAT_VERSION = 1;
+
+  /**
+   * A file modified less than this delay before being read is not cached, because it may be modified again
+   * without its last modification time being changed, depending on the precision of the file system.
+   */
+  static final long MODIFICATION_TIME_PRECISION_MS = 2_000L;
+
+  @CheckForNull
+  private final Path cacheFile;
+  private final Map<String, Entry> previousEntries = new HashMap<>();
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+
+  public FileMetadataCache(Settings settings, FileCache fileCache, ImmutableProjectReactor reactor) {
+    this(settings.getBoolean(ENABLED_PROPERTY)
+      ? new File(new File(fileCache.getDir(), CACHE_DIR), DigestUtils.md5Hex(reactor.getRoot().getKeyWithBranch())).toPath()
+      : null);
+  }
+
+  FileMetadataCache(@Nullable Path cacheFile) {
+    this.cacheFile = cacheFile;
+  }
+
+  boolean isEnabled() {
+    return cacheFile != null;
+  }
+
+  /**
+   * Charset and metadata of the file, from the cache if the file did not change since they have been cached, otherwise
+   * from the {@code loader}.
+   */
+  CachedMetadata get(Path file, Charset defaultEncoding, Supplier<CachedMetadata> loader) {
+    if (!isEnabled()) {
+      return loader.get();
+    }
+    String path = file.toAbsolutePath().toString();
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read attributes of file " + path, e);
+    }
+    long size = attributes.size();
+    long lastModified = attributes.lastModifiedTime().toMillis();
+
+    Entry previous;
+    synchronized (previousEntries) {
+      previous = previousEntries.remove(path);
+    }
+    if (previous != null && previous.size == size && previous.lastModified == lastModified && previous.defaultEncoding.equals(defaultEncoding.name())) {
+      hits.incrementAndGet();
+      entries.put(path, previous);
+      return previous.metadata;
+    }
+
+    misses.incrementAndGet();
+    long readAt = System.currentTimeMillis();
+    CachedMetadata loaded = loader.get();
+    if (readAt - lastModified > MODIFICATION_TIME_PRECISION_MS) {
+      entries.put(path, new Entry(size, lastModified, defaultEncoding.name(), loaded));
+    }
+    return loaded;
+  }
+
+  int getHits() {
+    return hits.get();
+  }
+
+  int getMisses() {
+    return misses.get();
+  }
+
+  @Override
+  public void start() {
+    if (isEnabled() && Files.exists(cacheFile)) {
+      try {
+        load();
+      } catch (IOException | RuntimeException e) {
+        // cache is discarded, metadata of all files will be computed again
+        LOG.debug("Unable to load file metadata cache " + cacheFile, e);
+        previousEntries.clear();
+      }
+    }
+  }
+
+  @Override
+  public void stop() {
+    if (!isEnabled()) {
+      return;
+    }
+    int total = hits.get() + misses.get();
+    if (total > 0) {
+      LOG.info("File metadata cache: {}/{} hits ({}%)", hits.get(), total, hits.get() * 100 / total);
+    }
+    try {
+      save();
+    } catch (IOException e) {
+      LOG.warn("Unable to save file metadata cache " + cacheFile, e);
+    }
+  }
+
+  private void load() throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(cacheFile))))) {
+      if (in.readInt() != FORMAT_VERSION) {
+        return;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        String path = in.readUTF();
+        long size = in.readLong();
+        long lastModified = in.readLong();
+        String defaultEncoding = in.readUTF();
+        Charset charset = Charset.forName(in.readUTF());
+        int lines = in.readInt();
+        int nonBlankLines = in.readInt();
+        String hash = in.readUTF();
+        int[] originalLineOffsets = new int[in.readInt()];
+        for (int j = 0; j < originalLineOffsets.length; j++) {
+          originalLineOffsets[j] = in.readInt();
+        }
+        int lastValidOffset = in.readInt();
+        Metadata metadata = new Metadata(lines, nonBlankLines, hash, originalLineOffsets, lastValidOffset);
+        previousEntries.put(path, new Entry(size, lastModified, defaultEncoding, new CachedMetadata(charset, metadata)));
+      }
+    }
+  }
+
+  /**
+   * Only the entries of the files of the current analysis are saved. The file is written next to the previous one then
+   * moved, so that a concurrent analysis never reads a partially written cache.
+   */
+  private void save() throws IOException {
+    Files.createDirectories(cacheFile.getParent());
+    Path tempFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tempFile))))) {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(entries.size());
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+          Entry entry = e.getValue();
+          Metadata metadata = entry.metadata.metadata();
+          out.writeUTF(e.getKey());
+          out.writeLong(entry.size);
+          out.writeLong(entry.lastModified);
+          out.writeUTF(entry.defaultEncoding);
+          out.writeUTF(entry.metadata.charset().name());
+          out.writeInt(metadata.lines());
+          out.writeInt(metadata.nonBlankLines());
+          out.writeUTF(metadata.hash());
+          int[] originalLineOffsets = metadata.originalLineOffsets();
+          out.writeInt(originalLineOffsets.length);
+          for (int offset : originalLineOffsets) {
+            out.writeInt(offset);
+          }
+          out.writeInt(metadata.lastValidOffset());
+        }
+      }
+      move(tempFile, cacheFile);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  private static void move(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  static final class CachedMetadata {
+    private final Charset charset;
+    private final Metadata metadata;
+
+    CachedMetadata(Charset charset, Metadata metadata) {
+      this.charset = charset;
+      this.metadata = metadata;
+    }
+
+    Charset charset() {
+      return charset;
+    }
+
+    Metadata metadata() {
+      return metadata;
+    }
+  }
+
+  private static final class Entry {
+    private final long size;
+    private final long lastModified;
+    private final String defaultEncoding;
+    private final CachedMetadata metadata;
+
+    private Entry(long size, long lastModified, String defaultEncoding, CachedMetadata metadata) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.defaultEncoding = defaultEncoding;
+      this.metadata = metadata;
+    }
+  }
+}
@@ -27,6 +27,9 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,6 +38,8 @@ import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.FileMetadata;
 import org.sonar.api.batch.fs.internal.Metadata;
+import org.sonar.scanner.issue.tracking.FileLineHashesCache;
+import org.sonar.scanner.scan.filesystem.FileMetadataCache.CachedMetadata;
 
 class MetadataGenerator {
   private static final Logger LOG = LoggerFactory.getLogger(MetadataGenerator.class);
@@ -47,24 +52,39 @@ class MetadataGenerator {
   private final StatusDetection statusDetection;
   private final FileMetadata fileMetadata;
   private final DefaultInputModule inputModule;
+  private final FileMetadataCache metadataCache;
+  private final FileLineHashesCache lineHashesCache;
 
-  MetadataGenerator(DefaultInputModule inputModule, StatusDetection statusDetection, FileMetadata fileMetadata) {
+  MetadataGenerator(DefaultInputModule inputModule, StatusDetection statusDetection, FileMetadata fileMetadata, FileMetadataCache metadataCache,
+    FileLineHashesCache lineHashesCache) {
     this.inputModule = inputModule;
     this.statusDetection = statusDetection;
     this.fileMetadata = fileMetadata;
+    this.metadataCache = metadataCache;
+    this.lineHashesCache = lineHashesCache;
   }
 
   /**
    * Sets all metadata in the file, including charset and status.
-   * It is an expensive computation, reading the entire file.
+   * It is an expensive computation, reading the entire file, unless metadata is in {@link FileMetadataCache}.
+   * When issue tracking needs them, line hashes are computed during the same read and kept in {@link FileLineHashesCache}.
    */
   public void setMetadata(final DefaultInputFile inputFile, Charset defaultEncoding) {
     try {
-      Charset charset = detectCharset(inputFile.path(), defaultEncoding);
+      AtomicReference<byte[][]> lineHashes = new AtomicReference<>();
+      CachedMetadata cached = metadataCache.get(inputFile.path(), defaultEncoding, () -> {
+        Charset detectedCharset = detectCharset(inputFile.path(), defaultEncoding);
+        return new CachedMetadata(detectedCharset, readMetadata(inputFile, detectedCharset, lineHashes));
+      });
+      Charset charset = cached.charset();
       inputFile.setCharset(charset);
-      Metadata metadata = fileMetadata.readMetadata(inputFile.file(), charset);
+      Metadata metadata = cached.metadata();
       inputFile.setMetadata(metadata);
       inputFile.setStatus(statusDetection.status(inputModule.definition().getKeyWithBranch(), inputFile.relativePath(), metadata.hash()));
+      if (lineHashes.get() != null) {
+        // status is required to know whether issues of the file are tracked
+        lineHashesCache.put(inputFile, lineHashes.get());
+      }
       LOG.debug("'{}' generated metadata {} with charset '{}'",
         inputFile.relativePath(), inputFile.type() == Type.TEST ? "as test " : "", charset);
     } catch (Exception e) {
@@ -72,6 +92,26 @@ class MetadataGenerator {
     }
   }
 
+  private Metadata readMetadata(DefaultInputFile inputFile, Charset charset, AtomicReference<byte[][]> hashesRef) {
+    if (!lineHashesCache.isEnabled()) {
+      return fileMetadata.readMetadata(inputFile.file(), charset);
+    }
+    List<byte[]> lineHashes = new ArrayList<>();
+    Metadata metadata = fileMetadata.readMetadata(inputFile.file(), charset, (lineIdx, hash) -> {
+      // blank lines are not notified
+      while (lineHashes.size() < lineIdx - 1) {
+        lineHashes.add(null);
+      }
+      lineHashes.add(hash);
+    });
+    byte[][] hashes = new byte[metadata.lines()][];
+    for (int i = 0; i < lineHashes.size(); i++) {
+      hashes[i] = lineHashes.get(i);
+    }
+    hashesRef.set(hashes);
+    return metadata;
+  }
+
   /**
    * @return charset detected from BOM in given file or given defaultCharset
    * @throws IllegalStateException if an I/O error occurs
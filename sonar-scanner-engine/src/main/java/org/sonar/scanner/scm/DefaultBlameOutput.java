@@ -20,12 +20,18 @@
 package org.sonar.scanner.scm;
 
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.batch.fs.InputFile;
@@ -39,27 +45,36 @@ import org.sonar.scanner.protocol.output.ScannerReport.Changesets.Builder;
 import org.sonar.scanner.util.ProgressReport;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 
+/**
+ * Accepts concurrent calls of {@link #blameResult(InputFile, List)}. Changesets are converted in the calling thread,
+ * then written to the report by a single writer thread.
+ */
 class DefaultBlameOutput implements BlameOutput {
 
   private static final Logger LOG = Loggers.get(DefaultBlameOutput.class);
 
   private final ScannerReportWriter writer;
-  private final Set<InputFile> allFilesToBlame = new HashSet<>();
+  private final Set<InputFile> allFilesToBlame = ConcurrentHashMap.newKeySet();
+  private final ExecutorService writerExecutor;
+  private final AtomicReference<RuntimeException> writeFailure = new AtomicReference<>();
+  private final AtomicInteger count = new AtomicInteger();
   private ProgressReport progressReport;
-  private int count;
   private int total;
 
   DefaultBlameOutput(ScannerReportWriter writer, List<InputFile> filesToBlame) {
     this.writer = writer;
     this.allFilesToBlame.addAll(filesToBlame);
-    count = 0;
+    this.writerExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+      .setNameFormat("scm-blame-writer")
+      .setDaemon(true)
+      .build());
     total = filesToBlame.size();
     progressReport = new ProgressReport("Report about progress of SCM blame", TimeUnit.SECONDS.toMillis(10));
     progressReport.start(total + " files to be analyzed");
   }
 
   @Override
-  public synchronized void blameResult(InputFile file, List<BlameLine> lines) {
+  public void blameResult(InputFile file, List<BlameLine> lines) {
     Preconditions.checkNotNull(file);
     Preconditions.checkNotNull(lines);
     Preconditions.checkArgument(allFilesToBlame.contains(file), "It was not expected to blame file %s", file.relativePath());
@@ -86,10 +101,29 @@ class DefaultBlameOutput implements BlameOutput {
       scmBuilder.addChangesetIndexByLine(changesetId);
       lineId++;
     }
-    writer.writeComponentChangesets(scmBuilder.build());
-    allFilesToBlame.remove(file);
-    count++;
-    progressReport.message(count + "/" + total + " files analyzed");
+    ScannerReport.Changesets changesets = scmBuilder.build();
+    try {
+      writerExecutor.execute(() -> write(file, changesets));
+    } catch (RejectedExecutionException e) {
+      // blame was stopped, for example because of a timeout
+      LOG.debug("Ignoring blame result of file {} received after the end of SCM blame", file.relativePath());
+    }
+  }
+
+  private void write(InputFile file, ScannerReport.Changesets changesets) {
+    if (writeFailure.get() != null) {
+      return;
+    }
+    try {
+      writer.writeComponentChangesets(changesets);
+    } catch (RuntimeException e) {
+      writeFailure.compareAndSet(null, e);
+      return;
+    }
+    if (allFilesToBlame.remove(file)) {
+      int analyzed = count.incrementAndGet();
+      progressReport.message(analyzed + "/" + total + " files analyzed");
+    }
   }
 
   private static void validateLine(BlameLine line, int lineId, InputFile file) {
@@ -115,8 +149,21 @@ class DefaultBlameOutput implements BlameOutput {
     return inputString.toLowerCase();
   }
 
+  /**
+   * Waits for the pending changesets to be written. Results received afterwards are ignored.
+   */
   public void finish(boolean success) {
-    progressReport.stop(count + "/" + total + " files analyzed");
+    writerExecutor.shutdown();
+    try {
+      writerExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    progressReport.stop(count.get() + "/" + total + " files analyzed");
+    RuntimeException failure = writeFailure.get();
+    if (success && failure != null) {
+      throw new IllegalStateException("Fail to write SCM data to the report", failure);
+    }
     if (success && !allFilesToBlame.isEmpty()) {
       LOG.warn("Missing blame information for the following files:");
       for (InputFile f : allFilesToBlame) {
@@ -47,7 +47,38 @@ import org.sonar.scanner.scan.ImmutableProjectReactor;
     project = false,
     module = false,
     global = false,
-    type = PropertyType.BOOLEAN)
+    type = PropertyType.BOOLEAN),
+  @Property(
+    key = ScmConfiguration.BLAME_THREADS_KEY,
+    defaultValue = "1",
+    name = "Number of threads of SCM blame",
+    description = "Files to blame are split into batches which are given concurrently to the SCM provider by this number of threads. "
+      + "Only increase it with SCM providers supporting concurrent blame commands.",
+    category = CoreProperties.CATEGORY_SCM,
+    project = false,
+    module = false,
+    global = false,
+    type = PropertyType.INTEGER),
+  @Property(
+    key = ScmConfiguration.BLAME_BATCH_SIZE_KEY,
+    defaultValue = "" + ScmConfiguration.DEFAULT_BLAME_BATCH_SIZE,
+    name = "Number of files per batch of SCM blame",
+    description = "Only used when SCM blame is executed by several threads.",
+    category = CoreProperties.CATEGORY_SCM,
+    project = false,
+    module = false,
+    global = false,
+    type = PropertyType.INTEGER),
+  @Property(
+    key = ScmConfiguration.BLAME_BATCH_TIMEOUT_KEY,
+    defaultValue = "0",
+    name = "Timeout of a batch of SCM blame, in seconds",
+    description = "Files of a batch which is not blamed in time are reported without SCM information. Zero means no timeout.",
+    category = CoreProperties.CATEGORY_SCM,
+    project = false,
+    module = false,
+    global = false,
+    type = PropertyType.INTEGER)
 })
 @InstantiationStrategy(InstantiationStrategy.PER_BATCH)
 @ScannerSide
@@ -55,6 +86,10 @@ public final class ScmConfiguration implements Startable {
   private static final Logger LOG = Loggers.get(ScmConfiguration.class);
 
   public static final String FORCE_RELOAD_KEY = "sonar.scm.forceReloadAll";
+  public static final String BLAME_THREADS_KEY = "sonar.scm.blame.threads";
+  public static final String BLAME_BATCH_SIZE_KEY = "sonar.scm.blame.batchSize";
+  public static final String BLAME_BATCH_TIMEOUT_KEY = "sonar.scm.blame.batchTimeout";
+  static final int DEFAULT_BLAME_BATCH_SIZE = 500;
 
   private final ImmutableProjectReactor projectReactor;
   private final Settings settings;
@@ -147,6 +182,22 @@ public final class ScmConfiguration implements Startable {
     return settings.getBoolean(FORCE_RELOAD_KEY);
   }
 
+  public int blameThreads() {
+    return Math.max(1, settings.getInt(BLAME_THREADS_KEY));
+  }
+
+  public int blameBatchSize() {
+    int batchSize = settings.getInt(BLAME_BATCH_SIZE_KEY);
+    return batchSize > 0 ? batchSize : DEFAULT_BLAME_BATCH_SIZE;
+  }
+
+  /**
+   * @return timeout of a batch of SCM blame, in seconds. Zero if there is no timeout.
+   */
+  public long blameBatchTimeout() {
+    return Math.max(0L, settings.getLong(BLAME_BATCH_TIMEOUT_KEY));
+  }
+
   @Override
   public void stop() {
     // Nothing to do
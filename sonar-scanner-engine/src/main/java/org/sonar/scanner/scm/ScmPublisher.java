@@ -19,8 +19,18 @@
  */
 package org.sonar.scanner.scm;
 
-import java.util.LinkedList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.InstantiationStrategy;
@@ -79,7 +89,7 @@ public final class ScmPublisher {
       LOG.info("SCM provider for this project is: " + key);
       DefaultBlameOutput output = new DefaultBlameOutput(writer, filesToBlame);
       try {
-        configuration.provider().blameCommand().blame(new DefaultBlameInput(fs, filesToBlame), output);
+        blame(filesToBlame, output);
       } catch (Exception e) {
         output.finish(false);
         throw e;
@@ -88,11 +98,100 @@ public final class ScmPublisher {
     }
   }
 
+  /**
+   * Files are blamed by a single call to the SCM provider, unless several threads or a timeout are configured. In this case
+   * they are split into batches, and the SCM blame of a batch which times out is not waited for.
+   * <p>
+   * A batch times out when it is not blamed within the timeout once started. As threads of the SCM provider may hang, the
+   * whole SCM blame is also bounded by a deadline, computed when batches are submitted as if every thread blamed its
+   * batches one after the other, each of them until the timeout. Batches which did not start before this deadline are
+   * skipped.
+   */
+  private void blame(List<InputFile> filesToBlame, DefaultBlameOutput output) {
+    int threads = configuration.blameThreads();
+    long timeout = configuration.blameBatchTimeout();
+    if (threads == 1 && timeout == 0) {
+      configuration.provider().blameCommand().blame(new DefaultBlameInput(fs, filesToBlame), output);
+      return;
+    }
+    List<List<InputFile>> batches = threads == 1 ? Collections.singletonList(filesToBlame) : Lists.partition(filesToBlame, configuration.blameBatchSize());
+    LOG.debug("SCM blame of {} batches with {} threads", batches.size(), threads);
+    int poolSize = Math.min(threads, batches.size());
+    ExecutorService executor = Executors.newFixedThreadPool(poolSize, new ThreadFactoryBuilder()
+      .setNameFormat("scm-blame-%d")
+      .setDaemon(true)
+      .build());
+    ScheduledExecutorService timeoutExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+      .setNameFormat("scm-blame-timeout")
+      .setDaemon(true)
+      .build());
+    try {
+      int rounds = (batches.size() + poolSize - 1) / poolSize;
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout * rounds);
+      List<CompletableFuture<Void>> results = new ArrayList<>(batches.size());
+      for (List<InputFile> batch : batches) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        executor.execute(() -> blameBatch(batch, output, result, timeout, timeoutExecutor));
+        results.add(result);
+      }
+      for (int i = 0; i < results.size(); i++) {
+        long remainingNanos = timeout > 0 ? Math.max(0L, deadline - System.nanoTime()) : Long.MAX_VALUE;
+        waitForBatch(results.get(i), i + 1, batches.size(), remainingNanos);
+      }
+    } finally {
+      executor.shutdownNow();
+      timeoutExecutor.shutdownNow();
+    }
+  }
+
+  private void blameBatch(List<InputFile> batch, DefaultBlameOutput output, CompletableFuture<Void> result, long timeout,
+    ScheduledExecutorService timeoutExecutor) {
+    if (result.isDone()) {
+      // deadline of the whole SCM blame is over
+      return;
+    }
+    if (timeout > 0) {
+      timeoutExecutor.schedule(() -> result.completeExceptionally(new BlameTimeoutException()), timeout, TimeUnit.SECONDS);
+    }
+    try {
+      configuration.provider().blameCommand().blame(new DefaultBlameInput(fs, batch), output);
+      result.complete(null);
+    } catch (RuntimeException | Error e) {
+      result.completeExceptionally(e);
+    }
+  }
+
+  private static void waitForBatch(CompletableFuture<Void> result, int batchIndex, int batchCount, long remainingNanos) {
+    try {
+      result.get(remainingNanos, TimeUnit.NANOSECONDS);
+      LOG.debug("SCM blame of batch {}/{} done", batchIndex, batchCount);
+    } catch (TimeoutException e) {
+      // batch is skipped if it did not start yet
+      result.completeExceptionally(new BlameTimeoutException());
+      LOG.warn("SCM blame of batch {}/{} timed out", batchIndex, batchCount);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for SCM blame", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof BlameTimeoutException) {
+        LOG.warn("SCM blame of batch {}/{} timed out", batchIndex, batchCount);
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else {
+        throw new IllegalStateException("Fail to execute SCM blame", cause);
+      }
+    }
+  }
+
+  private static class BlameTimeoutException extends RuntimeException {
+  }
+
   private List<InputFile> collectFilesToBlame(ScannerReportWriter writer) {
     if (configuration.forceReloadAll()) {
       LOG.warn("Forced reloading of SCM data for all files.");
     }
-    List<InputFile> filesToBlame = new LinkedList<>();
+    List<InputFile> filesToBlame = new ArrayList<>();
     for (InputFile f : componentStore.inputFiles()) {
       DefaultInputFile inputFile = (DefaultInputFile) f;
       if (!inputFile.publish()) {
@@ -19,10 +19,15 @@
  */
 package org.sonar.scanner.sensor;
 
+import java.util.Collection;
+import org.sonar.api.batch.DependedUpon;
+import org.sonar.api.batch.DependsUpon;
+import org.sonar.api.batch.Phase;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.internal.DefaultSensorDescriptor;
 import org.sonar.api.resources.Project;
+import org.sonar.api.utils.AnnotationUtils;
 
 public class SensorWrapper implements org.sonar.api.batch.Sensor {
 
@@ -65,4 +70,26 @@ public class SensorWrapper implements org.sonar.api.batch.Sensor {
   public boolean isGlobal() {
     return descriptor.isGlobal();
   }
+
+  public boolean isThreadSafe() {
+    return descriptor.isThreadSafe();
+  }
+
+  public Phase.Name phase() {
+    Phase phase = AnnotationUtils.getAnnotation(wrappedSensor, Phase.class);
+    return phase != null ? phase.name() : Phase.Name.DEFAULT;
+  }
+
+  /**
+   * Names of the sensors to execute before this one
+   */
+  @DependsUpon
+  public Collection<String> sensorDependencies() {
+    return descriptor.sensorDependencies();
+  }
+
+  @DependedUpon
+  public String sensorName() {
+    return descriptor.name();
+  }
 }
@@ -50,7 +50,7 @@ public final class CodeColorizerSensor implements Sensor {
   public void execute(final SensorContext context) {
     FileSystem fs = context.fileSystem();
     for (InputFile f : fs.inputFiles(fs.predicates().all())) {
-      ScannerReportReader reader = new ScannerReportReader(reportPublisher.getReportDir());
+      ScannerReportReader reader = reportPublisher.getWriter().newReader();
       DefaultInputFile inputFile = (DefaultInputFile) f;
       String language = f.language();
       if (reader.hasSyntaxHighlighting(inputFile.batchId()) || language == null) {
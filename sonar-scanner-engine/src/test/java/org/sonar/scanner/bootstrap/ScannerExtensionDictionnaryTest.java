@@ -336,6 +336,35 @@ public class ScannerExtensionDictionnaryTest {
     assertThat(extensions).extracting("wrappedSensor").containsExactly(globalSensor);
   }
 
+  @Test
+  public void sortSensorsByDeclaredSensorDependencies() {
+    NamedNewSensor a = new NamedNewSensor("A");
+    NamedNewSensor b = new NamedNewSensor("B", "A");
+    NamedNewSensor c = new NamedNewSensor("C", "B");
+
+    ScannerExtensionDictionnary selector = newSelector(c, b, a);
+    assertThat(selector.selectSensors(null, false)).extracting("wrappedSensor").containsExactly(a, b, c);
+  }
+
+  class NamedNewSensor implements org.sonar.api.batch.sensor.Sensor {
+    private final String name;
+    private final String[] dependencies;
+
+    NamedNewSensor(String name, String... dependencies) {
+      this.name = name;
+      this.dependencies = dependencies;
+    }
+
+    @Override
+    public void describe(SensorDescriptor descriptor) {
+      descriptor.name(name).dependsOnSensors(dependencies);
+    }
+
+    @Override
+    public void execute(org.sonar.api.batch.sensor.SensorContext context) {
+    }
+  }
+
   class FakeSensor implements Sensor {
 
     public void analyse(Project project, SensorContext context) {
@@ -25,6 +25,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -122,6 +125,50 @@ public class CpdExecutorTest {
     assertThat(executor.getMinimumTokens("php")).isEqualTo(33);
   }
 
+  @Test
+  public void threads_default_to_available_processors() {
+    assertThat(executor.getThreads()).isEqualTo(Runtime.getRuntime().availableProcessors());
+  }
+
+  @Test
+  public void threads_are_configurable() {
+    settings.setProperty(CpdExecutor.THREADS_PROPERTY, "3");
+    assertThat(executor.getThreads()).isEqualTo(3);
+  }
+
+  @Test
+  public void detect_duplications_of_files_concurrently() {
+    settings.setProperty(CpdExecutor.THREADS_PROPERTY, "4");
+    insertBlocks(batchComponent1, "aaaaaaaa", 20);
+    insertBlocks(batchComponent2, "aaaaaaaa", 20);
+    insertBlocks(batchComponent3, "bbbbbbbb", 20);
+    for (int i = 4; i <= 20; i++) {
+      insertBlocks(createComponent("src/Other" + i + ".php", 5), "cccccc" + (10 + i), 20);
+    }
+
+    executor.execute(60_000);
+
+    Duplication[] dups = readDuplications(1);
+    assertDuplication(dups[0], 1, 21, batchComponent2.batchId(), 1, 21);
+    assertThat(reader.readComponentDuplications(batchComponent2.batchId())).hasSize(1);
+    assertThat(reader.readComponentDuplications(batchComponent3.batchId())).isEmpty();
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("CPD calculation finished");
+  }
+
+  private void insertBlocks(DefaultInputFile file, String hashPrefix, int nbBlocks) {
+    List<Block> blocks = new ArrayList<>();
+    for (int j = 1; j <= nbBlocks; j++) {
+      blocks.add(Block.builder()
+        .setResourceId(file.key())
+        .setIndexInFile(j)
+        .setLines(j, j + 1)
+        .setUnit(j * 10, j * 10 + 10)
+        .setBlockHash(new ByteArray((hashPrefix + j).substring(j > 9 ? 2 : 1).getBytes()))
+        .build());
+    }
+    index.insert((InputFile) file, blocks);
+  }
+
   @Test
   public void testNothingToSave() {
     executor.saveDuplications(batchComponent1, Collections.<CloneGroup>emptyList());
@@ -239,6 +286,29 @@ public class CpdExecutorTest {
         "Timeout during detection of duplications for .*Foo2.php");
   }
 
+  @Test
+  public void timeout_when_detection_does_not_start() {
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    CountDownLatch stuck = new CountDownLatch(1);
+    try {
+      // the only thread is stuck on another file
+      executorService.submit(() -> {
+        stuck.await();
+        return null;
+      });
+
+      executor.runCpdAnalysis(executorService, batchComponent1.key(), Collections.emptyList(), 100);
+    } finally {
+      stuck.countDown();
+      executorService.shutdown();
+    }
+
+    readDuplications(0);
+    assertThat(logTester.logs(LoggerLevel.WARN))
+      .usingElementComparator((l, r) -> l.matches(r) ? 0 : 1)
+      .containsOnly("Timeout during detection of duplications for .*Foo.php");
+  }
+
   private Duplication[] readDuplications(int expected) {
     assertThat(reader.readComponentDuplications(batchComponent1.batchId())).hasSize(expected);
     Duplication[] duplications = new Duplication[expected];
@@ -0,0 +1,125 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.issue.tracking;
+
+import java.util.Date;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.scanner.analysis.DefaultAnalysisMode;
+import org.sonar.scanner.repository.ProjectRepositories;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FileLineHashesCacheTest {
+
+  private static final byte[][] HASHES = new byte[][] {{1, 2}, null};
+
+  private DefaultAnalysisMode mode = mock(DefaultAnalysisMode.class);
+  private ProjectRepositories projectRepositories = mock(ProjectRepositories.class);
+  private InputFile file = new TestInputFileBuilder("foo", "src/Foo.java").build();
+
+  @Test
+  public void hashes_are_kept_until_consumed_when_issues_are_tracked() {
+    when(mode.isIssues()).thenReturn(true);
+    when(projectRepositories.lastAnalysisDate()).thenReturn(new Date());
+    FileLineHashesCache underTest = new FileLineHashesCache(mode, projectRepositories);
+
+    assertThat(underTest.isEnabled()).isTrue();
+    underTest.put(file, HASHES);
+
+    assertThat(underTest.remove(file)).isSameAs(HASHES);
+    assertThat(underTest.remove(file)).isNull();
+  }
+
+  @Test
+  public void hashes_of_unchanged_files_are_not_kept_when_only_changed_files_are_scanned() {
+    when(mode.isIssues()).thenReturn(true);
+    when(projectRepositories.lastAnalysisDate()).thenReturn(new Date());
+    FileLineHashesCache underTest = new FileLineHashesCache(mode, projectRepositories);
+    InputFile sameFile = new TestInputFileBuilder("foo", "src/Same.java").setStatus(InputFile.Status.SAME).build();
+
+    underTest.put(sameFile, HASHES);
+
+    assertThat(underTest.remove(sameFile)).isNull();
+  }
+
+  @Test
+  public void hashes_of_unchanged_files_are_kept_when_all_files_are_scanned() {
+    when(mode.isIssues()).thenReturn(true);
+    when(mode.scanAllFiles()).thenReturn(true);
+    when(projectRepositories.lastAnalysisDate()).thenReturn(new Date());
+    FileLineHashesCache underTest = new FileLineHashesCache(mode, projectRepositories);
+    InputFile sameFile = new TestInputFileBuilder("foo", "src/Same.java").setStatus(InputFile.Status.SAME).build();
+
+    underTest.put(sameFile, HASHES);
+
+    assertThat(underTest.remove(sameFile)).isSameAs(HASHES);
+  }
+
+  @Test
+  public void hashes_are_not_kept_beyond_max_number_of_lines() {
+    when(mode.isIssues()).thenReturn(true);
+    when(projectRepositories.lastAnalysisDate()).thenReturn(new Date());
+    FileLineHashesCache underTest = new FileLineHashesCache(mode, projectRepositories, 3);
+    InputFile otherFile = new TestInputFileBuilder("foo", "src/Other.java").build();
+
+    underTest.put(file, HASHES);
+    underTest.put(otherFile, HASHES);
+    assertThat(underTest.remove(otherFile)).isNull();
+
+    // lines of consumed hashes are released
+    assertThat(underTest.remove(file)).isSameAs(HASHES);
+    underTest.put(otherFile, HASHES);
+    assertThat(underTest.remove(otherFile)).isSameAs(HASHES);
+  }
+
+  @Test
+  public void disabled_in_publish_mode() {
+    when(projectRepositories.lastAnalysisDate()).thenReturn(new Date());
+    FileLineHashesCache underTest = new FileLineHashesCache(mode, projectRepositories);
+
+    assertThat(underTest.isEnabled()).isFalse();
+    underTest.put(file, HASHES);
+    assertThat(underTest.remove(file)).isNull();
+  }
+
+  @Test
+  public void disabled_when_project_was_never_analyzed() {
+    when(mode.isIssues()).thenReturn(true);
+    FileLineHashesCache underTest = new FileLineHashesCache(mode, projectRepositories);
+
+    assertThat(underTest.isEnabled()).isFalse();
+  }
+
+  @Test
+  public void stop_clears_hashes() {
+    when(mode.isIssues()).thenReturn(true);
+    when(projectRepositories.lastAnalysisDate()).thenReturn(new Date());
+    FileLineHashesCache underTest = new FileLineHashesCache(mode, projectRepositories);
+    underTest.put(file, HASHES);
+
+    underTest.stop();
+
+    assertThat(underTest.remove(file)).isNull();
+  }
+}
@@ -33,6 +33,7 @@ import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 
+import static org.apache.commons.codec.digest.DigestUtils.md5;
 import static org.apache.commons.codec.digest.DigestUtils.md5Hex;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -47,6 +48,7 @@ public class SourceHashHolderTest {
   SourceHashHolder sourceHashHolder;
 
   ServerLineHashesLoader lastSnapshots;
+  FileLineHashesCache lineHashesCache;
   DefaultInputFile file;
 
   private File ioFile;
@@ -55,6 +57,7 @@ public class SourceHashHolderTest {
   @Before
   public void setUp() throws Exception {
     lastSnapshots = mock(ServerLineHashesLoader.class);
+    lineHashesCache = mock(FileLineHashesCache.class);
     file = mock(DefaultInputFile.class);
     ioFile = temp.newFile();
     when(file.file()).thenReturn(ioFile);
@@ -62,7 +65,7 @@ public class SourceHashHolderTest {
     when(file.lines()).thenReturn(1);
     when(file.charset()).thenReturn(StandardCharsets.UTF_8);
 
-    sourceHashHolder = new SourceHashHolder(new DefaultInputModule(def, 1), file, lastSnapshots);
+    sourceHashHolder = new SourceHashHolder(new DefaultInputModule(def, 1), file, lastSnapshots, lineHashesCache);
   }
 
   @Test
@@ -77,6 +80,14 @@ public class SourceHashHolderTest {
     assertThat(sourceHashHolder.getHashedSource().getHash(1)).isEqualTo(md5Hex(source));
   }
 
+  @Test
+  public void should_use_line_hashes_computed_with_metadata() throws Exception {
+    when(lineHashesCache.remove(file)).thenReturn(new byte[][] {md5("foo"), null});
+
+    assertThat(sourceHashHolder.getHashedSource().hashes()).containsExactly(md5Hex("foo"), "");
+    verify(lineHashesCache).remove(file);
+  }
+
   @Test
   public void should_lazy_load_reference_hashes_when_status_changed() throws Exception {
     final String source = "source";
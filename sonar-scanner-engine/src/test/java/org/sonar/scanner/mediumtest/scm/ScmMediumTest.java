@@ -255,6 +255,37 @@ public class ScmMediumTest {
     assertThat(logTester.logs()).containsSubsequence(MISSING_BLAME_INFORMATION_FOR_THE_FOLLOWING_FILES, "  * " + noBlameScmOnServer.getPath().replaceAll("\\\\", "/"));
   }
 
+  @Test
+  public void blame_batches_of_files_concurrently() throws IOException, URISyntaxException {
+    File baseDir = prepareProject();
+    File xooFile2 = new File(baseDir, "src/sample2.xoo");
+    FileUtils.write(xooFile2, "Sample xoo\ncontent");
+    FileUtils.write(new File(baseDir, "src/sample2.xoo.scm"),
+      // revision,author,dateTime
+      "1,foo,2013-01-04\n" +
+        "2,bar,2013-01-04\n");
+
+    tester.newTask()
+      .properties(ImmutableMap.<String, String>builder()
+        .put("sonar.task", "scan")
+        .put("sonar.projectBaseDir", baseDir.getAbsolutePath())
+        .put("sonar.projectKey", "com.foo.project")
+        .put("sonar.projectName", "Foo Project")
+        .put("sonar.projectVersion", "1.0-SNAPSHOT")
+        .put("sonar.projectDescription", "Description of Foo Project")
+        .put("sonar.sources", "src")
+        .put("sonar.scm.provider", "xoo")
+        .put("sonar.scm.blame.threads", "2")
+        .put("sonar.scm.blame.batchSize", "1")
+        .put("sonar.scm.blame.batchTimeout", "60")
+        .build())
+      .start();
+
+    assertThat(getChangesets(baseDir, "src/sample.xoo").getChangesetIndexByLineList()).hasSize(5);
+    assertThat(getChangesets(baseDir, "src/sample2.xoo").getChangesetIndexByLineList()).hasSize(2);
+    assertThat(logTester.logs()).containsSubsequence("2 files to be analyzed", "2/2 files analyzed");
+  }
+
   @Test
   public void forceReload() throws IOException, URISyntaxException {
 
@@ -20,17 +20,26 @@
 package org.sonar.scanner.phases;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.*;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.SensorDescriptor;
+import org.sonar.api.config.MapSettings;
 import org.sonar.api.resources.Project;
 import org.sonar.scanner.bootstrap.ScannerExtensionDictionnary;
 import org.sonar.scanner.events.EventBus;
+import org.sonar.scanner.sensor.SensorOptimizer;
 import org.sonar.scanner.sensor.SensorStrategy;
+import org.sonar.scanner.sensor.SensorWrapper;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -42,6 +51,8 @@ public class SensorsExecutorTest {
   private SensorsExecutor rootModuleExecutor;
   private SensorsExecutor subModuleExecutor;
   private SensorContext context;
+  private ScannerExtensionDictionnary selector;
+  private DefaultInputModule rootModule;
 
   private SensorStrategy strategy = new SensorStrategy();
 
@@ -74,16 +85,16 @@ public class SensorsExecutorTest {
   public void setUp() throws IOException {
     context = mock(SensorContext.class);
 
-    ScannerExtensionDictionnary selector = mock(ScannerExtensionDictionnary.class);
+    selector = mock(ScannerExtensionDictionnary.class);
     when(selector.selectSensors(any(DefaultInputModule.class), eq(false))).thenReturn(Collections.singleton(perModuleSensor));
     when(selector.selectSensors(any(DefaultInputModule.class), eq(true))).thenReturn(Collections.singleton(globalSensor));
 
-    DefaultInputModule rootModule = TestInputFileBuilder.newDefaultInputModule("root", temp.newFolder());
-    rootModuleExecutor = new SensorsExecutor(selector, rootModule, mock(EventBus.class), strategy);
+    rootModule = TestInputFileBuilder.newDefaultInputModule("root", temp.newFolder());
+    rootModuleExecutor = new SensorsExecutor(selector, rootModule, mock(EventBus.class), strategy, new MapSettings());
 
     DefaultInputModule subModule = TestInputFileBuilder.newDefaultInputModule("sub", temp.newFolder());
     rootModule.definition().addSubProject(subModule.definition());
-    subModuleExecutor = new SensorsExecutor(selector, subModule, mock(EventBus.class), strategy);
+    subModuleExecutor = new SensorsExecutor(selector, subModule, mock(EventBus.class), strategy, new MapSettings());
   }
 
   @Test
@@ -104,4 +115,114 @@ public class SensorsExecutorTest {
     assertThat(globalSensor.called).isTrue();
     assertThat(globalSensor.global).isTrue();
   }
+
+  @Test
+  public void execute_thread_safe_sensors_concurrently() {
+    CountDownLatch latch = new CountDownLatch(2);
+    List<String> executed = new CopyOnWriteArrayList<>();
+    List<Sensor> sensors = Arrays.asList(
+      wrap(new WaitingSensor("A", latch, executed), d -> d.name("A").threadSafe()),
+      wrap(new WaitingSensor("B", latch, executed), d -> d.name("B").threadSafe()));
+    when(selector.selectSensors(any(DefaultInputModule.class), eq(false))).thenReturn(sensors);
+
+    newParallelExecutor().execute(context);
+
+    assertThat(latch.getCount()).isZero();
+    assertThat(executed).containsOnly("A", "B");
+  }
+
+  @Test
+  public void wait_for_sensor_dependencies_and_sensors_which_are_not_thread_safe() {
+    List<String> executed = new CopyOnWriteArrayList<>();
+    List<Sensor> sensors = Arrays.asList(
+      wrap(new WaitingSensor("A", new CountDownLatch(0), executed), d -> d.name("A").threadSafe()),
+      wrap(new WaitingSensor("B", new CountDownLatch(0), executed), d -> d.name("B").threadSafe().dependsOnSensors("A")),
+      wrap(new WaitingSensor("C", new CountDownLatch(0), executed), d -> d.name("C")),
+      wrap(new WaitingSensor("D", new CountDownLatch(0), executed), d -> d.name("D").threadSafe()),
+      wrap(new WaitingSensor("E", new CountDownLatch(0), executed), d -> d.name("E").threadSafe()));
+    when(selector.selectSensors(any(DefaultInputModule.class), eq(false))).thenReturn(sensors);
+
+    newParallelExecutor().execute(context);
+
+    assertThat(executed).hasSize(5);
+    assertThat(executed.subList(0, 2)).containsExactly("A", "B");
+    assertThat(executed.get(2)).isEqualTo("C");
+    assertThat(executed.subList(3, 5)).containsOnly("D", "E");
+  }
+
+  @Test
+  public void fail_if_a_sensor_fails_when_executed_concurrently() {
+    List<Sensor> sensors = Arrays.asList(
+      wrap(new WaitingSensor("A", new CountDownLatch(0), new CopyOnWriteArrayList<>()), d -> d.name("A").threadSafe()),
+      wrap(new FailingSensor(), d -> d.name("B").threadSafe()));
+    when(selector.selectSensors(any(DefaultInputModule.class), eq(false))).thenReturn(sensors);
+
+    try {
+      newParallelExecutor().execute(context);
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("Failure of B");
+    }
+  }
+
+  private SensorsExecutor newParallelExecutor() {
+    MapSettings settings = new MapSettings();
+    settings.setProperty(SensorsExecutor.PARALLEL_PROPERTY, true);
+    return new SensorsExecutor(selector, rootModule, mock(EventBus.class), strategy, settings);
+  }
+
+  private static SensorWrapper wrap(org.sonar.api.batch.sensor.Sensor sensor, java.util.function.Consumer<SensorDescriptor> descriptor) {
+    return new SensorWrapper(new org.sonar.api.batch.sensor.Sensor() {
+      @Override
+      public void describe(SensorDescriptor d) {
+        descriptor.accept(d);
+      }
+
+      @Override
+      public void execute(org.sonar.api.batch.sensor.SensorContext context) {
+        sensor.execute(context);
+      }
+    }, mock(org.sonar.api.batch.sensor.SensorContext.class), mock(SensorOptimizer.class));
+  }
+
+  private static class WaitingSensor implements org.sonar.api.batch.sensor.Sensor {
+    private final String name;
+    private final CountDownLatch latch;
+    private final List<String> executed;
+
+    WaitingSensor(String name, CountDownLatch latch, List<String> executed) {
+      this.name = name;
+      this.latch = latch;
+      this.executed = executed;
+    }
+
+    @Override
+    public void describe(SensorDescriptor descriptor) {
+      // described by wrap()
+    }
+
+    @Override
+    public void execute(org.sonar.api.batch.sensor.SensorContext context) {
+      latch.countDown();
+      try {
+        // fails if the other sensor is not executed at the same time
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      executed.add(name);
+    }
+  }
+
+  private static class FailingSensor implements org.sonar.api.batch.sensor.Sensor {
+    @Override
+    public void describe(SensorDescriptor descriptor) {
+      // described by wrap()
+    }
+
+    @Override
+    public void execute(org.sonar.api.batch.sensor.SensorContext context) {
+      throw new IllegalStateException("Failure of B");
+    }
+  }
 }
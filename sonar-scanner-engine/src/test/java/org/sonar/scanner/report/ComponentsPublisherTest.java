@@ -56,6 +56,7 @@ public class ComponentsPublisherTest {
 
   private DefaultComponentTree tree;
   private InputModuleHierarchy moduleHierarchy;
+  private DeltaReport deltaReport = mock(DeltaReport.class);
   private File outputDir;
   private ScannerReportWriter writer;
 
@@ -110,7 +111,7 @@ public class ComponentsPublisherTest {
     DefaultInputFile testFile = new TestInputFileBuilder("module1", "test/FooTest.java", 7).setType(Type.TEST).setLines(4).build();
     tree.index(testFile, dir);
 
-    ComponentsPublisher publisher = new ComponentsPublisher(moduleHierarchy, tree);
+    ComponentsPublisher publisher = new ComponentsPublisher(moduleHierarchy, tree, deltaReport);
     publisher.publish(writer);
 
     assertThat(writer.hasComponentData(FileStructure.Domain.COMPONENT, 1)).isTrue();
@@ -138,6 +139,29 @@ public class ComponentsPublisherTest {
     assertThat(module1Protobuf.getVersion()).isEqualTo("1.0");
   }
 
+  @Test
+  public void flag_files_whose_source_is_not_in_the_report() {
+    DefaultInputModule root = new DefaultInputModule(ProjectDefinition.create().setKey("foo"), 1);
+    moduleHierarchy = mock(InputModuleHierarchy.class);
+    when(moduleHierarchy.root()).thenReturn(root);
+    when(moduleHierarchy.children(root)).thenReturn(Collections.emptyList());
+    DefaultInputDir dir = new DefaultInputDir("foo", "src", 2);
+    tree.index(dir, root);
+    DefaultInputFile unchangedFile = new TestInputFileBuilder("foo", "src/Foo.java", 3).setLines(2).setHash("source-hash").build();
+    tree.index(unchangedFile, dir);
+    DefaultInputFile changedFile = new TestInputFileBuilder("foo", "src/Bar.java", 4).setLines(2).build();
+    tree.index(changedFile, dir);
+    when(deltaReport.skipSourceOf(unchangedFile)).thenReturn(true);
+
+    new ComponentsPublisher(moduleHierarchy, tree, deltaReport).publish(writer);
+
+    ScannerReportReader reader = new ScannerReportReader(outputDir);
+    assertThat(reader.readComponent(3).getCopySourceFromPrevious()).isTrue();
+    assertThat(reader.readComponent(3).getPreviousSourceHash()).isEqualTo("source-hash");
+    assertThat(reader.readComponent(4).getCopySourceFromPrevious()).isFalse();
+    assertThat(reader.readComponent(4).getPreviousSourceHash()).isEmpty();
+  }
+
   @Test
   public void should_skip_dir_without_published_files() {
     ProjectAnalysisInfo projectAnalysisInfo = mock(ProjectAnalysisInfo.class);
@@ -176,7 +200,7 @@ public class ComponentsPublisherTest {
     DefaultInputFile file3 = new TestInputFileBuilder("module1", "src2/Foo3.java", 7).setPublish(false).setLines(2).build();
     tree.index(file3, dir3);
 
-    ComponentsPublisher publisher = new ComponentsPublisher(moduleHierarchy, tree);
+    ComponentsPublisher publisher = new ComponentsPublisher(moduleHierarchy, tree, deltaReport);
     publisher.publish(writer);
 
     assertThat(writer.hasComponentData(FileStructure.Domain.COMPONENT, 1)).isTrue();
@@ -224,7 +248,7 @@ public class ComponentsPublisherTest {
     DefaultInputFile testFile = new TestInputFileBuilder("module1", "test/FooTest.java", 6).setType(Type.TEST).setLines(4).build();
     tree.index(testFile, dir);
 
-    ComponentsPublisher publisher = new ComponentsPublisher(moduleHierarchy, tree);
+    ComponentsPublisher publisher = new ComponentsPublisher(moduleHierarchy, tree, deltaReport);
     publisher.publish(writer);
 
     assertThat(writer.hasComponentData(FileStructure.Domain.COMPONENT, 1)).isTrue();
@@ -285,7 +309,7 @@ public class ComponentsPublisherTest {
     DefaultInputFile file = new TestInputFileBuilder("module1", "src/Foo.java", 4).setLines(2).build();
     tree.index(file, dir);
 
-    ComponentsPublisher publisher = new ComponentsPublisher(moduleHierarchy, tree);
+    ComponentsPublisher publisher = new ComponentsPublisher(moduleHierarchy, tree, deltaReport);
     publisher.publish(writer);
 
     ScannerReportReader reader = new ScannerReportReader(outputDir);
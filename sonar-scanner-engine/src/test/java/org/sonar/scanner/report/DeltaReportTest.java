@@ -0,0 +1,67 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.report;
+
+import org.junit.Test;
+import org.sonar.api.batch.AnalysisMode;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.config.MapSettings;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DeltaReportTest {
+
+  private MapSettings settings = new MapSettings();
+  private AnalysisMode analysisMode = mock(AnalysisMode.class);
+  private InputFile sameFile = new TestInputFileBuilder("foo", "src/Same.java").setStatus(InputFile.Status.SAME).build();
+  private InputFile changedFile = new TestInputFileBuilder("foo", "src/Changed.java").setStatus(InputFile.Status.CHANGED).build();
+
+  @Test
+  public void skip_source_of_unchanged_files_when_enabled() {
+    settings.setProperty(DeltaReport.ENABLED_PROPERTY, true);
+    when(analysisMode.isPublish()).thenReturn(true);
+
+    DeltaReport underTest = new DeltaReport(settings, analysisMode);
+
+    assertThat(underTest.isEnabled()).isTrue();
+    assertThat(underTest.skipSourceOf(sameFile)).isTrue();
+    assertThat(underTest.skipSourceOf(changedFile)).isFalse();
+  }
+
+  @Test
+  public void disabled_by_default() {
+    when(analysisMode.isPublish()).thenReturn(true);
+
+    DeltaReport underTest = new DeltaReport(settings, analysisMode);
+
+    assertThat(underTest.isEnabled()).isFalse();
+    assertThat(underTest.skipSourceOf(sameFile)).isFalse();
+  }
+
+  @Test
+  public void disabled_in_issues_mode() {
+    settings.setProperty(DeltaReport.ENABLED_PROPERTY, true);
+
+    assertThat(new DeltaReport(settings, analysisMode).isEnabled()).isFalse();
+  }
+}
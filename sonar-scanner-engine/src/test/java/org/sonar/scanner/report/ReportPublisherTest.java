@@ -25,6 +25,7 @@ import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -45,6 +46,7 @@ import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.core.config.CorePropertyDefinitions;
 import org.sonar.scanner.analysis.DefaultAnalysisMode;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
+import org.sonar.scanner.protocol.output.FileStructure;
 import org.sonar.scanner.scan.ImmutableProjectReactor;
 import org.sonarqube.ws.WsCe;
 import org.sonarqube.ws.client.HttpException;
@@ -154,6 +156,28 @@ public class ReportPublisherTest {
     underTest.start();
   }
 
+  @Test
+  public void write_report_in_segments_if_property_is_set() throws IOException {
+    settings.setProperty(ReportPublisher.LAYOUT_PROP_KEY, "lz4_segments");
+    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, mock(TempFolder.class), new ReportPublisherStep[0]);
+
+    underTest.start();
+    underTest.getWriter().writeComponentMeasures(1, Collections.emptyList());
+
+    assertThat(underTest.getWriter().hasComponentData(FileStructure.Domain.MEASURES, 1)).isTrue();
+    assertThat(new File(underTest.getReportDir(), "segment-0.dat")).isFile();
+  }
+
+  @Test
+  public void fail_if_report_layout_is_not_supported() throws IOException {
+    settings.setProperty(ReportPublisher.LAYOUT_PROP_KEY, "zip");
+    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, mock(TempFolder.class), new ReportPublisherStep[0]);
+
+    exception.expect(MessageException.class);
+    exception.expectMessage("Unsupported value of property sonar.scanner.report.layout: 'zip'. Supported values are [FILES, SEGMENTS, LZ4_SEGMENTS]");
+    underTest.start();
+  }
+
   @Test
   public void log_but_not_dump_information_when_report_is_not_uploaded() {
     ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, mock(TempFolder.class), new ReportPublisherStep[0]);
@@ -0,0 +1,171 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.internal.Metadata;
+import org.sonar.scanner.scan.filesystem.FileMetadataCache.CachedMetadata;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileMetadataCacheTest {
+
+  private static final Charset ENCODING = StandardCharsets.UTF_8;
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Path cacheFile;
+  private Path file;
+  private AtomicInteger loads = new AtomicInteger();
+
+  @Before
+  public void setUp() throws IOException {
+    cacheFile = new File(temp.newFolder(), "cache").toPath();
+    file = temp.newFile("Foo.java").toPath();
+    writeOldFile("foo\nbar");
+  }
+
+  @Test
+  public void metadata_is_loaded_every_time_when_cache_is_disabled() {
+    FileMetadataCache underTest = new FileMetadataCache(null);
+    underTest.start();
+
+    underTest.get(file, ENCODING, this::load);
+    underTest.get(file, ENCODING, this::load);
+    underTest.stop();
+
+    assertThat(underTest.isEnabled()).isFalse();
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void metadata_of_unchanged_file_is_read_from_cache_of_previous_analysis() {
+    CachedMetadata loaded = analyse();
+
+    FileMetadataCache underTest = new FileMetadataCache(cacheFile);
+    underTest.start();
+    CachedMetadata cached = underTest.get(file, ENCODING, this::load);
+
+    assertThat(loads.get()).isEqualTo(1);
+    assertThat(underTest.getHits()).isEqualTo(1);
+    assertThat(underTest.getMisses()).isEqualTo(0);
+    assertThat(cached.charset()).isEqualTo(loaded.charset());
+    Metadata metadata = cached.metadata();
+    assertThat(metadata.lines()).isEqualTo(2);
+    assertThat(metadata.nonBlankLines()).isEqualTo(1);
+    assertThat(metadata.hash()).isEqualTo("hash");
+    assertThat(metadata.originalLineOffsets()).containsExactly(0, 4);
+    assertThat(metadata.lastValidOffset()).isEqualTo(7);
+  }
+
+  @Test
+  public void metadata_is_loaded_again_when_file_changed() throws IOException {
+    analyse();
+    writeOldFile("foo\nbar\nbaz");
+
+    analyse();
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void metadata_is_loaded_again_when_last_modification_time_changed() throws IOException {
+    analyse();
+    Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 1_000_000L));
+
+    analyse();
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void metadata_is_loaded_again_when_default_encoding_changed() {
+    analyse();
+
+    FileMetadataCache underTest = new FileMetadataCache(cacheFile);
+    underTest.start();
+    underTest.get(file, StandardCharsets.ISO_8859_1, this::load);
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void recently_modified_file_is_not_cached() throws IOException {
+    FileUtils.write(file.toFile(), "foo\nbar");
+
+    analyse();
+    analyse();
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void only_files_of_last_analysis_are_kept_in_cache() throws IOException {
+    analyse();
+    FileMetadataCache underTest = new FileMetadataCache(cacheFile);
+    underTest.start();
+    underTest.stop();
+
+    analyse();
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void corrupted_cache_is_ignored() throws IOException {
+    FileUtils.write(cacheFile.toFile(), "not a cache");
+
+    analyse();
+    analyse();
+
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  private CachedMetadata analyse() {
+    FileMetadataCache underTest = new FileMetadataCache(cacheFile);
+    underTest.start();
+    CachedMetadata metadata = underTest.get(file, ENCODING, this::load);
+    underTest.stop();
+    return metadata;
+  }
+
+  private CachedMetadata load() {
+    loads.incrementAndGet();
+    return new CachedMetadata(ENCODING, new Metadata(2, 1, "hash", new int[] {0, 4}, 7));
+  }
+
+  private void writeOldFile(String content) throws IOException {
+    FileUtils.write(file.toFile(), content);
+    Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 3_600_000L));
+  }
+}
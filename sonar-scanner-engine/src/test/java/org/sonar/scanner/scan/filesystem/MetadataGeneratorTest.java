@@ -20,6 +20,11 @@
 package org.sonar.scanner.scan.filesystem;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.apache.commons.codec.digest.DigestUtils.md5;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.nio.charset.StandardCharsets;
@@ -32,6 +37,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.sonar.api.batch.fs.InputFile;
@@ -40,6 +46,7 @@ import org.sonar.api.batch.fs.internal.DefaultInputModule;
 import org.sonar.api.batch.fs.internal.FileMetadata;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.utils.PathUtils;
+import org.sonar.scanner.issue.tracking.FileLineHashesCache;
 
 public class MetadataGeneratorTest {
   @Rule
@@ -49,6 +56,8 @@ public class MetadataGeneratorTest {
   private StatusDetection statusDetection;
   @Mock
   private DefaultModuleFileSystem fs;
+  @Mock
+  private FileLineHashesCache lineHashesCache;
 
   private FileMetadata metadata;
   private MetadataGenerator generator;
@@ -57,7 +66,7 @@ public class MetadataGeneratorTest {
   public void setUp() {
     MockitoAnnotations.initMocks(this);
     metadata = new FileMetadata();
-    generator = new MetadataGenerator(new DefaultInputModule("module"), statusDetection, metadata);
+    generator = new MetadataGenerator(new DefaultInputModule("module"), statusDetection, metadata, new FileMetadataCache(null), lineHashesCache);
   }
 
   @Test
@@ -114,5 +123,20 @@ public class MetadataGeneratorTest {
     assertThat(inputFile.key()).isEqualTo("struts:src/main/java/foo/Bar.java");
     assertThat(inputFile.relativePath()).isEqualTo("src/main/java/foo/Bar.java");
     assertThat(inputFile.lines()).isEqualTo(1);
+    verify(lineHashesCache, never()).put(any(InputFile.class), any(byte[][].class));
+  }
+
+  @Test
+  public void keep_line_hashes_when_required_by_issue_tracking() throws Exception {
+    when(lineHashesCache.isEnabled()).thenReturn(true);
+    Path baseDir = temp.newFolder().toPath();
+    Path srcFile = baseDir.resolve("Bar.java");
+    FileUtils.write(srcFile.toFile(), "foo\n\n b ar\n", StandardCharsets.UTF_8);
+
+    InputFile inputFile = createInputFileWithMetadata(generator, baseDir, "Bar.java");
+
+    ArgumentCaptor<byte[][]> hashes = ArgumentCaptor.forClass(byte[][].class);
+    verify(lineHashesCache).put(eq(inputFile), hashes.capture());
+    assertThat(hashes.getValue()).containsExactly(md5("foo"), null, md5("bar"), null);
   }
 }
@@ -19,16 +19,29 @@
  */
 package org.sonar.scanner.scm;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.scm.BlameLine;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scm.DefaultBlameOutput;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
 public class DefaultBlameOutputTest {
 
   @Rule
@@ -74,4 +87,38 @@ public class DefaultBlameOutputTest {
       .blameResult(file, Arrays.asList(new BlameLine().date(new Date()).author("guy")));
   }
 
+  @Test
+  public void accept_concurrent_blame_results() throws InterruptedException {
+    ScannerReportWriter writer = mock(ScannerReportWriter.class);
+    List<InputFile> files = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      files.add(new TestInputFileBuilder("foo", "src/main/java/Foo" + i + ".java").setLines(1).build());
+    }
+    DefaultBlameOutput output = new DefaultBlameOutput(writer, files);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    for (InputFile file : files) {
+      executor.execute(() -> output.blameResult(file, Arrays.asList(new BlameLine().revision("1").date(new Date()).author("guy"))));
+    }
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+    output.finish(true);
+
+    verify(writer, times(100)).writeComponentChangesets(any(ScannerReport.Changesets.class));
+  }
+
+  @Test
+  public void fail_on_finish_if_changesets_can_not_be_written() {
+    ScannerReportWriter writer = mock(ScannerReportWriter.class);
+    doThrow(new IllegalStateException("disk is full")).when(writer).writeComponentChangesets(any(ScannerReport.Changesets.class));
+    InputFile file = new TestInputFileBuilder("foo", "src/main/java/Foo.java").setLines(1).build();
+    DefaultBlameOutput output = new DefaultBlameOutput(writer, Arrays.asList(file));
+    output.blameResult(file, Arrays.asList(new BlameLine().revision("1").date(new Date()).author("guy")));
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Fail to write SCM data to the report");
+
+    output.finish(true);
+  }
+
 }
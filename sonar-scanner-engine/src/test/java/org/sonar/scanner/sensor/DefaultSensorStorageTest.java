@@ -29,6 +29,7 @@ import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputModule;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.measure.MetricFinder;
 import org.sonar.api.batch.sensor.highlighting.internal.DefaultHighlighting;
@@ -41,7 +42,9 @@ import org.sonar.api.utils.KeyValueFormat;
 import org.sonar.core.metric.ScannerMetrics;
 import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
 import org.sonar.scanner.issue.ModuleIssues;
+import org.sonar.scanner.protocol.output.FileStructure;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
+import org.sonar.scanner.report.DeltaReport;
 import org.sonar.scanner.report.ReportPublisher;
 import org.sonar.scanner.repository.ContextPropertiesCache;
 import org.sonar.scanner.scan.measure.MeasureCache;
@@ -67,6 +70,8 @@ public class DefaultSensorStorageTest {
   private ModuleIssues moduleIssues;
   private MeasureCache measureCache;
   private ContextPropertiesCache contextPropertiesCache = new ContextPropertiesCache();
+  private DeltaReport deltaReport = mock(DeltaReport.class);
+  private ScannerReportWriter writer;
 
   @Before
   public void prepare() throws Exception {
@@ -79,10 +84,11 @@ public class DefaultSensorStorageTest {
     CoverageExclusions coverageExclusions = mock(CoverageExclusions.class);
     when(coverageExclusions.isExcluded(any(InputFile.class))).thenReturn(false);
     ReportPublisher reportPublisher = mock(ReportPublisher.class);
-    when(reportPublisher.getWriter()).thenReturn(new ScannerReportWriter(temp.newFolder()));
+    writer = new ScannerReportWriter(temp.newFolder());
+    when(reportPublisher.getWriter()).thenReturn(writer);
     underTest = new DefaultSensorStorage(metricFinder,
       moduleIssues, settings, coverageExclusions, reportPublisher, measureCache,
-      mock(SonarCpdBlockIndex.class), contextPropertiesCache, new ScannerMetrics());
+      mock(SonarCpdBlockIndex.class), contextPropertiesCache, new ScannerMetrics(), deltaReport);
   }
 
   @Test
@@ -152,6 +158,20 @@ public class DefaultSensorStorageTest {
     underTest.store(st);
   }
 
+  @Test
+  public void do_not_store_highlighting_and_symbols_of_files_whose_source_is_not_in_the_report() throws Exception {
+    DefaultInputFile inputFile = new TestInputFileBuilder("foo", "src/Foo.java")
+      .setModuleBaseDir(temp.newFolder().toPath()).build();
+    when(deltaReport.skipSourceOf(inputFile)).thenReturn(true);
+
+    underTest.store(new DefaultHighlighting(null).onFile(inputFile));
+    underTest.store(new DefaultSymbolTable(null).onFile(inputFile));
+
+    assertThat(writer.hasComponentData(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, inputFile.batchId())).isFalse();
+    assertThat(writer.hasComponentData(FileStructure.Domain.SYMBOLS, inputFile.batchId())).isFalse();
+    assertThat(inputFile.publish()).isTrue();
+  }
+
   @Test
   public void shouldStoreContextProperty() {
     underTest.storeProperty("foo", "bar");
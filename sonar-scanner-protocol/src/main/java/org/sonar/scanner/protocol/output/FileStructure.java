@@ -50,6 +50,11 @@ public class FileStructure {
     }
   }
 
+  static final String METADATA_FILE = "metadata.pb";
+  static final String ANALYSIS_LOG_FILE = "analysis.log";
+  static final String ACTIVE_RULES_FILE = "activerules.pb";
+  static final String CONTEXT_PROPERTIES_FILE = "context-props.pb";
+
   private final File dir;
 
   public FileStructure(File dir) {
@@ -60,23 +65,30 @@ public class FileStructure {
   }
 
   public File metadataFile() {
-    return new File(dir, "metadata.pb");
+    return new File(dir, METADATA_FILE);
   }
 
   public File analysisLog() {
-    return new File(dir, "analysis.log");
+    return new File(dir, ANALYSIS_LOG_FILE);
   }
 
   public File activeRules() {
-    return new File(dir, "activerules.pb");
+    return new File(dir, ACTIVE_RULES_FILE);
   }
 
   public File fileFor(Domain domain, int componentRef) {
-    return new File(dir, domain.filePrefix + componentRef + domain.fileSuffix);
+    return new File(dir, fileName(domain, componentRef));
+  }
+
+  /**
+   * Name of the file, relative to the root of the report
+   */
+  static String fileName(Domain domain, int componentRef) {
+    return domain.filePrefix + componentRef + domain.fileSuffix;
   }
 
   public File contextProperties() {
-    return new File(dir, "context-props.pb");
+    return new File(dir, CONTEXT_PROPERTIES_FILE);
   }
   
   public File root() {
@@ -0,0 +1,118 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Access to the files of a report, identified by their name relative to the root of the report.
+ */
+interface ReportEntries extends Closeable {
+
+  boolean exists(String name);
+
+  /**
+   * Opens the file of the report. Caller is responsible for closing the stream.
+   */
+  InputStream open(String name) throws IOException;
+
+  /**
+   * Location of the file of the report, to be used in messages
+   */
+  String describe(String name);
+
+  /**
+   * Files of a report extracted to a directory
+   */
+  class Directory implements ReportEntries {
+    private final File dir;
+
+    Directory(File dir) {
+      this.dir = dir;
+    }
+
+    @Override
+    public boolean exists(String name) {
+      File file = new File(dir, name);
+      return file.exists() && file.isFile();
+    }
+
+    @Override
+    public InputStream open(String name) throws IOException {
+      return new BufferedInputStream(new FileInputStream(new File(dir, name)));
+    }
+
+    @Override
+    public String describe(String name) {
+      return new File(dir, name).toString();
+    }
+
+    @Override
+    public void close() {
+      // nothing to release
+    }
+  }
+
+  /**
+   * Files of a report read directly from its zip archive. Only the central directory of the archive is read
+   * when opening it, entries are decompressed when they are opened.
+   */
+  class Archive implements ReportEntries {
+    private final File file;
+    private final ZipFile zipFile;
+
+    Archive(File file) throws IOException {
+      this.file = file;
+      this.zipFile = new ZipFile(file);
+    }
+
+    @Override
+    public boolean exists(String name) {
+      ZipEntry entry = zipFile.getEntry(name);
+      return entry != null && !entry.isDirectory();
+    }
+
+    @Override
+    public InputStream open(String name) throws IOException {
+      ZipEntry entry = zipFile.getEntry(name);
+      if (entry == null) {
+        throw new IOException("Entry " + name + " does not exist in " + file);
+      }
+      return new BufferedInputStream(zipFile.getInputStream(entry));
+    }
+
+    @Override
+    public String describe(String name) {
+      return file + "!/" + name;
+    }
+
+    @Override
+    public void close() throws IOException {
+      zipFile.close();
+    }
+  }
+}
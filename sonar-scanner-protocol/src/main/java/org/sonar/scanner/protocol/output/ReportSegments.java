@@ -0,0 +1,292 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import javax.annotation.CheckForNull;
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.core.util.Protobuf;
+import org.sonar.scanner.protocol.output.ScannerReport.SegmentEntry;
+
+import static java.lang.String.format;
+
+/**
+ * Files of a report stored in a few append-only segment files, instead of one file per component and type of data.
+ * Files which are not stored in segments (metadata, analysis log, ...) are read from the directory of the report.
+ * <p>
+ * Each file is made of one or several chunks of a segment, optionally compressed with LZ4. Chunks are located by an
+ * index which is kept in memory while writing and saved by {@link #finish()}.
+ * </p>
+ * <p>
+ * The last written chunk is kept open, so that consecutive appends to the same file (issues of a component for
+ * example) are written in a single chunk. It is closed when another file is written, when the file is read or when
+ * the segment is full.
+ * </p>
+ */
+class ReportSegments implements ReportEntries {
+
+  static final String INDEX_FILE = "segments.idx";
+  static final long DEFAULT_MAX_SEGMENT_SIZE = 256L * 1024 * 1024;
+  private static final String SEGMENT_FILE_PREFIX = "segment-";
+  private static final String SEGMENT_FILE_SUFFIX = ".dat";
+
+  private final File dir;
+  private final ReportEntries.Directory files;
+  private final boolean lz4;
+  private final long maxSegmentSize;
+  private final Map<String, List<SegmentEntry.Chunk>> chunksByName = new HashMap<>();
+
+  @CheckForNull
+  private CountingOutputStream segmentOutput;
+  private int segment = -1;
+  private boolean writable;
+
+  /**
+   * Name of the file of the chunk which is still open, if any
+   */
+  @CheckForNull
+  private String openChunkName;
+  @CheckForNull
+  private OutputStream openChunkOutput;
+  private long openChunkOffset;
+  private boolean openChunkAppended;
+
+  private ReportSegments(File dir, boolean lz4, long maxSegmentSize, boolean writable) {
+    this.dir = dir;
+    this.files = new ReportEntries.Directory(dir);
+    this.lz4 = lz4;
+    this.maxSegmentSize = maxSegmentSize;
+    this.writable = writable;
+  }
+
+  /**
+   * Segments to be written in {@code dir}. Chunks are compressed with LZ4 if {@code lz4} is {@code true}.
+   */
+  static ReportSegments create(File dir, boolean lz4, long maxSegmentSize) {
+    return new ReportSegments(dir, lz4, maxSegmentSize, true);
+  }
+
+  /**
+   * Segments written in {@code dir}, with their index
+   */
+  static ReportSegments load(File dir) {
+    ReportSegments segments = new ReportSegments(dir, false, DEFAULT_MAX_SEGMENT_SIZE, false);
+    try (CloseableIterator<SegmentEntry> it = Protobuf.readStream(new File(dir, INDEX_FILE), SegmentEntry.parser())) {
+      while (it.hasNext()) {
+        SegmentEntry entry = it.next();
+        segments.chunksByName.put(entry.getName(), new ArrayList<>(entry.getChunkList()));
+      }
+    }
+    return segments;
+  }
+
+  static boolean exist(File dir) {
+    return new File(dir, INDEX_FILE).isFile();
+  }
+
+  /**
+   * Writes a file of the report in the current segment. The file replaces the existing one with the same name,
+   * unless {@code append} is {@code true}.
+   */
+  synchronized void write(String name, boolean append, ScannerReportWriter.DataWriter data) {
+    if (!writable) {
+      throw new IllegalStateException(format("Can not write %s, segments of report are finished", describe(name)));
+    }
+    try {
+      if (!append || !name.equals(openChunkName) || segmentOutput.getByteCount() >= maxSegmentSize) {
+        closeChunk();
+        openChunk(name, append);
+      }
+      data.writeTo(openChunkOutput);
+    } catch (IOException e) {
+      // the chunk may be partially written, it is not indexed
+      openChunkName = null;
+      openChunkOutput = null;
+      throw new IllegalStateException("Fail to write " + describe(name), e);
+    }
+  }
+
+  private void openChunk(String name, boolean append) throws IOException {
+    CountingOutputStream output = segmentOutput();
+    OutputStream chunkOutput = new CloseShieldOutputStream(output);
+    if (lz4) {
+      chunkOutput = new LZ4BlockOutputStream(chunkOutput);
+    }
+    openChunkName = name;
+    openChunkOutput = chunkOutput;
+    openChunkOffset = output.getByteCount();
+    openChunkAppended = append;
+  }
+
+  private void closeChunk() throws IOException {
+    if (openChunkName == null) {
+      return;
+    }
+    // flushes LZ4 block, segment is not closed
+    openChunkOutput.close();
+    SegmentEntry.Chunk chunk = SegmentEntry.Chunk.newBuilder()
+      .setSegment(segment)
+      .setOffset(openChunkOffset)
+      .setLength(segmentOutput.getByteCount() - openChunkOffset)
+      .setLz4(lz4)
+      .build();
+    List<SegmentEntry.Chunk> chunks = chunksByName.get(openChunkName);
+    if (chunks == null || !openChunkAppended) {
+      chunks = new ArrayList<>(1);
+      chunksByName.put(openChunkName, chunks);
+    }
+    chunks.add(chunk);
+    openChunkName = null;
+    openChunkOutput = null;
+  }
+
+  /**
+   * Closes the current segment and saves the index. Files can still be read but not written anymore.
+   */
+  synchronized void finish() {
+    if (!writable) {
+      return;
+    }
+    writable = false;
+    try {
+      closeChunk();
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write " + describe(openChunkName), e);
+    }
+    IOUtils.closeQuietly(segmentOutput);
+    segmentOutput = null;
+    List<SegmentEntry> entries = new ArrayList<>(chunksByName.size());
+    chunksByName.forEach((name, chunks) -> entries.add(SegmentEntry.newBuilder().setName(name).addAllChunk(chunks).build()));
+    Protobuf.writeStream(entries, new File(dir, INDEX_FILE), false);
+  }
+
+  @Override
+  public synchronized boolean exists(String name) {
+    return chunksByName.containsKey(name) || name.equals(openChunkName) || files.exists(name);
+  }
+
+  @Override
+  public InputStream open(String name) throws IOException {
+    List<SegmentEntry.Chunk> chunks;
+    synchronized (this) {
+      if (name.equals(openChunkName)) {
+        closeChunk();
+      }
+      List<SegmentEntry.Chunk> list = chunksByName.get(name);
+      if (list == null) {
+        return files.open(name);
+      }
+      chunks = new ArrayList<>(list);
+      if (segmentOutput != null) {
+        // make chunks of the current segment visible to readers
+        segmentOutput.flush();
+      }
+    }
+    if (chunks.size() == 1) {
+      return openChunk(chunks.get(0));
+    }
+    return new SequenceInputStream(new ChunkStreams(chunks.iterator()));
+  }
+
+  @Override
+  public String describe(String name) {
+    return new File(dir, name) + " (" + INDEX_FILE + ")";
+  }
+
+  @Override
+  public void close() {
+    // streams are opened and closed by each read
+  }
+
+  private CountingOutputStream segmentOutput() throws IOException {
+    if (segmentOutput == null || segmentOutput.getByteCount() >= maxSegmentSize) {
+      IOUtils.closeQuietly(segmentOutput);
+      segment++;
+      segmentOutput = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(segmentFile(segment))));
+    }
+    return segmentOutput;
+  }
+
+  private File segmentFile(int segmentIndex) {
+    return new File(dir, SEGMENT_FILE_PREFIX + segmentIndex + SEGMENT_FILE_SUFFIX);
+  }
+
+  private InputStream openChunk(SegmentEntry.Chunk chunk) throws IOException {
+    FileInputStream input = new FileInputStream(segmentFile(chunk.getSegment()));
+    try {
+      input.getChannel().position(chunk.getOffset());
+    } catch (IOException e) {
+      IOUtils.closeQuietly(input);
+      throw e;
+    }
+    InputStream bounded = new BoundedInputStream(new BufferedInputStream(input), chunk.getLength());
+    return chunk.getLz4() ? new LZ4BlockInputStream(bounded) : bounded;
+  }
+
+  /**
+   * Opens the chunks of a file one after the other, while they are read by {@link SequenceInputStream}
+   */
+  private class ChunkStreams implements Enumeration<InputStream> {
+    private final Iterator<SegmentEntry.Chunk> chunks;
+
+    private ChunkStreams(Iterator<SegmentEntry.Chunk> chunks) {
+      this.chunks = chunks;
+    }
+
+    @Override
+    public boolean hasMoreElements() {
+      return chunks.hasNext();
+    }
+
+    @Override
+    public InputStream nextElement() {
+      if (!chunks.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      try {
+        return openChunk(chunks.next());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
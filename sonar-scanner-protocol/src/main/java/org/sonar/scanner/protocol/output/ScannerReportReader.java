@@ -19,162 +19,252 @@
  */
 package org.sonar.scanner.protocol.output;
 
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import javax.annotation.CheckForNull;
+import org.apache.commons.io.IOUtils;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.core.util.Protobuf;
 
 import static org.sonar.core.util.CloseableIterator.emptyCloseableIterator;
 
-public class ScannerReportReader {
+/**
+ * Reads a report either extracted to a directory, or directly from its zip archive (see {@link #openArchive(File)}).
+ * Reports written in segments (see {@link ScannerReportWriter.Layout}) are detected and can only be read from a directory.
+ */
+public class ScannerReportReader implements Closeable {
 
+  @CheckForNull
   private final FileStructure fileStructure;
+  private final ReportEntries entries;
 
   public ScannerReportReader(File dir) {
-    this.fileStructure = new FileStructure(dir);
+    FileStructure structure = new FileStructure(dir);
+    if (ReportSegments.exist(dir)) {
+      this.fileStructure = null;
+      this.entries = ReportSegments.load(dir);
+    } else {
+      this.fileStructure = structure;
+      this.entries = new ReportEntries.Directory(dir);
+    }
+  }
+
+  ScannerReportReader(ReportEntries entries) {
+    this.fileStructure = null;
+    this.entries = entries;
+  }
+
+  /**
+   * Reads the report from its zip archive, without extracting it. Only the central directory of the archive is read
+   * by this method, files of the report are decompressed when they are read.
+   * <p>
+   * The returned reader must be closed to release the archive.
+   * </p>
+   *
+   * @throws IllegalStateException if the file is not a zip archive, if it does not contain any report metadata or if
+   * the report is written in segments
+   */
+  public static ScannerReportReader openArchive(File zip) {
+    ReportEntries.Archive archive;
+    try {
+      archive = new ReportEntries.Archive(zip);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to open analysis report archive " + zip, e);
+    }
+    if (!archive.exists(FileStructure.METADATA_FILE)) {
+      IOUtils.closeQuietly(archive);
+      throw new IllegalStateException("Metadata file is missing in analysis report: " + archive.describe(FileStructure.METADATA_FILE));
+    }
+    if (archive.exists(ReportSegments.INDEX_FILE)) {
+      // chunks can not be accessed randomly in a compressed zip entry
+      IOUtils.closeQuietly(archive);
+      throw new IllegalStateException("Analysis report written in segments must be extracted: " + zip);
+    }
+    return new ScannerReportReader(archive);
   }
 
   public ScannerReport.Metadata readMetadata() {
-    File file = fileStructure.metadataFile();
-    if (!fileExists(file)) {
-      throw new IllegalStateException("Metadata file is missing in analysis report: " + file);
+    if (!entries.exists(FileStructure.METADATA_FILE)) {
+      throw new IllegalStateException("Metadata file is missing in analysis report: " + entries.describe(FileStructure.METADATA_FILE));
     }
-    return Protobuf.read(file, ScannerReport.Metadata.parser());
+    return read(FileStructure.METADATA_FILE, ScannerReport.Metadata.parser());
   }
 
   public CloseableIterator<ScannerReport.ActiveRule> readActiveRules() {
-    File file = fileStructure.activeRules();
-    if (!fileExists(file)) {
-      return emptyCloseableIterator();
-    }
-    return Protobuf.readStream(file, ScannerReport.ActiveRule.parser());
+    return readStream(FileStructure.ACTIVE_RULES_FILE, ScannerReport.ActiveRule.parser());
   }
 
   public CloseableIterator<ScannerReport.Measure> readComponentMeasures(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.MEASURES, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Measure.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.fileName(FileStructure.Domain.MEASURES, componentRef), ScannerReport.Measure.parser());
   }
 
   @CheckForNull
   public ScannerReport.Changesets readChangesets(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CHANGESETS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.read(file, ScannerReport.Changesets.parser());
+    String name = FileStructure.fileName(FileStructure.Domain.CHANGESETS, componentRef);
+    if (entries.exists(name)) {
+      return read(name, ScannerReport.Changesets.parser());
     }
     return null;
   }
 
   public ScannerReport.Component readComponent(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COMPONENT, componentRef);
-    if (!fileExists(file)) {
-      throw new IllegalStateException("Unable to find report for component #" + componentRef + ". File does not exist: " + file);
+    String name = FileStructure.fileName(FileStructure.Domain.COMPONENT, componentRef);
+    if (!entries.exists(name)) {
+      throw new IllegalStateException("Unable to find report for component #" + componentRef + ". File does not exist: " + entries.describe(name));
     }
-    return Protobuf.read(file, ScannerReport.Component.parser());
+    return read(name, ScannerReport.Component.parser());
   }
 
   public CloseableIterator<ScannerReport.Issue> readComponentIssues(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.ISSUES, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Issue.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.fileName(FileStructure.Domain.ISSUES, componentRef), ScannerReport.Issue.parser());
   }
 
   public CloseableIterator<ScannerReport.Duplication> readComponentDuplications(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.DUPLICATIONS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Duplication.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.fileName(FileStructure.Domain.DUPLICATIONS, componentRef), ScannerReport.Duplication.parser());
   }
 
   public CloseableIterator<ScannerReport.CpdTextBlock> readCpdTextBlocks(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.CpdTextBlock.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.fileName(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef), ScannerReport.CpdTextBlock.parser());
   }
 
   public CloseableIterator<ScannerReport.Symbol> readComponentSymbols(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYMBOLS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Symbol.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.fileName(FileStructure.Domain.SYMBOLS, componentRef), ScannerReport.Symbol.parser());
   }
 
   public boolean hasSyntaxHighlighting(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef);
-    return file.exists();
+    return entries.exists(FileStructure.fileName(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef));
   }
 
   public CloseableIterator<ScannerReport.SyntaxHighlightingRule> readComponentSyntaxHighlighting(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, fileRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.SyntaxHighlightingRule.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.fileName(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, fileRef), ScannerReport.SyntaxHighlightingRule.parser());
   }
 
   public boolean hasCoverage(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, componentRef);
-    return file.exists();
+    return entries.exists(FileStructure.fileName(FileStructure.Domain.COVERAGES, componentRef));
   }
 
   public CloseableIterator<ScannerReport.LineCoverage> readComponentCoverage(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, fileRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.LineCoverage.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.fileName(FileStructure.Domain.COVERAGES, fileRef), ScannerReport.LineCoverage.parser());
   }
 
+  /**
+   * Only supported by reports extracted to a directory, with one file per component and type of data, see {@link #openFileSource(int)}.
+   */
   @CheckForNull
   public File readFileSource(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SOURCE, fileRef);
-    if (fileExists(file)) {
-      return file;
-    }
-    return null;
+    return existingFile(FileStructure.fileName(FileStructure.Domain.SOURCE, fileRef));
   }
 
+  /**
+   * Only supported by reports extracted to a directory, with one file per component and type of data, see {@link #openTests(int)}.
+   */
   @CheckForNull
   public File readTests(int testFileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.TESTS, testFileRef);
-    if (fileExists(file)) {
-      return file;
+    return existingFile(FileStructure.fileName(FileStructure.Domain.TESTS, testFileRef));
+  }
+
+  /**
+   * Only supported by reports extracted to a directory, with one file per component and type of data, see {@link #openCoverageDetails(int)}.
+   */
+  @CheckForNull
+  public File readCoverageDetails(int testFileRef) {
+    return existingFile(FileStructure.fileName(FileStructure.Domain.COVERAGE_DETAILS, testFileRef));
+  }
+
+  /**
+   * Opens the source of the file, or returns {@code null} if the report does not contain it.
+   * Caller is responsible for closing the stream.
+   */
+  @CheckForNull
+  public InputStream openFileSource(int fileRef) {
+    return openIfExists(FileStructure.fileName(FileStructure.Domain.SOURCE, fileRef));
+  }
+
+  /**
+   * Opens the stream of {@link ScannerReport.Test} of the test file, or returns {@code null} if the report does not contain it.
+   * Caller is responsible for closing the stream.
+   */
+  @CheckForNull
+  public InputStream openTests(int testFileRef) {
+    return openIfExists(FileStructure.fileName(FileStructure.Domain.TESTS, testFileRef));
+  }
+
+  /**
+   * Opens the stream of {@link ScannerReport.CoverageDetail} of the test file, or returns {@code null} if the report does not contain it.
+   * Caller is responsible for closing the stream.
+   */
+  @CheckForNull
+  public InputStream openCoverageDetails(int testFileRef) {
+    return openIfExists(FileStructure.fileName(FileStructure.Domain.COVERAGE_DETAILS, testFileRef));
+  }
+
+  /**
+   * Opens the logs of the analysis, or returns {@code null} if the report does not contain them.
+   * Caller is responsible for closing the stream.
+   */
+  @CheckForNull
+  public InputStream openAnalysisLog() {
+    return openIfExists(FileStructure.ANALYSIS_LOG_FILE);
+  }
+
+  public CloseableIterator<ScannerReport.ContextProperty> readContextProperties() {
+    return readStream(FileStructure.CONTEXT_PROPERTIES_FILE, ScannerReport.ContextProperty.parser());
+  }
+
+  /**
+   * Only supported by reports extracted to a directory, with one file per component and type of data.
+   */
+  public FileStructure getFileStructure() {
+    if (fileStructure == null) {
+      throw new IllegalStateException("File structure is not available when report is read from its archive or written in segments");
     }
+    return fileStructure;
+  }
 
-    return null;
+  @Override
+  public void close() throws IOException {
+    entries.close();
   }
 
   @CheckForNull
-  public File readCoverageDetails(int testFileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGE_DETAILS, testFileRef);
-    if (fileExists(file)) {
+  private File existingFile(String name) {
+    File file = new File(getFileStructure().root(), name);
+    if (entries.exists(name)) {
       return file;
     }
-
     return null;
   }
 
-  public CloseableIterator<ScannerReport.ContextProperty> readContextProperties() {
-    File file = fileStructure.contextProperties();
-    if (!fileExists(file)) {
-      return emptyCloseableIterator();
+  @CheckForNull
+  private InputStream openIfExists(String name) {
+    if (entries.exists(name)) {
+      return open(name);
     }
-    return Protobuf.readStream(file, ScannerReport.ContextProperty.parser());
+    return null;
   }
 
-  private static boolean fileExists(File file) {
-    return file.exists() && file.isFile();
+  private <MSG extends Message> MSG read(String name, Parser<MSG> parser) {
+    // the stream is closed by Protobuf#read
+    return Protobuf.read(open(name), parser);
   }
 
-  public FileStructure getFileStructure() {
-    return fileStructure;
+  private <MSG extends Message> CloseableIterator<MSG> readStream(String name, Parser<MSG> parser) {
+    if (!entries.exists(name)) {
+      return emptyCloseableIterator();
+    }
+    // the stream is closed by the CloseableIterator
+    return Protobuf.readStream(open(name), parser);
+  }
+
+  private InputStream open(String name) {
+    try {
+      return entries.open(name);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to open " + entries.describe(name), e);
+    }
   }
 }
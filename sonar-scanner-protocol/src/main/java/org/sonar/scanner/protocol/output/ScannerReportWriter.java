@@ -19,29 +19,83 @@
  */
 package org.sonar.scanner.protocol.output;
 
+import com.google.protobuf.Message;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
+import javax.annotation.CheckForNull;
 import org.sonar.core.util.ContextException;
 import org.sonar.core.util.Protobuf;
 
+/**
+ * Writes the report to a directory, either with one file per component and type of data, or in a few segment files
+ * (see {@link Layout}).
+ */
 public class ScannerReportWriter {
 
+  public enum Layout {
+    /**
+     * One file per component and type of data
+     */
+    FILES,
+    /**
+     * Data of components are appended to a few segment files
+     */
+    SEGMENTS,
+    /**
+     * Same as {@link #SEGMENTS}, but data of each component is compressed with LZ4
+     */
+    LZ4_SEGMENTS
+  }
+
+  /**
+   * Writes data of a component to the report. The stream must not be closed.
+   */
+  @FunctionalInterface
+  public interface DataWriter {
+    void writeTo(OutputStream output) throws IOException;
+  }
+
   private final FileStructure fileStructure;
+  @CheckForNull
+  private final ReportSegments segments;
 
   public ScannerReportWriter(File dir) {
+    this(dir, Layout.FILES);
+  }
+
+  public ScannerReportWriter(File dir, Layout layout) {
     if (!dir.exists() && !dir.mkdirs()) {
       throw new IllegalStateException("Unable to create directory: " + dir);
     }
     this.fileStructure = new FileStructure(dir);
+    if (layout == Layout.FILES) {
+      this.segments = null;
+    } else {
+      this.segments = ReportSegments.create(dir, layout == Layout.LZ4_SEGMENTS, ReportSegments.DEFAULT_MAX_SEGMENT_SIZE);
+    }
   }
 
   public FileStructure getFileStructure() {
     return fileStructure;
   }
 
+  /**
+   * Reader of the data written so far
+   */
+  public ScannerReportReader newReader() {
+    if (segments == null) {
+      return new ScannerReportReader(fileStructure.root());
+    }
+    return new ScannerReportReader(segments);
+  }
+
   public boolean hasComponentData(FileStructure.Domain domain, int componentRef) {
+    if (segments != null) {
+      return segments.exists(FileStructure.fileName(domain, componentRef));
+    }
     File file = fileStructure.fileFor(domain, componentRef);
     return file.exists() && file.isFile();
   }
@@ -59,20 +113,30 @@ public class ScannerReportWriter {
     return fileStructure.metadataFile();
   }
 
+  /**
+   * The returned file does not exist when the report is written in segments. Same for all the methods writing
+   * data of components.
+   */
   public File writeComponent(ScannerReport.Component component) {
     File file = fileStructure.fileFor(FileStructure.Domain.COMPONENT, component.getRef());
-    Protobuf.write(component, file);
+    if (segments != null) {
+      segments.write(file.getName(), false, component::writeTo);
+    } else {
+      Protobuf.write(component, file);
+    }
     return file;
   }
 
   public File writeComponentIssues(int componentRef, Iterable<ScannerReport.Issue> issues) {
-    File file = fileStructure.fileFor(FileStructure.Domain.ISSUES, componentRef);
-    Protobuf.writeStream(issues, file, false);
-    return file;
+    return writeStream(FileStructure.Domain.ISSUES, componentRef, issues);
   }
 
   public void appendComponentIssue(int componentRef, ScannerReport.Issue issue) {
     File file = fileStructure.fileFor(FileStructure.Domain.ISSUES, componentRef);
+    if (segments != null) {
+      segments.write(file.getName(), true, issue::writeDelimitedTo);
+      return;
+    }
     try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file, true))) {
       issue.writeDelimitedTo(out);
     } catch (Exception e) {
@@ -81,57 +145,45 @@ public class ScannerReportWriter {
   }
 
   public File writeComponentMeasures(int componentRef, Iterable<ScannerReport.Measure> measures) {
-    File file = fileStructure.fileFor(FileStructure.Domain.MEASURES, componentRef);
-    Protobuf.writeStream(measures, file, false);
-    return file;
+    return writeStream(FileStructure.Domain.MEASURES, componentRef, measures);
   }
 
   public File writeComponentChangesets(ScannerReport.Changesets changesets) {
     File file = fileStructure.fileFor(FileStructure.Domain.CHANGESETS, changesets.getComponentRef());
-    Protobuf.write(changesets, file);
+    if (segments != null) {
+      segments.write(file.getName(), false, changesets::writeTo);
+    } else {
+      Protobuf.write(changesets, file);
+    }
     return file;
   }
 
   public File writeComponentDuplications(int componentRef, Iterable<ScannerReport.Duplication> duplications) {
-    File file = fileStructure.fileFor(FileStructure.Domain.DUPLICATIONS, componentRef);
-    Protobuf.writeStream(duplications, file, false);
-    return file;
+    return writeStream(FileStructure.Domain.DUPLICATIONS, componentRef, duplications);
   }
 
   public File writeCpdTextBlocks(int componentRef, Iterable<ScannerReport.CpdTextBlock> blocks) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef);
-    Protobuf.writeStream(blocks, file, false);
-    return file;
+    return writeStream(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef, blocks);
   }
 
   public File writeComponentSymbols(int componentRef, Iterable<ScannerReport.Symbol> symbols) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYMBOLS, componentRef);
-    Protobuf.writeStream(symbols, file, false);
-    return file;
+    return writeStream(FileStructure.Domain.SYMBOLS, componentRef, symbols);
   }
 
   public File writeComponentSyntaxHighlighting(int componentRef, Iterable<ScannerReport.SyntaxHighlightingRule> syntaxHighlightingRules) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef);
-    Protobuf.writeStream(syntaxHighlightingRules, file, false);
-    return file;
+    return writeStream(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef, syntaxHighlightingRules);
   }
 
   public File writeComponentCoverage(int componentRef, Iterable<ScannerReport.LineCoverage> coverageList) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, componentRef);
-    Protobuf.writeStream(coverageList, file, false);
-    return file;
+    return writeStream(FileStructure.Domain.COVERAGES, componentRef, coverageList);
   }
 
   public File writeTests(int componentRef, Iterable<ScannerReport.Test> tests) {
-    File file = fileStructure.fileFor(FileStructure.Domain.TESTS, componentRef);
-    Protobuf.writeStream(tests, file, false);
-    return file;
+    return writeStream(FileStructure.Domain.TESTS, componentRef, tests);
   }
 
   public File writeCoverageDetails(int componentRef, Iterable<ScannerReport.CoverageDetail> tests) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGE_DETAILS, componentRef);
-    Protobuf.writeStream(tests, file, false);
-    return file;
+    return writeStream(FileStructure.Domain.COVERAGE_DETAILS, componentRef, tests);
   }
 
   public File writeContextProperties(Iterable<ScannerReport.ContextProperty> properties) {
@@ -140,8 +192,47 @@ public class ScannerReportWriter {
     return file;
   }
 
+  public void writeComponentSource(int fileRef, DataWriter source) {
+    File file = fileStructure.fileFor(FileStructure.Domain.SOURCE, fileRef);
+    if (segments != null) {
+      segments.write(file.getName(), false, source);
+      return;
+    }
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+      source.writeTo(out);
+    } catch (IOException e) {
+      throw ContextException.of("Unable to write source", e).addContext("file", file);
+    }
+  }
+
+  /**
+   * Only supported by {@link Layout#FILES}, see {@link #writeComponentSource(int, DataWriter)}.
+   */
   public File getSourceFile(int componentRef) {
+    if (segments != null) {
+      throw new IllegalStateException("Sources are not written in separate files when report is written in segments");
+    }
     return fileStructure.fileFor(FileStructure.Domain.SOURCE, componentRef);
   }
 
+  /**
+   * Must be called once all the data of components are written, before the report is archived. Data can still be read
+   * but not written anymore.
+   */
+  public void finish() {
+    if (segments != null) {
+      segments.finish();
+    }
+  }
+
+  private <MSG extends Message> File writeStream(FileStructure.Domain domain, int componentRef, Iterable<MSG> messages) {
+    File file = fileStructure.fileFor(domain, componentRef);
+    if (segments != null) {
+      segments.write(file.getName(), false, out -> Protobuf.writeStream(messages, out));
+    } else {
+      Protobuf.writeStream(messages, file, false);
+    }
+    return file;
+  }
+
 }
@@ -0,0 +1,164 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.core.util.Protobuf;
+import org.sonar.scanner.protocol.output.ScannerReport.SegmentEntry;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class ReportSegmentsTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private File dir;
+
+  @Before
+  public void setUp() throws Exception {
+    dir = temp.newFolder();
+  }
+
+  @Test
+  public void read_files_while_writing() throws Exception {
+    ReportSegments underTest = ReportSegments.create(dir, false, ReportSegments.DEFAULT_MAX_SEGMENT_SIZE);
+
+    underTest.write("a", false, out -> out.write("content of a".getBytes(UTF_8)));
+    underTest.write("b", false, out -> out.write("content of b".getBytes(UTF_8)));
+
+    assertThat(underTest.exists("a")).isTrue();
+    assertThat(underTest.exists("c")).isFalse();
+    assertThat(read(underTest, "a")).isEqualTo("content of a");
+    assertThat(read(underTest, "b")).isEqualTo("content of b");
+  }
+
+  @Test
+  public void replace_or_append_to_existing_file() throws Exception {
+    ReportSegments underTest = ReportSegments.create(dir, true, ReportSegments.DEFAULT_MAX_SEGMENT_SIZE);
+
+    underTest.write("a", false, out -> out.write("first".getBytes(UTF_8)));
+    underTest.write("a", false, out -> out.write("second".getBytes(UTF_8)));
+    underTest.write("a", true, out -> out.write(" and third".getBytes(UTF_8)));
+
+    assertThat(read(underTest, "a")).isEqualTo("second and third");
+  }
+
+  @Test
+  public void consecutive_appends_to_a_file_are_written_in_a_single_chunk() throws Exception {
+    ReportSegments underTest = ReportSegments.create(dir, true, ReportSegments.DEFAULT_MAX_SEGMENT_SIZE);
+
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 1_000; i++) {
+      String issue = "issue " + i + ",";
+      expected.append(issue);
+      underTest.write("a", true, out -> out.write(issue.getBytes(UTF_8)));
+    }
+    underTest.write("b", false, out -> out.write("content of b".getBytes(UTF_8)));
+    underTest.write("a", true, out -> out.write("last issue".getBytes(UTF_8)));
+    expected.append("last issue");
+    underTest.finish();
+
+    assertThat(chunksByName()).containsOnly(entry("a", 2), entry("b", 1));
+    assertThat(read(ReportSegments.load(dir), "a")).isEqualTo(expected.toString());
+  }
+
+  @Test
+  public void appended_chunk_is_closed_when_file_is_read() throws Exception {
+    ReportSegments underTest = ReportSegments.create(dir, true, ReportSegments.DEFAULT_MAX_SEGMENT_SIZE);
+
+    underTest.write("a", true, out -> out.write("first".getBytes(UTF_8)));
+    assertThat(underTest.exists("a")).isTrue();
+    assertThat(read(underTest, "a")).isEqualTo("first");
+    underTest.write("a", true, out -> out.write(" and second".getBytes(UTF_8)));
+    assertThat(read(underTest, "a")).isEqualTo("first and second");
+    underTest.finish();
+
+    assertThat(chunksByName()).containsOnly(entry("a", 2));
+  }
+
+  @Test
+  public void load_index_of_finished_segments() throws Exception {
+    ReportSegments segments = ReportSegments.create(dir, true, 10);
+    segments.write("a", false, out -> out.write("content of a".getBytes(UTF_8)));
+    segments.write("b", false, out -> out.write("content of b".getBytes(UTF_8)));
+    segments.write("a", true, out -> out.write(", appended".getBytes(UTF_8)));
+    assertThat(ReportSegments.exist(dir)).isFalse();
+
+    segments.finish();
+
+    assertThat(ReportSegments.exist(dir)).isTrue();
+    // segments are rotated when greater than 10 bytes
+    assertThat(new File(dir, "segment-2.dat")).isFile();
+    ReportSegments underTest = ReportSegments.load(dir);
+    assertThat(read(underTest, "a")).isEqualTo("content of a, appended");
+    assertThat(read(underTest, "b")).isEqualTo("content of b");
+  }
+
+  @Test
+  public void read_files_which_are_not_in_segments_from_directory() throws Exception {
+    ReportSegments underTest = ReportSegments.create(dir, false, ReportSegments.DEFAULT_MAX_SEGMENT_SIZE);
+    FileUtils.write(new File(dir, "metadata.pb"), "metadata", UTF_8);
+
+    assertThat(underTest.exists("metadata.pb")).isTrue();
+    assertThat(read(underTest, "metadata.pb")).isEqualTo("metadata");
+  }
+
+  @Test
+  public void fail_to_write_when_finished() {
+    ReportSegments underTest = ReportSegments.create(dir, false, ReportSegments.DEFAULT_MAX_SEGMENT_SIZE);
+    underTest.finish();
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("segments of report are finished");
+
+    underTest.write("a", false, out -> out.write(1));
+  }
+
+  private Map<String, Integer> chunksByName() {
+    Map<String, Integer> chunksByName = new HashMap<>();
+    try (CloseableIterator<SegmentEntry> it = Protobuf.readStream(new File(dir, ReportSegments.INDEX_FILE), SegmentEntry.parser())) {
+      it.forEachRemaining(entry -> chunksByName.put(entry.getName(), entry.getChunkCount()));
+    }
+    return chunksByName;
+  }
+
+  private static String read(ReportSegments segments, String name) throws IOException {
+    try (InputStream input = segments.open(name)) {
+      return IOUtils.toString(input, UTF_8);
+    }
+  }
+}
@@ -22,12 +22,16 @@ package org.sonar.scanner.protocol.output;
 import com.google.common.collect.Lists;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.scanner.protocol.output.ScannerReport.Measure.StringValue;
@@ -45,6 +49,9 @@ public class ScannerReportReaderTest {
   @Rule
   public TemporaryFolder temp = new TemporaryFolder();
 
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
   File dir;
 
   ScannerReportReader underTest;
@@ -377,4 +384,141 @@ public class ScannerReportReaderTest {
   public void return_null_when_no_file_source() throws Exception {
     assertThat(underTest.readFileSource(UNKNOWN_COMPONENT_REF)).isNull();
   }
+
+  @Test
+  public void open_file_source() throws Exception {
+    ScannerReportWriter writer = new ScannerReportWriter(dir);
+    try (FileOutputStream outputStream = new FileOutputStream(writer.getSourceFile(1))) {
+      IOUtils.write("line1\nline2", outputStream);
+    }
+
+    try (InputStream inputStream = underTest.openFileSource(1)) {
+      assertThat(IOUtils.readLines(inputStream)).containsOnly("line1", "line2");
+    }
+    assertThat(underTest.openFileSource(UNKNOWN_COMPONENT_REF)).isNull();
+  }
+
+  @Test
+  public void read_report_from_archive() throws Exception {
+    ScannerReportWriter writer = new ScannerReportWriter(dir);
+    writer.writeMetadata(ScannerReport.Metadata.newBuilder().setProjectKey("PROJECT_A").build());
+    writer.writeComponent(ScannerReport.Component.newBuilder().setRef(1).build());
+    writer.writeComponentIssues(1, singletonList(ScannerReport.Issue.newBuilder().setRuleKey("rule").build()));
+    try (FileOutputStream outputStream = new FileOutputStream(writer.getSourceFile(1))) {
+      IOUtils.write("line1\nline2", outputStream);
+    }
+    File zip = zip(dir);
+
+    try (ScannerReportReader archiveReader = ScannerReportReader.openArchive(zip)) {
+      assertThat(archiveReader.readMetadata().getProjectKey()).isEqualTo("PROJECT_A");
+      assertThat(archiveReader.readComponent(1).getRef()).isEqualTo(1);
+      try (CloseableIterator<ScannerReport.Issue> issues = archiveReader.readComponentIssues(1)) {
+        assertThat(issues.next().getRuleKey()).isEqualTo("rule");
+        assertThat(issues.hasNext()).isFalse();
+      }
+      assertThat(archiveReader.readComponentIssues(UNKNOWN_COMPONENT_REF).hasNext()).isFalse();
+      assertThat(archiveReader.readChangesets(1)).isNull();
+      try (InputStream inputStream = archiveReader.openFileSource(1)) {
+        assertThat(IOUtils.readLines(inputStream)).containsOnly("line1", "line2");
+      }
+      assertThat(archiveReader.openTests(1)).isNull();
+    }
+  }
+
+  @Test
+  public void read_report_written_in_segments() throws Exception {
+    ScannerReportWriter writer = new ScannerReportWriter(dir, ScannerReportWriter.Layout.LZ4_SEGMENTS);
+    writer.writeMetadata(ScannerReport.Metadata.newBuilder().setProjectKey("PROJECT_A").build());
+    writer.writeComponent(ScannerReport.Component.newBuilder().setRef(1).build());
+    writer.appendComponentIssue(1, ScannerReport.Issue.newBuilder().setRuleKey("rule1").build());
+    writer.appendComponentIssue(1, ScannerReport.Issue.newBuilder().setRuleKey("rule2").build());
+    writer.writeComponentSource(1, out -> IOUtils.write("line1\nline2", out));
+    writer.finish();
+
+    underTest = new ScannerReportReader(dir);
+    assertThat(underTest.readMetadata().getProjectKey()).isEqualTo("PROJECT_A");
+    assertThat(underTest.readComponent(1).getRef()).isEqualTo(1);
+    try (CloseableIterator<ScannerReport.Issue> issues = underTest.readComponentIssues(1)) {
+      assertThat(issues).extracting(ScannerReport.Issue::getRuleKey).containsExactly("rule1", "rule2");
+    }
+    assertThat(underTest.readComponentIssues(UNKNOWN_COMPONENT_REF).hasNext()).isFalse();
+    try (InputStream inputStream = underTest.openFileSource(1)) {
+      assertThat(IOUtils.readLines(inputStream)).containsExactly("line1", "line2");
+    }
+    assertThat(new File(dir, "component-1.pb")).doesNotExist();
+  }
+
+  @Test
+  public void openArchive_fails_if_report_is_written_in_segments() throws Exception {
+    ScannerReportWriter writer = new ScannerReportWriter(dir, ScannerReportWriter.Layout.SEGMENTS);
+    writer.writeMetadata(ScannerReport.Metadata.newBuilder().build());
+    writer.finish();
+    File zip = zip(dir);
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Analysis report written in segments must be extracted: " + zip);
+
+    ScannerReportReader.openArchive(zip);
+  }
+
+  @Test
+  public void fail_to_read_missing_component_from_archive() throws Exception {
+    new ScannerReportWriter(dir).writeMetadata(ScannerReport.Metadata.newBuilder().build());
+    File zip = zip(dir);
+
+    try (ScannerReportReader archiveReader = ScannerReportReader.openArchive(zip)) {
+      thrown.expect(IllegalStateException.class);
+      thrown.expectMessage("Unable to find report for component #1. File does not exist: " + zip + "!/component-1.pb");
+
+      archiveReader.readComponent(1);
+    }
+  }
+
+  @Test
+  public void file_structure_is_not_available_on_archive() throws Exception {
+    new ScannerReportWriter(dir).writeMetadata(ScannerReport.Metadata.newBuilder().build());
+
+    try (ScannerReportReader archiveReader = ScannerReportReader.openArchive(zip(dir))) {
+      thrown.expect(IllegalStateException.class);
+      thrown.expectMessage("File structure is not available when report is read from its archive");
+
+      archiveReader.getFileStructure();
+    }
+  }
+
+  @Test
+  public void openArchive_fails_if_file_is_not_a_zip() throws Exception {
+    File file = temp.newFile();
+    FileUtils.write(file, "not a zip");
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Fail to open analysis report archive " + file);
+
+    ScannerReportReader.openArchive(file);
+  }
+
+  @Test
+  public void openArchive_fails_if_archive_has_no_metadata() throws Exception {
+    File zip = zip(dir);
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Metadata file is missing in analysis report: " + zip + "!/metadata.pb");
+
+    ScannerReportReader.openArchive(zip);
+  }
+
+  private File zip(File reportDir) throws IOException {
+    File zip = temp.newFile("report.zip");
+    try (ZipOutputStream zipOutput = new ZipOutputStream(new FileOutputStream(zip))) {
+      File[] files = reportDir.listFiles();
+      if (files != null) {
+        for (File file : files) {
+          zipOutput.putNextEntry(new ZipEntry(file.getName()));
+          FileUtils.copyFile(file, zipOutput);
+          zipOutput.closeEntry();
+        }
+      }
+    }
+    return zip;
+  }
 }
@@ -299,4 +299,18 @@ public class ScannerReportWriterTest {
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.COVERAGE_DETAILS, 1)).isTrue();
   }
+
+  @Test
+  public void write_data_of_components_in_segments() throws Exception {
+    underTest = new ScannerReportWriter(dir, ScannerReportWriter.Layout.SEGMENTS);
+    assertThat(underTest.hasComponentData(FileStructure.Domain.MEASURES, 1)).isFalse();
+
+    underTest.writeComponentMeasures(1, asList(ScannerReport.Measure.newBuilder().setMetricKey("ncloc").build()));
+
+    assertThat(underTest.hasComponentData(FileStructure.Domain.MEASURES, 1)).isTrue();
+    assertThat(underTest.getFileStructure().fileFor(FileStructure.Domain.MEASURES, 1)).doesNotExist();
+    try (CloseableIterator<ScannerReport.Measure> measures = underTest.newReader().readComponentMeasures(1)) {
+      assertThat(measures.next().getMetricKey()).isEqualTo("ncloc");
+    }
+  }
 }